@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer supporting many producers and a single consumer.
+ * <p>
+ * Each slot carries a sequence number, producers claim a position by incrementing the shared tail and publish the element
+ * by advancing the sequence of its slot, the consumer only ever reads slots which have been published.
+ *
+ * @param <E> the element type
+ */
+final class BoundedEventQueue<E> {
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Only accessed by the consumer thread.
+     */
+    private long head;
+
+    BoundedEventQueue(int capacity) {
+        // a single slot can not tell a published element from a free slot one lap ahead
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Add an element to the queue, may be called concurrently by any number of threads.
+     *
+     * @param element the element to add
+     * @return {@code true} if the element was added, {@code false} if the queue is full
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        for (;;) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the next published element, must only be called by the single consumer thread.
+     *
+     * @return the next element or {@code null} if no element is available
+     */
+    E poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return element;
+    }
+
+    /**
+     * Check if there is no published element available, must only be called by the single consumer thread.
+     *
+     * @return {@code true} if no element is available
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
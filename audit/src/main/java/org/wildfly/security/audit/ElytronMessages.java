@@ -81,4 +81,8 @@ interface ElytronMessages extends BasicLogger {
     @Message(id = 12003, value = "The reconnect attempts value of %s is invalid. Please use an integer value >= -1.")
     IllegalArgumentException badReconnectAttemptsNumber(int reconnectAttempts);
 
+    @LogMessage(level = Logger.Level.ERROR)
+    @Message(id = 12004, value = "Unable to write queued audit events to the file")
+    void unableToWriteAuditEvents(@Cause Throwable cause);
+
 }
@@ -17,6 +17,7 @@
  */
 package org.wildfly.security.audit;
 
+import static org.wildfly.common.Assert.checkMinimumParameter;
 import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.audit.ElytronMessages.audit;
 
@@ -28,6 +29,8 @@ import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Clock;
@@ -35,10 +38,19 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 
 /**
  * An audit endpoint to record all audit events to a local file.
+ * <p>
+ * By default events are written, flushed and synchronized by the accepting thread. When the endpoint is
+ * {@linkplain Builder#setAsynchronous(boolean) asynchronous}, accepting threads only enqueue events into a bounded
+ * lock-free queue and a single writer thread appends them to the file in batches, synchronizing the file once per batch or
+ * at most once per {@linkplain Builder#setSyncInterval(long, TimeUnit) sync interval}.
  *
  * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
  */
@@ -46,6 +58,8 @@ public class FileAuditEndpoint implements AuditEndpoint {
 
     private static final byte[] LINE_TERMINATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
 
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
     private volatile boolean accepting = true;
 
     private final Supplier<DateTimeFormatter> dateTimeFormatterSupplier;
@@ -54,15 +68,41 @@ public class FileAuditEndpoint implements AuditEndpoint {
 
     private File file;
     private FileDescriptor fileDescriptor;
+    private FileChannel fileChannel;
     private OutputStream outputStream;
     /**  Clock providing access to current time. */
     protected final Clock clock;
 
+    // asynchronous mode only
+
+    private final BoundedEventQueue<QueuedEvent> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final long syncIntervalNanos;
+    private final ByteBuffer batchBuffer;
+    private final Thread writer;
+    private final AtomicBoolean writerStarted = new AtomicBoolean();
+    private final LongAdder discardedEvents = new LongAdder();
+    private volatile boolean writerWaiting;
+
     FileAuditEndpoint(Builder builder) throws IOException {
         this.dateTimeFormatterSupplier = builder.dateTimeFormatterSupplier;
         this.syncOnAccept = builder.syncOnAccept;
         this.flushOnAccept = builder.flushOnAccept;
         this.clock = builder.clock;
+        if (builder.asynchronous) {
+            this.queue = new BoundedEventQueue<>(builder.queueSize);
+            this.overflowPolicy = builder.overflowPolicy;
+            this.syncIntervalNanos = builder.syncIntervalNanos;
+            this.batchBuffer = ByteBuffer.allocateDirect(builder.bufferSize);
+            this.writer = new Thread(this::writeQueuedEvents, "Elytron audit writer - " + builder.location.getFileName());
+            this.writer.setDaemon(true);
+        } else {
+            this.queue = null;
+            this.overflowPolicy = null;
+            this.syncIntervalNanos = 0;
+            this.batchBuffer = null;
+            this.writer = null;
+        }
         setFile(builder.location.toFile());
     }
 
@@ -73,6 +113,7 @@ public class FileAuditEndpoint implements AuditEndpoint {
             final OutputStream bos = new BufferedOutputStream(fos);
             try {
                 this.fileDescriptor = fos.getFD();
+                this.fileChannel = fos.getChannel();
                 this.outputStream = bos;
                 this.file = file;
                 ok = true;
@@ -110,7 +151,33 @@ public class FileAuditEndpoint implements AuditEndpoint {
      * @param bytes the data to be written into the target local file
      */
     void write(byte[] bytes) throws IOException {
-        outputStream.write(bytes);
+        if (batchBuffer == null) {
+            outputStream.write(bytes);
+            return;
+        }
+        if (bytes.length > batchBuffer.remaining()) {
+            drainBatchBuffer();
+            if (bytes.length > batchBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        batchBuffer.put(bytes);
+    }
+
+    private void drainBatchBuffer() throws IOException {
+        batchBuffer.flip();
+        try {
+            writeFully(batchBuffer);
+        } finally {
+            batchBuffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
     }
 
     /**
@@ -138,6 +205,25 @@ public class FileAuditEndpoint implements AuditEndpoint {
         if (!accepting) return;
         Instant instant = clock.instant();
 
+        if (queue != null) {
+            enqueue(new QueuedEvent(instant, priority, message));
+            return;
+        }
+
+        byte[] toWrite = format(instant, priority, message);
+
+        synchronized(this) {
+            if (!accepting) return; // We may have been waiting to get in here.
+
+            preWrite(instant);
+            write(toWrite);
+
+            if (flushOnAccept) outputStream.flush();
+            if (syncOnAccept) fileDescriptor.sync();
+        }
+    }
+
+    private byte[] format(Instant instant, EventPriority priority, String message) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         baos.write(dateTimeFormatterSupplier.get().format(instant).getBytes(StandardCharsets.UTF_8));
         baos.write(',');
@@ -145,23 +231,118 @@ public class FileAuditEndpoint implements AuditEndpoint {
         baos.write(',');
         baos.write(message.getBytes(StandardCharsets.UTF_8));
         baos.write(LINE_TERMINATOR);
-        byte[] toWrite = baos.toByteArray();
+        return baos.toByteArray();
+    }
 
-        synchronized(this) {
-            if (!accepting) return; // We may have been waiting to get in here.
+    private void enqueue(QueuedEvent event) {
+        if (! writerStarted.get() && writerStarted.compareAndSet(false, true)) {
+            writer.start();
+        }
 
-            preWrite(instant);
-            write(toWrite);
+        while (! queue.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DISCARD) {
+                discardedEvents.increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+            if (! accepting) return;
+        }
 
-            if (flushOnAccept) outputStream.flush();
-            if (syncOnAccept) fileDescriptor.sync();
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
         }
     }
 
+    /**
+     * The body of the writer thread used in asynchronous mode, drains the queue in batches until the endpoint is closed.
+     */
+    private void writeQueuedEvents() {
+        long lastSync = System.nanoTime();
+        boolean unsynced = false;
+        for (;;) {
+            QueuedEvent event = queue.poll();
+            if (event != null) {
+                synchronized (this) {
+                    try {
+                        do {
+                            preWrite(event.instant);
+                            write(format(event.instant, event.priority, event.message));
+                        } while ((event = queue.poll()) != null);
+                        if (flushOnAccept) drainBatchBuffer();
+                        unsynced = true;
+                    } catch (IOException e) {
+                        audit.unableToWriteAuditEvents(e);
+                    }
+                }
+            }
+
+            if (unsynced && syncOnAccept) {
+                long now = System.nanoTime();
+                long remaining = syncIntervalNanos - (now - lastSync);
+                if (remaining <= 0 || ! accepting) {
+                    synchronized (this) {
+                        try {
+                            drainBatchBuffer();
+                            // the file size is persisted by force(false) as well, all other metadata is irrelevant here
+                            fileChannel.force(false);
+                        } catch (IOException e) {
+                            audit.unableToWriteAuditEvents(e);
+                        }
+                    }
+                    lastSync = now;
+                    unsynced = false;
+                } else if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                continue;
+            }
+
+            if (queue.isEmpty()) {
+                if (! accepting) {
+                    return;
+                }
+                writerWaiting = true;
+                if (queue.isEmpty() && accepting) {
+                    LockSupport.park(this);
+                }
+                writerWaiting = false;
+            }
+        }
+    }
+
+    /**
+     * Get the number of events discarded because the queue was full, only applicable to asynchronous endpoints using
+     * the {@link OverflowPolicy#DISCARD} policy.
+     *
+     * @return the number of discarded events
+     */
+    public long getDiscardedEventCount() {
+        return discardedEvents.sum();
+    }
+
     @Override
     public void close() throws IOException {
         accepting = false;
 
+        if (writer != null && writerStarted.get()) {
+            LockSupport.unpark(writer);
+            boolean interrupted = false;
+            try {
+                while (writer.isAlive()) {
+                    try {
+                        writer.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
         synchronized (this) {
             closeStreams();
         }
@@ -172,6 +353,9 @@ public class FileAuditEndpoint implements AuditEndpoint {
      * Must be called in synchronized block together with reopening using {@code setFile()}.
      */
     void closeStreams() throws IOException {
+        if (batchBuffer != null) {
+            drainBatchBuffer();
+        }
         outputStream.flush();
         fileDescriptor.sync();
         outputStream.close();
@@ -197,6 +381,11 @@ public class FileAuditEndpoint implements AuditEndpoint {
         private boolean syncOnAccept = true;
         private boolean flushOnAccept = true;
         private boolean flushSet = false;
+        private boolean asynchronous = false;
+        private int queueSize = 8192;
+        private int bufferSize = 65536;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private long syncIntervalNanos = 0;
 
         Builder() {
         }
@@ -255,6 +444,79 @@ public class FileAuditEndpoint implements AuditEndpoint {
             return this;
         }
 
+        /**
+         * Sets if events should be written asynchronously. When enabled, accepting threads only place events into a
+         * bounded queue and a single writer thread appends them to the file in batches, so that flushing and
+         * synchronization of the output happen once per batch rather than once per event. Disabled by default.
+         *
+         * @param asynchronous should events be written asynchronously.
+         * @return this builder.
+         */
+        public Builder setAsynchronous(boolean asynchronous) {
+            this.asynchronous = asynchronous;
+
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of events waiting to be written when the endpoint is asynchronous, rounded up to the
+         * next power of two. Defaults to {@code 8192}.
+         *
+         * @param queueSize the maximum number of queued events.
+         * @return this builder.
+         */
+        public Builder setQueueSize(int queueSize) {
+            checkMinimumParameter("queueSize", 1, queueSize);
+            this.queueSize = queueSize;
+
+            return this;
+        }
+
+        /**
+         * Sets the size in bytes of the buffer events are batched into before being written to the file when the endpoint
+         * is asynchronous. Defaults to {@code 65536}.
+         *
+         * @param bufferSize the size of the batch buffer in bytes.
+         * @return this builder.
+         */
+        public Builder setBufferSize(int bufferSize) {
+            checkMinimumParameter("bufferSize", 1, bufferSize);
+            this.bufferSize = bufferSize;
+
+            return this;
+        }
+
+        /**
+         * Sets what should happen to new events when the queue of an asynchronous endpoint is full.
+         * Defaults to {@link OverflowPolicy#BLOCK}.
+         *
+         * @param overflowPolicy the policy to apply when the queue is full.
+         * @return this builder.
+         */
+        public Builder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = checkNotNullParam("overflowPolicy", overflowPolicy);
+
+            return this;
+        }
+
+        /**
+         * Sets the minimum time between two synchronizations of the system output buffers when the endpoint is
+         * asynchronous and synchronization is enabled. Events accepted in the meantime are written but synchronized
+         * together once the interval elapses. Defaults to {@code 0}, meaning every batch is synchronized as soon as it
+         * has been written.
+         *
+         * @param syncInterval the minimum time between two synchronizations.
+         * @param timeUnit the unit of {@code syncInterval}.
+         * @return this builder.
+         */
+        public Builder setSyncInterval(long syncInterval, TimeUnit timeUnit) {
+            checkMinimumParameter("syncInterval", 0, syncInterval);
+            checkNotNullParam("timeUnit", timeUnit);
+            this.syncIntervalNanos = timeUnit.toNanos(syncInterval);
+
+            return this;
+        }
+
         /**
          * Sets the {@link Clock} instance the resulting {@link FileAuditEndpoint} should use to query the current time.
          * For testing purposes only, therefore package visible.
@@ -279,4 +541,30 @@ public class FileAuditEndpoint implements AuditEndpoint {
 
     }
 
+    /**
+     * The policies available when an event is accepted while the queue of an asynchronous endpoint is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The accepting thread waits until the writer thread has made room in the queue.
+         */
+        BLOCK,
+        /**
+         * The event is dropped and counted, see {@link FileAuditEndpoint#getDiscardedEventCount()}.
+         */
+        DISCARD,
+    }
+
+    private static final class QueuedEvent {
+        final Instant instant;
+        final EventPriority priority;
+        final String message;
+
+        QueuedEvent(Instant instant, EventPriority priority, String message) {
+            this.instant = instant;
+            this.priority = priority;
+            this.message = message;
+        }
+    }
+
 }
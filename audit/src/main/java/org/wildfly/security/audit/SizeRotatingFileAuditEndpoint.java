@@ -25,7 +25,6 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 
 import static org.wildfly.common.Assert.checkNotNullParam;
@@ -62,7 +61,7 @@ public class SizeRotatingFileAuditEndpoint extends FileAuditEndpoint {
 
         final File file = getFile();
         if (rotateOnBoot && maxBackupIndex > 0 && file != null && file.exists() && file.length() > 0L) {
-            rotate(file);
+            rotate(file, clock.instant());
         }
     }
 
@@ -81,7 +80,7 @@ public class SizeRotatingFileAuditEndpoint extends FileAuditEndpoint {
                     // no file is set; a direct output stream or writer was specified
                     return;
                 }
-                rotate(file);
+                rotate(file, instant);
                 currentSize = 0;
             } catch (IOException e) {
                 audit.unableToRotateLogFile(e);
@@ -91,10 +90,12 @@ public class SizeRotatingFileAuditEndpoint extends FileAuditEndpoint {
 
     /**
      * Moves file to file.1, file.1 to file.2 etc. Removes file.{maxBackupIndex}
+     *
+     * @param instant the time used to compute the suffix, for asynchronous endpoints the instant the event was accepted
      */
-    private void rotate(final File file) throws IOException {
+    private void rotate(final File file, final Instant instant) throws IOException {
         closeStreams();
-        final String suffix = dateTimeFormatter != null ? dateTimeFormatter.format(ZonedDateTime.now(clock)) : "";
+        final String suffix = dateTimeFormatter != null ? dateTimeFormatter.format(instant) : "";
         final Path fileWithSuffix = Paths.get(file.getAbsolutePath() + suffix);
         Files.deleteIfExists(Paths.get(fileWithSuffix + "." + maxBackupIndex));
         for (int i = maxBackupIndex - 1; i >= 1; i--) {
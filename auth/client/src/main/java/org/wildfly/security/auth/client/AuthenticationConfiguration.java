@@ -47,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -119,11 +120,9 @@ import org.wildfly.security.sasl.util.FilterMechanismSaslClientFactory;
 import org.wildfly.security.sasl.util.LocalPrincipalSaslClientFactory;
 import org.wildfly.security.sasl.util.PrivilegedSaslClientFactory;
 import org.wildfly.security.sasl.util.PropertiesSaslClientFactory;
-import org.wildfly.security.sasl.util.ProtocolSaslClientFactory;
 import org.wildfly.security.sasl.util.SSLSaslClientFactory;
 import org.wildfly.security.sasl.util.SaslMechanismInformation;
 import org.wildfly.security.sasl.util.SecurityProviderSaslClientFactory;
-import org.wildfly.security.sasl.util.ServerNameSaslClientFactory;
 import org.wildfly.security.ssl.SSLConnection;
 import org.wildfly.security.ssl.SSLUtils;
 import org.wildfly.security.x500.TrustedAuthority;
@@ -140,6 +139,7 @@ public final class AuthenticationConfiguration {
     private static final Principal[] NO_PRINCIPALS = new Principal[0];
     private static final Callback[] NO_CALLBACKS = new Callback[0];
     private static final String[] NO_STRINGS = new String[0];
+    private static final int MAX_SASL_MECHANISM_SELECTIONS = 16;
 
     private static final EnumSet<CallbackKind> NO_CALLBACK_KINDS = EnumSet.noneOf(CallbackKind.class);
 
@@ -202,6 +202,8 @@ public final class AuthenticationConfiguration {
     }
 
     private volatile SaslClientFactory saslClientFactory = null;
+    private volatile SaslClientPipeline saslClientPipeline;
+    private final ConcurrentHashMap<SaslMechanismSelection, List<String>> saslMechanismSelections = new ConcurrentHashMap<>();
     private int hashCode;
     private String toString;
 
@@ -1495,57 +1497,34 @@ public final class AuthenticationConfiguration {
     }
 
     SaslClient createSaslClient(URI uri, Collection<String> serverMechanisms, UnaryOperator<SaslClientFactory> factoryOperator, SSLSession sslSession) throws SaslException {
-        SaslClientFactory saslClientFactory = factoryOperator.apply(getSaslClientFactory());
-        final SaslMechanismSelector selector = this.saslMechanismSelector;
-        serverMechanisms = (selector == null ? SaslMechanismSelector.DEFAULT : selector).apply(serverMechanisms, sslSession);
+        serverMechanisms = selectSaslMechanisms(serverMechanisms, sslSession);
         if (serverMechanisms.isEmpty()) {
             return null;
         }
         final Principal authorizationPrincipal = getAuthorizationPrincipal();
-        final Predicate<String> filter;
+        final boolean anonymousOnly;
         final String authzName;
         if (authorizationPrincipal == null) {
-            filter = this::saslSupportedByConfiguration;
+            anonymousOnly = false;
             authzName = null;
         } else if (authorizationPrincipal instanceof NamePrincipal) {
-            filter = this::saslSupportedByConfiguration;
+            anonymousOnly = false;
             authzName = authorizationPrincipal.getName();
         } else if (authorizationPrincipal instanceof AnonymousPrincipal) {
-            filter = ((Predicate<String>) this::saslSupportedByConfiguration).and("ANONYMOUS"::equals);
+            anonymousOnly = true;
             authzName = null;
         } else {
             return null;
         }
-        Map<String, ?> mechanismProperties = this.saslMechanismProperties;
-        if (! mechanismProperties.isEmpty()) {
-            mechanismProperties = new HashMap<>(mechanismProperties);
-            // special handling for JBOSS-LOCAL-USER quiet auth... only pass it through if we have a user callback
-            if (! userCallbackKinds.contains(CallbackKind.PRINCIPAL) && principal != AnonymousPrincipal.getInstance()) {
-                mechanismProperties.remove(JBOSS_LOCAL_USER_QUIET_AUTH);
-                mechanismProperties.remove(JBOSS_LOCAL_USER_LEGACY_QUIET_AUTH);
-            }
-            if (! mechanismProperties.isEmpty()) {
-                saslClientFactory = new PropertiesSaslClientFactory(saslClientFactory, mechanismProperties);
-            }
-        }
-        String host = uri.getHost();
-        if (host != null) {
-            saslClientFactory = new ServerNameSaslClientFactory(saslClientFactory, host);
+        SaslClientPipeline pipeline = this.saslClientPipeline;
+        if (pipeline == null || pipeline.factoryOperator != factoryOperator) {
+            this.saslClientPipeline = pipeline = new SaslClientPipeline(factoryOperator);
         }
-        String protocol = getSaslProtocol();
-        if (protocol != null) {
-            saslClientFactory = new ProtocolSaslClientFactory(saslClientFactory, protocol);
-        }
-        if (sslSession != null) {
-            saslClientFactory = new SSLSaslClientFactory(() -> SSLConnection.forSession(sslSession, true), saslClientFactory);
-        }
-        saslClientFactory = new LocalPrincipalSaslClientFactory(new FilterMechanismSaslClientFactory(saslClientFactory, filter));
-        final SaslClientFactory finalSaslClientFactory = saslClientFactory;
-        saslClientFactory = WILDFLY_ELYTRON_CAPTURE_ACCESS_CONTROL_CONTEXT_PROPERTY ? doPrivileged((PrivilegedAction<PrivilegedSaslClientFactory>) () -> new PrivilegedSaslClientFactory(finalSaslClientFactory), capturedAccessContext) :
-                new PrivilegedSaslClientFactory(finalSaslClientFactory);
-
+        final SaslClientFactory saslClientFactory = pipeline.getFactory(anonymousOnly, sslSession);
+        // the server name and protocol are passed directly instead of being applied by wrapping factories
+        final String protocol = getSaslProtocol();
         SaslClient saslClient = saslClientFactory.createSaslClient(serverMechanisms.toArray(NO_STRINGS),
-                authzName, uri.getScheme(), uri.getHost(), Collections.emptyMap(), createCallbackHandler());
+                authzName, protocol != null ? protocol : uri.getScheme(), uri.getHost(), Collections.emptyMap(), createCallbackHandler());
 
         if (log.isTraceEnabled()) {
             log.tracef("Created SaslClient [%s] for mechanisms %s", saslClient, Arrays2.objectToString(serverMechanisms));
@@ -1553,6 +1532,21 @@ public final class AuthenticationConfiguration {
         return saslClient;
     }
 
+    private List<String> selectSaslMechanisms(Collection<String> serverMechanisms, SSLSession sslSession) {
+        final SaslMechanismSelector selector = this.saslMechanismSelector;
+        // the selection only depends on the offered mechanisms and on whether SSL is active
+        final SaslMechanismSelection selection = new SaslMechanismSelection(new ArrayList<>(serverMechanisms), sslSession != null);
+        List<String> selected = saslMechanismSelections.get(selection);
+        if (selected == null) {
+            selected = Collections.unmodifiableList((selector == null ? SaslMechanismSelector.DEFAULT : selector).apply(serverMechanisms, sslSession));
+            if (saslMechanismSelections.size() >= MAX_SASL_MECHANISM_SELECTIONS) {
+                saslMechanismSelections.clear();
+            }
+            saslMechanismSelections.put(selection, selected);
+        }
+        return selected;
+    }
+
     CallbackHandler createCallbackHandler() {
         return new ClientCallbackHandler(this);
     }
@@ -1719,6 +1713,82 @@ public final class AuthenticationConfiguration {
 
     // interfaces
 
+    /**
+     * The SASL client factories of this configuration for a factory operator.  Everything which only depends on the
+     * configuration is assembled once; only the SSL session of a connection, which provides channel binding, is applied
+     * for each connection, along with the access control context of the caller unless the context is captured.
+     */
+    final class SaslClientPipeline {
+        final UnaryOperator<SaslClientFactory> factoryOperator;
+        private final SaslClientFactory filtered;
+        private final SaslClientFactory filteredAnonymous;
+        private final SaslClientFactory withoutSsl;
+        private final SaslClientFactory withoutSslAnonymous;
+
+        SaslClientPipeline(final UnaryOperator<SaslClientFactory> factoryOperator) {
+            this.factoryOperator = factoryOperator;
+            SaslClientFactory saslClientFactory = factoryOperator.apply(getSaslClientFactory());
+            Map<String, ?> mechanismProperties = saslMechanismProperties;
+            if (! mechanismProperties.isEmpty()) {
+                mechanismProperties = new HashMap<>(mechanismProperties);
+                // special handling for JBOSS-LOCAL-USER quiet auth... only pass it through if we have a user callback
+                if (! userCallbackKinds.contains(CallbackKind.PRINCIPAL) && principal != AnonymousPrincipal.getInstance()) {
+                    mechanismProperties.remove(JBOSS_LOCAL_USER_QUIET_AUTH);
+                    mechanismProperties.remove(JBOSS_LOCAL_USER_LEGACY_QUIET_AUTH);
+                }
+                if (! mechanismProperties.isEmpty()) {
+                    saslClientFactory = new PropertiesSaslClientFactory(saslClientFactory, mechanismProperties);
+                }
+            }
+            final Predicate<String> filter = AuthenticationConfiguration.this::saslSupportedByConfiguration;
+            filtered = new FilterMechanismSaslClientFactory(saslClientFactory, filter);
+            filteredAnonymous = new FilterMechanismSaslClientFactory(saslClientFactory, filter.and("ANONYMOUS"::equals));
+            withoutSsl = capturedPrivileged(new LocalPrincipalSaslClientFactory(filtered));
+            withoutSslAnonymous = capturedPrivileged(new LocalPrincipalSaslClientFactory(filteredAnonymous));
+        }
+
+        SaslClientFactory getFactory(final boolean anonymousOnly, final SSLSession sslSession) {
+            final SaslClientFactory saslClientFactory;
+            if (sslSession == null) {
+                saslClientFactory = anonymousOnly ? withoutSslAnonymous : withoutSsl;
+            } else {
+                saslClientFactory = capturedPrivileged(new LocalPrincipalSaslClientFactory(
+                        new SSLSaslClientFactory(() -> SSLConnection.forSession(sslSession, true), anonymousOnly ? filteredAnonymous : filtered)));
+            }
+            // unless it was captured with the configuration, the access control context of the caller is used
+            return WILDFLY_ELYTRON_CAPTURE_ACCESS_CONTROL_CONTEXT_PROPERTY ? saslClientFactory : new PrivilegedSaslClientFactory(saslClientFactory);
+        }
+
+        private SaslClientFactory capturedPrivileged(final SaslClientFactory saslClientFactory) {
+            return WILDFLY_ELYTRON_CAPTURE_ACCESS_CONTROL_CONTEXT_PROPERTY ? doPrivileged((PrivilegedAction<PrivilegedSaslClientFactory>) () -> new PrivilegedSaslClientFactory(saslClientFactory), capturedAccessContext) :
+                    saslClientFactory;
+        }
+    }
+
+    static final class SaslMechanismSelection {
+        private final List<String> serverMechanisms;
+        private final boolean ssl;
+        private final int hashCode;
+
+        SaslMechanismSelection(final List<String> serverMechanisms, final boolean ssl) {
+            this.serverMechanisms = serverMechanisms;
+            this.ssl = ssl;
+            hashCode = serverMechanisms.hashCode() * 19 + Boolean.hashCode(ssl);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof SaslMechanismSelection && equals((SaslMechanismSelection) obj);
+        }
+
+        private boolean equals(final SaslMechanismSelection other) {
+            return this == other || ssl == other.ssl && serverMechanisms.equals(other.serverMechanisms);
+        }
+    }
+
     static class ClientCallbackHandler implements CallbackHandler {
         private final AuthenticationConfiguration config;
         private final CallbackHandler userCallbackHandler;
@@ -57,6 +57,10 @@ public final class AuthenticationContext implements Contextual<AuthenticationCon
     final RuleNode<AuthenticationConfiguration> authRules;
     final RuleNode<SecurityFactory<SSLContext>> sslRules;
 
+    // built on first use, as most contexts are intermediate results of adding rules one by one
+    private volatile RuleNodeIndex<AuthenticationConfiguration> authRuleIndex;
+    private volatile RuleNodeIndex<SecurityFactory<SSLContext>> sslRuleIndex;
+
     static final AuthenticationContext EMPTY = new AuthenticationContext();
 
     private AuthenticationContext() {
@@ -233,21 +237,21 @@ public final class AuthenticationContext implements Contextual<AuthenticationCon
     }
 
     RuleNode<AuthenticationConfiguration> authRuleMatching(URI uri, String abstractType, String abstractTypeAuthority) {
-        RuleNode<AuthenticationConfiguration> node = this.authRules;
-        while (node != null) {
-            if (node.getRule().matches(uri, abstractType, abstractTypeAuthority)) return node;
-            node = node.getNext();
+        if (authRules == null) return null;
+        RuleNodeIndex<AuthenticationConfiguration> index = authRuleIndex;
+        if (index == null) {
+            authRuleIndex = index = new RuleNodeIndex<>(authRules);
         }
-        return null;
+        return index.matching(uri, abstractType, abstractTypeAuthority);
     }
 
     RuleNode<SecurityFactory<SSLContext>> sslRuleMatching(URI uri, String abstractType, String abstractTypeAuthority) {
-        RuleNode<SecurityFactory<SSLContext>> node = this.sslRules;
-        while (node != null) {
-            if (node.getRule().matches(uri, abstractType, abstractTypeAuthority)) return node;
-            node = node.getNext();
+        if (sslRules == null) return null;
+        RuleNodeIndex<SecurityFactory<SSLContext>> index = sslRuleIndex;
+        if (index == null) {
+            sslRuleIndex = index = new RuleNodeIndex<>(sslRules);
         }
-        return null;
+        return index.matching(uri, abstractType, abstractTypeAuthority);
     }
 
     /**
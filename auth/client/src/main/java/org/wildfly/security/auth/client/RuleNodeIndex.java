@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.client;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the rules of a {@link RuleNode} list by scheme, host, port and abstract type.
+ * <p>
+ * Each indexed value selects the rules which either require that value or do not constrain it, so only the rules selected
+ * for all values of a request are tested, in list order.  The first rule which matches is returned, as when walking the
+ * list.  Hosts select the rules of the host and of each of its domains, which covers rules matching a host suffix; rules
+ * matching a network or any other part of the URI are tested in full.
+ * <p>
+ * The index is immutable apart from a bounded memo of recent results, as the rules of a list never change.
+ *
+ * @param <T> the type of configuration of the rules
+ */
+final class RuleNodeIndex<T> {
+
+    private static final int MAX_MEMO_SIZE = 256;
+    private static final Object NO_MATCH = new Object();
+
+    private final List<RuleNode<T>> nodes;
+    private final Dimension<String> schemes;
+    private final Dimension<String> abstractTypes;
+    private final Dimension<Integer> ports;
+    private final Dimension<String> hosts;
+    private final ConcurrentHashMap<Query, Object> memo = new ConcurrentHashMap<>();
+
+    RuleNodeIndex(final RuleNode<T> first) {
+        nodes = new ArrayList<>();
+        for (RuleNode<T> node = first; node != null; node = node.getNext()) {
+            nodes.add(node);
+        }
+        schemes = new Dimension<>(nodes.size());
+        abstractTypes = new Dimension<>(nodes.size());
+        ports = new Dimension<>(nodes.size());
+        hosts = new Dimension<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            final MatchRule rule = nodes.get(i).getRule();
+            schemes.add(i, rule.getMatchProtocol());
+            abstractTypes.add(i, rule.getMatchAbstractType());
+            ports.add(i, rule.isPortMatched() ? Integer.valueOf(rule.getMatchPort()) : null);
+            hosts.add(i, rule.isHostMatched() ? rule.getMatchHost() : null);
+        }
+        schemes.complete();
+        abstractTypes.complete();
+        ports.complete();
+        // the host rules are not completed, as a host selects the unconstrained rules once for all of its domains
+    }
+
+    RuleNode<T> matching(final URI uri, final String abstractType, final String abstractTypeAuthority) {
+        // the string form of the URI is compared, as URI equality ignores the case of the scheme the rules compare
+        final Query query = new Query(uri.toString(), abstractType, abstractTypeAuthority);
+        final Object cached = memo.get(query);
+        if (cached != null) {
+            return cached == NO_MATCH ? null : nodeOf(cached);
+        }
+        final RuleNode<T> node = find(uri, abstractType, abstractTypeAuthority);
+        if (memo.size() >= MAX_MEMO_SIZE) {
+            memo.clear();
+        }
+        memo.put(query, node == null ? NO_MATCH : node);
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RuleNode<T> nodeOf(final Object cached) {
+        return (RuleNode<T>) cached;
+    }
+
+    private RuleNode<T> find(final URI uri, final String abstractType, final String abstractTypeAuthority) {
+        final BitSet candidates = selectHosts(uri.getHost());
+        candidates.and(schemes.select(uri.getScheme()));
+        candidates.and(abstractTypes.select(abstractType));
+        candidates.and(ports.select(Integer.valueOf(uri.getPort())));
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            final RuleNode<T> node = nodes.get(i);
+            if (node.getRule().matches(uri, abstractType, abstractTypeAuthority)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private BitSet selectHosts(final String host) {
+        final BitSet selected = (BitSet) hosts.unconstrained.clone();
+        if (host == null || hosts.constrained.isEmpty()) {
+            return selected;
+        }
+        String domain = host.toLowerCase(Locale.ROOT);
+        for (;;) {
+            final BitSet rules = hosts.constrained.get(domain);
+            if (rules != null) {
+                selected.or(rules);
+            }
+            final int idx = domain.indexOf('.');
+            if (idx == -1) {
+                return selected;
+            }
+            domain = domain.substring(idx + 1);
+        }
+    }
+
+    /**
+     * The rules by one value they match.
+     */
+    static final class Dimension<K> {
+        private final BitSet unconstrained;
+        private final Map<K, BitSet> constrained = new HashMap<>();
+
+        Dimension(final int size) {
+            unconstrained = new BitSet(size);
+        }
+
+        void add(final int idx, final K value) {
+            if (value == null) {
+                unconstrained.set(idx);
+            } else {
+                constrained.computeIfAbsent(value, k -> new BitSet()).set(idx);
+            }
+        }
+
+        /**
+         * Add the rules which do not constrain the value to the rules of each value.
+         */
+        void complete() {
+            for (BitSet rules : constrained.values()) {
+                rules.or(unconstrained);
+            }
+        }
+
+        BitSet select(final K value) {
+            if (value == null) {
+                return unconstrained;
+            }
+            return constrained.getOrDefault(value, unconstrained);
+        }
+    }
+
+    static final class Query {
+        private final String uri;
+        private final String abstractType;
+        private final String abstractTypeAuthority;
+        private final int hashCode;
+
+        Query(final String uri, final String abstractType, final String abstractTypeAuthority) {
+            this.uri = uri;
+            this.abstractType = abstractType;
+            this.abstractTypeAuthority = abstractTypeAuthority;
+            hashCode = Objects.hash(uri, abstractType, abstractTypeAuthority);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Query && equals((Query) obj);
+        }
+
+        private boolean equals(final Query other) {
+            return this == other || uri.equals(other.uri) && Objects.equals(abstractType, other.abstractType)
+                    && Objects.equals(abstractTypeAuthority, other.abstractTypeAuthority);
+        }
+    }
+}
@@ -20,7 +20,18 @@ package org.wildfly.security.auth.client;
 
 import static org.junit.Assert.*;
 
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import javax.security.auth.callback.CallbackHandler;
+import javax.security.sasl.SaslClient;
+import javax.security.sasl.SaslClientFactory;
+
 import org.junit.Test;
+import org.wildfly.security.sasl.SaslMechanismSelector;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -71,4 +82,51 @@ public final class AuthenticationConfigurationTest {
         );
 
     }
+
+    @Test
+    public void testSaslClientPipelineReused() throws Exception {
+        final RecordingSaslClientFactory recording = new RecordingSaslClientFactory();
+        final AtomicInteger applied = new AtomicInteger();
+        final UnaryOperator<SaslClientFactory> factoryOperator = factory -> {
+            applied.incrementAndGet();
+            return factory;
+        };
+        AuthenticationConfiguration configuration = AuthenticationConfiguration.empty().useName("name1").usePassword("password1")
+                .useSaslClientFactory(recording).useSaslProtocol("remote")
+                .setSaslMechanismSelector(SaslMechanismSelector.NONE.addMechanism("PLAIN").addMechanism("DIGEST-MD5"));
+
+        for (int i = 0; i < 3; i++) {
+            configuration.createSaslClient(new URI("remote+http://host" + i + ":9990"), Arrays.asList("DIGEST-MD5", "PLAIN", "GSSAPI"), factoryOperator, null);
+            assertArrayEquals(new String[] { "PLAIN", "DIGEST-MD5" }, recording.mechanisms);
+            assertEquals("remote", recording.protocol);
+            assertEquals("host" + i, recording.serverName);
+        }
+        assertEquals(1, applied.get());
+
+        configuration.createSaslClient(new URI("remote+http://host:9990"), Arrays.asList("DIGEST-MD5"), UnaryOperator.identity(), null);
+        assertArrayEquals(new String[] { "DIGEST-MD5" }, recording.mechanisms);
+        assertEquals(1, applied.get());
+
+        configuration = configuration.useSaslProtocol(null);
+        configuration.createSaslClient(new URI("remote+http://host:9990"), Arrays.asList("PLAIN"), factoryOperator, null);
+        assertEquals("remote+http", recording.protocol);
+        assertEquals(2, applied.get());
+    }
+
+    static final class RecordingSaslClientFactory implements SaslClientFactory {
+        String[] mechanisms;
+        String protocol;
+        String serverName;
+
+        public SaslClient createSaslClient(String[] mechanisms, String authorizationId, String protocol, String serverName, Map<String, ?> props, CallbackHandler cbh) {
+            this.mechanisms = mechanisms;
+            this.protocol = protocol;
+            this.serverName = serverName;
+            return null;
+        }
+
+        public String[] getMechanismNames(Map<String, ?> props) {
+            return new String[] { "PLAIN", "DIGEST-MD5", "GSSAPI" };
+        }
+    }
 }
@@ -16,6 +16,7 @@
 package org.wildfly.security.auth.client;
 
 import static org.junit.Assert.*;
+import java.net.URI;
 import java.security.GeneralSecurityException;
 import javax.net.ssl.SSLContext;
 
@@ -352,6 +353,45 @@ public final class AuthenticationContextTest {
         assertNull(second.getNext());
     }
 
+    @Test
+    public void authRuleMatchingFirstMatch() throws Exception {
+        AuthenticationContext ctx = AuthenticationContext.empty()
+                .with(MatchRule.ALL.matchProtocol("http").matchHost("host1").matchPort(8080), config1)
+                .with(MatchRule.ALL.matchHost("*.example.com"), config2)
+                .with(MatchRule.ALL.matchAbstractType("ejb", "jboss").matchHost("host1"), config3)
+                .with(MatchRule.ALL.matchHost("10.0.0.0/8"), config4)
+                .with(MatchRule.ALL.matchProtocol("remote+http").matchUser("user1"), config1)
+                .with(MatchRule.ALL.matchPort(9990), config2)
+                .with(MatchRule.ALL.matchPath("/admin"), config3);
+
+        String[] uris = {
+                "http://host1:8080/", "http://HOST1:8080/", "HTTP://host1:8080/", "http://host1/", "remote+http://host1:8080",
+                "http://example.com/", "http://a.b.example.com:9990/", "http://badexample.com/", "http://10.1.2.3/",
+                "remote+http://user1@host2/", "remote+http://user2@host2:9990/", "http://host3/admin", "urn:test", "file:/admin"
+        };
+        String[][] abstractTypes = { { null, null }, { "ejb", "jboss" }, { "ejb", null } };
+        for (int i = 0; i < 2; i++) {
+            for (String uri : uris) {
+                for (String[] abstractType : abstractTypes) {
+                    URI u = new URI(uri);
+                    assertSame(uri, linearMatching(ctx.authRules, u, abstractType[0], abstractType[1]),
+                            ctx.authRuleMatching(u, abstractType[0], abstractType[1]));
+                }
+            }
+        }
+        assertEquals(config1, ctx.authRuleMatching(new URI("http://host1:8080/"), "ejb", "jboss").getConfiguration());
+        assertEquals(config3, ctx.authRuleMatching(new URI("http://host1:8081/"), "ejb", "jboss").getConfiguration());
+        assertEquals(config2, ctx.authRuleMatching(new URI("http://a.example.com:8080/"), null, null).getConfiguration());
+        assertNull(ctx.authRuleMatching(new URI("http://host2/"), null, null));
+    }
+
+    private static <T> RuleNode<T> linearMatching(RuleNode<T> node, URI uri, String abstractType, String abstractTypeAuthority) {
+        while (node != null && ! node.getRule().matches(uri, abstractType, abstractTypeAuthority)) {
+            node = node.getNext();
+        }
+        return node;
+    }
+
     private <T> void assertExpectedRuleNode(RuleNode<T> rn, T expectedConfiguration, MatchRule expectedRule) {
         assertNotNull(rn);
         assertEquals(expectedConfiguration, rn.getConfiguration());
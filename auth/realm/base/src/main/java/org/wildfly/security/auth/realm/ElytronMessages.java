@@ -133,4 +133,24 @@ interface ElytronMessages extends BasicLogger {
     @Message(id = 13001, value = "Realm is failing over.")
     void realmFailover(@Cause RealmUnavailableException rue);
 
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 13002, value = "Filesystem-backed realm failed to write pending identity changes, they remain in the journal")
+    void fileSystemRealmWriteBehindFailed(@Cause RealmUnavailableException cause);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 13003, value = "Filesystem-backed realm failed to load \"%s\" into the identity index")
+    void fileSystemRealmIndexLoadFailed(Path path, @Cause Exception cause);
+
+    @Message(id = 13004, value = "Filesystem-backed realm failed to write journal \"%s\"")
+    RealmUnavailableException fileSystemRealmFailedToWriteJournal(Path path, @Cause IOException cause);
+
+    @Message(id = 13005, value = "Filesystem-backed realm failed to open the identity index of \"%s\"")
+    IllegalStateException fileSystemRealmFailedToOpenIndex(Path root, @Cause Exception cause);
+
+    @Message(id = 13006, value = "Filesystem-backed realm journal \"%s\" is locked by another realm")
+    IOException fileSystemRealmJournalLocked(Path path);
+
+    @Message(id = 13007, value = "Filesystem-backed realm failed to list directory \"%s\"")
+    RealmUnavailableException fileSystemRealmFailedToList(Path directory, @Cause IOException cause);
+
 }
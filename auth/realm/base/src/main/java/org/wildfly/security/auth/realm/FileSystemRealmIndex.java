@@ -0,0 +1,755 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.cert.CertificateEncodingException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.FileSystemSecurityRealm.AutoCloseableXMLStreamWriterHolder;
+import org.wildfly.security.auth.realm.FileSystemSecurityRealm.Identity;
+import org.wildfly.security.auth.realm.FileSystemSecurityRealm.LoadedIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.authz.MapAttributes;
+
+/**
+ * The in-memory index of a {@link FileSystemSecurityRealm}.
+ * <p>
+ * All identities are parsed once when the index is opened and reads are served from memory afterwards.  A mutation is
+ * applied to memory and appended to a journal in the realm root, which is forced to disk before the mutation returns; when
+ * several threads append at the same time a single force covers all of their records.  The identity files themselves are
+ * written behind by a background thread after a delay, so that repeated updates of an identity within the delay result in a
+ * single file write.  Once all pending writes are on disk the journal is truncated; a journal left over by a crash is
+ * replayed when the index is next opened.  The journal is locked while the index is open, so that a realm root is indexed
+ * by a single realm at a time.
+ * <p>
+ * Changes made to the identity files by other processes are picked up by watching the directory tree, and reported to the
+ * registered identity change listeners.
+ */
+final class FileSystemRealmIndex {
+
+    static final String JOURNAL_NAME = "identities.journal";
+
+    private static final byte OP_WRITE = 1;
+    private static final byte OP_DELETE = 2;
+
+    private final FileSystemSecurityRealm realm;
+    private final long flushDelay;
+    private final Path journalPath;
+    private final ConcurrentHashMap<String, LoadedIdentity> identities = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+    /** The stamps of the files written by the index, so that the watcher can tell them from external changes. */
+    private final ConcurrentHashMap<Path, FileStamp> written = new ConcurrentHashMap<>();
+    private final List<Consumer<Principal>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor flushExecutor;
+    private final Object journalLock = new Object();
+    private final Object syncLock = new Object();
+    private final FileChannel journal;
+    private final WatchService watchService;
+    // guarded by journalLock
+    private long journalWritten;
+    // guarded by syncLock
+    private long journalSynced;
+    private volatile boolean closed;
+
+    FileSystemRealmIndex(final FileSystemSecurityRealm realm, final Path root, final long flushDelay) throws IOException {
+        this.realm = realm;
+        this.flushDelay = flushDelay;
+        Files.createDirectories(root);
+        journalPath = root.resolve(JOURNAL_NAME);
+        journal = FileChannel.open(journalPath, READ, WRITE, CREATE);
+        WatchService watchService = null;
+        try {
+            lockJournal();
+            replayJournal();
+            journal.truncate(0);
+            watchService = root.getFileSystem().newWatchService();
+            this.watchService = watchService;
+            register(root, realm.getLevels());
+            load(root, realm.getLevels());
+        } catch (IOException | RuntimeException e) {
+            if (watchService != null) {
+                closeQuietly(watchService, e);
+            }
+            closeQuietly(journal, e);
+            throw e;
+        }
+        flushExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "FileSystemSecurityRealm flush " + root);
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Thread watchThread = new Thread(this::watch, "FileSystemSecurityRealm watch " + root);
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    // reads
+
+    LoadedIdentity get(final String name) {
+        return identities.get(name);
+    }
+
+    boolean exists(final String name) {
+        return identities.containsKey(name);
+    }
+
+    Set<String> getNames() {
+        return identities.keySet();
+    }
+
+    void registerIdentityChangeListener(final Consumer<Principal> listener) {
+        listeners.add(listener);
+    }
+
+    // mutations, which like the file based ones rely on the identity lock held by the caller for ordering; a write is made
+    // pending in the same step as the identity is changed, so that the watcher never reloads a file which is older
+
+    void create(final String name, final Path path) throws RealmUnavailableException {
+        final LoadedIdentity newIdentity = new LoadedIdentity(name, Collections.emptyList(), new MapAttributes(), realm.getHashEncoding());
+        create(name, path, newIdentity, serialize(path, newIdentity), true);
+    }
+
+    /**
+     * Create an identity of the bulk creation of the realm, whose journal record is only synced by the next {@link #sync()}.
+     *
+     * @return the action which rolls the creation back if the sync fails
+     */
+    Runnable createUnsynced(final String name, final Path path, final byte[] content) throws RealmUnavailableException {
+        final LoadedIdentity newIdentity = parse(name, path, content);
+        final Pending write = create(name, path, newIdentity, content, false);
+        return () -> {
+            pending.remove(name, write);
+            identities.remove(name, newIdentity);
+        };
+    }
+
+    private Pending create(final String name, final Path path, final LoadedIdentity newIdentity, final byte[] content, final boolean sync) throws RealmUnavailableException {
+        final Pending write = new Pending(path, content);
+        if (identities.computeIfAbsent(name, n -> {
+            pending.put(n, write);
+            return newIdentity;
+        }) != newIdentity) {
+            throw ElytronMessages.log.fileSystemRealmAlreadyExists(name, null);
+        }
+        try {
+            append(OP_WRITE, name, content, sync);
+        } catch (RealmUnavailableException e) {
+            pending.remove(name, write);
+            identities.remove(name, newIdentity);
+            throw e;
+        }
+        scheduleFlush();
+        return write;
+    }
+
+    void replace(final String name, final Path path, final LoadedIdentity newIdentity) throws RealmUnavailableException {
+        final byte[] content = serialize(path, newIdentity);
+        // keep exactly what is written to the file, as the file format does not hold every credential type
+        final LoadedIdentity stored = parse(name, path, content);
+        final Pending write = new Pending(path, content);
+        final LoadedIdentity[] oldIdentity = new LoadedIdentity[1];
+        final Pending[] oldWrite = new Pending[1];
+        identities.computeIfPresent(name, (n, current) -> {
+            oldIdentity[0] = current;
+            oldWrite[0] = pending.put(n, write);
+            return stored;
+        });
+        if (oldIdentity[0] == null) {
+            throw ElytronMessages.log.fileSystemRealmNotFound(name);
+        }
+        try {
+            append(OP_WRITE, name, content, true);
+        } catch (RealmUnavailableException e) {
+            restorePending(name, write, oldWrite[0]);
+            identities.replace(name, stored, oldIdentity[0]);
+            throw e;
+        }
+        scheduleFlush();
+    }
+
+    void delete(final String name, final Path path) throws RealmUnavailableException {
+        final Pending write = new Pending(path, null);
+        final LoadedIdentity[] oldIdentity = new LoadedIdentity[1];
+        final Pending[] oldWrite = new Pending[1];
+        identities.computeIfPresent(name, (n, current) -> {
+            oldIdentity[0] = current;
+            oldWrite[0] = pending.put(n, write);
+            return null;
+        });
+        if (oldIdentity[0] == null) {
+            throw ElytronMessages.log.fileSystemRealmNotFound(name);
+        }
+        try {
+            append(OP_DELETE, name, null, true);
+        } catch (RealmUnavailableException e) {
+            restorePending(name, write, oldWrite[0]);
+            identities.putIfAbsent(name, oldIdentity[0]);
+            throw e;
+        }
+        scheduleFlush();
+    }
+
+    private void restorePending(final String name, final Pending write, final Pending oldWrite) {
+        if (oldWrite == null) {
+            pending.remove(name, write);
+        } else {
+            pending.replace(name, write, oldWrite);
+        }
+    }
+
+    // journal
+
+    private void append(final byte op, final String name, final byte[] content, final boolean sync) throws RealmUnavailableException {
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(content == null ? 64 : content.length + 64);
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte(op);
+            out.writeUTF(name);
+            if (content == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(content.length);
+                out.write(content);
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(record.toByteArray());
+            out.writeLong(crc.getValue());
+        } catch (IOException e) {
+            throw ElytronMessages.log.fileSystemRealmFailedToWriteJournal(journalPath, e);
+        }
+        final long position;
+        try {
+            synchronized (journalLock) {
+                final ByteBuffer buffer = ByteBuffer.wrap(record.toByteArray());
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                position = ++ journalWritten;
+            }
+        } catch (IOException e) {
+            throw ElytronMessages.log.fileSystemRealmFailedToWriteJournal(journalPath, e);
+        }
+        if (sync) {
+            sync(position);
+        }
+    }
+
+    /**
+     * Sync all records appended to the journal so far.
+     */
+    void sync() throws RealmUnavailableException {
+        final long position;
+        synchronized (journalLock) {
+            position = journalWritten;
+        }
+        sync(position);
+    }
+
+    private void sync(final long position) throws RealmUnavailableException {
+        try {
+            // group commit: whoever gets the lock first forces the records of everybody who appended before it
+            synchronized (syncLock) {
+                if (journalSynced < position) {
+                    final long target;
+                    synchronized (journalLock) {
+                        target = journalWritten;
+                    }
+                    journal.force(false);
+                    journalSynced = target;
+                }
+            }
+        } catch (IOException e) {
+            throw ElytronMessages.log.fileSystemRealmFailedToWriteJournal(journalPath, e);
+        }
+    }
+
+    private void lockJournal() throws IOException {
+        FileLock lock;
+        try {
+            lock = journal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another realm of this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            throw ElytronMessages.log.fileSystemRealmJournalLocked(journalPath);
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        if (journal.size() == 0) {
+            return;
+        }
+        final List<Map.Entry<String, byte[]>> records = new ArrayList<>();
+        // the stream is not closed, as that would close the journal
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(journal)));
+        for (;;) {
+            final ByteArrayOutputStream record = new ByteArrayOutputStream();
+            final String name;
+            final byte[] content;
+            try {
+                final byte op = in.readByte();
+                name = in.readUTF();
+                final int length = in.readInt();
+                content = length < 0 ? null : new byte[length];
+                if (content != null) {
+                    in.readFully(content);
+                }
+                try (DataOutputStream out = new DataOutputStream(record)) {
+                    out.writeByte(op);
+                    out.writeUTF(name);
+                    out.writeInt(length);
+                    if (content != null) out.write(content);
+                }
+                final CRC32 crc = new CRC32();
+                crc.update(record.toByteArray());
+                if (crc.getValue() != in.readLong() || (op == OP_WRITE) == (content == null)) {
+                    // a torn write of the last record
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+            records.add(new SimpleImmutableEntry<>(name, content));
+        }
+        for (Map.Entry<String, byte[]> record : records) {
+            final String name = record.getKey();
+            final Path path = realm.pathFor(name);
+            try {
+                if (record.getValue() == null) {
+                    Files.deleteIfExists(path);
+                } else {
+                    writeFile(name, path, record.getValue());
+                }
+            } catch (RealmUnavailableException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    // write behind
+
+    private void scheduleFlush() {
+        if (! closed && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(this::flushPending, flushDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPending() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (RealmUnavailableException e) {
+            ElytronMessages.log.fileSystemRealmWriteBehindFailed(e);
+            // leave the journal in place and try again later
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Write all pending mutations to the identity files and truncate the journal.
+     */
+    void flush() throws RealmUnavailableException {
+        synchronized (this) {
+            for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+                final String name = entry.getKey();
+                final Pending write = entry.getValue();
+                if (write.content == null) {
+                    try {
+                        Files.deleteIfExists(write.path);
+                    } catch (IOException e) {
+                        throw ElytronMessages.log.fileSystemRealmDeleteFailed(name, e);
+                    }
+                } else {
+                    writeFile(name, write.path, write.content);
+                }
+                // a newer mutation of the same identity stays pending
+                pending.remove(name, write);
+            }
+            synchronized (journalLock) {
+                // a mutation is made pending before it is journaled, so nothing journaled can be lost here
+                if (pending.isEmpty()) {
+                    try {
+                        journal.truncate(0);
+                        journal.force(false);
+                    } catch (IOException e) {
+                        throw ElytronMessages.log.fileSystemRealmFailedToWriteJournal(journalPath, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeFile(final String name, final Path path, final byte[] content) throws RealmUnavailableException {
+        final Path parent = path.getParent();
+        try {
+            Files.createDirectories(parent);
+        } catch (IOException e) {
+            throw ElytronMessages.log.fileSystemRealmFailedToOpen(parent, name, e);
+        }
+        for (;;) {
+            final Path tempPath = parent.resolve(path.getFileName().toString() + '.' + Identity.tempSuffix());
+            try (FileChannel channel = FileChannel.open(tempPath, WRITE, CREATE_NEW)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (FileAlreadyExistsException ignored) {
+                // try a new name
+                continue;
+            } catch (IOException e) {
+                deleteQuietly(tempPath, e);
+                throw ElytronMessages.log.fileSystemRealmFailedToWrite(tempPath, name, e);
+            }
+            try {
+                Files.move(tempPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+                written.put(path, FileStamp.of(path));
+            } catch (IOException e) {
+                deleteQuietly(tempPath, e);
+                throw ElytronMessages.log.fileSystemRealmFailedToWrite(tempPath, name, e);
+            }
+            return;
+        }
+    }
+
+    private static void deleteQuietly(final Path path, final IOException cause) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    static byte[] serialize(final Path path, final LoadedIdentity identity) throws RealmUnavailableException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (AutoCloseableXMLStreamWriterHolder holder = new AutoCloseableXMLStreamWriterHolder(XMLOutputFactory.newFactory().createXMLStreamWriter(outputStream, "UTF-8"))) {
+            Identity.writeIdentity(holder.getXmlStreamWriter(), identity);
+            holder.getXmlStreamWriter().flush();
+        } catch (XMLStreamException | InvalidKeySpecException | NoSuchAlgorithmException | CertificateEncodingException e) {
+            throw ElytronMessages.log.fileSystemRealmFailedToWrite(path, identity.getName(), e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private LoadedIdentity parse(final String name, final Path path, final byte[] content) throws RealmUnavailableException {
+        return newReader(name, path).readIdentity(new ByteArrayInputStream(content));
+    }
+
+    private Identity newReader(final String name, final Path path) {
+        return new Identity(name, path, null, realm.getHashCharset(), realm.getHashEncoding(), null);
+    }
+
+    // loading and watching
+
+    private void load(final Path directory, final int levels) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                final String fileName = path.getFileName().toString();
+                if (levels > 0 && fileName.length() == 1 && Files.isDirectory(path)) {
+                    load(path, levels - 1);
+                } else if (fileName.endsWith(".xml") && Files.isRegularFile(path)) {
+                    reload(path);
+                }
+            }
+        }
+    }
+
+    private void register(final Path directory, final int levels) throws IOException {
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        if (levels > 0) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+                for (Path path : stream) {
+                    register(path, levels - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the identity of the given file into the index.
+     *
+     * @return the name of the identity if the index changed, {@code null} otherwise
+     */
+    private String reload(final Path path) {
+        final String name = nameOf(path);
+        if (name == null || pending.containsKey(name)) {
+            // the file is older than the index
+            return null;
+        }
+        try {
+            final FileStamp writtenStamp = written.get(path);
+            if (writtenStamp != null && writtenStamp.equals(FileStamp.of(path))) {
+                return null;
+            }
+            final LoadedIdentity loadedIdentity;
+            try (InputStream inputStream = Files.newInputStream(path, READ)) {
+                loadedIdentity = newReader(name, path).readIdentity(inputStream);
+            }
+            // a mutation made pending while the file was read is newer than the file
+            final boolean[] loaded = new boolean[1];
+            identities.compute(name, (n, current) -> {
+                if (pending.containsKey(n)) {
+                    return current;
+                }
+                loaded[0] = true;
+                return loadedIdentity;
+            });
+            if (! loaded[0]) {
+                return null;
+            }
+        } catch (NoSuchFileException e) {
+            return unload(name) ? name : null;
+        } catch (IOException | RealmUnavailableException e) {
+            ElytronMessages.log.fileSystemRealmIndexLoadFailed(path, e);
+            return null;
+        }
+        return name;
+    }
+
+    private void watch() {
+        final Path root = realm.getRoot();
+        for (;;) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            final Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    rescan(root);
+                    continue;
+                }
+                final Path path = directory.resolve((Path) event.context());
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                    final int levels = realm.getLevels() - root.relativize(path).getNameCount();
+                    if (levels >= 0) {
+                        try {
+                            register(path, levels);
+                            load(path, levels);
+                        } catch (IOException e) {
+                            ElytronMessages.log.fileSystemRealmIndexLoadFailed(path, e);
+                        }
+                    }
+                } else if (path.getFileName().toString().endsWith(".xml")) {
+                    final String name;
+                    if (event.kind() == ENTRY_DELETE) {
+                        written.remove(path);
+                        final String deleted = nameOf(path);
+                        name = deleted != null && unload(deleted) ? deleted : null;
+                    } else {
+                        name = reload(path);
+                    }
+                    if (name != null) {
+                        identityChanged(name);
+                    }
+                }
+            }
+            key.reset();
+        }
+    }
+
+    /**
+     * Remove an identity whose file is gone from the index, unless a mutation of it is pending.
+     *
+     * @return {@code true} if the identity was removed, {@code false} otherwise
+     */
+    private boolean unload(final String name) {
+        final boolean[] removed = new boolean[1];
+        identities.computeIfPresent(name, (n, current) -> {
+            if (pending.containsKey(n)) {
+                return current;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private String nameOf(final Path path) {
+        try {
+            return realm.nameFor(path.getFileName());
+        } catch (RuntimeException e) {
+            ElytronMessages.log.debugf(e, "Ignoring file %s which does not hold an identity", path);
+            return null;
+        }
+    }
+
+    private void rescan(final Path root) {
+        final Set<String> before = new HashSet<>(identities.keySet());
+        try {
+            load(root, realm.getLevels());
+        } catch (IOException e) {
+            ElytronMessages.log.fileSystemRealmIndexLoadFailed(root, e);
+            return;
+        }
+        for (String name : before) {
+            if (! Files.exists(realm.pathFor(name))) {
+                unload(name);
+            }
+            identityChanged(name);
+        }
+    }
+
+    private void identityChanged(final String name) {
+        final NamePrincipal principal = new NamePrincipal(name);
+        for (Consumer<Principal> listener : listeners) {
+            listener.accept(principal);
+        }
+    }
+
+    /**
+     * Stop watching the directory tree and write all pending mutations.
+     */
+    void close() throws RealmUnavailableException {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            ElytronMessages.log.debug("Unable to close the watch service", e);
+        }
+        flushExecutor.shutdown();
+        try {
+            flush();
+            // deleted while still locked, so that the journal of a realm opened next is never deleted
+            if (pending.isEmpty()) {
+                try {
+                    Files.deleteIfExists(journalPath);
+                } catch (IOException e) {
+                    ElytronMessages.log.debug("Unable to delete the journal", e);
+                }
+            }
+        } finally {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                ElytronMessages.log.debug("Unable to close the journal", e);
+            }
+        }
+    }
+
+    private static void closeQuietly(final AutoCloseable closeable, final Exception cause) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * The size, modification time and file key of a file, which all change when the file is rewritten by another process
+     * even within the resolution of the modification time.
+     */
+    static final class FileStamp {
+        private final long size;
+        private final FileTime lastModifiedTime;
+        private final Object fileKey;
+
+        private FileStamp(final BasicFileAttributes attributes) {
+            size = attributes.size();
+            lastModifiedTime = attributes.lastModifiedTime();
+            fileKey = attributes.fileKey();
+        }
+
+        static FileStamp of(final Path path) throws IOException {
+            return new FileStamp(Files.readAttributes(path, BasicFileAttributes.class));
+        }
+
+        public int hashCode() {
+            return Objects.hash(Long.valueOf(size), lastModifiedTime, fileKey);
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof FileStamp && equals((FileStamp) obj);
+        }
+
+        private boolean equals(final FileStamp other) {
+            return size == other.size && lastModifiedTime.equals(other.lastModifiedTime) && Objects.equals(fileKey, other.fileKey);
+        }
+    }
+
+    static final class Pending {
+        final Path path;
+        /** The new file content, {@code null} if the identity is deleted. */
+        final byte[] content;
+
+        Pending(final Path path, final byte[] content) {
+            this.path = path;
+            this.content = content;
+        }
+    }
+}
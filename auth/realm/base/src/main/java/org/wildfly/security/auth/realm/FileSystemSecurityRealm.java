@@ -32,7 +32,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
@@ -56,13 +58,20 @@ import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
@@ -105,6 +114,10 @@ import org.wildfly.security.permission.ElytronPermission;
 
 /**
  * A simple filesystem-backed security realm.
+ * <p>
+ * By default every access to an identity reads and parses its file.  A realm built with
+ * {@link FileSystemSecurityRealmBuilder#setIndexed(boolean) setIndexed(true)} instead keeps all identities in memory and writes
+ * changes behind, see {@link #builder()}.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
@@ -113,6 +126,7 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
     static final String ELYTRON_1_0 = "urn:elytron:1.0";
     static final String ELYTRON_1_0_1 = "urn:elytron:1.0.1";
     static final ElytronPermission CREATE_SECURITY_REALM = ElytronPermission.forName("createSecurityRealm");
+    static final int BULK_BATCH_SIZE = 256;
 
     private final Path root;
     private final NameRewriter nameRewriter;
@@ -120,6 +134,7 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
     private final boolean encoded;
     private final Charset hashCharset;
     private final Encoding hashEncoding;
+    private final FileSystemRealmIndex index;
 
     private final ConcurrentHashMap<String, IdentitySharedExclusiveLock> realmIdentityLocks = new ConcurrentHashMap<>();
 
@@ -136,6 +151,10 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
      * @param hashEncoding the string format for the hashed passwords. Uses Base64 by default.
      */
     public FileSystemSecurityRealm(final Path root, final NameRewriter nameRewriter, final int levels, final boolean encoded, final Encoding hashEncoding, final Charset hashCharset) {
+        this(root, nameRewriter, levels, encoded, hashEncoding, hashCharset, false, 0);
+    }
+
+    FileSystemSecurityRealm(final Path root, final NameRewriter nameRewriter, final int levels, final boolean encoded, final Encoding hashEncoding, final Charset hashCharset, final boolean indexed, final long flushDelay) {
         final SecurityManager sm = System.getSecurityManager();
         if (sm != null) {
             sm.checkPermission(CREATE_SECURITY_REALM);
@@ -146,6 +165,15 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         this.encoded = encoded;
         this.hashCharset = hashCharset != null ? hashCharset : StandardCharsets.UTF_8;
         this.hashEncoding = hashEncoding != null ? hashEncoding : Encoding.BASE64;
+        if (indexed) {
+            try {
+                index = new FileSystemRealmIndex(this, root, flushDelay);
+            } catch (IOException e) {
+                throw ElytronMessages.log.fileSystemRealmFailedToOpenIndex(root, e);
+            }
+        } else {
+            index = null;
+        }
     }
 
     /**
@@ -228,7 +256,53 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         this(root, NameRewriter.IDENTITY_REWRITER, 2, true, hashEncoding, hashCharset);
     }
 
-    private Path pathFor(String name) {
+    /**
+     * Construct a new builder of filesystem-backed realms.
+     *
+     * @return the new builder (not {@code null})
+     */
+    public static FileSystemSecurityRealmBuilder builder() {
+        return new FileSystemSecurityRealmBuilder();
+    }
+
+    /**
+     * Write all identity changes which are still pending to their files.  Only a realm with an identity index defers the
+     * writing of changes; for other realms this method does nothing.
+     *
+     * @throws RealmUnavailableException if the changes could not be written
+     */
+    public void flush() throws RealmUnavailableException {
+        if (index != null) {
+            index.flush();
+        }
+    }
+
+    /**
+     * Write all pending identity changes and stop watching the identity files of a realm with an identity index.  The realm
+     * must not be used afterwards.  For realms without an identity index this method does nothing.
+     *
+     * @throws RealmUnavailableException if the pending changes could not be written, they are replayed from the journal when
+     * the realm is next opened
+     */
+    public void close() throws RealmUnavailableException {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    Path getRoot() {
+        return root;
+    }
+
+    int getLevels() {
+        return levels;
+    }
+
+    Encoding getHashEncoding() {
+        return hashEncoding;
+    }
+
+    Path pathFor(String name) {
         assert name.codePointCount(0, name.length()) > 0;
         String normalizedName = name;
 
@@ -262,7 +336,7 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         return this.hashCharset;
     }
 
-    private String nameFor(Path path) {
+    String nameFor(Path path) {
         String fileName = path.toString();
         fileName = fileName.substring(0, fileName.length() - 4); // remove ".xml"
         if (encoded) {
@@ -285,7 +359,10 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
 
     @Override
     public void registerIdentityChangeListener(Consumer<Principal> listener) {
-        // no need to register the listener given that changes to identities are done through the realm
+        // changes to identities are done through the realm, unless the identity index sees the files changed by someone else
+        if (index != null) {
+            index.registerIdentityChangeListener(listener);
+        }
     }
 
     private ModifiableRealmIdentity getRealmIdentity(final String name, final boolean exclusive) {
@@ -302,10 +379,22 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         } else {
             lock = realmIdentityLock.lockShared();
         }
-        return new Identity(finalName, pathFor(finalName), lock, hashCharset, hashEncoding);
+        return new Identity(finalName, pathFor(finalName), lock, hashCharset, hashEncoding, index);
     }
 
     public ModifiableRealmIdentityIterator getRealmIdentityIterator() throws RealmUnavailableException {
+        if (index != null) {
+            final Iterator<String> iterator = new ArrayList<>(index.getNames()).iterator();
+            return new ModifiableRealmIdentityIterator() {
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                public ModifiableRealmIdentity next() {
+                    return getRealmIdentityForUpdate(new NamePrincipal(iterator.next()));
+                }
+            };
+        }
         return subIterator(root, levels);
     }
 
@@ -404,6 +493,289 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
     }
 
+    /**
+     * Create many identities at once.  The identities are divided into batches of 256 which are
+     * written by the tasks of the given pool in parallel.  Instead of syncing every file as it is written, the files of a batch
+     * are synced together once all of them have been written, followed by a single sync of each directory the batch added
+     * files to.  If the realm is indexed, the identities of a batch are added to the index and its journal instead, with a
+     * single sync of the journal per batch, and their files are written behind like those of any other mutation.
+     * <p>
+     * An identity which cannot be created, for example because it already exists, does not stop the creation of the
+     * others; the reason is returned instead.
+     *
+     * Using this method with enabled security manager requires the permission to write to the identity store.
+     *
+     * @param identities the identities to create (must not be {@code null})
+     * @param pool the pool to run the creation in (must not be {@code null})
+     * @param progress the consumer of the number of identities processed by each batch as it completes, called from the
+     *                 threads of the pool (must not be {@code null})
+     * @return the reasons why identities could not be created, by the name of the identity (not {@code null})
+     */
+    public Map<String, Exception> createIdentities(final Collection<IdentityDefinition> identities, final ForkJoinPool pool, final LongConsumer progress) {
+        Assert.checkNotNullParam("identities", identities);
+        Assert.checkNotNullParam("pool", pool);
+        Assert.checkNotNullParam("progress", progress);
+        final IdentityDefinition[] array = identities.toArray(new IdentityDefinition[identities.size()]);
+        final Map<String, Exception> failures = new ConcurrentHashMap<>();
+        pool.invoke(new RecursiveAction() {
+            protected void compute() {
+                createIdentities(array, 0, array.length, failures, progress);
+            }
+        });
+        return failures;
+    }
+
+    private void createIdentities(final IdentityDefinition[] identities, final int from, final int to, final Map<String, Exception> failures, final LongConsumer progress) {
+        if (to - from > BULK_BATCH_SIZE) {
+            final int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new RecursiveAction() {
+                protected void compute() {
+                    createIdentities(identities, from, middle, failures, progress);
+                }
+            }, new RecursiveAction() {
+                protected void compute() {
+                    createIdentities(identities, middle, to, failures, progress);
+                }
+            });
+            return;
+        }
+        if (System.getSecurityManager() == null) {
+            createBatch(identities, from, to, failures);
+        } else {
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                createBatch(identities, from, to, failures);
+                return null;
+            });
+        }
+        progress.accept(to - from);
+    }
+
+    private void createBatch(final IdentityDefinition[] identities, final int from, final int to, final Map<String, Exception> failures) {
+        if (index != null) {
+            createIndexedBatch(identities, from, to, failures);
+            return;
+        }
+        final int size = to - from;
+        final String[] names = new String[size];
+        final Path[] paths = new Path[size];
+        final Path[] tempPaths = new Path[size];
+        final byte[][] contents = new byte[size][];
+        // write the files of the batch without syncing them one at a time
+        for (int i = 0; i < size; i ++) {
+            final IdentityDefinition identity = identities[from + i];
+            try {
+                final String name = nameRewriter.rewriteName(identity.getName());
+                if (name == null) {
+                    throw ElytronMessages.log.invalidName();
+                }
+                names[i] = name;
+                paths[i] = pathFor(name);
+                contents[i] = FileSystemRealmIndex.serialize(paths[i], new LoadedIdentity(name, new ArrayList<>(identity.getCredentials()), identity.getAttributes(), hashEncoding));
+                Files.createDirectories(paths[i].getParent());
+                for (;;) {
+                    final Path tempPath = paths[i].getParent().resolve(paths[i].getFileName().toString() + '.' + Identity.tempSuffix());
+                    try (OutputStream outputStream = Files.newOutputStream(tempPath, WRITE, CREATE_NEW)) {
+                        tempPaths[i] = tempPath;
+                        outputStream.write(contents[i]);
+                    } catch (FileAlreadyExistsException ignored) {
+                        // try a new name
+                        continue;
+                    }
+                    break;
+                }
+            } catch (Exception e) {
+                failed(identity.getName(), e, tempPaths, i, failures);
+            }
+        }
+        // sync the data of all files of the batch
+        for (int i = 0; i < size; i ++) {
+            if (tempPaths[i] != null) {
+                try (FileChannel channel = FileChannel.open(tempPaths[i], WRITE)) {
+                    channel.force(false);
+                } catch (IOException e) {
+                    failed(identities[from + i].getName(), ElytronMessages.log.fileSystemRealmFailedToWrite(tempPaths[i], names[i], e), tempPaths, i, failures);
+                }
+            }
+        }
+        // link the files into place, which fails for existing identities
+        final Set<Path> directories = new HashSet<>();
+        for (int i = 0; i < size; i ++) {
+            if (tempPaths[i] != null) {
+                try (IdentityLock ignored = getRealmIdentityLockForName(names[i]).lockExclusive()) {
+                    Files.createLink(paths[i], tempPaths[i]);
+                    directories.add(paths[i].getParent());
+                } catch (FileAlreadyExistsException e) {
+                    failed(identities[from + i].getName(), ElytronMessages.log.fileSystemRealmAlreadyExists(names[i], e), tempPaths, i, failures);
+                    continue;
+                } catch (IOException e) {
+                    failed(identities[from + i].getName(), ElytronMessages.log.fileSystemRealmFailedToWrite(tempPaths[i], names[i], e), tempPaths, i, failures);
+                    continue;
+                }
+                try {
+                    Files.delete(tempPaths[i]);
+                } catch (IOException ignored) {
+                    // nothing we can do
+                }
+            }
+        }
+        // sync the new directory entries, once per directory
+        for (Path directory : directories) {
+            try (FileChannel channel = FileChannel.open(directory, READ)) {
+                channel.force(true);
+            } catch (IOException e) {
+                // not every platform can sync a directory
+                ElytronMessages.log.debug("Unable to sync directory", e);
+            }
+        }
+    }
+
+    private void createIndexedBatch(final IdentityDefinition[] identities, final int from, final int to, final Map<String, Exception> failures) {
+        final int size = to - from;
+        final String[] names = new String[size];
+        final Runnable[] rollbacks = new Runnable[size];
+        for (int i = 0; i < size; i ++) {
+            final IdentityDefinition identity = identities[from + i];
+            try {
+                final String name = nameRewriter.rewriteName(identity.getName());
+                if (name == null) {
+                    throw ElytronMessages.log.invalidName();
+                }
+                final Path path = pathFor(name);
+                final byte[] content = FileSystemRealmIndex.serialize(path, new LoadedIdentity(name, new ArrayList<>(identity.getCredentials()), identity.getAttributes(), hashEncoding));
+                try (IdentityLock ignored = getRealmIdentityLockForName(name).lockExclusive()) {
+                    if (index.exists(name)) {
+                        throw ElytronMessages.log.fileSystemRealmAlreadyExists(name, null);
+                    }
+                    rollbacks[i] = index.createUnsynced(name, path, content);
+                }
+                names[i] = name;
+            } catch (Exception e) {
+                failures.put(identity.getName(), e);
+            }
+        }
+        // sync the journal records of the whole batch at once
+        try {
+            index.sync();
+        } catch (RealmUnavailableException e) {
+            for (int i = 0; i < size; i ++) {
+                if (rollbacks[i] != null) {
+                    try (IdentityLock ignored = getRealmIdentityLockForName(names[i]).lockExclusive()) {
+                        rollbacks[i].run();
+                    }
+                    failures.put(identities[from + i].getName(), e);
+                }
+            }
+        }
+    }
+
+    private static void failed(final String name, final Exception cause, final Path[] tempPaths, final int i, final Map<String, Exception> failures) {
+        failures.put(name, cause);
+        if (tempPaths[i] != null) {
+            try {
+                Files.deleteIfExists(tempPaths[i]);
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+            tempPaths[i] = null;
+        }
+    }
+
+    /**
+     * Call the given action for every identity of the realm, in parallel.  The hashed directories of the identity store are
+     * listed by the tasks of the given pool, and the identities found in a directory are passed to the action by the task
+     * which listed it.  The action must be safe for use by several threads; each identity is disposed of once the action
+     * returns.
+     *
+     * @param pool the pool to run the iteration in (must not be {@code null})
+     * @param action the action to call for every identity (must not be {@code null})
+     * @throws RealmUnavailableException if the action failed with a {@link RealmUnavailableException}, or a directory of the
+     *                                   identity store could not be listed
+     */
+    public void forEachIdentity(final ForkJoinPool pool, final IdentityAction action) throws RealmUnavailableException {
+        Assert.checkNotNullParam("pool", pool);
+        Assert.checkNotNullParam("action", action);
+        final RecursiveAction task;
+        if (index != null) {
+            final String[] names = index.getNames().toArray(new String[0]);
+            task = new RecursiveAction() {
+                protected void compute() {
+                    forEachName(names, 0, names.length, action);
+                }
+            };
+        } else {
+            task = new RecursiveAction() {
+                protected void compute() {
+                    forEachInDirectory(root, levels, action);
+                }
+            };
+        }
+        try {
+            pool.invoke(task);
+        } catch (UndeclaredRealmUnavailableException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void forEachName(final String[] names, final int from, final int to, final IdentityAction action) {
+        if (to - from > BULK_BATCH_SIZE) {
+            final int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new RecursiveAction() {
+                protected void compute() {
+                    forEachName(names, from, middle, action);
+                }
+            }, new RecursiveAction() {
+                protected void compute() {
+                    forEachName(names, middle, to, action);
+                }
+            });
+            return;
+        }
+        for (int i = from; i < to; i ++) {
+            apply(names[i], action);
+        }
+    }
+
+    private void forEachInDirectory(final Path directory, final int levels, final IdentityAction action) {
+        final List<RecursiveAction> subTasks = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                final String fileName = path.getFileName().toString();
+                if (levels > 0 && fileName.length() == 1 && ! fileName.equals(".") && Files.isDirectory(path)) {
+                    subTasks.add(new RecursiveAction() {
+                        protected void compute() {
+                            forEachInDirectory(path, levels - 1, action);
+                        }
+                    });
+                } else if (fileName.endsWith(".xml")) {
+                    names.add(nameFor(path.getFileName()));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // the realm has no identities yet, or the directory was deleted after it was listed
+            return;
+        } catch (IOException e) {
+            throw new UndeclaredRealmUnavailableException(ElytronMessages.log.fileSystemRealmFailedToList(directory, e));
+        } catch (DirectoryIteratorException e) {
+            throw new UndeclaredRealmUnavailableException(ElytronMessages.log.fileSystemRealmFailedToList(directory, e.getCause()));
+        }
+        ForkJoinTask.invokeAll(subTasks);
+        for (String name : names) {
+            apply(name, action);
+        }
+    }
+
+    private void apply(final String name, final IdentityAction action) {
+        final ModifiableRealmIdentity identity = getRealmIdentityForUpdate(new NamePrincipal(name));
+        try {
+            action.accept(identity);
+        } catch (RealmUnavailableException e) {
+            throw new UndeclaredRealmUnavailableException(e);
+        } finally {
+            identity.dispose();
+        }
+    }
+
     public SupportLevel getCredentialAcquireSupport(final Class<? extends Credential> credentialType, final String algorithmName, final AlgorithmParameterSpec parameterSpec) throws RealmUnavailableException {
         return SupportLevel.POSSIBLY_SUPPORTED;
     }
@@ -441,13 +813,15 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         private IdentityLock lock;
         private final Charset hashCharset;
         private final Encoding hashEncoding;
+        private final FileSystemRealmIndex index;
 
-        Identity(final String name, final Path path, final IdentityLock lock, final Charset hashCharset, final Encoding hashEncoding) {
+        Identity(final String name, final Path path, final IdentityLock lock, final Charset hashCharset, final Encoding hashEncoding, final FileSystemRealmIndex index) {
             this.name = name;
             this.path = path;
             this.lock = lock;
             this.hashCharset = hashCharset;
             this.hashEncoding = hashEncoding;
+            this.index = index;
         }
 
         public Principal getRealmIdentityPrincipal() {
@@ -530,6 +904,9 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
 
         public boolean exists() throws RealmUnavailableException {
+            if (index != null) {
+                return index.exists(name);
+            }
             if (System.getSecurityManager() == null) {
                 return Files.exists(path);
             }
@@ -552,6 +929,10 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
 
         private Void deletePrivileged() throws RealmUnavailableException {
+            if (index != null) {
+                index.delete(name, path);
+                return null;
+            }
             try {
                 Files.delete(path);
                 return null;
@@ -562,7 +943,7 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
             }
         }
 
-        private String tempSuffix() {
+        static String tempSuffix() {
             final ThreadLocalRandom random = ThreadLocalRandom.current();
             char[] array = new char[12];
             for (int i = 0; i < array.length; i ++) {
@@ -601,6 +982,10 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
 
         private Void createPrivileged() throws RealmUnavailableException {
+            if (index != null) {
+                index.create(name, path);
+                return null;
+            }
             for (;;) {
                 final Path tempPath = tempPath();
                 final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
@@ -691,6 +1076,10 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
 
         private Void replaceIdentityPrivileged(final LoadedIdentity newIdentity) throws RealmUnavailableException {
+            if (index != null) {
+                index.replace(name, path, newIdentity);
+                return null;
+            }
             for (;;) {
                 final Path tempPath = tempPath();
                 try {
@@ -746,7 +1135,7 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
             }
         }
 
-        private void writeIdentity(final XMLStreamWriter streamWriter, final LoadedIdentity newIdentity) throws XMLStreamException, InvalidKeySpecException, NoSuchAlgorithmException, CertificateEncodingException {
+        static void writeIdentity(final XMLStreamWriter streamWriter, final LoadedIdentity newIdentity) throws XMLStreamException, InvalidKeySpecException, NoSuchAlgorithmException, CertificateEncodingException {
             streamWriter.writeStartDocument();
             streamWriter.writeCharacters("\n");
             streamWriter.writeStartElement("identity");
@@ -849,18 +1238,11 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
 
         private LoadedIdentity loadIdentityPrivileged(final boolean skipCredentials, final boolean skipAttributes) throws RealmUnavailableException {
+            if (index != null) {
+                return index.get(name);
+            }
             try (InputStream inputStream = Files.newInputStream(path, READ)) {
-                final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
-                inputFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
-                inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
-                inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
-                inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
-                try (final AutoCloseableXMLStreamReaderHolder holder = new AutoCloseableXMLStreamReaderHolder(inputFactory.createXMLStreamReader(inputStream, "UTF-8"))) {
-                    final XMLStreamReader streamReader = holder.getXmlStreamReader();
-                    return parseIdentity(streamReader, skipCredentials, skipAttributes);
-                } catch (XMLStreamException e) {
-                    throw ElytronMessages.log.fileSystemRealmFailedToRead(path, name, e);
-                }
+                return readIdentity(inputStream, skipCredentials, skipAttributes);
             } catch (NoSuchFileException | FileNotFoundException ignored) {
                 return null;
             } catch (IOException e) {
@@ -868,6 +1250,24 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
             }
         }
 
+        LoadedIdentity readIdentity(final InputStream inputStream) throws RealmUnavailableException {
+            return readIdentity(inputStream, false, false);
+        }
+
+        private LoadedIdentity readIdentity(final InputStream inputStream, final boolean skipCredentials, final boolean skipAttributes) throws RealmUnavailableException {
+            final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+            inputFactory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            try (final AutoCloseableXMLStreamReaderHolder holder = new AutoCloseableXMLStreamReaderHolder(inputFactory.createXMLStreamReader(inputStream, "UTF-8"))) {
+                final XMLStreamReader streamReader = holder.getXmlStreamReader();
+                return parseIdentity(streamReader, skipCredentials, skipAttributes);
+            } catch (XMLStreamException e) {
+                throw ElytronMessages.log.fileSystemRealmFailedToRead(path, name, e);
+            }
+        }
+
         private LoadedIdentity parseIdentity(final XMLStreamReader streamReader, final boolean skipCredentials, final boolean skipAttributes) throws RealmUnavailableException, XMLStreamException {
             final int tag = streamReader.nextTag();
             if (tag != START_ELEMENT || ! validNamespace(streamReader.getNamespaceURI()) || ! "identity".equals(streamReader.getLocalName())) {
@@ -1154,6 +1554,66 @@ public final class FileSystemSecurityRealm implements ModifiableSecurityRealm, C
         }
     }
 
+    /**
+     * An action called for the identities of a realm by {@link #forEachIdentity(ForkJoinPool, IdentityAction)}.
+     */
+    @FunctionalInterface
+    public interface IdentityAction {
+
+        /**
+         * Perform the action for an identity.
+         *
+         * @param identity the identity (not {@code null})
+         * @throws RealmUnavailableException if the realm is not able to handle the identity
+         */
+        void accept(ModifiableRealmIdentity identity) throws RealmUnavailableException;
+    }
+
+    /**
+     * The content of an identity to create by {@link #createIdentities(Collection, ForkJoinPool, LongConsumer)}.
+     */
+    public static final class IdentityDefinition {
+        private final String name;
+        private final Collection<? extends Credential> credentials;
+        private final Attributes attributes;
+
+        /**
+         * Construct a new instance.
+         *
+         * @param name the name of the identity (must not be {@code null})
+         * @param credentials the credentials of the identity (must not be {@code null})
+         * @param attributes the attributes of the identity (must not be {@code null})
+         */
+        public IdentityDefinition(final String name, final Collection<? extends Credential> credentials, final Attributes attributes) {
+            this.name = Assert.checkNotNullParam("name", name);
+            this.credentials = Assert.checkNotNullParam("credentials", credentials);
+            this.attributes = Assert.checkNotNullParam("attributes", attributes);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Collection<? extends Credential> getCredentials() {
+            return credentials;
+        }
+
+        public Attributes getAttributes() {
+            return attributes;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class UndeclaredRealmUnavailableException extends RuntimeException {
+        UndeclaredRealmUnavailableException(final RealmUnavailableException cause) {
+            super(cause);
+        }
+
+        public RealmUnavailableException getCause() {
+            return (RealmUnavailableException) super.getCause();
+        }
+    }
+
     static final class LoadedIdentity {
         private final String name;
         private final List<Credential> credentials;
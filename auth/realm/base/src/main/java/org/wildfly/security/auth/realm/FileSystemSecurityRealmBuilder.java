@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.wildfly.common.Assert;
+import org.wildfly.security.auth.server.NameRewriter;
+import org.wildfly.security.password.spec.Encoding;
+
+/**
+ * A builder class that creates {@link FileSystemSecurityRealm} instances.
+ */
+public final class FileSystemSecurityRealmBuilder {
+
+    private Path root;
+    private NameRewriter nameRewriter = NameRewriter.IDENTITY_REWRITER;
+    private int levels = 2;
+    private boolean encoded = true;
+    private Encoding hashEncoding = Encoding.BASE64;
+    private Charset hashCharset = StandardCharsets.UTF_8;
+    private boolean indexed;
+    private long flushDelay = 100;
+
+    FileSystemSecurityRealmBuilder() {
+    }
+
+    /**
+     * Set the root path of the identity store.
+     *
+     * @param root the root path of the identity store (must not be {@code null})
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setRoot(final Path root) {
+        this.root = Assert.checkNotNullParam("root", root);
+        return this;
+    }
+
+    /**
+     * Set the name rewriter to apply to looked up names.  Defaults to no rewriting.
+     *
+     * @param nameRewriter the name rewriter (must not be {@code null})
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setNameRewriter(final NameRewriter nameRewriter) {
+        this.nameRewriter = Assert.checkNotNullParam("nameRewriter", nameRewriter);
+        return this;
+    }
+
+    /**
+     * Set the number of levels of directory hashing to apply.  Defaults to 2.
+     *
+     * @param levels the number of levels of directory hashing
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setLevels(final int levels) {
+        Assert.checkMinimumParameter("levels", 0, levels);
+        this.levels = levels;
+        return this;
+    }
+
+    /**
+     * Set whether identity names should be BASE32 encoded before using as filename.  Enabled by default.
+     *
+     * @param encoded whether identity names are encoded
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setEncoded(final boolean encoded) {
+        this.encoded = encoded;
+        return this;
+    }
+
+    /**
+     * Set the string format for hashed passwords.  Uses Base64 by default.
+     *
+     * @param hashEncoding the string format for hashed passwords (must not be {@code null})
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setHashEncoding(final Encoding hashEncoding) {
+        this.hashEncoding = Assert.checkNotNullParam("hashEncoding", hashEncoding);
+        return this;
+    }
+
+    /**
+     * Set the character set to use when converting password strings to a byte array.  Uses UTF-8 by default.
+     *
+     * @param hashCharset the character set (must not be {@code null})
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setHashCharset(final Charset hashCharset) {
+        this.hashCharset = Assert.checkNotNullParam("hashCharset", hashCharset);
+        return this;
+    }
+
+    /**
+     * Set whether the realm keeps an in-memory index of all identities.  Disabled by default.
+     * <p>
+     * An indexed realm loads every identity when it is built and serves reads from memory; changes made to the identity files
+     * by others are picked up by watching the directory tree.  Changes made through the realm are journaled durably before
+     * they return and written to the identity files in the background, see {@link #setFlushDelay(long)}.  The realm must be
+     * {@linkplain FileSystemSecurityRealm#close() closed} when it is no longer used.
+     *
+     * @param indexed {@code true} to keep an in-memory index of all identities
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setIndexed(final boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
+
+    /**
+     * Set the time an indexed realm waits before writing changed identities to their files, all changes of an identity within
+     * this time result in a single write.  Defaults to 100 milliseconds.
+     *
+     * @param flushDelay the delay in milliseconds
+     * @return this builder
+     */
+    public FileSystemSecurityRealmBuilder setFlushDelay(final long flushDelay) {
+        Assert.checkMinimumParameter("flushDelay", 0, flushDelay);
+        this.flushDelay = flushDelay;
+        return this;
+    }
+
+    /**
+     * Build the realm.  Building an indexed realm loads all identities of the identity store.
+     *
+     * Building with enabled security manager requires {@code createSecurityRealm} {@link org.wildfly.security.permission.ElytronPermission}.
+     *
+     * @return the new realm (not {@code null})
+     */
+    public FileSystemSecurityRealm build() {
+        Assert.checkNotNullParam("root", root);
+        return new FileSystemSecurityRealm(root, nameRewriter, levels, encoded, hashEncoding, hashCharset, indexed, flushDelay);
+    }
+}
@@ -27,7 +27,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -57,15 +66,22 @@ public class JdbcSecurityRealm implements CacheableSecurityRealm {
     private final Supplier<Provider[]> providers;
     private final List<QueryConfiguration> queryConfiguration;
     private final Charset hashCharset;
+    private final int batchSize;
+    private final boolean groupQueries;
+    private final LongAdder identityLoads = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder queries = new LongAdder();
 
     public static JdbcSecurityRealmBuilder builder() {
         return new JdbcSecurityRealmBuilder();
     }
 
-    JdbcSecurityRealm(List<QueryConfiguration> queryConfiguration, Supplier<Provider[]> providers, Charset hashCharset) {
+    JdbcSecurityRealm(List<QueryConfiguration> queryConfiguration, Supplier<Provider[]> providers, Charset hashCharset, int batchSize, boolean groupQueries) {
         this.queryConfiguration = queryConfiguration;
         this.providers = providers;
         this.hashCharset = hashCharset;
+        this.batchSize = batchSize;
+        this.groupQueries = groupQueries;
     }
 
     @Override
@@ -76,6 +92,189 @@ public class JdbcSecurityRealm implements CacheableSecurityRealm {
         return new JdbcRealmIdentity(principal.getName(), hashCharset);
     }
 
+    /**
+     * Obtain the identities of several principals at once.
+     * <p>
+     * Principals are resolved in batches, every configured query being executed once per batch on a single connection per
+     * {@link DataSource}. Queries defining a {@linkplain QueryBuilder#withBatchQuery(String, int) batch query} select the rows
+     * of the whole batch with one statement, other queries execute their principal query once per principal using the same
+     * prepared statement. The identities are passed to the consumer as soon as their batch is loaded, in the order of the
+     * principals, and do not access the database anymore.
+     * <p>
+     * Principals other than {@link NamePrincipal} and repeated names are ignored.
+     *
+     * @param principals the principals to resolve (must not be {@code null})
+     * @param consumer the consumer of the loaded identities (must not be {@code null})
+     * @throws RealmUnavailableException if the identities could not be loaded
+     */
+    public void getRealmIdentities(final Collection<? extends Principal> principals, final Consumer<? super RealmIdentity> consumer) throws RealmUnavailableException {
+        Assert.checkNotNullParam("principals", principals);
+        Assert.checkNotNullParam("consumer", consumer);
+        Set<String> names = new HashSet<>();
+        List<String> batch = new ArrayList<>(Math.min(batchSize, principals.size()));
+        for (Principal principal : principals) {
+            if (principal instanceof NamePrincipal && names.add(principal.getName())) {
+                batch.add(principal.getName());
+                if (batch.size() == batchSize) {
+                    loadBatch(batch, consumer);
+                    batch.clear();
+                }
+            }
+        }
+        if (! batch.isEmpty()) {
+            loadBatch(batch, consumer);
+        }
+    }
+
+    /**
+     * Get the number of identities loaded from the database by this realm.
+     *
+     * @return the number of identities loaded
+     */
+    public long getIdentityLoadCount() {
+        return identityLoads.sum();
+    }
+
+    /**
+     * Get the number of connections obtained by this realm to load identities.
+     * <p>
+     * Along with {@link #getIdentityLoadCount()}, it gives the average number of connections needed per identity.
+     *
+     * @return the number of connections obtained
+     */
+    public long getConnectionCount() {
+        return connections.sum();
+    }
+
+    /**
+     * Get the number of queries executed by this realm to load identities.
+     * <p>
+     * Along with {@link #getIdentityLoadCount()}, it gives the average number of queries needed per identity.
+     *
+     * @return the number of queries executed
+     */
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    private void loadBatch(List<String> names, Consumer<? super RealmIdentity> consumer) throws RealmUnavailableException {
+        Map<String, IdentityLoader> loaders = load(names);
+        for (Map.Entry<String, IdentityLoader> entry : loaders.entrySet()) {
+            consumer.accept(new JdbcRealmIdentity(entry.getKey(), hashCharset, entry.getValue().getIdentity()));
+        }
+    }
+
+    /**
+     * Load the given principals executing every query on a single connection per {@link DataSource}.
+     */
+    private Map<String, IdentityLoader> load(List<String> names) throws RealmUnavailableException {
+        Map<String, IdentityLoader> loaders = new LinkedHashMap<>(names.size() * 2);
+        for (String name : names) {
+            loaders.put(name, new IdentityLoader());
+        }
+        identityLoads.add(names.size());
+
+        Map<DataSource, Connection> connections = new IdentityHashMap<>();
+        try {
+            for (QueryConfiguration configuration : queryConfiguration) {
+                Connection connection = connections.get(configuration.getDataSource());
+                if (connection == null) {
+                    connection = getConnection(configuration);
+                    connections.put(configuration.getDataSource(), connection);
+                }
+                if (configuration.hasBatchSql() && names.size() > 1) {
+                    executeBatchQuery(connection, configuration, names, loaders);
+                } else {
+                    executeQuery(connection, configuration, loaders);
+                }
+            }
+        } finally {
+            for (Connection connection : connections.values()) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.tracef(e, "Failed to close connection");
+                }
+            }
+        }
+        return loaders;
+    }
+
+    private void executeQuery(Connection connection, QueryConfiguration configuration, Map<String, IdentityLoader> loaders) throws RealmUnavailableException {
+        String sql = configuration.getSql();
+        try (PreparedStatement preparedStatement = prepareStatement(connection, sql)) {
+            List<AttributeMapper> attributeMappers = configuration.getColumnMappers(AttributeMapper.class);
+            List<KeyMapper> keyMappers = configuration.getColumnMappers(KeyMapper.class);
+            for (Map.Entry<String, IdentityLoader> entry : loaders.entrySet()) {
+                log.tracef("Executing principalQuery %s with value %s", sql, entry.getKey());
+
+                preparedStatement.setString(1, entry.getKey());
+                queries.increment();
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        entry.getValue().map(resultSet, attributeMappers, keyMappers);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw log.couldNotExecuteQuery(sql, e);
+        } catch (Exception e) {
+            throw log.unexpectedErrorWhenProcessingAuthenticationQuery(sql, e);
+        }
+    }
+
+    private void executeBatchQuery(Connection connection, QueryConfiguration configuration, List<String> names, Map<String, IdentityLoader> loaders) throws RealmUnavailableException {
+        // round the number of parameters up so that the same few statements are prepared whatever the number of principals
+        int parameters = 1;
+        while (parameters < names.size()) {
+            parameters <<= 1;
+        }
+        parameters = Math.min(parameters, batchSize);
+        String sql = configuration.getBatchSql(parameters);
+
+        log.tracef("Executing batch principalQuery %s with values %s", sql, names);
+
+        try (PreparedStatement preparedStatement = prepareStatement(connection, sql)) {
+            for (int i = 0; i < parameters; i++) {
+                preparedStatement.setString(i + 1, names.get(Math.min(i, names.size() - 1)));
+            }
+            queries.increment();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                List<AttributeMapper> attributeMappers = configuration.getColumnMappers(AttributeMapper.class);
+                List<KeyMapper> keyMappers = configuration.getColumnMappers(KeyMapper.class);
+                int principalColumn = configuration.getPrincipalColumn();
+                while (resultSet.next()) {
+                    IdentityLoader loader = loaders.get(resultSet.getString(principalColumn));
+                    if (loader != null) {
+                        loader.map(resultSet, attributeMappers, keyMappers);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw log.couldNotExecuteQuery(sql, e);
+        } catch (Exception e) {
+            throw log.unexpectedErrorWhenProcessingAuthenticationQuery(sql, e);
+        }
+    }
+
+    private Connection getConnection(QueryConfiguration configuration) throws RealmUnavailableException {
+        try {
+            DataSource dataSource = configuration.getDataSource();
+            Connection connection = dataSource.getConnection();
+            connections.increment();
+            return connection;
+        } catch (Exception e) {
+            throw log.couldNotOpenConnection(e);
+        }
+    }
+
+    private static PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(sql);
+        // the same few statements are executed over and over, ask the pool or driver to keep them prepared
+        preparedStatement.setPoolable(true);
+        return preparedStatement;
+    }
+
     @Override
     public SupportLevel getCredentialAcquireSupport(final Class<? extends Credential> credentialType, final String algorithmName, final AlgorithmParameterSpec parameterSpec) throws RealmUnavailableException {
         Assert.checkNotNullParam("credentialType", credentialType);
@@ -123,6 +322,12 @@ public class JdbcSecurityRealm implements CacheableSecurityRealm {
             this.hashCharset = hashCharset;
         }
 
+        JdbcRealmIdentity(String name, Charset hashCharset, JdbcIdentity identity) {
+            this(name, hashCharset);
+            this.identity = identity;
+            this.loaded = true;
+        }
+
         public Principal getRealmIdentityPrincipal() {
             return new NamePrincipal(name);
         }
@@ -200,76 +405,90 @@ public class JdbcSecurityRealm implements CacheableSecurityRealm {
 
         private JdbcIdentity getIdentity() throws RealmUnavailableException {
             if (!loaded && this.identity == null) {
-                MapAttributes attributes = new MapAttributes();
-                IdentityCredentials credentials = IdentityCredentials.NONE;
-                boolean found = false;
-
-                for (QueryConfiguration configuration : queryConfiguration) {
-                    String sql = configuration.getSql();
-
-                    log.tracef("Executing principalQuery %s with value %s", sql, name);
-
-                    try (Connection connection = getConnection(configuration);
-                            PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-                        preparedStatement.setString(1, name);
-
-                        try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                            List<AttributeMapper> attributeMappers = configuration.getColumnMappers(AttributeMapper.class);
-                            List<KeyMapper> keyMappers = configuration.getColumnMappers(KeyMapper.class);
-                            while (resultSet.next()) {
-                                found = true;
-
-                                for (AttributeMapper attributeMapper : attributeMappers) {
-                                    Object value = attributeMapper.map(resultSet, providers);
-                                    if (value != null) {
-                                        if (attributes.containsKey(attributeMapper.getName())) {
-                                            attributes.get(attributeMapper.getName()).add(value.toString());
-                                        } else {
-                                            attributes.addFirst(attributeMapper.getName(), value.toString());
-                                        }
-                                    }
-                                }
-
-                                for (KeyMapper keyMapper : keyMappers) {
-                                    Credential credential = keyMapper.map(resultSet, providers);
-                                    if (credential != null) {
-                                        credentials = credentials.withCredential(credential);
-                                    }
-                                }
-                            }
+                IdentityLoader loader = groupQueries ? load(Collections.singletonList(name)).get(name) : loadOnSeparateConnections();
+                this.identity = loader.getIdentity();
+                loaded = true;
+            }
+
+            return this.identity;
+        }
+
+        private IdentityLoader loadOnSeparateConnections() throws RealmUnavailableException {
+            IdentityLoader loader = new IdentityLoader();
+            identityLoads.increment();
+
+            for (QueryConfiguration configuration : queryConfiguration) {
+                String sql = configuration.getSql();
+
+                log.tracef("Executing principalQuery %s with value %s", sql, name);
+
+                try (Connection connection = getConnection(configuration);
+                        PreparedStatement preparedStatement = prepareStatement(connection, sql)) {
+                    preparedStatement.setString(1, name);
+                    queries.increment();
+
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        List<AttributeMapper> attributeMappers = configuration.getColumnMappers(AttributeMapper.class);
+                        List<KeyMapper> keyMappers = configuration.getColumnMappers(KeyMapper.class);
+                        while (resultSet.next()) {
+                            loader.map(resultSet, attributeMappers, keyMappers);
                         }
-                    } catch (SQLException e) {
-                        throw log.couldNotExecuteQuery(sql, e);
-                    } catch (Exception e) {
-                        throw log.unexpectedErrorWhenProcessingAuthenticationQuery(sql, e);
                     }
+                } catch (SQLException e) {
+                    throw log.couldNotExecuteQuery(sql, e);
+                } catch (Exception e) {
+                    throw log.unexpectedErrorWhenProcessingAuthenticationQuery(sql, e);
                 }
-
-                this.identity = found ? new JdbcIdentity(attributes, credentials) : null;
-                loaded = true;
             }
 
-            return this.identity;
+            return loader;
         }
+    }
 
-        private Connection getConnection(QueryConfiguration configuration) throws RealmUnavailableException {
-            try {
-                DataSource dataSource = configuration.getDataSource();
-                return dataSource.getConnection();
-            } catch (Exception e) {
-                throw log.couldNotOpenConnection(e);
+    /**
+     * Accumulates the attributes and credentials mapped from the rows of a principal.
+     */
+    private class IdentityLoader {
+
+        private final MapAttributes attributes = new MapAttributes();
+        private IdentityCredentials credentials = IdentityCredentials.NONE;
+        private boolean found = false;
+
+        void map(ResultSet resultSet, List<AttributeMapper> attributeMappers, List<KeyMapper> keyMappers) throws SQLException {
+            found = true;
+
+            for (AttributeMapper attributeMapper : attributeMappers) {
+                Object value = attributeMapper.map(resultSet, providers);
+                if (value != null) {
+                    if (attributes.containsKey(attributeMapper.getName())) {
+                        attributes.get(attributeMapper.getName()).add(value.toString());
+                    } else {
+                        attributes.addFirst(attributeMapper.getName(), value.toString());
+                    }
+                }
+            }
+
+            for (KeyMapper keyMapper : keyMappers) {
+                Credential credential = keyMapper.map(resultSet, providers);
+                if (credential != null) {
+                    credentials = credentials.withCredential(credential);
+                }
             }
         }
 
-        private class JdbcIdentity {
+        JdbcIdentity getIdentity() {
+            return found ? new JdbcIdentity(attributes, credentials) : null;
+        }
+    }
 
-            private final Attributes attributes;
-            private final IdentityCredentials identityCredentials;
+    private static class JdbcIdentity {
 
-            JdbcIdentity(Attributes attributes, IdentityCredentials identityCredentials) {
-                this.attributes = attributes;
-                this.identityCredentials = identityCredentials;
-            }
+        private final Attributes attributes;
+        private final IdentityCredentials identityCredentials;
+
+        JdbcIdentity(Attributes attributes, IdentityCredentials identityCredentials) {
+            this.attributes = attributes;
+            this.identityCredentials = identityCredentials;
         }
     }
 
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
 
+import org.wildfly.common.Assert;
 import org.wildfly.security.auth.server.RealmIdentity;
 
 /**
@@ -38,6 +39,8 @@ public class JdbcSecurityRealmBuilder {
     private Supplier<Provider[]> providers = INSTALLED_PROVIDERS;
     private List<QueryBuilder> queries = new ArrayList<>();
     private Charset hashCharset;
+    private int batchSize = 100;
+    private boolean groupQueries;
 
     JdbcSecurityRealmBuilder() {
     }
@@ -57,7 +60,7 @@ public class JdbcSecurityRealmBuilder {
         if (hashCharset == null) {
             hashCharset = StandardCharsets.UTF_8;
         }
-        return new JdbcSecurityRealm(configuration, providers, hashCharset);
+        return new JdbcSecurityRealm(configuration, providers, hashCharset, batchSize, groupQueries);
     }
 
     /**
@@ -84,6 +87,37 @@ public class JdbcSecurityRealmBuilder {
         return this;
     }
 
+    /**
+     * Set the maximum number of principals resolved together when identities are obtained through
+     * {@link JdbcSecurityRealm#getRealmIdentities(java.util.Collection, java.util.function.Consumer)}, which is also the maximum
+     * number of parameters of a batch query. Defaults to 100.
+     *
+     * @param batchSize the maximum number of principals per batch (must be greater than 0)
+     * @return this builder
+     */
+    public JdbcSecurityRealmBuilder setBatchSize(int batchSize) {
+        Assert.checkMinimumParameter("batchSize", 1, batchSize);
+        this.batchSize = batchSize;
+
+        return this;
+    }
+
+    /**
+     * Set whether the queries of an identity which use the same {@link javax.sql.DataSource} are executed on a single
+     * connection, instead of obtaining a connection per query. Disabled by default.
+     * <p>
+     * Loading an identity usually runs several queries, credentials, attributes and roles, against the same database. Grouping
+     * them saves as many connection checkouts from the pool.
+     *
+     * @param groupQueries {@code true} to execute the queries using the same data source on a single connection
+     * @return this builder
+     */
+    public JdbcSecurityRealmBuilder setGroupQueries(boolean groupQueries) {
+        this.groupQueries = groupQueries;
+
+        return this;
+    }
+
     /**
      * <p>A SQL SELECT statement that will be used to return data from a database based on the principal's name.
      *
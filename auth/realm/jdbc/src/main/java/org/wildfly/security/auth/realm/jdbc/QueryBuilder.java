@@ -17,6 +17,8 @@
  */
 package org.wildfly.security.auth.realm.jdbc;
 
+import org.wildfly.common.Assert;
+
 import javax.sql.DataSource;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +35,8 @@ public class QueryBuilder extends JdbcSecurityRealmBuilder {
     private final JdbcSecurityRealmBuilder parent;
     private List<ColumnMapper> mappers = new ArrayList<>();
     private DataSource dataSource;
+    private String batchSql;
+    private int principalColumn;
 
     QueryBuilder(String sql, JdbcSecurityRealmBuilder parent) {
         this.sql = sql;
@@ -61,6 +65,42 @@ public class QueryBuilder extends JdbcSecurityRealmBuilder {
         return this;
     }
 
+    /**
+     * <p>Defines a SQL SELECT statement selecting the rows of several principals at once, used when identities are obtained
+     * through {@link JdbcSecurityRealm#getRealmIdentities(java.util.Collection, java.util.function.Consumer)}.
+     *
+     * <p>The statement must have a single query parameter within an {@code IN} clause, which is expanded to as many parameters
+     * as there are principals to select. Along with the columns the mappers of this query are defined for, at the same
+     * indexes, the statement must also return the principal's name:
+     *
+     * <pre>
+     *     .principalQuery("SELECT password FROM user_table WHERE name = ?")
+     *         .withBatchQuery("SELECT password, name FROM user_table WHERE name IN (?)", 2)
+     * </pre>
+     *
+     * <p>If no batch query is defined, the principal query is executed once per principal.
+     *
+     * @param sql the batch query
+     * @param principalColumn the index of the column holding the principal's name (must be greater than 0)
+     * @return this builder
+     */
+    public QueryBuilder withBatchQuery(String sql, int principalColumn) {
+        Assert.checkNotNullParam("sql", sql);
+        Assert.checkMinimumParameter("principalColumn", 1, principalColumn);
+        this.batchSql = sql;
+        this.principalColumn = principalColumn;
+        return this;
+    }
+
+    @Override
+    public JdbcSecurityRealmBuilder setBatchSize(int batchSize) {
+        return this.parent.setBatchSize(batchSize);
+    }
+
+    @Override
+    public JdbcSecurityRealmBuilder setGroupQueries(boolean groupQueries) {
+        return this.parent.setGroupQueries(groupQueries);
+    }
 
     @Override
     public QueryBuilder principalQuery(String sql) {
@@ -73,7 +113,7 @@ public class QueryBuilder extends JdbcSecurityRealmBuilder {
     }
 
     QueryConfiguration buildQuery() {
-        return new QueryConfiguration(this.sql, this.dataSource, this.mappers);
+        return new QueryConfiguration(this.sql, this.dataSource, this.mappers, this.batchSql, this.principalColumn);
     }
 
 }
@@ -17,6 +17,8 @@
  */
 package org.wildfly.security.auth.realm.jdbc;
 
+import static org.wildfly.security.auth.realm.jdbc._private.ElytronMessages.log;
+
 import org.wildfly.common.Assert;
 
 import javax.sql.DataSource;
@@ -34,14 +36,33 @@ public class QueryConfiguration {
     private final DataSource dataSource;
     private String sql;
     private List<ColumnMapper> columnMappers = new ArrayList<>();
+    private final String batchSqlPrefix;
+    private final String batchSqlSuffix;
+    private final int principalColumn;
 
     QueryConfiguration(String sql, DataSource dataSource, List<ColumnMapper> columnMappers) {
+        this(sql, dataSource, columnMappers, null, 0);
+    }
+
+    QueryConfiguration(String sql, DataSource dataSource, List<ColumnMapper> columnMappers, String batchSql, int principalColumn) {
         Assert.checkNotNullParam("sql", sql);
         Assert.checkNotNullParam("dataSource", dataSource);
         Assert.checkNotNullParam("columnMappers", columnMappers);
         this.sql = sql;
         this.dataSource = dataSource;
         this.columnMappers = columnMappers;
+        if (batchSql != null) {
+            int parameter = batchSql.indexOf('?');
+            if (parameter == -1 || batchSql.indexOf('?', parameter + 1) != -1) {
+                throw log.batchQueryMustHaveOneParameter(batchSql);
+            }
+            this.batchSqlPrefix = batchSql.substring(0, parameter);
+            this.batchSqlSuffix = batchSql.substring(parameter + 1);
+        } else {
+            this.batchSqlPrefix = null;
+            this.batchSqlSuffix = null;
+        }
+        this.principalColumn = principalColumn;
     }
 
     /**
@@ -53,6 +74,39 @@ public class QueryConfiguration {
         return this.sql;
     }
 
+    /**
+     * Returns whether this query defines a batch query able to select the rows of several principals at once.
+     *
+     * @return {@code true} if a batch query is defined
+     */
+    boolean hasBatchSql() {
+        return this.batchSqlPrefix != null;
+    }
+
+    /**
+     * Returns the SQL of the batch query, with its query parameter expanded to the given number of parameters.
+     *
+     * @param parameters the number of query parameters
+     * @return the SQL of the batch query
+     */
+    String getBatchSql(int parameters) {
+        StringBuilder builder = new StringBuilder(this.batchSqlPrefix.length() + this.batchSqlSuffix.length() + parameters * 3);
+        builder.append(this.batchSqlPrefix).append('?');
+        for (int i = 1; i < parameters; i++) {
+            builder.append(", ?");
+        }
+        return builder.append(this.batchSqlSuffix).toString();
+    }
+
+    /**
+     * Returns the index of the column holding the principal's name in the rows returned by the batch query.
+     *
+     * @return the index of the principal column
+     */
+    int getPrincipalColumn() {
+        return this.principalColumn;
+    }
+
     /**
      * Returns the {@link DataSource} from where connections are obtained.
      *
@@ -34,7 +34,8 @@ import org.wildfly.security.auth.server.RealmUnavailableException;
  */
 
 @ValidIdRanges({
-    @ValidIdRange(min = 1043, max = 1052)
+    @ValidIdRange(min = 1043, max = 1052),
+    @ValidIdRange(min = 23000, max = 23999)
 })@MessageLogger(projectCode = "ELY", length = 5)
 public interface ElytronMessages extends BasicLogger {
     ElytronMessages log = Logger.getMessageLogger(ElytronMessages.class, "org.wildfly.security");
@@ -53,4 +54,7 @@ public interface ElytronMessages extends BasicLogger {
 
     @Message(id = 1052, value = "Unexpected error when processing authentication query \"%s\"")
     RealmUnavailableException unexpectedErrorWhenProcessingAuthenticationQuery(String sql, @Cause Throwable cause);
+
+    @Message(id = 23000, value = "Batch query \"%s\" must have exactly one query parameter")
+    IllegalArgumentException batchQueryMustHaveOneParameter(String sql);
 }
@@ -0,0 +1,215 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.auth.realm.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+import org.wildfly.security.auth.principal.AnonymousPrincipal;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.jdbc.mapper.AttributeMapper;
+import org.wildfly.security.auth.realm.jdbc.mapper.PasswordKeyMapper;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.authz.Attributes;
+import org.wildfly.security.evidence.PasswordGuessEvidence;
+import org.wildfly.security.password.interfaces.ClearPassword;
+
+/**
+ * Tests for {@link JdbcSecurityRealm#getRealmIdentities(java.util.Collection, java.util.function.Consumer)}.
+ */
+public class MultipleIdentityLookupTest extends AbstractJdbcSecurityRealmTest {
+
+    @Test
+    public void testBatchQuery() throws Exception {
+        createUsers(5);
+        AtomicInteger connections = new AtomicInteger();
+        DataSource dataSource = countConnections(getDataSource(), connections);
+
+        JdbcSecurityRealm securityRealm = JdbcSecurityRealm.builder()
+                .principalQuery("SELECT password FROM user_table WHERE name = ?")
+                    .withBatchQuery("SELECT password, name FROM user_table WHERE name IN (?)", 2)
+                    .withMapper(createPasswordKeyMapper())
+                    .from(dataSource)
+                .principalQuery("SELECT role_name FROM role_mapping_table WHERE user_name = ?")
+                    .withBatchQuery("SELECT role_name, user_name FROM role_mapping_table WHERE user_name IN (?)", 2)
+                    .withMapper(new AttributeMapper(1, "roles"))
+                    .from(dataSource)
+                .build();
+
+        List<RealmIdentity> identities = getRealmIdentities(securityRealm, "user0", "unknown", "user3", "user1", "user4", "user2");
+
+        assertEquals(1, connections.get());
+        assertIdentities(identities, "user0", "unknown", "user3", "user1", "user4", "user2");
+    }
+
+    @Test
+    public void testPrincipalQueryWithoutBatchQuery() throws Exception {
+        createUsers(3);
+        AtomicInteger connections = new AtomicInteger();
+        DataSource dataSource = countConnections(getDataSource(), connections);
+
+        JdbcSecurityRealm securityRealm = JdbcSecurityRealm.builder()
+                .principalQuery("SELECT password FROM user_table WHERE name = ?")
+                    .withMapper(createPasswordKeyMapper())
+                    .from(dataSource)
+                .principalQuery("SELECT role_name FROM role_mapping_table WHERE user_name = ?")
+                    .withBatchQuery("SELECT role_name, user_name FROM role_mapping_table WHERE user_name IN (?)", 2)
+                    .withMapper(new AttributeMapper(1, "roles"))
+                    .from(dataSource)
+                .build();
+
+        List<RealmIdentity> identities = getRealmIdentities(securityRealm, "user2", "unknown", "user0", "user1");
+
+        assertEquals(1, connections.get());
+        assertIdentities(identities, "user2", "unknown", "user0", "user1");
+    }
+
+    @Test
+    public void testMultipleBatches() throws Exception {
+        createUsers(7);
+        AtomicInteger connections = new AtomicInteger();
+        DataSource dataSource = countConnections(getDataSource(), connections);
+
+        JdbcSecurityRealm securityRealm = JdbcSecurityRealm.builder()
+                .setBatchSize(3)
+                .principalQuery("SELECT name, password FROM user_table WHERE name = ?")
+                    .withBatchQuery("SELECT name, password FROM user_table WHERE name IN (?)", 1)
+                    .withMapper(PasswordKeyMapper.builder()
+                            .setDefaultAlgorithm(ClearPassword.ALGORITHM_CLEAR)
+                            .setHashColumn(2)
+                            .build())
+                    .from(dataSource)
+                .principalQuery("SELECT role_name FROM role_mapping_table WHERE user_name = ?")
+                    .withBatchQuery("SELECT role_name, user_name FROM role_mapping_table WHERE user_name IN (?)", 2)
+                    .withMapper(new AttributeMapper(1, "roles"))
+                    .from(dataSource)
+                .build();
+
+        List<RealmIdentity> identities = getRealmIdentities(securityRealm, "user6", "user0", "user0", "user5", "user1", "user4", "user2", "user3");
+
+        assertEquals(3, connections.get());
+        assertIdentities(identities, "user6", "user0", "user5", "user1", "user4", "user2", "user3");
+    }
+
+    @Test
+    public void testIgnoresOtherPrincipals() throws Exception {
+        createUsers(1);
+
+        JdbcSecurityRealm securityRealm = JdbcSecurityRealm.builder()
+                .principalQuery("SELECT password FROM user_table WHERE name = ?")
+                    .withBatchQuery("SELECT password, name FROM user_table WHERE name IN (?)", 2)
+                    .withMapper(createPasswordKeyMapper())
+                    .from(getDataSource())
+                .build();
+
+        List<RealmIdentity> identities = new ArrayList<>();
+        securityRealm.getRealmIdentities(Arrays.asList(AnonymousPrincipal.getInstance(), new NamePrincipal("user0")), identities::add);
+
+        assertEquals(1, identities.size());
+        assertEquals(new NamePrincipal("user0"), identities.get(0).getRealmIdentityPrincipal());
+        assertTrue(identities.get(0).exists());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchQueryWithSeveralParameters() {
+        JdbcSecurityRealm.builder()
+                .principalQuery("SELECT password FROM user_table WHERE name = ?")
+                    .withBatchQuery("SELECT password, name FROM user_table WHERE name IN (?) AND password <> ?", 2)
+                    .withMapper(createPasswordKeyMapper())
+                    .from(getDataSource())
+                .build();
+    }
+
+    private void createUsers(int count) throws Exception {
+        createUserTable();
+        createRoleTable();
+        createRoleMappingTable();
+        try (Connection connection = getDataSource().getConnection();
+                Statement statement = connection.createStatement()) {
+            for (int j = 0; j < 3; j++) {
+                statement.executeUpdate("INSERT INTO role_table (name) VALUES ('role" + j + "')");
+            }
+            for (int i = 0; i < count; i++) {
+                insertUser("user" + i, "password" + i, "John", "Smith", "jsmith@elytron.org");
+                for (int j = 0; j <= i % 3; j++) {
+                    statement.executeUpdate("INSERT INTO role_mapping_table (role_name, user_name) VALUES ('role" + j + "','user" + i + "')");
+                }
+            }
+        }
+    }
+
+    private static PasswordKeyMapper createPasswordKeyMapper() {
+        return PasswordKeyMapper.builder()
+                .setDefaultAlgorithm(ClearPassword.ALGORITHM_CLEAR)
+                .setHashColumn(1)
+                .build();
+    }
+
+    private static List<RealmIdentity> getRealmIdentities(JdbcSecurityRealm securityRealm, String... names) throws Exception {
+        List<Principal> principals = new ArrayList<>();
+        for (String name : names) {
+            principals.add(new NamePrincipal(name));
+        }
+        List<RealmIdentity> identities = new ArrayList<>();
+        securityRealm.getRealmIdentities(principals, identities::add);
+        return identities;
+    }
+
+    private static void assertIdentities(List<RealmIdentity> identities, String... names) throws Exception {
+        assertEquals(names.length, identities.size());
+        for (int i = 0; i < names.length; i++) {
+            RealmIdentity identity = identities.get(i);
+            assertEquals(new NamePrincipal(names[i]), identity.getRealmIdentityPrincipal());
+            if (names[i].startsWith("user")) {
+                int user = Integer.parseInt(names[i].substring(4));
+                assertTrue(identity.exists());
+                assertTrue(identity.verifyEvidence(new PasswordGuessEvidence(("password" + user).toCharArray())));
+                assertFalse(identity.verifyEvidence(new PasswordGuessEvidence("badpasswd".toCharArray())));
+                Attributes.Entry roles = identity.getAuthorizationIdentity().getAttributes().get("roles");
+                assertEquals(user % 3 + 1, roles.size());
+                for (int j = 0; j <= user % 3; j++) {
+                    assertTrue(roles.contains("role" + j));
+                }
+            } else {
+                assertFalse(identity.exists());
+            }
+        }
+    }
+
+    private static DataSource countConnections(DataSource dataSource, AtomicInteger connections) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+            if ("getConnection".equals(method.getName())) {
+                connections.incrementAndGet();
+            }
+            return method.invoke(dataSource, args);
+        });
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.auth.realm.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.jdbc.mapper.AttributeMapper;
+import org.wildfly.security.auth.realm.jdbc.mapper.PasswordKeyMapper;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.authz.Attributes;
+import org.wildfly.security.evidence.PasswordGuessEvidence;
+import org.wildfly.security.password.interfaces.ClearPassword;
+
+/**
+ * Tests for {@link JdbcSecurityRealmBuilder#setGroupQueries(boolean)} and the load statistics of {@link JdbcSecurityRealm}.
+ */
+public class QueryGroupingTest extends AbstractJdbcSecurityRealmTest {
+
+    @Test
+    public void testSeparateConnections() throws Exception {
+        JdbcSecurityRealm securityRealm = createSecurityRealm(false);
+
+        assertIdentity(securityRealm);
+        assertEquals(1, securityRealm.getIdentityLoadCount());
+        assertEquals(3, securityRealm.getQueryCount());
+        assertEquals(3, securityRealm.getConnectionCount());
+    }
+
+    @Test
+    public void testGroupedQueries() throws Exception {
+        JdbcSecurityRealm securityRealm = createSecurityRealm(true);
+
+        assertIdentity(securityRealm);
+        assertEquals(1, securityRealm.getIdentityLoadCount());
+        assertEquals(3, securityRealm.getQueryCount());
+        assertEquals(1, securityRealm.getConnectionCount());
+
+        assertFalse(securityRealm.getRealmIdentity(new NamePrincipal("unknown")).exists());
+        assertEquals(2, securityRealm.getIdentityLoadCount());
+        assertEquals(6, securityRealm.getQueryCount());
+        assertEquals(2, securityRealm.getConnectionCount());
+    }
+
+    private JdbcSecurityRealm createSecurityRealm(boolean groupQueries) throws Exception {
+        createUserTable();
+        createRoleTable();
+        createRoleMappingTable();
+        insertUser("plainUser", "plainPassword", "John", "Smith", "jsmith@elytron.org");
+        insertUserRole("plainUser", "admin");
+
+        return JdbcSecurityRealm.builder()
+                .setGroupQueries(groupQueries)
+                .principalQuery("SELECT password FROM user_table WHERE name = ?")
+                    .withMapper(PasswordKeyMapper.builder()
+                            .setDefaultAlgorithm(ClearPassword.ALGORITHM_CLEAR)
+                            .setHashColumn(1)
+                            .build())
+                    .from(getDataSource())
+                .principalQuery("SELECT firstName, lastName FROM user_table WHERE name = ?")
+                    .withMapper(new AttributeMapper(1, "firstName"))
+                    .withMapper(new AttributeMapper(2, "lastName"))
+                    .from(getDataSource())
+                .principalQuery("SELECT role_name FROM role_mapping_table WHERE user_name = ?")
+                    .withMapper(new AttributeMapper(1, "roles"))
+                    .from(getDataSource())
+                .build();
+    }
+
+    private static void assertIdentity(JdbcSecurityRealm securityRealm) throws Exception {
+        RealmIdentity identity = securityRealm.getRealmIdentity(new NamePrincipal("plainUser"));
+
+        assertTrue(identity.exists());
+        assertTrue(identity.verifyEvidence(new PasswordGuessEvidence("plainPassword".toCharArray())));
+        Attributes attributes = identity.getAuthorizationIdentity().getAttributes();
+        assertEquals("John", attributes.getFirst("firstName"));
+        assertEquals("Smith", attributes.getFirst("lastName"));
+        assertEquals("admin", attributes.getFirst("roles"));
+    }
+}
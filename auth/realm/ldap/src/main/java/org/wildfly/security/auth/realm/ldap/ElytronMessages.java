@@ -43,7 +43,8 @@ import org.wildfly.security.auth.server.RealmUnavailableException;
 @ValidIdRanges({
     @ValidIdRange(min = 2, max = 7),
     @ValidIdRange(min = 1041, max = 1153),
-    @ValidIdRange(min = 4025, max = 4025)
+    @ValidIdRange(min = 4025, max = 4025),
+    @ValidIdRange(min = 24000, max = 24999)
 })
 interface ElytronMessages extends BasicLogger {
     ElytronMessages log = Logger.getMessageLogger(ElytronMessages.class, "org.wildfly.security");
@@ -158,4 +159,10 @@ interface ElytronMessages extends BasicLogger {
 
     @Message(id = 4025, value = "DirContext tries to connect without ThreadLocalSSLSocketFactory thread local setting")
     IllegalStateException threadLocalSslSocketFactoryThreadLocalNotSet();
+
+    @Message(id = 24000, value = "No pooled DirContext became available within %d ms")
+    NamingException ldapConnectionPoolExhausted(long maxWait);
+
+    @Message(id = 24001, value = "The pool of DirContext instances is closed")
+    NamingException ldapConnectionPoolClosed();
 }
@@ -116,6 +116,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
     private final List<CredentialLoader> credentialLoaders;
     private final List<CredentialPersister> credentialPersisters;
     private final List<EvidenceVerifier> evidenceVerifiers;
+    private final IdentitySearchPlan identitySearchPlan;
 
     private final ConcurrentHashMap<String, IdentitySharedExclusiveLock> realmIdentityLocks = new ConcurrentHashMap<>();
 
@@ -143,6 +144,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
         this.credentialLoaders = credentialLoaders;
         this.credentialPersisters = credentialPersisters;
         this.evidenceVerifiers = evidenceVerifiers;
+        this.identitySearchPlan = new IdentitySearchPlan(identityMapping, credentialLoaders, evidenceVerifiers);
     }
 
     @Override
@@ -329,6 +331,8 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
         private IdentityLock lock;
         private final Charset hashCharset;
         private final Encoding hashEncoding;
+        // the result of the search of the identity search plan, null until searched
+        private volatile PlannedIdentity plannedIdentity;
 
         LdapRealmIdentity(final String name, final IdentityLock lock, final Charset hashCharset, final Encoding hashEncoding) {
             this.name = name;
@@ -356,14 +360,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
 
             DirContext dirContext = obtainContext();
             try {
-                Set<String> attributes = new HashSet<>();
-                Set<String> binaryAttributes = new HashSet<>();
-                for (CredentialLoader loader : credentialLoaders) {
-                    loader.addRequiredIdentityAttributes(attributes);
-                    loader.addBinaryIdentityAttributes(binaryAttributes);
-                }
-
-                LdapIdentity identity = getIdentity(dirContext, attributes, binaryAttributes);
+                LdapIdentity identity = getPlannedIdentity(dirContext);
                 if (identity == null) {
                     return SupportLevel.UNSUPPORTED;
                 }
@@ -410,14 +407,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
 
             DirContext dirContext = obtainContext();
             try {
-                Set<String> attributes = new HashSet<>();
-                Set<String> binaryAttributes = new HashSet<>();
-                for (CredentialLoader loader : credentialLoaders) {
-                    loader.addRequiredIdentityAttributes(attributes);
-                    loader.addBinaryIdentityAttributes(binaryAttributes);
-                }
-
-                LdapIdentity identity = getIdentity(dirContext, attributes, binaryAttributes);
+                LdapIdentity identity = getPlannedIdentity(dirContext);
                 if (identity == null) {
                     return null;
                 }
@@ -494,6 +484,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
                 }
 
             } finally {
+                invalidatePlannedIdentity();
                 closeContext(dirContext);
             }
         }
@@ -517,12 +508,13 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
         public org.wildfly.security.authz.Attributes getAttributes() throws RealmUnavailableException {
             DirContext context = obtainContext();
             try {
-                LdapIdentity identity = getIdentity(context,
-                        identityMapping.attributes.stream()
-                        .map(AttributeMapping::getIdentityLdapName)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toSet()),
-                        null);
+                LdapIdentity identity = identitySearchPlan.includesAttributeMappings ? getPlannedIdentity(context) :
+                        getIdentity(context,
+                            identityMapping.attributes.stream()
+                            .map(AttributeMapping::getIdentityLdapName)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet()),
+                            null);
 
                 SearchResult entry = identity != null ? identity.getEntry() : null;
                 DirContext identityContext = identity != null ? identity.getDirContext() : null;
@@ -557,15 +549,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
 
             DirContext dirContext = obtainContext();
             try {
-
-                Set<String> attributes = new HashSet<>();
-                Set<String> binaryAttributes = new HashSet<>();
-                for (EvidenceVerifier verifier : evidenceVerifiers) {
-                    verifier.addRequiredIdentityAttributes(attributes);
-                    verifier.addBinaryIdentityAttributes(binaryAttributes);
-                }
-
-                LdapIdentity identity = getIdentity(dirContext, attributes, binaryAttributes);
+                LdapIdentity identity = getPlannedIdentity(dirContext);
                 if (identity == null) {
                     return SupportLevel.UNSUPPORTED;
                 }
@@ -606,14 +590,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
 
             DirContext dirContext = obtainContext();
             try {
-                Set<String> attributes = new HashSet<>();
-                Set<String> binaryAttributes = new HashSet<>();
-                for (EvidenceVerifier verifier : evidenceVerifiers) {
-                    verifier.addRequiredIdentityAttributes(attributes);
-                    verifier.addBinaryIdentityAttributes(binaryAttributes);
-                }
-
-                LdapIdentity identity = getIdentity(dirContext, attributes, binaryAttributes);
+                LdapIdentity identity = getPlannedIdentity(dirContext);
                 if (identity == null) {
                     return false;
                 }
@@ -637,7 +614,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
         public boolean exists() throws RealmUnavailableException {
             DirContext dirContext = obtainContext();
             try {
-                LdapIdentity identity = getIdentity(dirContext);
+                LdapIdentity identity = getPlannedIdentity(dirContext);
                 boolean exists = identity != null;
 
                 if (!exists) {
@@ -685,6 +662,29 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
             return getIdentity(dirContext, null, null);
         }
 
+        /**
+         * Obtain the identity with all the attributes of the {@link IdentitySearchPlan}. The entry found by the first search is
+         * reused by the following calls, unless it was found following a referral as its context is not kept.
+         */
+        private LdapIdentity getPlannedIdentity(DirContext dirContext) throws RealmUnavailableException {
+            final PlannedIdentity planned = plannedIdentity;
+            if (planned != null) {
+                log.tracef("Reusing identity entry for principal [%s].", name);
+                return planned.entry == null ? null : new LdapIdentity(name, dirContext, planned.entry.getNameInNamespace(), planned.url, planned.entry);
+            }
+            LdapIdentity identity = getIdentity(dirContext, identitySearchPlan.attributes, identitySearchPlan.binaryAttributes);
+            if (identity == null) {
+                plannedIdentity = PlannedIdentity.NOT_FOUND;
+            } else if (identity.getDirContext() == dirContext) {
+                plannedIdentity = new PlannedIdentity(identity.getEntry(), identity.getUrl());
+            }
+            return identity;
+        }
+
+        private void invalidatePlannedIdentity() {
+            plannedIdentity = null;
+        }
+
         private LdapIdentity getIdentity(DirContext dirContext, Collection<String> returningAttributes, Collection<String> binaryAttributes) throws RealmUnavailableException {
             log.debugf("Trying to create identity for principal [%s].", name);
             LdapSearch ldapSearch = createLdapSearchByDn();
@@ -881,6 +881,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
             } catch (NamingException e) {
                 throw log.ldapRealmFailedDeleteIdentityFromServer(e);
             } finally {
+                invalidatePlannedIdentity();
                 closeContext(context);
             }
         }
@@ -902,6 +903,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
             } catch (NamingException e) {
                 throw log.ldapRealmFailedCreateIdentityOnServer(e);
             } finally {
+                invalidatePlannedIdentity();
                 closeContext(context);
             }
         }
@@ -960,6 +962,7 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
             } catch (Exception e) {
                 throw log.ldapRealmAttributesSettingFailed(name, e);
             } finally {
+                invalidatePlannedIdentity();
                 closeContext(context);
             }
         }
@@ -1218,6 +1221,57 @@ class LdapSecurityRealm implements ModifiableSecurityRealm, CacheableSecurityRea
         }
     }
 
+    /**
+     * The entry found by the search of the {@link IdentitySearchPlan} for a realm identity.
+     */
+    static final class PlannedIdentity {
+
+        static final PlannedIdentity NOT_FOUND = new PlannedIdentity(null, null);
+
+        private final SearchResult entry;
+        private final String url;
+
+        PlannedIdentity(SearchResult entry, String url) {
+            this.entry = entry;
+            this.url = url;
+        }
+    }
+
+    /**
+     * The attributes returned by the search locating an identity, merging the attributes needed by the credential loaders,
+     * the evidence verifiers and the attribute mappings so that a single search covers a whole authentication.
+     * <p>
+     * Attribute mappings using a filter still run their own searches when the attributes are obtained. Attribute mappings are
+     * not merged at all if they read an attribute other components need in binary form, as their values would then not be
+     * strings.
+     */
+    static class IdentitySearchPlan {
+
+        private final Set<String> attributes = new HashSet<>();
+        private final Set<String> binaryAttributes = new HashSet<>();
+        private final boolean includesAttributeMappings;
+
+        IdentitySearchPlan(IdentityMapping identityMapping, List<CredentialLoader> credentialLoaders, List<EvidenceVerifier> evidenceVerifiers) {
+            for (CredentialLoader loader : credentialLoaders) {
+                loader.addRequiredIdentityAttributes(attributes);
+                loader.addBinaryIdentityAttributes(binaryAttributes);
+            }
+            for (EvidenceVerifier verifier : evidenceVerifiers) {
+                verifier.addRequiredIdentityAttributes(attributes);
+                verifier.addBinaryIdentityAttributes(binaryAttributes);
+            }
+
+            Set<String> mappedAttributes = identityMapping.attributes.stream()
+                    .map(AttributeMapping::getIdentityLdapName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            includesAttributeMappings = mappedAttributes.stream().noneMatch(binaryAttributes::contains);
+            if (includesAttributeMappings) {
+                attributes.addAll(mappedAttributes);
+            }
+        }
+    }
+
     static class IdentityMapping {
 
         // NOTE: This class is not a general purpose holder for all possible realm configuration, the purpose is to cover
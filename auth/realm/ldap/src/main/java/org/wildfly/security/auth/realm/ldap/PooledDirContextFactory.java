@@ -0,0 +1,536 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.ldap;
+
+import static org.wildfly.security.auth.realm.ldap.ElytronMessages.log;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.naming.AuthenticationException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.ReferralException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.security.auth.callback.CallbackHandler;
+
+/**
+ * A {@link DirContextFactory} keeping a bounded pool of connected {@link DirContext} instances obtained from another factory.
+ * <p>
+ * Contexts obtained through {@link #obtainDirContext(ReferralMode)} are borrowed from the search pool and given back to it
+ * when closed. Before being borrowed, contexts idle for longer than the validation interval are checked by reading the root
+ * DSE, contexts idle for longer than the maximum idle time or older than the maximum lifetime are closed instead.
+ * <p>
+ * Binds verifying the password of an identity run on contexts of a separate bind pool, so that the contexts of the search pool
+ * always stay authenticated as the configured principal. Contexts obtained for the credentials of a
+ * {@link CallbackHandler} are not pooled.
+ * <p>
+ * Each pool keeps the contexts of every {@link ReferralMode} apart, but the maximum size bounds the contexts of all modes
+ * together: when a context of another mode is needed while the pool is full, an idle context of a different mode is closed to
+ * make room for it.
+ * <p>
+ * Instances are created using {@link PooledDirContextFactoryBuilder}.
+ */
+public final class PooledDirContextFactory implements DirContextFactory {
+
+    private static final String[] NO_ATTRIBUTES = new String[] { "1.1" };
+
+    private final DirContextFactory dirContextFactory;
+    private final long maxWait;
+    private final long maxIdleTime;
+    private final long maxLifetime;
+    private final long validationInterval;
+    private final Statistics searchStatistics = new Statistics();
+    private final Statistics bindStatistics = new Statistics();
+    private final Pools searchPools;
+    private final Pools bindPools;
+    private volatile boolean closed;
+
+    PooledDirContextFactory(DirContextFactory dirContextFactory, int maxSize, int maxBindSize, long maxWait, long maxIdleTime, long maxLifetime, long validationInterval) {
+        this.dirContextFactory = dirContextFactory;
+        this.maxWait = maxWait;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifetime = maxLifetime;
+        this.validationInterval = validationInterval;
+        this.searchPools = new Pools(maxSize, searchStatistics);
+        this.bindPools = new Pools(maxBindSize, bindStatistics);
+    }
+
+    @Override
+    public DirContext obtainDirContext(ReferralMode mode) throws NamingException {
+        Pool pool = searchPools.get(mode == null ? ReferralMode.IGNORE : mode);
+        return new PooledContext(pool, pool.borrow());
+    }
+
+    @Override
+    public DirContext obtainDirContext(CallbackHandler handler, ReferralMode mode) throws NamingException {
+        return dirContextFactory.obtainDirContext(handler, mode);
+    }
+
+    @Override
+    public void returnContext(DirContext context) {
+        if (context instanceof PooledContext) {
+            ((PooledContext) context).release(false);
+        } else {
+            dirContextFactory.returnContext(context);
+        }
+    }
+
+    @Override
+    public void discardContext(DirContext context) {
+        if (context instanceof PooledContext) {
+            ((PooledContext) context).release(true);
+        } else {
+            dirContextFactory.discardContext(context);
+        }
+    }
+
+    /**
+     * Get the statistics of the pool of contexts used for searches.
+     *
+     * @return the statistics of the search pool
+     */
+    public Statistics getSearchPoolStatistics() {
+        return searchStatistics;
+    }
+
+    /**
+     * Get the statistics of the pool of contexts used to verify passwords by binding as an identity.
+     *
+     * @return the statistics of the bind pool
+     */
+    public Statistics getBindPoolStatistics() {
+        return bindStatistics;
+    }
+
+    /**
+     * Close all idle contexts and stop pooling, contexts still in use are closed once returned.
+     */
+    public void close() {
+        closed = true;
+        searchPools.closeIdle();
+        bindPools.closeIdle();
+    }
+
+    /**
+     * Verify the password of an identity binding as the identity on a context of the bind pool.
+     */
+    void verifyBind(ReferralMode mode, String distinguishedName, char[] password) throws NamingException {
+        Pool pool = bindPools.get(mode);
+        Entry entry = pool.borrow();
+        boolean discard = true;
+        try {
+            LdapContext context = (LdapContext) entry.context;
+            context.addToEnvironment(LdapContext.SECURITY_PRINCIPAL, distinguishedName);
+            context.addToEnvironment(LdapContext.SECURITY_CREDENTIALS, password);
+            try {
+                // the connection is not shared with any other context, it is bound again rather than reopened
+                context.reconnect(null);
+            } catch (AuthenticationException e) {
+                discard = false;
+                throw e;
+            } finally {
+                context.removeFromEnvironment(LdapContext.SECURITY_CREDENTIALS);
+            }
+            discard = false;
+        } finally {
+            pool.release(entry, discard);
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * The pools of one kind of contexts for all referral modes, which share the maximum number of contexts.
+     */
+    private final class Pools {
+
+        private final int maxSize;
+        private final Semaphore permits;
+        private final Statistics statistics;
+        /**
+         * The number of open contexts of all modes, either in use or idle.
+         */
+        private final AtomicInteger size = new AtomicInteger();
+        private final Map<ReferralMode, Pool> pools = new EnumMap<>(ReferralMode.class);
+
+        Pools(int maxSize, Statistics statistics) {
+            this.maxSize = maxSize;
+            this.permits = new Semaphore(maxSize, true);
+            this.statistics = statistics;
+            for (ReferralMode mode : ReferralMode.values()) {
+                pools.put(mode, new Pool(this, mode));
+            }
+        }
+
+        Pool get(ReferralMode mode) {
+            return pools.get(mode);
+        }
+
+        /**
+         * Reserve room for a new context.
+         *
+         * @return {@code true} if the context can be created, {@code false} if the maximum size is reached
+         */
+        boolean reserve() {
+            if (size.incrementAndGet() > maxSize) {
+                size.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Close an idle context of another mode than the given pool to make room for a new context.
+         */
+        void evictIdle(Pool exclude) {
+            for (Pool pool : pools.values()) {
+                if (pool != exclude) {
+                    Entry entry = pool.pollIdle();
+                    if (entry != null) {
+                        statistics.evicted.increment();
+                        pool.destroy(entry);
+                        return;
+                    }
+                }
+            }
+            // the idle contexts were taken by concurrent borrowers, which give them back or close them shortly
+            Thread.yield();
+        }
+
+        void closeIdle() {
+            for (Pool pool : pools.values()) {
+                pool.closeIdle();
+            }
+        }
+    }
+
+    private final class Pool {
+
+        private final Pools pools;
+        private final ReferralMode mode;
+        private final Statistics statistics;
+        /**
+         * The idle contexts, most recently used first.
+         */
+        private final ArrayDeque<Entry> idle = new ArrayDeque<>();
+
+        Pool(Pools pools, ReferralMode mode) {
+            this.pools = pools;
+            this.mode = mode;
+            this.statistics = pools.statistics;
+        }
+
+        Entry borrow() throws NamingException {
+            if (closed) {
+                throw log.ldapConnectionPoolClosed();
+            }
+            try {
+                if (! pools.permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                    statistics.timeouts.increment();
+                    throw log.ldapConnectionPoolExhausted(maxWait);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw log.ldapConnectionPoolExhausted(maxWait);
+            }
+            try {
+                if (closed) {
+                    throw log.ldapConnectionPoolClosed();
+                }
+                for (;;) {
+                    Entry entry = pollIdle();
+                    if (entry != null) {
+                        long now = now();
+                        if (entry.isExpired(now)) {
+                            destroy(entry);
+                        } else if (now - entry.lastUsed > validationInterval && ! isValid(entry)) {
+                            statistics.validationFailures.increment();
+                            destroy(entry);
+                        } else {
+                            statistics.borrowed.increment();
+                            statistics.active.increment();
+                            return entry;
+                        }
+                    } else if (pools.reserve()) {
+                        try {
+                            entry = new Entry(dirContextFactory.obtainDirContext(mode));
+                        } catch (NamingException | RuntimeException e) {
+                            pools.size.decrementAndGet();
+                            throw e;
+                        }
+                        statistics.created.increment();
+                        statistics.borrowed.increment();
+                        statistics.active.increment();
+                        return entry;
+                    } else {
+                        // the remaining contexts are idle in the pools of other modes
+                        pools.evictIdle(this);
+                    }
+                }
+            } catch (NamingException | RuntimeException e) {
+                pools.permits.release();
+                throw e;
+            }
+        }
+
+        void release(Entry entry, boolean discard) {
+            statistics.active.decrement();
+            try {
+                long now = now();
+                entry.lastUsed = now;
+                if (discard || closed || entry.isExpired(now)) {
+                    destroy(entry);
+                } else {
+                    synchronized (idle) {
+                        idle.addFirst(entry);
+                        statistics.idle.increment();
+                    }
+                    if (closed) {
+                        // the factory was closed concurrently, after its idle contexts were closed
+                        closeIdle();
+                    }
+                }
+            } finally {
+                pools.permits.release();
+            }
+        }
+
+        void closeIdle() {
+            Entry entry;
+            while ((entry = pollIdle()) != null) {
+                destroy(entry);
+            }
+        }
+
+        Entry pollIdle() {
+            synchronized (idle) {
+                // contexts are evicted from the least recently used end once they stayed idle for too long
+                long now = now();
+                Entry last;
+                while ((last = idle.peekLast()) != null && now - last.lastUsed > maxIdleTime) {
+                    idle.removeLast();
+                    statistics.idle.decrement();
+                    statistics.evicted.increment();
+                    // closing only sends an unbind request, no response is awaited
+                    destroy(last);
+                }
+                Entry entry = idle.pollFirst();
+                if (entry != null) {
+                    statistics.idle.decrement();
+                }
+                return entry;
+            }
+        }
+
+        private boolean isValid(Entry entry) {
+            SearchControls controls = new SearchControls(SearchControls.OBJECT_SCOPE, 1, (int) Math.min(Integer.MAX_VALUE, maxWait), NO_ATTRIBUTES, false, false);
+            try {
+                NamingEnumeration<SearchResult> results = entry.context.search("", "(objectClass=*)", controls);
+                try {
+                    results.hasMore();
+                } finally {
+                    results.close();
+                }
+                return true;
+            } catch (NamingException | RuntimeException e) {
+                log.debugf(e, "Validation of pooled DirContext [%s] failed", entry.context);
+                return false;
+            }
+        }
+
+        void destroy(Entry entry) {
+            pools.size.decrementAndGet();
+            statistics.destroyed.increment();
+            try {
+                entry.context.close();
+            } catch (NamingException | RuntimeException e) {
+                log.debugf(e, "Closing pooled DirContext [%s] failed", entry.context);
+            }
+        }
+    }
+
+    private final class Entry {
+
+        final DirContext context;
+        final long created;
+        volatile long lastUsed;
+
+        Entry(DirContext context) {
+            this.context = context;
+            this.created = now();
+            this.lastUsed = created;
+        }
+
+        boolean isExpired(long now) {
+            return maxLifetime > 0 && now - created > maxLifetime;
+        }
+    }
+
+    /**
+     * A context borrowed from the search pool, returned to the pool once closed.
+     */
+    final class PooledContext extends DelegatingLdapContext {
+
+        private final Pool pool;
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PooledContext(Pool pool, Entry entry) throws NamingException {
+            // closing is handled by this class, the delegating close handler is not used
+            super(entry.context, null, null);
+            this.pool = pool;
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() throws NamingException {
+            release(false);
+        }
+
+        void release(boolean discard) {
+            if (released.compareAndSet(false, true)) {
+                pool.release(entry, discard);
+            }
+        }
+
+        void verifyBind(String distinguishedName, char[] password) throws NamingException {
+            PooledDirContextFactory.this.verifyBind(pool.mode, distinguishedName, password);
+        }
+
+        @Override
+        public LdapContext newInitialLdapContext(Hashtable<?, ?> environment, Control[] connCtls) throws NamingException {
+            if (entry.context instanceof DelegatingLdapContext) {
+                return ((DelegatingLdapContext) entry.context).newInitialLdapContext(environment, connCtls);
+            }
+            return super.newInitialLdapContext(environment, connCtls);
+        }
+
+        @Override
+        public DelegatingLdapContext wrapReferralContextObtaining(ReferralException e) throws NamingException {
+            if (entry.context instanceof DelegatingLdapContext) {
+                return ((DelegatingLdapContext) entry.context).wrapReferralContextObtaining(e);
+            }
+            return super.wrapReferralContextObtaining(e);
+        }
+    }
+
+    /**
+     * Statistics of a pool of {@link DirContext} instances.
+     */
+    public static final class Statistics {
+
+        private final LongAdder created = new LongAdder();
+        private final LongAdder destroyed = new LongAdder();
+        private final LongAdder borrowed = new LongAdder();
+        private final LongAdder evicted = new LongAdder();
+        private final LongAdder validationFailures = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder active = new LongAdder();
+        private final LongAdder idle = new LongAdder();
+
+        Statistics() {
+        }
+
+        /**
+         * Get the number of contexts created, each one being a new connection to the LDAP server.
+         *
+         * @return the number of contexts created
+         */
+        public long getCreatedCount() {
+            return created.sum();
+        }
+
+        /**
+         * Get the number of contexts closed.
+         *
+         * @return the number of contexts closed
+         */
+        public long getDestroyedCount() {
+            return destroyed.sum();
+        }
+
+        /**
+         * Get the number of times a context was borrowed from the pool.
+         *
+         * @return the number of contexts borrowed
+         */
+        public long getBorrowedCount() {
+            return borrowed.sum();
+        }
+
+        /**
+         * Get the number of contexts closed because they stayed idle for longer than the maximum idle time.
+         *
+         * @return the number of contexts evicted
+         */
+        public long getEvictedCount() {
+            return evicted.sum();
+        }
+
+        /**
+         * Get the number of contexts closed because their validation failed.
+         *
+         * @return the number of validation failures
+         */
+        public long getValidationFailureCount() {
+            return validationFailures.sum();
+        }
+
+        /**
+         * Get the number of times no context became available within the maximum wait time.
+         *
+         * @return the number of timeouts
+         */
+        public long getTimeoutCount() {
+            return timeouts.sum();
+        }
+
+        /**
+         * Get the number of contexts currently in use.
+         *
+         * @return the number of active contexts
+         */
+        public long getActiveCount() {
+            return active.sum();
+        }
+
+        /**
+         * Get the number of contexts currently idle in the pool.
+         *
+         * @return the number of idle contexts
+         */
+        public long getIdleCount() {
+            return idle.sum();
+        }
+    }
+}
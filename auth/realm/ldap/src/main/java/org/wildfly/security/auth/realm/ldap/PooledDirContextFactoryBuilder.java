@@ -0,0 +1,180 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.ldap;
+
+import static org.wildfly.security.auth.realm.ldap.ElytronMessages.log;
+
+import org.wildfly.common.Assert;
+
+/**
+ * A builder for a {@link PooledDirContextFactory}, pooling the contexts obtained from another {@link DirContextFactory}.
+ */
+public class PooledDirContextFactoryBuilder {
+
+    private static final int DEFAULT_MAX_SIZE = 10;
+    private static final int DEFAULT_MAX_BIND_SIZE = 5;
+    private static final long DEFAULT_MAX_WAIT = 5000; // ms
+    private static final long DEFAULT_MAX_IDLE_TIME = 300000; // ms
+    private static final long DEFAULT_MAX_LIFETIME = 1800000; // ms
+    private static final long DEFAULT_VALIDATION_INTERVAL = 10000; // ms
+
+    private boolean built = false;
+    private DirContextFactory dirContextFactory;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private int maxBindSize = DEFAULT_MAX_BIND_SIZE;
+    private long maxWait = DEFAULT_MAX_WAIT;
+    private long maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+    private long maxLifetime = DEFAULT_MAX_LIFETIME;
+    private long validationInterval = DEFAULT_VALIDATION_INTERVAL;
+
+    private PooledDirContextFactoryBuilder() {
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @return the new builder
+     */
+    public static PooledDirContextFactoryBuilder builder() {
+        return new PooledDirContextFactoryBuilder();
+    }
+
+    /**
+     * Set the factory the pooled contexts are obtained from.
+     *
+     * @param dirContextFactory the factory creating the contexts (must not be {@code null})
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setDirContextFactory(final DirContextFactory dirContextFactory) {
+        assertNotBuilt();
+        Assert.checkNotNullParam("dirContextFactory", dirContextFactory);
+        this.dirContextFactory = dirContextFactory;
+
+        return this;
+    }
+
+    /**
+     * Set the maximum number of contexts used for searches, shared by all referral modes.
+     * If not set, {@value #DEFAULT_MAX_SIZE} will be used.
+     *
+     * @param maxSize the maximum number of search contexts
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setMaxSize(final int maxSize) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("maxSize", 1, maxSize);
+        this.maxSize = maxSize;
+
+        return this;
+    }
+
+    /**
+     * Set the maximum number of contexts used to verify passwords by binding as an identity, shared by all referral modes.
+     * If not set, {@value #DEFAULT_MAX_BIND_SIZE} will be used.
+     *
+     * @param maxBindSize the maximum number of bind contexts
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setMaxBindSize(final int maxBindSize) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("maxBindSize", 1, maxBindSize);
+        this.maxBindSize = maxBindSize;
+
+        return this;
+    }
+
+    /**
+     * Set how long to wait for a context when all of them are in use, before failing.
+     * If not set, {@value #DEFAULT_MAX_WAIT} ms will be used.
+     *
+     * @param maxWait the maximum time to wait for a context in milliseconds
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setMaxWait(final long maxWait) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("maxWait", 0, maxWait);
+        this.maxWait = maxWait;
+
+        return this;
+    }
+
+    /**
+     * Set how long a context may stay idle in the pool before being closed.
+     * If not set, {@value #DEFAULT_MAX_IDLE_TIME} ms will be used.
+     *
+     * @param maxIdleTime the maximum idle time in milliseconds
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setMaxIdleTime(final long maxIdleTime) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("maxIdleTime", 0, maxIdleTime);
+        this.maxIdleTime = maxIdleTime;
+
+        return this;
+    }
+
+    /**
+     * Set how long a context may be used after its creation, set to 0 for no limit.
+     * If not set, {@value #DEFAULT_MAX_LIFETIME} ms will be used.
+     *
+     * @param maxLifetime the maximum lifetime of a context in milliseconds
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setMaxLifetime(final long maxLifetime) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("maxLifetime", 0, maxLifetime);
+        this.maxLifetime = maxLifetime;
+
+        return this;
+    }
+
+    /**
+     * Set how long a context may stay idle before it is validated, by reading the root DSE, when borrowed again.
+     * Set to 0 to validate contexts every time they are borrowed.
+     * If not set, {@value #DEFAULT_VALIDATION_INTERVAL} ms will be used.
+     *
+     * @param validationInterval the idle time after which contexts are validated in milliseconds
+     * @return this builder
+     */
+    public PooledDirContextFactoryBuilder setValidationInterval(final long validationInterval) {
+        assertNotBuilt();
+        Assert.checkMinimumParameter("validationInterval", 0, validationInterval);
+        this.validationInterval = validationInterval;
+
+        return this;
+    }
+
+    /**
+     * Build this context factory.
+     *
+     * @return the context factory
+     */
+    public PooledDirContextFactory build() {
+        assertNotBuilt();
+        Assert.checkNotNullParam("dirContextFactory", dirContextFactory);
+        built = true;
+        return new PooledDirContextFactory(dirContextFactory, maxSize, maxBindSize, maxWait, maxIdleTime, maxLifetime, validationInterval);
+    }
+
+    private void assertNotBuilt() {
+        if (built) {
+            throw log.builderAlreadyBuilt();
+        }
+    }
+}
@@ -30,40 +30,85 @@ import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.URL;
 import java.net.URLConnection;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
-import java.security.interfaces.RSAPublicKey;
-import java.security.spec.InvalidKeySpecException;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
 import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static org.wildfly.security.auth.realm.token._private.ElytronMessages.log;
 
 /**
- * Object for caching RSA JSON Web Keys for signature validation
+ * Object for caching RSA, EC and OKP JSON Web Keys for signature validation
  *
  * @author <a href="mailto:mmazanek@redhat.com">Martin Mazanek</a>
  */
 class JwkManager {
 
-    private final Map<URL, Map<String, RSAPublicKey>> keys = new LinkedHashMap<>();
-    private final Map<URL, Long> timeouts = new ConcurrentHashMap<>();
+    private static final Map<String, String> EC_CURVES;
+    private static final Map<String, byte[]> OKP_KEY_PREFIXES;
+
+    static {
+        Map<String, String> ecCurves = new HashMap<>();
+        ecCurves.put("P-256", "secp256r1");
+        ecCurves.put("P-384", "secp384r1");
+        ecCurves.put("P-521", "secp521r1");
+        EC_CURVES = ecCurves;
+
+        Map<String, byte[]> okpKeyPrefixes = new HashMap<>();
+        okpKeyPrefixes.put("Ed25519", new byte[] { 0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00 });
+        okpKeyPrefixes.put("Ed448", new byte[] { 0x30, 0x43, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x71, 0x03, 0x3a, 0x00 });
+        OKP_KEY_PREFIXES = okpKeyPrefixes;
+    }
+
+    /**
+     * Runs the refreshes of key sets which are about to expire, a refresh is never waited for by the threads using the keys.
+     */
+    private static final ThreadPoolExecutor REFRESH_EXECUTOR;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "JwkManager refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        REFRESH_EXECUTOR = executor;
+    }
+
+    private final Map<String, KeySet> keySets = new ConcurrentHashMap<>();
     private final SSLContext sslContext;
     private final HostnameVerifier hostnameVerifier;
 
     private final long updateTimeout;
+    private final long refreshAheadTime;
+    private final long minTimeBetweenRequests;
 
     private final int connectionTimeout;
     private final int readTimeout;
 
-    JwkManager(SSLContext sslContext, HostnameVerifier hostnameVerifier, long updateTimeout, int connectionTimeout, int readTimeout) {
+    JwkManager(SSLContext sslContext, HostnameVerifier hostnameVerifier, long updateTimeout, long minTimeBetweenRequests, int connectionTimeout, int readTimeout) {
         this.sslContext = sslContext;
         this.hostnameVerifier = hostnameVerifier;
         this.updateTimeout = updateTimeout;
+        this.refreshAheadTime = updateTimeout - updateTimeout / 4;
+        this.minTimeBetweenRequests = minTimeBetweenRequests;
         this.connectionTimeout = connectionTimeout;
         this.readTimeout = readTimeout;
     }
@@ -75,13 +120,21 @@ class JwkManager {
      * @return signature verification public key if found, null otherwise
      */
     public PublicKey getPublicKey(String kid, URL url) {
-        Map<String, RSAPublicKey> urlKeys = checkRemote(url);
+        Assert.checkNotNullParam("url", url);
+
+        KeySet keySet = keySets.computeIfAbsent(url.toExternalForm(), u -> new KeySet(url));
+        Map<String, PublicKey> urlKeys = keySet.getKeys();
 
         if (urlKeys == null) {
             return null;
         }
 
         PublicKey pk = urlKeys.get(kid);
+        if (pk == null) {
+            // the key set may have been rotated, unknown kids can not cause more than one request per interval
+            urlKeys = keySet.refresh(null, true);
+            pk = urlKeys != null ? urlKeys.get(kid) : null;
+        }
         if (pk == null) {
             log.warn("Unknown kid: " + kid);
             return null;
@@ -89,41 +142,138 @@ class JwkManager {
         return pk;
     }
 
-    private Map<String, RSAPublicKey> checkRemote(URL url) {
-        Assert.checkNotNullParam("url", url);
+    /**
+     * The keys obtained from a single jku endpoint.
+     * <p>
+     * Keys are refreshed in the background once {@code refreshAheadTime} elapsed, so that as long as they are used, the keys
+     * are replaced before {@code updateTimeout} expires. Expired keys are refreshed by the first thread needing them, any other
+     * thread arriving meanwhile uses the expired keys rather than waiting, unless there is no key yet. Concurrent refreshes
+     * are coalesced into a single request and, unless the keys expired, requests are sent at most once per
+     * {@code minTimeBetweenRequests}. Failed requests are not repeated within that interval either.
+     * <p>
+     * While the keys cannot be refreshed, because the endpoint fails or requests are not sent after a failure, the expired keys
+     * keep being used until {@code updateTimeout} elapsed once more.
+     */
+    private final class KeySet {
+
+        private final URL url;
+        private volatile Map<String, PublicKey> keys;
+        private volatile long updated;
+        /**
+         * Guarded by this key set.
+         */
+        private long lastRequest;
+        private boolean lastRequestFailed;
+        private CompletableFuture<Map<String, PublicKey>> inFlight;
 
-        long lastUpdate = 0;
+        KeySet(URL url) {
+            this.url = url;
+        }
 
-        Map<String, RSAPublicKey> urlKeys;
+        Map<String, PublicKey> getKeys() {
+            Map<String, PublicKey> current = keys;
 
-        synchronized (keys) {
-            urlKeys = keys.get(url);
-            if (urlKeys == null) {
-                urlKeys = new ConcurrentHashMap<>();
-                keys.put(url, urlKeys);
+            if (current != null) {
+                long age = System.currentTimeMillis() - updated;
+                if (age < updateTimeout) {
+                    if (age >= refreshAheadTime) {
+                        refreshInBackground();
+                    }
+                    return current;
+                }
             }
+
+            return refresh(current, false);
+        }
+
+        /**
+         * Refresh the keys, or join a refresh already in progress.
+         *
+         * @param stale expired keys which can be used if another thread is already refreshing them or if they cannot be refreshed,
+         *              or {@code null}
+         * @param rateLimited {@code true} if no request should be sent if one was sent less than {@code minTimeBetweenRequests} ago
+         * @return the refreshed keys, the stale keys if they could not be refreshed, or {@code null} if there are no keys to use
+         */
+        Map<String, PublicKey> refresh(Map<String, PublicKey> stale, boolean rateLimited) {
+            CompletableFuture<Map<String, PublicKey>> future;
+            boolean requesting = false;
+
+            synchronized (this) {
+                if (inFlight != null) {
+                    if (stale != null) {
+                        return stale;
+                    }
+                    future = inFlight;
+                } else {
+                    long now = System.currentTimeMillis();
+                    if ((rateLimited || lastRequestFailed) && now - lastRequest < minTimeBetweenRequests) {
+                        return rateLimited ? keys : usableStale(stale);
+                    }
+                    future = startRequest(now);
+                    requesting = true;
+                }
+            }
+
+            if (requesting) {
+                fetch(future);
+            }
+
+            Map<String, PublicKey> refreshed = future.join();
+            return refreshed != null ? refreshed : usableStale(stale);
         }
 
-        synchronized (urlKeys) {
-            if (timeouts.containsKey(url)) {
-                lastUpdate = timeouts.get(url);
+        /**
+         * Get the expired keys to use as they could not be refreshed, unless they expired for longer than {@code updateTimeout}.
+         */
+        private Map<String, PublicKey> usableStale(Map<String, PublicKey> stale) {
+            return stale != null && System.currentTimeMillis() - updated - updateTimeout < updateTimeout ? stale : null;
+        }
+
+        void refreshInBackground() {
+            CompletableFuture<Map<String, PublicKey>> future;
+
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (inFlight != null || now - lastRequest < minTimeBetweenRequests) {
+                    return;
+                }
+                future = startRequest(now);
             }
 
-            if (lastUpdate + updateTimeout <= System.currentTimeMillis()) {
-                Map<String, RSAPublicKey> newJwks = getJwksFromUrl(url, sslContext, hostnameVerifier, connectionTimeout, readTimeout);
+            try {
+                REFRESH_EXECUTOR.execute(() -> fetch(future));
+            } catch (RejectedExecutionException e) {
+                fetch(future);
+            }
+        }
+
+        private CompletableFuture<Map<String, PublicKey>> startRequest(long now) {
+            inFlight = new CompletableFuture<>();
+            lastRequest = now;
+            return inFlight;
+        }
+
+        private void fetch(CompletableFuture<Map<String, PublicKey>> future) {
+            Map<String, PublicKey> newJwks = null;
+            try {
+                newJwks = getJwksFromUrl(url, sslContext, hostnameVerifier, connectionTimeout, readTimeout);
                 if (newJwks == null) {
                     log.unableToFetchJwks(url.toString());
-                    return null;
+                } else {
+                    keys = newJwks;
+                    updated = System.currentTimeMillis();
+                }
+            } finally {
+                synchronized (this) {
+                    lastRequestFailed = newJwks == null;
+                    inFlight = null;
                 }
-                urlKeys.clear();
-                urlKeys.putAll(newJwks);
-                timeouts.put(url, System.currentTimeMillis());
+                future.complete(newJwks);
             }
-            return urlKeys;
         }
     }
 
-    private static Map<String, RSAPublicKey> getJwksFromUrl(final URL url, SSLContext sslContext, HostnameVerifier hostnameVerifier, int connectionTimeout, int readTimeout) {
+    private static Map<String, PublicKey> getJwksFromUrl(final URL url, SSLContext sslContext, HostnameVerifier hostnameVerifier, int connectionTimeout, int readTimeout) {
         JsonObject response = null;
         try {
             URLConnection connection = url.openConnection();
@@ -152,44 +302,97 @@ class JwkManager {
             log.warn("Unable to parse jwks");
             return null;
         }
-        Map<String, RSAPublicKey> res = new LinkedHashMap<>();
+        Map<String, PublicKey> res = new LinkedHashMap<>();
         for (int i = 0; i < jwks.size(); i++) {
             JsonObject jwk = jwks.getJsonObject(i);
             String kid = jwk.getString("kid", null);
-            String kty = jwk.getString("kty", null);
-            String e1 = jwk.getString("e", null);
-            String n1 = jwk.getString("n", null);
 
             if (kid == null) {
                 log.tokenRealmJwkMissingClaim("kid");
                 continue;
             }
-            if (!"RSA".equals(kty)) {
-                log.tokenRealmJwkMissingClaim("kty");
+
+            try {
+                PublicKey publicKey = parsePublicKey(jwk);
+                if (publicKey != null) {
+                    res.put(kid, publicKey);
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException ex) {
+                log.info("Fetched jwk could not be parsed, ignoring...");
+                ex.printStackTrace();
                 continue;
             }
+        }
+        return res;
+    }
+
+    private static PublicKey parsePublicKey(JsonObject jwk) throws GeneralSecurityException {
+        String kty = jwk.getString("kty", null);
+
+        if ("RSA".equals(kty)) {
+            String e1 = jwk.getString("e", null);
+            String n1 = jwk.getString("n", null);
+
             if (e1 == null) {
                 log.tokenRealmJwkMissingClaim("e");
-                continue;
+                return null;
             }
             if (n1 == null) {
                 log.tokenRealmJwkMissingClaim("n");
-                continue;
+                return null;
             }
 
             BigInteger e = new BigInteger(1, Base64.getUrlDecoder().decode(e1));
             BigInteger n = new BigInteger(1, Base64.getUrlDecoder().decode(n1));
-            RSAPublicKeySpec keySpec = new RSAPublicKeySpec(n, e);
 
-            try {
-                RSAPublicKey publicKey = (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(keySpec);
-                res.put(kid, publicKey);
-            } catch (InvalidKeySpecException | NoSuchAlgorithmException ex) {
-                log.info("Fetched jwk could not be parsed, ignoring...");
-                ex.printStackTrace();
-                continue;
+            return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(n, e));
+        } else if ("EC".equals(kty)) {
+            String crv = jwk.getString("crv", null);
+            String x1 = jwk.getString("x", null);
+            String y1 = jwk.getString("y", null);
+            String curve = crv == null ? null : EC_CURVES.get(crv);
+
+            if (curve == null) {
+                log.tokenRealmJwkMissingClaim("crv");
+                return null;
+            }
+            if (x1 == null) {
+                log.tokenRealmJwkMissingClaim("x");
+                return null;
+            }
+            if (y1 == null) {
+                log.tokenRealmJwkMissingClaim("y");
+                return null;
             }
+
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(curve));
+            ECPoint point = new ECPoint(new BigInteger(1, Base64.getUrlDecoder().decode(x1)), new BigInteger(1, Base64.getUrlDecoder().decode(y1)));
+
+            return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+        } else if ("OKP".equals(kty)) {
+            String crv = jwk.getString("crv", null);
+            String x1 = jwk.getString("x", null);
+            byte[] prefix = crv == null ? null : OKP_KEY_PREFIXES.get(crv);
+
+            if (prefix == null) {
+                log.tokenRealmJwkMissingClaim("crv");
+                return null;
+            }
+            if (x1 == null) {
+                log.tokenRealmJwkMissingClaim("x");
+                return null;
+            }
+
+            // the encoded key is the raw public key wrapped in a fixed SubjectPublicKeyInfo header (RFC 8410)
+            byte[] x = Base64.getUrlDecoder().decode(x1);
+            byte[] encoded = Arrays.copyOf(prefix, prefix.length + x.length);
+            System.arraycopy(x, 0, encoded, prefix.length, x.length);
+
+            return KeyFactory.getInstance(crv).generatePublic(new X509EncodedKeySpec(encoded));
         }
-        return res;
+
+        log.tokenRealmJwkMissingClaim("kty");
+        return null;
     }
 }
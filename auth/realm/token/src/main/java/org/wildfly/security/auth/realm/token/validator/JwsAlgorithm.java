@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.token.validator;
+
+import java.math.BigInteger;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.spec.AlgorithmParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.wildfly.security.asn1.DEREncoder;
+
+/**
+ * The JWS signature algorithms (RFC 7518 and RFC 8037) supported by {@link JwtValidator}, each one mapped to the way its
+ * {@link Signature} is obtained and to the encoding of its signatures.
+ */
+enum JwsAlgorithm {
+
+    RS256("SHA256withRSA"),
+    RS384("SHA384withRSA"),
+    RS512("SHA512withRSA"),
+    PS256("RSASSA-PSS", new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1)),
+    PS384("RSASSA-PSS", new PSSParameterSpec("SHA-384", "MGF1", MGF1ParameterSpec.SHA384, 48, 1)),
+    PS512("RSASSA-PSS", new PSSParameterSpec("SHA-512", "MGF1", MGF1ParameterSpec.SHA512, 64, 1)),
+    ES256("SHA256withECDSA", 32),
+    ES384("SHA384withECDSA", 48),
+    ES512("SHA512withECDSA", 66),
+    EdDSA("EdDSA"),
+    ;
+
+    private static final Map<String, JwsAlgorithm> REGISTRY;
+
+    static {
+        Map<String, JwsAlgorithm> registry = new HashMap<>();
+        for (JwsAlgorithm algorithm : values()) {
+            registry.put(algorithm.name(), algorithm);
+        }
+        REGISTRY = registry;
+    }
+
+    private final String jcaName;
+    private final AlgorithmParameterSpec parameterSpec;
+    private final int ecdsaPartLength;
+
+    JwsAlgorithm(String jcaName) {
+        this(jcaName, null, 0);
+    }
+
+    JwsAlgorithm(String jcaName, AlgorithmParameterSpec parameterSpec) {
+        this(jcaName, parameterSpec, 0);
+    }
+
+    JwsAlgorithm(String jcaName, int ecdsaPartLength) {
+        this(jcaName, null, ecdsaPartLength);
+    }
+
+    JwsAlgorithm(String jcaName, AlgorithmParameterSpec parameterSpec, int ecdsaPartLength) {
+        this.jcaName = jcaName;
+        this.parameterSpec = parameterSpec;
+        this.ecdsaPartLength = ecdsaPartLength;
+    }
+
+    /**
+     * Get the algorithm registered for the given value of the <code>alg</code> header parameter.
+     *
+     * @param name the value of the <code>alg</code> header parameter
+     * @return the algorithm or {@code null} if it is not supported
+     */
+    static JwsAlgorithm forName(String name) {
+        return REGISTRY.get(name);
+    }
+
+    /**
+     * Create a new {@link Signature} for this algorithm, ready to be initialized for verification.
+     *
+     * @return the signature
+     * @throws NoSuchAlgorithmException if no provider supports this algorithm
+     * @throws InvalidAlgorithmParameterException if the provider does not support the parameters of this algorithm
+     */
+    Signature createSignature() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+        Signature signature = Signature.getInstance(jcaName);
+        if (parameterSpec != null) {
+            signature.setParameter(parameterSpec);
+        }
+        return signature;
+    }
+
+    /**
+     * Convert a JWS signature to the encoding expected by the {@link Signature} of this algorithm.
+     * <p>
+     * ECDSA signatures are the concatenation of the fixed length {@code R} and {@code S} values while JCA providers expect
+     * their DER encoding.
+     *
+     * @param signature the decoded JWS signature
+     * @return the signature to verify or {@code null} if the signature is malformed
+     */
+    byte[] toJcaSignature(byte[] signature) {
+        if (ecdsaPartLength == 0) {
+            return signature;
+        }
+        if (signature.length != ecdsaPartLength * 2) {
+            return null;
+        }
+        DEREncoder encoder = new DEREncoder();
+        encoder.startSequence();
+        encoder.encodeInteger(new BigInteger(1, Arrays.copyOfRange(signature, 0, ecdsaPartLength)));
+        encoder.encodeInteger(new BigInteger(1, Arrays.copyOfRange(signature, ecdsaPartLength, signature.length)));
+        encoder.endSequence();
+        return encoder.getEncoded();
+    }
+}
@@ -18,7 +18,6 @@
 
 package org.wildfly.security.auth.realm.token.validator;
 
-import org.wildfly.common.iteration.ByteIterator;
 import org.wildfly.common.iteration.CodePointIterator;
 import org.wildfly.security.auth.realm.token.TokenValidator;
 import org.wildfly.security.auth.server.RealmUnavailableException;
@@ -35,21 +34,26 @@ import javax.json.JsonValue;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Arrays.asList;
+import static org.wildfly.common.Assert.checkMinimumParameter;
 import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.auth.realm.token._private.ElytronMessages.log;
 import static org.wildfly.security.json.util.JsonUtil.toAttributes;
@@ -61,6 +65,9 @@ import static org.wildfly.security.json.util.JsonUtil.toAttributes;
  * <p>This validator can also be used as a JWT parser only. In this case, for security reasons, you need to make sure that
  * JWT validations such as issuer, audience and signature checks are performed before obtaining identities from this realm.
  *
+ * <p>If a token cache is configured, the claims of successfully validated tokens are kept so that a token presented again
+ * is not parsed and verified again, only its <code>exp</code> and <code>nbf</code> claims are checked.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public class JwtValidator implements TokenValidator {
@@ -81,6 +88,21 @@ public class JwtValidator implements TokenValidator {
 
     private final PublicKey defaultPublicKey;
 
+    /**
+     * The maximum number of distinct JOSE headers for which the parsed form is kept.
+     */
+    private static final int MAX_PARSED_HEADERS = 64;
+
+    /**
+     * The maximum number of initialized {@link Signature} instances kept per thread.
+     */
+    private static final int MAX_SIGNATURES_PER_THREAD = 32;
+
+    private final TokenCache<CachedToken> tokenCache;
+    private final long tokenCacheTimeout;
+    private final Map<String, JoseHeader> parsedHeaders = new ConcurrentHashMap<>();
+    private final ThreadLocal<Map<String, PreparedSignature>> signatures = ThreadLocal.withInitial(HashMap::new);
+
     JwtValidator(Builder configuration) {
         this.issuers = checkNotNullParam("issuers", configuration.issuers);
         this.audiences = checkNotNullParam("audience", configuration.audience);
@@ -89,7 +111,7 @@ public class JwtValidator implements TokenValidator {
         if (configuration.sslContext != null) {
             this.jwkManager = new JwkManager(configuration.sslContext,
                                             configuration.hostnameVerifier != null ? configuration.hostnameVerifier : HttpsURLConnection.getDefaultHostnameVerifier(),
-                                            configuration.updateTimeout, configuration.connectionTimeout, configuration.readTimeout);
+                                            configuration.updateTimeout, configuration.minTimeBetweenRequests, configuration.connectionTimeout, configuration.readTimeout);
         }
         else {
             log.tokenRealmJwtNoSSLIgnoringJku();
@@ -105,47 +127,88 @@ public class JwtValidator implements TokenValidator {
         if (audiences.isEmpty()) {
             log.tokenRealmJwtWarnNoAudienceIgnoringAudienceCheck();
         }
-
+        this.tokenCache = configuration.tokenCacheSize > 0 ? new TokenCache<>(configuration.tokenCacheSize) : null;
+        this.tokenCacheTimeout = configuration.tokenCacheTimeout;
     }
 
     @Override
     public Attributes validate(BearerTokenEvidence evidence) throws RealmUnavailableException {
         checkNotNullParam("evidence", evidence);
         String jwt = evidence.getToken();
-        String[] parts = jwt.split("\\.", -1);
 
-        if (parts.length < 3) {
+        if (tokenCache != null) {
+            CachedToken cached = tokenCache.get(jwt);
+
+            if (cached != null) {
+                if (verifyTimeConstraints(cached.expiration, cached.notBefore)) {
+                    return cached.attributes;
+                }
+                tokenCache.remove(jwt);
+                return null;
+            }
+        }
+
+        int headerEnd = jwt.indexOf('.');
+        int claimsEnd = headerEnd == -1 ? -1 : jwt.indexOf('.', headerEnd + 1);
+
+        if (claimsEnd == -1) {
             throw log.tokenRealmJwtInvalidFormat();
         }
 
-        String encodedHeader = parts[0];
-        String encodedClaims = parts[1];
-        String encodedSignature = parts[2];
+        int signatureEnd = jwt.indexOf('.', claimsEnd + 1);
+        String encodedHeader = jwt.substring(0, headerEnd);
+        String encodedClaims = jwt.substring(headerEnd + 1, claimsEnd);
+        String encodedSignature = jwt.substring(claimsEnd + 1, signatureEnd == -1 ? jwt.length() : signatureEnd);
 
         JsonObject claims = extractClaims(encodedClaims);
 
-        if (verifySignature(encodedHeader, encodedClaims, encodedSignature)
+        if (verifySignature(encodedHeader, jwt.substring(0, claimsEnd), encodedSignature)
                 && hasValidIssuer(claims)
                 && hasValidAudience(claims)
                 && verifyTimeConstraints(claims)) {
-            return toAttributes(claims);
+            Attributes attributes = toAttributes(claims);
+
+            if (tokenCache != null) {
+                attributes = attributes.asReadOnly();
+                cache(jwt, claims, attributes);
+            }
+
+            return attributes;
         }
 
         return null;
     }
 
+    private void cache(String jwt, JsonObject claims, Attributes attributes) {
+        long expiration = claims.containsKey("exp") ? claims.getJsonNumber("exp").longValue() : -1;
+        long notBefore = claims.containsKey("nbf") ? claims.getJsonNumber("nbf").longValue() : -1;
+        long cacheExpiration = System.currentTimeMillis() + tokenCacheTimeout;
+
+        if (expiration != -1) {
+            // the token is still accepted during the second of its expiration
+            cacheExpiration = Math.min(cacheExpiration, (expiration + 1) * 1000);
+        }
+
+        tokenCache.put(jwt, new CachedToken(attributes, expiration, notBefore), cacheExpiration);
+    }
+
     private boolean verifyTimeConstraints(JsonObject claims) {
+        return verifyTimeConstraints(claims.containsKey("exp") ? claims.getJsonNumber("exp").longValue() : -1,
+                claims.containsKey("nbf") ? claims.getJsonNumber("nbf").longValue() : -1);
+    }
+
+    private boolean verifyTimeConstraints(long exp, long nbf) {
         long currentTime = currentTimeInSeconds();
-        if (claims.containsKey("exp")) {
-            boolean expired = currentTime > claims.getJsonNumber("exp").longValue();
+        if (exp != -1) {
+            boolean expired = currentTime > exp;
 
             if (expired) {
                 log.debug("Token expired");
                 return false;
             }
         }
-        if (claims.containsKey("nbf")) {
-            boolean notBefore = currentTime >= claims.getJsonNumber("nbf").longValue();
+        if (nbf != -1) {
+            boolean notBefore = currentTime >= nbf;
 
             if (!notBefore) {
                 log.debugf("Token is before [%s]", notBefore);
@@ -167,7 +230,7 @@ public class JwtValidator implements TokenValidator {
         }
     }
 
-    private boolean verifySignature(String encodedHeader, String encodedClaims, String encodedSignature) throws RealmUnavailableException {
+    private boolean verifySignature(String encodedHeader, String signingInput, String encodedSignature) throws RealmUnavailableException {
         if (defaultPublicKey == null && jwkManager == null && namedKeys.isEmpty()) {
             return true;
         }
@@ -176,8 +239,8 @@ public class JwtValidator implements TokenValidator {
             Base64.Decoder urlDecoder = Base64.getUrlDecoder();
             byte[] decodedSignature = urlDecoder.decode(encodedSignature);
 
-            Signature signature = createSignature(encodedHeader, encodedClaims);
-            boolean verify = signature != null ? ByteIterator.ofBytes(decodedSignature).verify(signature) : false;
+            PreparedSignature prepared = prepareSignature(parseHeader(encodedHeader));
+            boolean verify = prepared != null ? prepared.verify(signingInput, decodedSignature) : false;
 
             if (!verify) {
                 log.debug("Signature verification failed");
@@ -237,31 +300,62 @@ public class JwtValidator implements TokenValidator {
         return valid;
     }
 
-    private Signature createSignature(String encodedHeader, String encodedClaims) throws NoSuchAlgorithmException, SignatureException, RealmUnavailableException {
+    private JoseHeader parseHeader(String encodedHeader) {
+        JoseHeader header = parsedHeaders.get(encodedHeader);
 
-        byte[] headerDecoded = Base64.getUrlDecoder().decode(encodedHeader);
-        JsonObject headers = Json.createReader(ByteIterator.ofBytes(headerDecoded).asInputStream()).readObject();
+        if (header == null) {
+            byte[] headerDecoded = Base64.getUrlDecoder().decode(encodedHeader);
+            JsonObject headers = Json.createReader(new ByteArrayInputStream(headerDecoded)).readObject();
+            JsonString kid = headers.getJsonString("kid");
+            JsonString jku = headers.getJsonString("jku");
 
-        String headerAlg = resolveAlgorithm(headers);
-        Signature signature = Signature.getInstance(headerAlg);
-        try {
-            PublicKey publicKey = resolvePublicKey(headers);
-            if (publicKey == null) {
-                log.debug("Public key could not be resolved.");
-                return null;
+            header = new JoseHeader(resolveAlgorithm(headers), kid != null ? kid.getString() : null, jku != null ? jku.getString() : null);
+
+            // tokens issued by the same party usually share their header, an unbounded number of distinct ones is not kept
+            if (parsedHeaders.size() < MAX_PARSED_HEADERS) {
+                parsedHeaders.put(encodedHeader, header);
             }
-            signature.initVerify(publicKey);
-        } catch (InvalidKeyException e) {
-            e.printStackTrace();
+        }
+
+        return header;
+    }
+
+    private PreparedSignature prepareSignature(JoseHeader header) throws GeneralSecurityException {
+        PublicKey publicKey = resolvePublicKey(header);
+        if (publicKey == null) {
+            log.debug("Public key could not be resolved.");
             return null;
         }
 
-        signature.update((encodedHeader + "." + encodedClaims).getBytes());
+        Map<String, PreparedSignature> threadSignatures = signatures.get();
+        String id = header.kid != null ? header.algorithm.name() + ':' + header.kid : header.algorithm.name();
+        PreparedSignature prepared = threadSignatures.get(id);
+
+        if (prepared == null) {
+            if (threadSignatures.size() >= MAX_SIGNATURES_PER_THREAD) {
+                threadSignatures.clear();
+            }
+            prepared = new PreparedSignature(id, header.algorithm, header.algorithm.createSignature());
+        }
+
+        // remotely resolved keys may have been replaced since the signature was initialized
+        if (prepared.publicKey != publicKey) {
+            try {
+                prepared.signature.initVerify(publicKey);
+            } catch (InvalidKeyException e) {
+                e.printStackTrace();
+                threadSignatures.remove(id);
+                return null;
+            }
+            prepared.publicKey = publicKey;
+        }
+
+        threadSignatures.put(id, prepared);
 
-        return signature;
+        return prepared;
     }
 
-    private String resolveAlgorithm(JsonObject headers) {
+    private JwsAlgorithm resolveAlgorithm(JsonObject headers) {
         JsonString algClaim = (JsonString) headers.get("alg");
 
         if (algClaim == null) {
@@ -272,21 +366,18 @@ public class JwtValidator implements TokenValidator {
 
         log.debugf("Token is using algorithm [%s]", algorithm);
 
-        switch (algorithm) {
-            case "RS256":
-                return "SHA256withRSA";
-            case "RS384":
-                return "SHA384withRSA";
-            case "RS512":
-                return "SHA512withRSA";
-            default:
-                throw log.tokenRealmJwtSignatureInvalidAlgorithm(algorithm);
+        JwsAlgorithm jwsAlgorithm = JwsAlgorithm.forName(algorithm);
+
+        if (jwsAlgorithm == null) {
+            throw log.tokenRealmJwtSignatureInvalidAlgorithm(algorithm);
         }
+
+        return jwsAlgorithm;
     }
 
-    private PublicKey resolvePublicKey(JsonObject headers) {
-        JsonString kid = headers.getJsonString("kid");
-        JsonString jku = headers.getJsonString("jku");
+    private PublicKey resolvePublicKey(JoseHeader header) {
+        String kid = header.kid;
+        String jku = header.jku;
 
         if (kid == null) {
             if (defaultPublicKey == null) {
@@ -301,7 +392,7 @@ public class JwtValidator implements TokenValidator {
                 return null;
             }
             try {
-                return jwkManager.getPublicKey(kid.getString(), new URL(jku.getString()));
+                return jwkManager.getPublicKey(kid, new URL(jku));
             } catch (MalformedURLException e) {
                 log.debug("Invalid jku URL.");
                 return null;
@@ -311,7 +402,7 @@ public class JwtValidator implements TokenValidator {
                 log.debug("Cannot validate token with kid claim.");
                 return null;
             }
-            PublicKey res = namedKeys.get(kid.getString());
+            PublicKey res = namedKeys.get(kid);
             if (res == null) {
                 log.debug("Unknown kid.");
             }
@@ -323,6 +414,65 @@ public class JwtValidator implements TokenValidator {
         return System.currentTimeMillis() / 1000;
     }
 
+    private static final class JoseHeader {
+
+        final JwsAlgorithm algorithm;
+        final String kid;
+        final String jku;
+
+        JoseHeader(JwsAlgorithm algorithm, String kid, String jku) {
+            this.algorithm = algorithm;
+            this.kid = kid;
+            this.jku = jku;
+        }
+    }
+
+    /**
+     * A {@link Signature} initialized for verification, only ever used by the thread which created it.
+     */
+    private final class PreparedSignature {
+
+        final String id;
+        final JwsAlgorithm algorithm;
+        final Signature signature;
+        PublicKey publicKey;
+
+        PreparedSignature(String id, JwsAlgorithm algorithm, Signature signature) {
+            this.id = id;
+            this.algorithm = algorithm;
+            this.signature = signature;
+        }
+
+        boolean verify(String signingInput, byte[] decodedSignature) throws SignatureException {
+            byte[] jcaSignature = algorithm.toJcaSignature(decodedSignature);
+            if (jcaSignature == null) {
+                log.debug("Malformed signature");
+                return false;
+            }
+            try {
+                signature.update(signingInput.getBytes(StandardCharsets.UTF_8));
+                return signature.verify(jcaSignature);
+            } catch (SignatureException e) {
+                // the state of the signature is unspecified after a failure, start over with a new one
+                signatures.get().remove(id);
+                throw e;
+            }
+        }
+    }
+
+    private static final class CachedToken {
+
+        final Attributes attributes;
+        final long expiration;
+        final long notBefore;
+
+        CachedToken(Attributes attributes, long expiration, long notBefore) {
+            this.attributes = attributes;
+            this.expiration = expiration;
+            this.notBefore = notBefore;
+        }
+    }
+
     public static class Builder {
         private static final int CONNECTION_TIMEOUT = 2000;//2s
         private Set<String> issuers = new LinkedHashSet<>();
@@ -332,8 +482,11 @@ public class JwtValidator implements TokenValidator {
         private HostnameVerifier hostnameVerifier;
         private SSLContext sslContext;
         private long updateTimeout = 120000;
+        private long minTimeBetweenRequests = 10000;
         private int connectionTimeout = CONNECTION_TIMEOUT;
         private int readTimeout = CONNECTION_TIMEOUT;
+        private int tokenCacheSize;
+        private long tokenCacheTimeout = 120000;
 
         private Builder() {
         }
@@ -437,7 +590,8 @@ public class JwtValidator implements TokenValidator {
 
         /**
          * <p>A timeout for cached jwks when using jku claim. After this timeout, the keys of need to be re-cached before use.
-         * Default value is 2 minutes.
+         * Keys still in use are re-cached in the background once three quarters of this timeout elapsed. While the keys cannot
+         * be re-cached, the expired keys are used until this timeout elapsed once more. Default value is 2 minutes.
          *
          * @param timeout timeout in ms before keys needs to be re-cached
          * @return this instance
@@ -447,6 +601,20 @@ public class JwtValidator implements TokenValidator {
             return this;
         }
 
+        /**
+         * <p>The minimum time between two requests for the jwks of the same jku endpoint, unless the cached keys expired. When a token
+         * with an unknown <code>kid</code> is received, the keys are fetched again only if no request was sent during this time.
+         * This also applies to the retries after a failed request. Default value is 10 seconds.
+         *
+         * @param minTimeBetweenRequests the minimum time in ms between two requests to a jku endpoint
+         * @return this instance
+         */
+        public Builder setJkuMinTimeBetweenRequests(long minTimeBetweenRequests) {
+            checkMinimumParameter("minTimeBetweenRequests", 0, minTimeBetweenRequests);
+            this.minTimeBetweenRequests = minTimeBetweenRequests;
+            return this;
+        }
+
         /**
          * Sets the connection timeout to a specified timeout, in milliseconds. A non-zero value specifies the timeout when connecting
          * to a resource. A timeout of zero is interpreted as an infinite timeout.
@@ -469,6 +637,34 @@ public class JwtValidator implements TokenValidator {
             return this;
         }
 
+        /**
+         * <p>Sets the maximum number of validated tokens to keep. When a cached token is presented again, only its <code>exp</code>
+         * and <code>nbf</code> claims are checked, the token is neither parsed nor its signature verified.
+         *
+         * <p>If not provided, or if zero, validated tokens are not cached.
+         *
+         * @param tokenCacheSize the maximum number of cached tokens
+         * @return this instance
+         */
+        public Builder tokenCacheSize(int tokenCacheSize) {
+            checkMinimumParameter("tokenCacheSize", 0, tokenCacheSize);
+            this.tokenCacheSize = tokenCacheSize;
+            return this;
+        }
+
+        /**
+         * <p>Sets the maximum time a validated token is kept in the token cache, regardless of its expiration. This bounds how long
+         * a token remains accepted after a change of the keys used to verify it. Default value is 2 minutes.
+         *
+         * @param tokenCacheTimeout the time in ms a validated token is kept in the cache
+         * @return this instance
+         */
+        public Builder tokenCacheTimeout(long tokenCacheTimeout) {
+            checkMinimumParameter("tokenCacheTimeout", 0, tokenCacheTimeout);
+            this.tokenCacheTimeout = tokenCacheTimeout;
+            return this;
+        }
+
         /**
          * Returns a {@link JwtValidator} instance based on all the configuration provided with this builder.
          *
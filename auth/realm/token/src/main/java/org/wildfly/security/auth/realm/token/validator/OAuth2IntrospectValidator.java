@@ -19,7 +19,6 @@
 package org.wildfly.security.auth.realm.token.validator;
 
 import org.wildfly.common.Assert;
-import org.wildfly.common.bytes.ByteStringBuilder;
 import org.wildfly.common.iteration.CodePointIterator;
 import org.wildfly.security.auth.realm.token.TokenValidator;
 import org.wildfly.security.auth.server.RealmUnavailableException;
@@ -27,29 +26,37 @@ import org.wildfly.security.authz.Attributes;
 import org.wildfly.security.evidence.BearerTokenEvidence;
 
 import javax.json.Json;
+import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.wildfly.security.auth.realm.token._private.ElytronMessages.log;
 import static org.wildfly.security.json.util.JsonUtil.toAttributes;
 
 
 /**
- * A RFC-7662 (OAuth2 Token Introspection) compliant {@link TokenValidator}.
+ * <p>A RFC-7662 (OAuth2 Token Introspection) compliant {@link TokenValidator}.
+ *
+ * <p>Concurrent validations of the same token share a single request to the introspection endpoint. If a token cache is
+ * configured, the outcome of an introspection is also kept until the token expires or the cache timeout elapses, whichever
+ * comes first, so that tokens are not introspected again on every request. This applies to inactive tokens as well.
  *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
@@ -64,13 +71,20 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         return new Builder();
     }
 
+    private static final String TOKEN_TYPE_HINT_PARAMETER = "token_type_hint=access_token&token=";
+
     private final URL tokenIntrospectionUrl;
     private final String clientId;
     private final String clientSecret;
     private final SSLContext sslContext;
+    private final SSLSocketFactory sslSocketFactory;
     private final HostnameVerifier hostnameVerifier;
     private final int connectionTimeout;
     private final int readTimeout;
+    private final String authorization;
+    private final TokenCache<Introspection> tokenCache;
+    private final long tokenCacheTimeout;
+    private final Map<String, CompletableFuture<Attributes>> inFlight = new ConcurrentHashMap<>();
 
     OAuth2IntrospectValidator(Builder configuration) {
         this.tokenIntrospectionUrl = Assert.checkNotNullParam("tokenIntrospectionUrl", configuration.tokenIntrospectionUrl);
@@ -82,21 +96,71 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         }
 
         this.sslContext = configuration.sslContext;
+        // connections are only kept alive for reuse with the socket factory they were created with
+        this.sslSocketFactory = sslContext != null ? sslContext.getSocketFactory() : null;
         this.hostnameVerifier = configuration.hostnameVerifier;
         this.connectionTimeout = configuration.connectionTimeout;
         this.readTimeout = configuration.readTimeout;
+        this.authorization = "Basic " + CodePointIterator.ofString(clientId + ":" + clientSecret).asUtf8().base64Encode().drainToString();
+        this.tokenCache = configuration.tokenCacheSize > 0 ? new TokenCache<>(configuration.tokenCacheSize) : null;
+        this.tokenCacheTimeout = configuration.tokenCacheTimeout;
     }
 
     @Override
     public Attributes validate(BearerTokenEvidence evidence) throws RealmUnavailableException {
         Assert.checkNotNullParam("evidence", evidence);
+        String token = evidence.getToken();
+
+        if (tokenCache != null) {
+            Introspection cached = tokenCache.get(token);
+
+            if (cached != null) {
+                return cached.attributes;
+            }
+        }
+
+        CompletableFuture<Attributes> future = new CompletableFuture<>();
+        CompletableFuture<Attributes> existing = inFlight.putIfAbsent(token, future);
+
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RealmUnavailableException) {
+                    throw (RealmUnavailableException) e.getCause();
+                }
+                throw log.tokenRealmOAuth2TokenIntrospectionFailed(e.getCause());
+            }
+        }
 
+        try {
+            Attributes attributes = introspect(token);
+            future.complete(attributes);
+            return attributes;
+        } catch (RealmUnavailableException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(token, future);
+        }
+    }
+
+    private Attributes introspect(String token) throws RealmUnavailableException {
         try {
             JsonObject claims = introspectAccessToken(this.tokenIntrospectionUrl,
-                    this.clientId, this.clientSecret, evidence.getToken(), this.sslContext, this.hostnameVerifier);
+                    this.clientId, this.clientSecret, token, this.sslContext, this.hostnameVerifier);
 
             if (isValidToken(claims)) {
-                return toAttributes(claims);
+                // shared with the concurrent validations of the same token, and with later ones if cached
+                Attributes attributes = toAttributes(claims).asReadOnly();
+
+                if (tokenCache != null) {
+                    cache(token, claims, attributes);
+                }
+
+                return attributes;
+            } else if (claims != null && tokenCache != null) {
+                cache(token, claims, null);
             }
         } catch (Exception e) {
             throw log.tokenRealmOAuth2TokenIntrospectionFailed(e);
@@ -105,6 +169,18 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         return null;
     }
 
+    private void cache(String token, JsonObject claims, Attributes attributes) {
+        long expiration = System.currentTimeMillis() + tokenCacheTimeout;
+        JsonNumber exp = claims.getJsonNumber("exp");
+
+        if (attributes != null && exp != null) {
+            // the token is considered active until the end of the second it expires
+            expiration = Math.min(expiration, (exp.longValue() + 1) * 1000);
+        }
+
+        tokenCache.put(token, new Introspection(attributes), expiration);
+    }
+
     private boolean isValidToken(JsonObject claims) {
         return claims != null && claims.getBoolean("active", false);
     }
@@ -128,27 +204,26 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         HttpURLConnection connection = null;
 
         try {
-            connection = openConnection(tokenIntrospectionUrl, sslContext, hostnameVerifier);
+            connection = openConnection(tokenIntrospectionUrl, hostnameVerifier);
 
-            HashMap<String, String> parameters = new HashMap<>();
-
-            parameters.put("token", token);
-            parameters.put("token_type_hint", "access_token");
-
-            byte[] params = buildParameters(parameters);
+            byte[] params = (TOKEN_TYPE_HINT_PARAMETER + URLEncoder.encode(token, "UTF-8")).getBytes(StandardCharsets.US_ASCII);
 
             connection.setDoOutput(true);
             connection.setRequestMethod("POST");
+            connection.setFixedLengthStreamingMode(params.length);
             connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            connection.setRequestProperty("Content-Length", String.valueOf(params.length));
-            connection.setRequestProperty("Authorization", "Basic " + CodePointIterator.ofString(clientId + ":" + clientSecret).asUtf8().base64Encode().drainToString());
+            connection.setRequestProperty("Authorization", authorization);
 
             try (OutputStream outputStream = connection.getOutputStream()) {
                 outputStream.write(params);
             }
 
             try (InputStream inputStream = new BufferedInputStream(connection.getInputStream())) {
-                return Json.createReader(inputStream).readObject();
+                JsonObject response = Json.createReader(inputStream).readObject();
+                // a fully consumed response lets the connection be reused for the next introspection
+                while (inputStream.read() != -1) {
+                }
+                return response;
             }
         } catch (IOException ioe) {
             if (connection != null && connection.getErrorStream() != null) {
@@ -170,7 +245,7 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         return null;
     }
 
-    private HttpURLConnection openConnection(URL url, SSLContext sslContext, HostnameVerifier hostnameVerifier) throws IOException {
+    private HttpURLConnection openConnection(URL url, HostnameVerifier hostnameVerifier) throws IOException {
         Assert.checkNotNullParam("url", url);
 
         boolean isHttps = url.getProtocol().equalsIgnoreCase("https");
@@ -182,7 +257,7 @@ public class OAuth2IntrospectValidator implements TokenValidator {
             if (isHttps) {
                 HttpsURLConnection https = (HttpsURLConnection) connection;
 
-                https.setSSLSocketFactory(sslContext.getSocketFactory());
+                https.setSSLSocketFactory(sslSocketFactory);
 
                 if (hostnameVerifier != null) {
                     https.setHostnameVerifier(hostnameVerifier);
@@ -197,17 +272,16 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         }
     }
 
-    private byte[] buildParameters(Map<String, String> parameters) throws UnsupportedEncodingException {
-        ByteStringBuilder params = new ByteStringBuilder();
+    private static final class Introspection {
 
-        parameters.entrySet().stream().forEach(entry -> {
-            if (params.length() > 0) {
-                params.append('&');
-            }
-            params.append(entry.getKey()).append('=').append(entry.getValue());
-        });
+        /**
+         * The attributes of an active token or {@code null} if the token is not active.
+         */
+        final Attributes attributes;
 
-        return params.toArray();
+        Introspection(Attributes attributes) {
+            this.attributes = attributes;
+        }
     }
 
     public static class Builder {
@@ -219,6 +293,8 @@ public class OAuth2IntrospectValidator implements TokenValidator {
         private HostnameVerifier hostnameVerifier;
         private int connectionTimeout;
         private int readTimeout;
+        private int tokenCacheSize;
+        private long tokenCacheTimeout = 60000;
 
         private Builder() {
         }
@@ -307,6 +383,34 @@ public class OAuth2IntrospectValidator implements TokenValidator {
             return this;
         }
 
+        /**
+         * <p>Sets the maximum number of introspected tokens to keep. A cached token, either active or not, is not introspected
+         * again until its entry expires. Once the cache is full, a token which was not used recently is evicted.
+         *
+         * <p>If not provided, or if zero, the outcome of introspections is not cached.
+         *
+         * @param tokenCacheSize the maximum number of cached tokens
+         * @return this instance
+         */
+        public Builder tokenCacheSize(int tokenCacheSize) {
+            Assert.checkMinimumParameter("tokenCacheSize", 0, tokenCacheSize);
+            this.tokenCacheSize = tokenCacheSize;
+            return this;
+        }
+
+        /**
+         * <p>Sets the maximum time the outcome of an introspection is kept in the token cache. Active tokens are never kept past
+         * their <code>exp</code> claim, this bounds how long a revoked token remains accepted. Default value is 1 minute.
+         *
+         * @param tokenCacheTimeout the time in ms the outcome of an introspection is kept in the cache
+         * @return this instance
+         */
+        public Builder tokenCacheTimeout(long tokenCacheTimeout) {
+            Assert.checkMinimumParameter("tokenCacheTimeout", 0, tokenCacheTimeout);
+            this.tokenCacheTimeout = tokenCacheTimeout;
+            return this;
+        }
+
         /**
          * Returns a {@link OAuth2IntrospectValidator} instance based on all the configuration provided with this builder.
          *
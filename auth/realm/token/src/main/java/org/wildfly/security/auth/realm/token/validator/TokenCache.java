@@ -0,0 +1,187 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.token.validator;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded cache of the outcome of token validations.
+ * <p>
+ * Entries are keyed by a SHA-256 digest of the token so that the cache does not retain the tokens themselves. Each entry
+ * carries its own expiration, which callers derive from the lifetime of the token and the maximum time the cache is allowed
+ * to hold an entry. Lookups do not lock, they only mark the entry they find as used. Once the cache is full, entries are
+ * evicted with the CLOCK approximation of least recently used eviction: a hand goes round the entries, giving those used
+ * since it last passed a second chance and evicting the first one which was not. Expired entries are removed when they are
+ * looked up, and by a sweep of the whole cache once per {@code maxEntries} insertions, so that the cost of the sweeps is
+ * constant per insertion.
+ *
+ * @param <V> the type of the cached values
+ */
+final class TokenCache<V> {
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final ConcurrentHashMap<Key, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final AtomicInteger insertionsSinceSweep = new AtomicInteger();
+    private final Object evictionLock = new Object();
+    private Iterator<Map.Entry<Key, Entry<V>>> hand;
+
+    TokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Obtain the value cached for the given token.
+     *
+     * @param token the token
+     * @return the cached value or {@code null} if the token is not cached or its entry expired
+     */
+    V get(String token) {
+        Key key = new Key(token);
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        if (! entry.used) {
+            entry.used = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Cache a value for the given token.
+     *
+     * @param token the token
+     * @param value the value to cache
+     * @param expiration the time in milliseconds since the epoch after which the entry must no longer be used
+     */
+    void put(String token, V value, long expiration) {
+        Key key = new Key(token);
+        int insertions = insertionsSinceSweep.incrementAndGet();
+        if (insertions >= maxEntries && insertionsSinceSweep.compareAndSet(insertions, 0)) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.isExpired(now));
+        }
+        Entry<V> entry = new Entry<>(value, expiration);
+        entries.put(key, entry);
+        if (entries.size() > maxEntries) {
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry<V> inserted) {
+        synchronized (evictionLock) {
+            long now = System.currentTimeMillis();
+            // every entry gets at most one second chance, so that concurrent lookups cannot keep the hand going round
+            int chances = entries.size();
+            while (entries.size() > maxEntries) {
+                if (hand == null || ! hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                    if (! hand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<Key, Entry<V>> candidate = hand.next();
+                Entry<V> entry = candidate.getValue();
+                if (entry == inserted) {
+                    continue;
+                }
+                if (entry.used && chances-- > 0 && ! entry.isExpired(now)) {
+                    entry.used = false;
+                } else {
+                    entries.remove(candidate.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the entry of the given token, if any.
+     *
+     * @param token the token
+     */
+    void remove(String token) {
+        entries.remove(new Key(token));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Key {
+
+        private final byte[] digest;
+        private final int hashCode;
+
+        Key(String token) {
+            MessageDigest messageDigest = DIGEST.get();
+            this.digest = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && MessageDigest.isEqual(digest, ((Key) obj).digest);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        final V value;
+        final long expiration;
+        /** Whether the entry was looked up since the clock hand last passed it. */
+        volatile boolean used;
+
+        Entry(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now) {
+            return now > expiration;
+        }
+    }
+}
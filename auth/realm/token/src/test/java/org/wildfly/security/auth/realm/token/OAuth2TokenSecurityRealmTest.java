@@ -41,7 +41,15 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.Assert.*;
@@ -200,6 +208,143 @@ public class OAuth2TokenSecurityRealmTest {
                 .build();
     }
 
+    @Test
+    public void testTokenCache() throws Exception {
+        AtomicInteger introspections = new AtomicInteger();
+        configureTokenIntrospectionEndpoint(s -> {
+            introspections.incrementAndGet();
+            return Json.createReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))).readObject();
+        });
+
+        OAuth2IntrospectValidator validator = OAuth2IntrospectValidator.builder()
+                .clientId("wildfly-elytron")
+                .clientSecret("dont_tell_me")
+                .tokenIntrospectionUrl(new URL("http://as.test.org/oauth2/token/introspect"))
+                .tokenCacheSize(10)
+                .build();
+
+        BearerTokenEvidence active = new BearerTokenEvidence(Json.createObjectBuilder()
+                .add("active", true)
+                .add("username", "elytron@jboss.org")
+                .add("exp", System.currentTimeMillis() / 1000 + 60).build().toString());
+        BearerTokenEvidence inactive = new BearerTokenEvidence(Json.createObjectBuilder()
+                .add("active", false).build().toString());
+
+        Attributes attributes = validator.validate(active);
+
+        assertEquals("elytron@jboss.org", attributes.getFirst("username"));
+        assertSame(attributes, validator.validate(active));
+        assertNull(validator.validate(inactive));
+        assertNull(validator.validate(inactive));
+        assertEquals(2, introspections.get());
+    }
+
+    @Test
+    public void testTokenCacheHonorsExpiration() throws Exception {
+        AtomicInteger introspections = new AtomicInteger();
+        configureTokenIntrospectionEndpoint(s -> {
+            introspections.incrementAndGet();
+            return Json.createReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))).readObject();
+        });
+
+        OAuth2IntrospectValidator validator = OAuth2IntrospectValidator.builder()
+                .clientId("wildfly-elytron")
+                .clientSecret("dont_tell_me")
+                .tokenIntrospectionUrl(new URL("http://as.test.org/oauth2/token/introspect"))
+                .tokenCacheSize(10)
+                .build();
+
+        BearerTokenEvidence evidence = new BearerTokenEvidence(Json.createObjectBuilder()
+                .add("active", true)
+                .add("exp", System.currentTimeMillis() / 1000 + 1).build().toString());
+
+        assertNotNull(validator.validate(evidence));
+        assertNotNull(validator.validate(evidence));
+        assertEquals(1, introspections.get());
+
+        Thread.sleep(2100);
+
+        validator.validate(evidence);
+        assertEquals(2, introspections.get());
+    }
+
+    @Test
+    public void testTokenCacheEvictsLeastRecentlyUsed() throws Exception {
+        AtomicInteger introspections = new AtomicInteger();
+        configureTokenIntrospectionEndpoint(s -> {
+            introspections.incrementAndGet();
+            return Json.createReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))).readObject();
+        });
+
+        OAuth2IntrospectValidator validator = OAuth2IntrospectValidator.builder()
+                .clientId("wildfly-elytron")
+                .clientSecret("dont_tell_me")
+                .tokenIntrospectionUrl(new URL("http://as.test.org/oauth2/token/introspect"))
+                .tokenCacheSize(2)
+                .build();
+
+        BearerTokenEvidence frequent = activeToken("frequent@jboss.org");
+        validator.validate(frequent);
+        for (int i = 0; i < 5; i++) {
+            // the frequently used token remains cached while other tokens are evicted
+            validator.validate(activeToken("user" + i + "@jboss.org"));
+            assertNotNull(validator.validate(frequent));
+        }
+        assertEquals(6, introspections.get());
+    }
+
+    @Test
+    public void testConcurrentIntrospectionsCoalesced() throws Exception {
+        AtomicInteger introspections = new AtomicInteger();
+        configureTokenIntrospectionEndpoint(s -> {
+            introspections.incrementAndGet();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Json.createReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))).readObject();
+        });
+
+        OAuth2IntrospectValidator validator = OAuth2IntrospectValidator.builder()
+                .clientId("wildfly-elytron")
+                .clientSecret("dont_tell_me")
+                .tokenIntrospectionUrl(new URL("http://as.test.org/oauth2/token/introspect"))
+                .build();
+
+        BearerTokenEvidence evidence = new BearerTokenEvidence(Json.createObjectBuilder()
+                .add("active", true)
+                .add("username", "elytron@jboss.org").build().toString());
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Attributes>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return validator.validate(evidence);
+                }));
+            }
+            start.countDown();
+            for (Future<Attributes> future : futures) {
+                assertEquals("elytron@jboss.org", future.get(10, TimeUnit.SECONDS).getFirst("username"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, introspections.get());
+    }
+
+    private static BearerTokenEvidence activeToken(String username) {
+        return new BearerTokenEvidence(Json.createObjectBuilder()
+                .add("active", true)
+                .add("username", username)
+                .add("exp", System.currentTimeMillis() / 1000 + 60).build().toString());
+    }
+
     private void configureReplayTokenIntrospection() {
         configureTokenIntrospectionEndpoint(s -> Json.createReader(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))).readObject());
     }
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.token.validator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TokenCacheTest {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @Test
+    public void testUnusedEntryEvicted() {
+        TokenCache<String> cache = new TokenCache<>(2);
+        cache.put("a", "A", NEVER);
+        cache.put("b", "B", NEVER);
+        assertEquals("A", cache.get("a"));
+
+        cache.put("c", "C", NEVER);
+        assertEquals(2, cache.size());
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void testUsedEntriesKeptInTurn() {
+        TokenCache<String> cache = new TokenCache<>(2);
+        cache.put("a", "A", NEVER);
+        cache.put("b", "B", NEVER);
+        assertEquals("A", cache.get("a"));
+        assertEquals("B", cache.get("b"));
+
+        // both entries get a second chance, then the first one the hand comes back to is evicted
+        cache.put("c", "C", NEVER);
+        assertEquals(2, cache.size());
+        assertEquals("C", cache.get("c"));
+    }
+
+    @Test
+    public void testBoundedUnderConcurrentUse() throws Exception {
+        TokenCache<String> cache = new TokenCache<>(16);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final String prefix = "t" + i + "-";
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    cache.put(prefix + j, prefix, NEVER);
+                    cache.get(prefix + (j / 2));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(cache.size() <= 16);
+    }
+
+    @Test
+    public void testExpiredEntriesSwept() {
+        TokenCache<String> cache = new TokenCache<>(4);
+        long expired = System.currentTimeMillis() - 1;
+        cache.put("a", "A", expired);
+        cache.put("b", "B", expired);
+        cache.put("c", "C", NEVER);
+        assertEquals(3, cache.size());
+
+        // the fourth insertion sweeps the expired entries
+        cache.put("d", "D", NEVER);
+        assertEquals(2, cache.size());
+        assertEquals("C", cache.get("c"));
+        assertEquals("D", cache.get("d"));
+    }
+
+    @Test
+    public void testExpiredEntryNotReturned() {
+        TokenCache<String> cache = new TokenCache<>(4);
+        cache.put("a", "A", System.currentTimeMillis() - 1);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
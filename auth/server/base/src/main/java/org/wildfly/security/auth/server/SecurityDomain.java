@@ -101,6 +101,7 @@ public final class SecurityDomain {
     private final Consumer<SecurityEvent> securityEventListener;
     private final Function<Evidence, Principal> evidenceDecoder;
     private final RoleDecoder roleDecoder;
+    private final boolean materializeRoles;
 
     SecurityDomain(Builder builder, final LinkedHashMap<String, RealmInfo> realmMap) {
         this.realmMap = realmMap;
@@ -115,6 +116,7 @@ public final class SecurityDomain {
         this.securityEventListener = builder.securityEventListener;
         this.evidenceDecoder = builder.evidenceDecoder;
         this.roleDecoder = builder.roleDecoder;
+        this.materializeRoles = builder.materializeRoles;
         final Map<String, RoleMapper> originalRoleMappers = builder.categoryRoleMappers;
         final Map<String, RoleMapper> copiedRoleMappers;
         if (originalRoleMappers.isEmpty()) {
@@ -808,6 +810,10 @@ public final class SecurityDomain {
         return evidenceDecoder;
     }
 
+    boolean isMaterializeRoles() {
+        return materializeRoles;
+    }
+
     RoleDecoder getRoleDecoder() {
         return roleDecoder;
     }
@@ -832,6 +838,7 @@ public final class SecurityDomain {
         private Consumer<SecurityEvent> securityEventListener = e -> {};
         private Function<Evidence, Principal> evidenceDecoder = evidence -> evidence.getDefaultPrincipal();
         private RoleDecoder roleDecoder = RoleDecoder.EMPTY;
+        private boolean materializeRoles = false;
 
         Builder() {
         }
@@ -1066,6 +1073,20 @@ public final class SecurityDomain {
             return this;
         }
 
+        /**
+         * Set whether the roles of the identities of this security domain should be materialized.  If enabled, the roles of
+         * an identity are mapped once, when first needed, and kept as an immutable collection (see {@link Roles#materialize()})
+         * instead of being decoded and mapped again on every call to {@link SecurityIdentity#getRoles()}.
+         *
+         * @param materializeRoles {@code true} to materialize the roles of identities, {@code false} otherwise
+         * @return this builder
+         */
+        public Builder setMaterializeRoles(boolean materializeRoles) {
+            assertNotBuilt();
+            this.materializeRoles = materializeRoles;
+            return this;
+        }
+
         /**
          * Construct this security domain.
          *
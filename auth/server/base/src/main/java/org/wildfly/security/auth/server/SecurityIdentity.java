@@ -86,6 +86,7 @@ public final class SecurityIdentity implements PermissionVerifier, PermissionMap
     private final IdentityCredentials privateCredentials;
     private final Supplier<SecurityIdentity[]> withSuppliedIdentities;
     private final SecurityIdentity[] withIdentities;
+    private volatile Roles materializedRoles;
 
     SecurityIdentity(final SecurityDomain securityDomain, final Principal principal, final RealmInfo realmInfo, final AuthorizationIdentity authorizationIdentity, final Map<String, RoleMapper> roleMappers, final IdentityCredentials publicCredentials, final IdentityCredentials privateCredentials) {
         this.securityDomain = securityDomain;
@@ -556,6 +557,14 @@ public final class SecurityIdentity implements PermissionVerifier, PermissionMap
      * @return the roles associated with this identity
      */
     public Roles getRoles() {
+        if (securityDomain.isMaterializeRoles()) {
+            Roles roles = materializedRoles;
+            if (roles == null) {
+                // identities are immutable, so a racing computation yields an equivalent collection
+                roles = materializedRoles = defaultRoles.apply(this).materialize();
+            }
+            return roles;
+        }
         return defaultRoles.apply(this);
     }
 
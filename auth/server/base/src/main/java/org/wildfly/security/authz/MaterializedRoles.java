@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.authz;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import org.wildfly.security.util.ArrayIterator;
+
+/**
+ * An immutable roles collection holding a copy of the roles of another collection in an open addressing hash table.
+ */
+final class MaterializedRoles implements Roles {
+    private final String[] roles;
+    private final String[] table;
+
+    private MaterializedRoles(final String[] roles) {
+        this.roles = roles;
+        // keep the load factor at or below one half
+        final String[] table = new String[Integer.highestOneBit(Math.max(roles.length, 2) - 1) << 2];
+        final int mask = table.length - 1;
+        for (String role : roles) {
+            int idx = hash(role) & mask;
+            while (table[idx] != null) {
+                idx = (idx + 1) & mask;
+            }
+            table[idx] = role;
+        }
+        this.table = table;
+    }
+
+    static Roles of(final Roles roles) {
+        final LinkedHashSet<String> set = new LinkedHashSet<>();
+        for (String role : roles) {
+            set.add(role.intern());
+        }
+        switch (set.size()) {
+            case 0: return NONE;
+            case 1: return new OneRole(set.iterator().next());
+            default: return new MaterializedRoles(set.toArray(new String[set.size()]));
+        }
+    }
+
+    public boolean contains(final String roleName) {
+        if (roleName == null) {
+            return false;
+        }
+        final String[] table = this.table;
+        final int mask = table.length - 1;
+        int idx = hash(roleName) & mask;
+        String role;
+        while ((role = table[idx]) != null) {
+            if (role == roleName || role.equals(roleName)) {
+                return true;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    private static int hash(final String role) {
+        final int h = role.hashCode();
+        return h ^ h >>> 16;
+    }
+
+    public boolean isEmpty() {
+        return false;
+    }
+
+    public Roles materialize() {
+        return this;
+    }
+
+    public Iterator<String> iterator() {
+        return new ArrayIterator<>(roles);
+    }
+
+    public Spliterator<String> spliterator() {
+        return Spliterators.spliterator(roles, Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.IMMUTABLE);
+    }
+
+    public String toString() {
+        return String.join(", ", this);
+    }
+}
@@ -63,6 +63,10 @@ final class OneRole implements Roles {
         return new OneRole(prefix + role);
     }
 
+    public Roles materialize() {
+        return this;
+    }
+
     public Iterator<String> iterator() {
         return EnumerationIterator.over(role);
     }
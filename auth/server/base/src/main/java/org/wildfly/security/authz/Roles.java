@@ -207,6 +207,17 @@ public interface Roles extends Iterable<String> {
         return prefix.isEmpty() ? this : isEmpty() ? NONE : new AddPrefixRoles(this, prefix);
     }
 
+    /**
+     * Get an immutable copy of this roles collection.  Role collections produced by role mappers are evaluated lazily on
+     * every call; the returned collection holds the roles in a hash table instead, so that {@link #contains(String)} is a
+     * single lookup regardless of how the original collection was assembled.
+     *
+     * @return the materialized roles collection (not {@code null})
+     */
+    default Roles materialize() {
+        return MaterializedRoles.of(this);
+    }
+
     /**
      * The empty roles collection.
      */
@@ -247,6 +258,10 @@ public interface Roles extends Iterable<String> {
             return this;
         }
 
+        public Roles materialize() {
+            return this;
+        }
+
         public boolean isEmpty() {
             return true;
         }
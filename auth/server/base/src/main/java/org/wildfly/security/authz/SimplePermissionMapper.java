@@ -18,16 +18,23 @@
 package org.wildfly.security.authz;
 
 import static org.wildfly.security.auth.server._private.ElytronMessages.log;
+import static org.wildfly.common.Assert.checkMinimumParameter;
 import static org.wildfly.common.Assert.checkNotNullParam;
 
+import java.security.Permission;
+import java.security.PermissionCollection;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
+import org.wildfly.security.permission.CompiledPermissionCollection;
 import org.wildfly.security.permission.PermissionVerifier;
 
 /**
@@ -46,6 +53,14 @@ import org.wildfly.security.permission.PermissionVerifier;
  * calling {@link Builder#setMappingMode(SimplePermissionMapper.MappingMode)} to choose a different mode to combine the resulting
  * {@link PermissionVerifier} instances.
  *
+ * Identities whose principal is not named by any mapping obtain a result which only depends on which of the mapped roles
+ * they hold, so the resulting {@code PermissionVerifier} is cached per combination of mapped roles and shared between
+ * such identities.  The size of this cache can be set using {@link Builder#setVerifierCacheSize(int)}.
+ *
+ * Read-only {@link PermissionCollection} instances used as mapping targets are compiled into a
+ * {@link CompiledPermissionCollection}; with {@link MappingMode#OR} the collections of all matching mappings are compiled
+ * into a single one for each cached combination of roles.
+ *
  * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
  */
 public class SimplePermissionMapper implements PermissionMapper {
@@ -54,9 +69,25 @@ public class SimplePermissionMapper implements PermissionMapper {
 
     private final List<Mapping> mappings;
 
-    private SimplePermissionMapper(MappingMode mappingMode, List<Mapping> mappings) {
+    private final Set<String> mappedPrincipals;
+
+    private final String[] mappedRoles;
+
+    private final int verifierCacheSize;
+
+    private final ConcurrentHashMap<BitSet, PermissionVerifier> verifierCache;
+
+    private SimplePermissionMapper(MappingMode mappingMode, List<Mapping> mappings, Set<String> mappedPrincipals, int verifierCacheSize) {
         this.mappingMode = mappingMode;
         this.mappings = mappings;
+        this.mappedPrincipals = mappedPrincipals;
+        final Set<String> mappedRoles = new LinkedHashSet<>();
+        for (Mapping mapping : mappings) {
+            mappedRoles.addAll(mapping.roles);
+        }
+        this.mappedRoles = mappedRoles.toArray(new String[mappedRoles.size()]);
+        this.verifierCacheSize = verifierCacheSize;
+        this.verifierCache = verifierCacheSize > 0 ? new ConcurrentHashMap<>() : null;
     }
 
     @Override
@@ -64,10 +95,38 @@ public class SimplePermissionMapper implements PermissionMapper {
         checkNotNullParam("permissionMappable", permissionMappable);
         checkNotNullParam("roles", roles);
 
+        final String name = permissionMappable.getPrincipal().getName();
+        final ConcurrentHashMap<BitSet, PermissionVerifier> verifierCache = this.verifierCache;
+        if (verifierCache == null || mappedPrincipals.contains(name)) {
+            // principal specific mappings can not be shared
+            return mapPermissions(name, roles);
+        }
+
+        final String[] mappedRoles = this.mappedRoles;
+        final BitSet key = new BitSet(mappedRoles.length);
+        for (int i = 0; i < mappedRoles.length; i++) {
+            if (roles.contains(mappedRoles[i])) {
+                key.set(i);
+            }
+        }
+        PermissionVerifier result = verifierCache.get(key);
+        if (result == null) {
+            result = mappingMode == MappingMode.OR ? mapAndCompilePermissions(name, roles) : mapPermissions(name, roles);
+            if (verifierCache.size() < verifierCacheSize) {
+                final PermissionVerifier existing = verifierCache.putIfAbsent(key, result);
+                if (existing != null) {
+                    result = existing;
+                }
+            }
+        }
+        return result;
+    }
+
+    private PermissionVerifier mapPermissions(String name, Roles roles) {
         PermissionVerifier result = null;
 
         for (Mapping current : mappings) {
-            if (current.principalPredicate.test(permissionMappable.getPrincipal().getName()) || roles.containsAny(current.roles)) {
+            if (current.principalPredicate.test(name) || roles.containsAny(current.roles)) {
                     switch (mappingMode) {
                         case FIRST_MATCH:
                             return current.permissionVerifier;
@@ -91,6 +150,22 @@ public class SimplePermissionMapper implements PermissionMapper {
         return result != null ? result : PermissionVerifier.NONE;
     }
 
+    private PermissionVerifier mapAndCompilePermissions(String name, Roles roles) {
+        // the union of read-only permission collections can be compiled into a single index
+        final List<Permission> permissions = new ArrayList<>();
+        for (Mapping current : mappings) {
+            if (current.principalPredicate.test(name) || roles.containsAny(current.roles)) {
+                if (! (current.permissionVerifier instanceof CompiledPermissionCollection)) {
+                    return mapPermissions(name, roles);
+                }
+                for (Permission permission : (CompiledPermissionCollection) current.permissionVerifier) {
+                    permissions.add(permission);
+                }
+            }
+        }
+        return permissions.isEmpty() ? PermissionVerifier.NONE : CompiledPermissionCollection.compile(permissions);
+    }
+
     /**
      * Construct a new {@link Builder} for creating the {@link PermissionMapper}.
      *
@@ -111,6 +186,10 @@ public class SimplePermissionMapper implements PermissionMapper {
 
         private final List<Mapping> mappings = new ArrayList<>();
 
+        private final Set<String> mappedPrincipals = new HashSet<>();
+
+        private int verifierCacheSize = 256;
+
         Builder() {
         }
 
@@ -138,6 +217,7 @@ public class SimplePermissionMapper implements PermissionMapper {
         public Builder addMapping(Set<String> principals, Set<String> roles, PermissionVerifier permissionVerifier) {
             assertNotBuilt();
             mappings.add(new Mapping(new HashSet<>(checkNotNullParam("principals", principals))::contains, roles, permissionVerifier));
+            mappedPrincipals.addAll(principals);
 
             return this;
         }
@@ -155,6 +235,20 @@ public class SimplePermissionMapper implements PermissionMapper {
             return this;
         }
 
+        /**
+         * Set the maximum number of distinct role combinations for which the resulting {@link PermissionVerifier} is cached,
+         * {@code 0} disables the cache.  The default is {@code 256}.
+         *
+         * @param verifierCacheSize the maximum number of cached {@link PermissionVerifier} instances.
+         * @return {@code this} builder to allow chaining.
+         */
+        public Builder setVerifierCacheSize(int verifierCacheSize) {
+            assertNotBuilt();
+            checkMinimumParameter("verifierCacheSize", 0, verifierCacheSize);
+            this.verifierCacheSize = verifierCacheSize;
+
+            return this;
+        }
 
         /**
          * Build and return the resulting {@link PermissionMapper}.
@@ -165,7 +259,7 @@ public class SimplePermissionMapper implements PermissionMapper {
             assertNotBuilt();
             built = true;
 
-            return new SimplePermissionMapper(mappingMode, mappings);
+            return new SimplePermissionMapper(mappingMode, mappings, mappedPrincipals, verifierCacheSize);
         }
 
         private void assertNotBuilt() {
@@ -186,7 +280,12 @@ public class SimplePermissionMapper implements PermissionMapper {
         Mapping(Predicate<String> principalPredicate, Set<String> roles, PermissionVerifier permissionVerifier) {
             this.principalPredicate = principalPredicate;
             this.roles = Collections.unmodifiableSet(new HashSet<>(checkNotNullParam("roles", roles)));
-            this.permissionVerifier = checkNotNullParam("permissionVerifier", permissionVerifier);
+            checkNotNullParam("permissionVerifier", permissionVerifier);
+            if (permissionVerifier instanceof PermissionCollection && ((PermissionCollection) permissionVerifier).isReadOnly()) {
+                this.permissionVerifier = CompiledPermissionCollection.compile((PermissionCollection) permissionVerifier);
+            } else {
+                this.permissionVerifier = permissionVerifier;
+            }
         }
 
     }
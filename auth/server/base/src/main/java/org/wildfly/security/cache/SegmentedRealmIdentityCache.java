@@ -0,0 +1,318 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wildfly.security.cache;
+
+import static org.wildfly.common.Assert.checkMinimumParameter;
+import static org.wildfly.common.Assert.checkNotNullParam;
+
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.wildfly.security.auth.server.RealmIdentity;
+
+/**
+ * <p>A {@link RealmIdentityCache} implementation intended for highly concurrent use.
+ *
+ * <p>The cache is split into a number of independent segments, each one holding a fixed share of the maximum number of
+ * entries. Lookups never block: they are served directly from a {@link ConcurrentHashMap} and only set a reference bit
+ * on the entry being returned. Writes lock the segment the key belongs to and, once the segment is full, evict entries
+ * using a second chance (CLOCK) policy which approximates LRU ordering without having to reorder entries on reads.
+ *
+ * <p>As with {@link LRURealmIdentityCache}, an identity can also be retrieved or removed using its realm principal, in
+ * which case every domain principal referencing that identity is considered.
+ */
+public final class SegmentedRealmIdentityCache implements RealmIdentityCache {
+
+    /**
+     * The default number of segments.
+     */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The minimum number of entries held by a segment, small caches are not split any further than this.
+     */
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    private final Segment[] segments;
+
+    /**
+     * Holds a mapping between a realm principal and domain principals
+     */
+    private final ConcurrentHashMap<Principal, Set<Principal>> domainPrincipalMap = new ConcurrentHashMap<>();
+
+    private final long maxAge;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries the maximum number of entries to keep in the cache
+     */
+    public SegmentedRealmIdentityCache(int maxEntries) {
+        this(maxEntries, -1);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries the maximum number of entries to keep in the cache
+     * @param maxAge the time in milliseconds that an entry can stay in the cache. If {@code -1}, entries never expire
+     */
+    public SegmentedRealmIdentityCache(int maxEntries, long maxAge) {
+        this(maxEntries, maxAge, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries the maximum number of entries to keep in the cache
+     * @param maxAge the time in milliseconds that an entry can stay in the cache. If {@code -1}, entries never expire
+     * @param concurrencyLevel the estimated number of concurrently updating threads, used to size the number of segments. As
+     *                         entries are evicted per segment, small caches are not split below {@value #MIN_SEGMENT_SIZE} entries per segment
+     */
+    public SegmentedRealmIdentityCache(int maxEntries, long maxAge, int concurrencyLevel) {
+        checkMinimumParameter("maxEntries", 1, maxEntries);
+        checkMinimumParameter("maxAge", -1, maxAge);
+        checkMinimumParameter("concurrencyLevel", 1, concurrencyLevel);
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && (segmentCount << 1) * MIN_SEGMENT_SIZE <= maxEntries) {
+            segmentCount <<= 1;
+        }
+        segments = new Segment[segmentCount];
+        int share = maxEntries / segmentCount;
+        int remainder = maxEntries % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i < remainder ? share + 1 : share);
+        }
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public void put(Principal key, RealmIdentity newValue) {
+        checkNotNullParam("key", key);
+        checkNotNullParam("newValue", newValue);
+        segmentFor(key).put(key, newValue);
+    }
+
+    @Override
+    public RealmIdentity get(Principal key) {
+        CacheEntry cached = segmentFor(key).entries.get(key);
+
+        if (cached != null) {
+            return touchIfValid(cached);
+        }
+
+        Set<Principal> domainPrincipals = domainPrincipalMap.get(key);
+
+        if (domainPrincipals != null) {
+            for (Principal domainPrincipal : domainPrincipals) {
+                cached = segmentFor(domainPrincipal).entries.get(domainPrincipal);
+                if (cached != null) {
+                    return touchIfValid(cached);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void remove(Principal key) {
+        CacheEntry cached = segmentFor(key).entries.get(key);
+        Set<Principal> domainPrincipals;
+
+        if (cached != null) {
+            segmentFor(key).remove(cached);
+            domainPrincipals = cached.realmPrincipal != null ? domainPrincipalMap.remove(cached.realmPrincipal) : null;
+        } else {
+            domainPrincipals = domainPrincipalMap.remove(key);
+        }
+
+        if (domainPrincipals != null) {
+            for (Principal domainPrincipal : domainPrincipals) {
+                Segment segment = segmentFor(domainPrincipal);
+                CacheEntry entry = segment.entries.get(domainPrincipal);
+                if (entry != null) {
+                    segment.remove(entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        domainPrincipalMap.clear();
+    }
+
+    private Segment segmentFor(Principal key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private RealmIdentity touchIfValid(CacheEntry cached) {
+        if (cached.isExpired()) {
+            segmentFor(cached.key).remove(cached);
+            unlinkDomainPrincipal(cached);
+            return null;
+        }
+
+        // only write when needed, to avoid invalidating the cache line on every hit
+        if (! cached.referenced) {
+            cached.referenced = true;
+        }
+
+        return cached.value;
+    }
+
+    private void linkDomainPrincipal(CacheEntry entry) {
+        if (entry.realmPrincipal != null) {
+            domainPrincipalMap.compute(entry.realmPrincipal, (principal, domainPrincipals) -> {
+                if (domainPrincipals == null) {
+                    domainPrincipals = ConcurrentHashMap.newKeySet();
+                }
+                domainPrincipals.add(entry.key);
+                return domainPrincipals;
+            });
+        }
+    }
+
+    private void unlinkDomainPrincipal(CacheEntry entry) {
+        if (entry.realmPrincipal != null) {
+            domainPrincipalMap.computeIfPresent(entry.realmPrincipal, (principal, domainPrincipals) -> {
+                domainPrincipals.remove(entry.key);
+                return domainPrincipals.isEmpty() ? null : domainPrincipals;
+            });
+        }
+    }
+
+    private final class Segment {
+
+        private final ConcurrentHashMap<Principal, CacheEntry> entries;
+
+        /**
+         * The CLOCK ring, guarded by this segment. May contain entries which were already removed, those are discarded
+         * as the hand passes over them.
+         */
+        private final ArrayDeque<CacheEntry> clock;
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.entries = new ConcurrentHashMap<>(Math.min(maxEntries, 16) * 2);
+            this.clock = new ArrayDeque<>(Math.min(maxEntries, 16));
+        }
+
+        synchronized void put(Principal key, RealmIdentity value) {
+            CacheEntry existing = entries.get(key);
+
+            if (existing != null) {
+                if (! existing.isExpired()) {
+                    linkDomainPrincipal(existing);
+                    return;
+                }
+                remove(existing);
+                unlinkDomainPrincipal(existing);
+            }
+
+            CacheEntry entry = new CacheEntry(key, value, maxAge);
+            entries.put(key, entry);
+            clock.addLast(entry);
+            linkDomainPrincipal(entry);
+
+            while (entries.size() > maxEntries) {
+                evict();
+            }
+
+            if (clock.size() > maxEntries << 1) {
+                clock.removeIf(CacheEntry::isRemoved);
+            }
+        }
+
+        synchronized void remove(CacheEntry entry) {
+            if (entries.remove(entry.key, entry)) {
+                entry.removed = true;
+            }
+        }
+
+        synchronized void clear() {
+            for (CacheEntry entry : clock) {
+                entry.removed = true;
+            }
+            entries.clear();
+            clock.clear();
+        }
+
+        private void evict() {
+            CacheEntry candidate;
+            while ((candidate = clock.pollFirst()) != null) {
+                if (candidate.removed) {
+                    continue;
+                }
+                if (candidate.referenced && ! candidate.isExpired()) {
+                    candidate.referenced = false;
+                    clock.addLast(candidate);
+                    continue;
+                }
+                if (entries.remove(candidate.key, candidate)) {
+                    candidate.removed = true;
+                    unlinkDomainPrincipal(candidate);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class CacheEntry {
+
+        final Principal key;
+        final Principal realmPrincipal;
+        final RealmIdentity value;
+        final long expiration;
+        volatile boolean referenced;
+        /**
+         * Guarded by the owning segment.
+         */
+        boolean removed;
+
+        CacheEntry(Principal key, RealmIdentity value, long maxAge) {
+            this.key = key;
+            this.value = value;
+            this.realmPrincipal = value.getRealmIdentityPrincipal();
+            if (maxAge == -1) {
+                expiration = -1;
+            } else {
+                expiration = System.currentTimeMillis() + maxAge;
+            }
+        }
+
+        boolean isExpired() {
+            return expiration != -1 && System.currentTimeMillis() > expiration;
+        }
+
+        boolean isRemoved() {
+            return removed;
+        }
+    }
+}
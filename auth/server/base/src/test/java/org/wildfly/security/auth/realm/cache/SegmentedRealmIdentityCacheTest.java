@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wildfly.security.auth.realm.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.Principal;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.wildfly.security.auth.SupportLevel;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.cache.RealmIdentityCache;
+import org.wildfly.security.cache.SegmentedRealmIdentityCache;
+import org.wildfly.security.credential.Credential;
+import org.wildfly.security.evidence.Evidence;
+
+/**
+ * Tests for {@link SegmentedRealmIdentityCache}.
+ */
+public class SegmentedRealmIdentityCacheTest {
+
+    @Test
+    public void testMaxEntries() {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(5, -1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put(new NamePrincipal("user" + i), createRealmIdentity(null));
+        }
+
+        cache.put(new NamePrincipal("user5"), createRealmIdentity(null));
+
+        assertNull(cache.get(new NamePrincipal("user0")));
+
+        // recently read entries get a second chance
+        assertNotNull(cache.get(new NamePrincipal("user1")));
+        cache.put(new NamePrincipal("user6"), createRealmIdentity(null));
+
+        assertNotNull(cache.get(new NamePrincipal("user1")));
+        assertNull(cache.get(new NamePrincipal("user2")));
+        assertNotNull(cache.get(new NamePrincipal("user6")));
+
+        int present = 0;
+        for (int i = 0; i < 7; i++) {
+            if (cache.get(new NamePrincipal("user" + i)) != null) {
+                present++;
+            }
+        }
+        assertEquals(5, present);
+    }
+
+    @Test
+    public void testMaxEntriesSegmented() {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(256, -1, 8);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new NamePrincipal("user" + i), createRealmIdentity(null));
+        }
+
+        int present = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cache.get(new NamePrincipal("user" + i)) != null) {
+                present++;
+            }
+        }
+        assertTrue(present <= 256);
+        assertNotNull(cache.get(new NamePrincipal("user999")));
+    }
+
+    @Test
+    public void testRealmPrincipalAlias() {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(16);
+        Principal realmPrincipal = new NamePrincipal("joe@realm");
+        RealmIdentity identity = createRealmIdentity(realmPrincipal);
+
+        cache.put(new NamePrincipal("joe"), identity);
+        cache.put(new NamePrincipal("JOE"), identity);
+
+        assertSame(identity, cache.get(new NamePrincipal("joe")));
+        assertSame(identity, cache.get(new NamePrincipal("JOE")));
+        assertSame(identity, cache.get(realmPrincipal));
+
+        cache.remove(realmPrincipal);
+
+        assertNull(cache.get(new NamePrincipal("joe")));
+        assertNull(cache.get(new NamePrincipal("JOE")));
+        assertNull(cache.get(realmPrincipal));
+    }
+
+    @Test
+    public void testRemoveByDomainPrincipalRemovesAliases() {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(16);
+        Principal realmPrincipal = new NamePrincipal("joe@realm");
+        RealmIdentity identity = createRealmIdentity(realmPrincipal);
+
+        cache.put(new NamePrincipal("joe"), identity);
+        cache.put(new NamePrincipal("JOE"), identity);
+        cache.put(new NamePrincipal("bob"), createRealmIdentity(new NamePrincipal("bob@realm")));
+
+        cache.remove(new NamePrincipal("joe"));
+
+        assertNull(cache.get(new NamePrincipal("JOE")));
+        assertNull(cache.get(realmPrincipal));
+        assertNotNull(cache.get(new NamePrincipal("bob")));
+    }
+
+    @Test
+    public void testClear() {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(16);
+
+        for (int i = 0; i < 10; i++) {
+            cache.put(new NamePrincipal("user" + i), createRealmIdentity(new NamePrincipal("realm-user" + i)));
+        }
+
+        cache.clear();
+
+        for (int i = 0; i < 10; i++) {
+            assertNull(cache.get(new NamePrincipal("user" + i)));
+            assertNull(cache.get(new NamePrincipal("realm-user" + i)));
+        }
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(16, 100);
+        Principal realmPrincipal = new NamePrincipal("joe@realm");
+
+        cache.put(new NamePrincipal("joe"), createRealmIdentity(realmPrincipal));
+        assertNotNull(cache.get(new NamePrincipal("joe")));
+
+        Thread.sleep(200);
+
+        assertNull(cache.get(new NamePrincipal("joe")));
+        assertNull(cache.get(realmPrincipal));
+
+        RealmIdentity identity = createRealmIdentity(realmPrincipal);
+        cache.put(new NamePrincipal("joe"), identity);
+        assertSame(identity, cache.get(realmPrincipal));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        RealmIdentityCache cache = new SegmentedRealmIdentityCache(100);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10000; i++) {
+                        Principal principal = new NamePrincipal("user" + (i % 250));
+                        Principal realmPrincipal = new NamePrincipal("realm-user" + (i % 250));
+                        RealmIdentity cached = cache.get(principal);
+                        if (cached == null) {
+                            cache.put(principal, createRealmIdentity(realmPrincipal));
+                        } else {
+                            assertEquals(realmPrincipal, cached.getRealmIdentityPrincipal());
+                        }
+                        if (i % 100 == 0) {
+                            cache.remove(realmPrincipal);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RealmIdentity createRealmIdentity(Principal realmPrincipal) {
+        return new RealmIdentity() {
+            @Override
+            public Principal getRealmIdentityPrincipal() {
+                return realmPrincipal;
+            }
+
+            @Override
+            public SupportLevel getCredentialAcquireSupport(Class<? extends Credential> credentialType, String algorithmName, final AlgorithmParameterSpec parameterSpec) throws RealmUnavailableException {
+                return null;
+            }
+
+            @Override
+            public <C extends Credential> C getCredential(Class<C> credentialType) throws RealmUnavailableException {
+                return null;
+            }
+
+            @Override
+            public SupportLevel getEvidenceVerifySupport(Class<? extends Evidence> evidenceType, String algorithmName) throws RealmUnavailableException {
+                return null;
+            }
+
+            @Override
+            public boolean verifyEvidence(Evidence evidence) throws RealmUnavailableException {
+                return false;
+            }
+
+            @Override
+            public boolean exists() throws RealmUnavailableException {
+                return true;
+            }
+        };
+    }
+}
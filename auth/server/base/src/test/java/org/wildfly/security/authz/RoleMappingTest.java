@@ -28,6 +28,7 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -259,6 +260,37 @@ public class RoleMappingTest {
         assertEquals(count, 1);
     }
 
+    @Test
+    public void testMaterializedRoles() {
+        Roles roles = createRoles("foo", "bar", "baz", "joe", "role")
+                .minus(createRoles("joe"))
+                .addPrefix("app-")
+                .or(createRoles("extra"));
+
+        Roles materialized = roles.materialize();
+
+        assertTrue(materialized.contains("app-foo"));
+        assertTrue(materialized.contains("app-bar"));
+        assertTrue(materialized.contains("app-baz"));
+        assertTrue(materialized.contains("app-role"));
+        assertTrue(materialized.contains("extra"));
+        assertFalse(materialized.contains("app-joe"));
+        assertFalse(materialized.contains("foo"));
+        assertFalse(materialized.contains(null));
+        assertTrue(materialized.containsAny(createSet("none", "extra")));
+        assertSame(materialized, materialized.materialize());
+
+        int count = 0;
+        for (Iterator<String> iterator = materialized.iterator(); iterator.hasNext(); ) {
+            assertTrue(roles.contains(iterator.next()));
+            count++;
+        }
+        assertEquals(count, 5);
+
+        assertSame(Roles.NONE, createRoles().materialize());
+        assertTrue(createRoles("single").materialize().contains("single"));
+    }
+
     private Set<String> createSet(String... values) {
         HashSet<String> set = new HashSet<>();
         for (String s : values) set.add(s);
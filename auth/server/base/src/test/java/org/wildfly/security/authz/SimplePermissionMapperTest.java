@@ -0,0 +1,134 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.authz;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.wildfly.security.auth.permission.LoginPermission;
+import org.wildfly.security.auth.permission.RunAsPrincipalPermission;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.permission.AbstractPermissionCollection;
+import org.wildfly.security.permission.CompiledPermissionCollection;
+import org.wildfly.security.permission.PermissionVerifier;
+
+/**
+ * Tests of the {@link PermissionVerifier} cache of {@link SimplePermissionMapper}.
+ */
+public class SimplePermissionMapperTest {
+
+    private static final PermissionVerifier LOGIN = PermissionVerifier.from(new LoginPermission());
+    private static final PermissionVerifier RUN_AS = PermissionVerifier.from(new RunAsPrincipalPermission("*"));
+
+    private static PermissionMapper createMapper() {
+        return SimplePermissionMapper.builder()
+                .setMappingMode(SimplePermissionMapper.MappingMode.OR)
+                .addMapping(Collections.emptySet(), Collections.singleton("user"), LOGIN)
+                .addMapping(Collections.singleton("admin"), Collections.singleton("runner"), RUN_AS)
+                .build();
+    }
+
+    private static PermissionMappable mappable(String name) {
+        final Principal principal = new NamePrincipal(name);
+        return new PermissionMappable() {
+            @Override
+            public Principal getPrincipal() {
+                return principal;
+            }
+        };
+    }
+
+    private static Roles roles(String... roles) {
+        return Roles.fromSet(new HashSet<>(Arrays.asList(roles)));
+    }
+
+    @Test
+    public void testSameRolesShareVerifier() {
+        PermissionMapper mapper = createMapper();
+
+        PermissionVerifier first = mapper.mapPermissions(mappable("alice"), roles("user", "runner", "unmapped"));
+        PermissionVerifier second = mapper.mapPermissions(mappable("bob"), roles("runner", "user"));
+        assertSame(first, second);
+        assertTrue(first.implies(new LoginPermission()));
+        assertTrue(first.implies(new RunAsPrincipalPermission("someone")));
+
+        PermissionVerifier third = mapper.mapPermissions(mappable("carol"), roles("user"));
+        assertNotSame(first, third);
+        assertTrue(third.implies(new LoginPermission()));
+        assertFalse(third.implies(new RunAsPrincipalPermission("someone")));
+    }
+
+    @Test
+    public void testPrincipalMappingNotShared() {
+        PermissionMapper mapper = createMapper();
+
+        PermissionVerifier user = mapper.mapPermissions(mappable("alice"), roles("user"));
+        PermissionVerifier admin = mapper.mapPermissions(mappable("admin"), roles("user"));
+        assertFalse(user.implies(new RunAsPrincipalPermission("someone")));
+        assertTrue(admin.implies(new RunAsPrincipalPermission("someone")));
+        assertTrue(admin.implies(new LoginPermission()));
+
+        // the principal specific result must not have been cached for the role set
+        assertFalse(mapper.mapPermissions(mappable("bob"), roles("user")).implies(new RunAsPrincipalPermission("someone")));
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        PermissionMapper mapper = SimplePermissionMapper.builder()
+                .setMappingMode(SimplePermissionMapper.MappingMode.OR)
+                .addMapping(Collections.emptySet(), Collections.singleton("user"), LOGIN)
+                .addMapping(Collections.emptySet(), Collections.singleton("runner"), RUN_AS)
+                .setVerifierCacheSize(0)
+                .build();
+
+        PermissionVerifier first = mapper.mapPermissions(mappable("alice"), roles("user", "runner"));
+        PermissionVerifier second = mapper.mapPermissions(mappable("bob"), roles("user", "runner"));
+        assertNotSame(first, second);
+        assertTrue(second.implies(new RunAsPrincipalPermission("someone")));
+    }
+
+    @Test
+    public void testReadOnlyCollectionsCompiled() {
+        AbstractPermissionCollection login = new LoginPermission().newPermissionCollection();
+        login.add(new LoginPermission());
+        login.setReadOnly();
+        AbstractPermissionCollection runAs = new RunAsPrincipalPermission("*").newPermissionCollection();
+        runAs.add(new RunAsPrincipalPermission("*"));
+        runAs.setReadOnly();
+
+        PermissionMapper mapper = SimplePermissionMapper.builder()
+                .setMappingMode(SimplePermissionMapper.MappingMode.OR)
+                .addMapping(Collections.emptySet(), Collections.singleton("user"), login)
+                .addMapping(Collections.emptySet(), Collections.singleton("runner"), runAs)
+                .build();
+
+        PermissionVerifier verifier = mapper.mapPermissions(mappable("alice"), roles("user", "runner"));
+        assertTrue(verifier instanceof CompiledPermissionCollection);
+        assertTrue(verifier.implies(new LoginPermission()));
+        assertTrue(verifier.implies(new RunAsPrincipalPermission("someone")));
+        assertFalse(mapper.mapPermissions(mappable("bob"), roles("user")).implies(new RunAsPrincipalPermission("someone")));
+    }
+}
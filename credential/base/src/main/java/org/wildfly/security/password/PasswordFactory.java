@@ -34,6 +34,7 @@ import java.security.spec.KeySpec;
 import java.util.function.Supplier;
 
 import org.wildfly.common.Assert;
+import org.wildfly.security.provider.util.ProviderUtil;
 
 /**
  * A factory for passwords.
@@ -114,13 +115,9 @@ public final class PasswordFactory {
      * @throws NoSuchAlgorithmException if the given algorithm has no available implementations
      */
     public static PasswordFactory getInstance(String algorithm, Supplier<Provider[]> providerSupplier) throws NoSuchAlgorithmException {
-        for (Provider provider : providerSupplier.get()) {
-            final Provider.Service service = provider.getService("PasswordFactory", algorithm);
-            if (service != null) {
-                return new PasswordFactory((PasswordFactorySpi) service.newInstance(null), provider, algorithm);
-            }
-        }
-        throw log.noSuchAlgorithmInvalidAlgorithm(algorithm);
+        final Provider.Service service = ProviderUtil.findProviderService(providerSupplier, null, "PasswordFactory", algorithm);
+        if (service == null) throw log.noSuchAlgorithmInvalidAlgorithm(algorithm);
+        return new PasswordFactory((PasswordFactorySpi) service.newInstance(null), service.getProvider(), algorithm);
     }
 
     /**
@@ -58,10 +58,12 @@ import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
@@ -73,6 +75,8 @@ import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
 
 import org.wildfly.common.Assert;
 import org.wildfly.common.codec.Base32Alphabet;
@@ -144,7 +148,14 @@ import org.wildfly.security.x500.X500;
  *     <li>{@code external}: specifies whether to store data to external storage and encrypted by {@code keyAlias} key (defaults to {@code false})</li>
  *     <li>{@code externalPath}: specifies path to the external storage. It has to be used in conjunction with {@code external=true}</li>
  *     <li>{@code cryptoAlg}: cryptographic algorithm name to be used to encrypt decrypt entries at external storage ({@code external} has to be set to {@code true})</li>
+ *     <li>{@code credentialCacheSize}: the maximum number of decoded credentials to keep in memory, so that repeated retrievals
+ *          of the same entry do not decrypt it again (defaults to {@code 0}, which disables the cache)</li>
+ *     <li>{@code credentialCacheDestroyOnEvict}: specifies whether destroyable key material of cached credentials should be
+ *          destroyed when they are evicted or invalidated (defaults to {@code false})</li>
  * </ul>
+ * <p>
+ * The credential cache only serves retrievals made with the protection parameter of the store itself, and it is cleared
+ * whenever the store is modified, flushed or initialized again.
  */
 public final class KeyStoreCredentialStore extends CredentialStoreSpi {
 
@@ -157,6 +168,8 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
 
     private static final String X_509 = "X.509";
     private static final String CREATE = "create";
+    private static final String CREDENTIALCACHESIZE = "credentialCacheSize";
+    private static final String CREDENTIALCACHEDESTROYONEVICT = "credentialCacheDestroyOnEvict";
     private static final String CRYPTOALG = "cryptoAlg";
     private static final String EXTERNAL = "external";
     private static final String EXTERNALPATH = "externalPath";
@@ -165,8 +178,8 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
     private static final String LOCATION = "location";
     private static final String MODIFIABLE = "modifiable";
 
-    private static final List<String> validAttribtues = Arrays.asList(CREATE, CRYPTOALG, EXTERNAL, EXTERNALPATH, KEYALIAS,
-            KEYSTORETYPE, LOCATION, MODIFIABLE);
+    private static final List<String> validAttribtues = Arrays.asList(CREATE, CREDENTIALCACHESIZE, CREDENTIALCACHEDESTROYONEVICT,
+            CRYPTOALG, EXTERNAL, EXTERNALPATH, KEYALIAS, KEYSTORETYPE, LOCATION, MODIFIABLE);
 
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
     private final HashMap<String, TopEntry> cache = new HashMap<>();
@@ -181,6 +194,7 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
     private boolean useExternalStorage = false;
     private ExternalStorage externalStorage;
     private String cryptographicAlgorithm;
+    private volatile CredentialCache credentialCache;
 
     public void initialize(final Map<String, String> attributes, final CredentialStore.ProtectionParameter protectionParameter, final Provider[] providers) throws CredentialStoreException {
         try (Hold hold = lockForWrite()) {
@@ -189,6 +203,7 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             }
             validateAttribute(attributes, validAttribtues);
             cache.clear();
+            invalidateCredentialCache();
             this.protectionParameter = protectionParameter;
             modifiable = Boolean.parseBoolean(attributes.getOrDefault(MODIFIABLE, "true"));
             create = Boolean.parseBoolean(attributes.getOrDefault(CREATE, "false"));
@@ -220,6 +235,9 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             }
             encryptionKeyAlias = attributes.getOrDefault(KEYALIAS, "cs_key");
             cryptographicAlgorithm = attributes.get(CRYPTOALG);
+            final int credentialCacheSize = Integer.parseInt(attributes.getOrDefault(CREDENTIALCACHESIZE, "0"));
+            credentialCache = credentialCacheSize > 0 ? new CredentialCache(credentialCacheSize,
+                    Boolean.parseBoolean(attributes.getOrDefault(CREDENTIALCACHEDESTROYONEVICT, "false"))) : null;
             load(keyStoreType);
             if ( create  && !useExternalStorage && location != null && !Files.exists(location) ){
                 //Only in this case, flush the data to the file allowing the credential store creation independently of modifiable flag
@@ -388,6 +406,7 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             // now, store it under a unique alias
             final String ksAlias = calculateNewAlias(credentialAlias, credentialClass, algorithmName, parameterSpec);
             try (Hold hold = lockForWrite()) {
+                invalidateCredentialCache();
                 keyStore.setEntry(ksAlias, entry, convertParameter(protectionParameter));
                 final TopEntry topEntry = cache.computeIfAbsent(toLowercase(credentialAlias), TopEntry::new);
                 final MidEntry midEntry = topEntry.getMap().computeIfAbsent(credentialClass, c -> new MidEntry(topEntry, c));
@@ -418,6 +437,8 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
         final MidEntry midEntry;
         final BottomEntry bottomEntry;
         final String ksAlias;
+        final CredentialCache credentialCache = protectionParameter == null ? this.credentialCache : null;
+        final long cacheGeneration;
         try (Hold hold = lockForRead()) {
             final TopEntry topEntry = cache.get(toLowercase(credentialAlias));
             if (topEntry == null) {
@@ -473,6 +494,16 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
                 log.tracef("KeyStoreCredentialStore: no entry for parameterSpec %s", parameterSpec);
                 return null;
             }
+            if (credentialCache != null) {
+                final Credential cached = credentialCache.get(ksAlias);
+                if (cached != null) {
+                    log.trace("KeyStoreCredentialStore: decoded credential found in cache");
+                    return credentialType.cast(cached.clone());
+                }
+                cacheGeneration = credentialCache.getGeneration();
+            } else {
+                cacheGeneration = 0;
+            }
             entry = keyStore.getEntry(ksAlias, convertParameter(protectionParameter));
         } catch (NoSuchAlgorithmException | UnrecoverableEntryException | KeyStoreException e) {
             throw log.cannotAcquireCredentialFromStore(e);
@@ -482,7 +513,14 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             log.trace("KeyStoreCredentialStore: null entry");
             return null;
         }
-        final Class<? extends Credential> matchedCredentialType = midEntry.getCredentialType();
+        final C credential = decodeEntry(entry, midEntry.getCredentialType(), bottomEntry.getAlgorithm(), credentialType);
+        if (credentialCache != null) {
+            credentialCache.put(ksAlias, cacheGeneration, credential.clone());
+        }
+        return credential;
+    }
+
+    private <C extends Credential> C decodeEntry(final KeyStore.Entry entry, final Class<? extends Credential> matchedCredentialType, final String matchedAlgorithm, final Class<C> credentialType) throws CredentialStoreException {
         if (matchedCredentialType == SecretKeyCredential.class) {
             if (entry instanceof KeyStore.SecretKeyEntry) {
                 // simple
@@ -496,7 +534,6 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
                 // we store as a secret key because we can't store the public key properly...
                 final SecretKey secretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
                 final byte[] encoded = secretKey.getEncoded();
-                final String matchedAlgorithm = bottomEntry.getAlgorithm();
                 assert matchedAlgorithm != null; // because PublicKeyCredential is an AlgorithmCredential
                 final KeyFactory keyFactory = KeyFactory.getInstance(matchedAlgorithm);
                 final PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(encoded));
@@ -510,7 +547,6 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             if (entry instanceof KeyStore.SecretKeyEntry) try {
                 final SecretKey secretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
                 final byte[] encoded = secretKey.getEncoded();
-                final String matchedAlgorithm = bottomEntry.getAlgorithm();
                 assert matchedAlgorithm != null; // because KeyPairCredential is an AlgorithmCredential
                 // extract public and private segments
                 final DERDecoder decoder = new DERDecoder(encoded);
@@ -533,7 +569,6 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
                 // OK so this is pretty ugly, but the TrustedCertificateEntry type only holds a single cert so it's no good
                 final SecretKey secretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
                 final byte[] encoded = secretKey.getEncoded();
-                final String matchedAlgorithm = bottomEntry.getAlgorithm();
                 assert matchedAlgorithm != null; // because it is an AlgorithmCredential
                 final DERDecoder decoder = new DERDecoder(encoded);
                 final CertificateFactory certificateFactory = CertificateFactory.getInstance(X_509);
@@ -575,7 +610,6 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             if (entry instanceof KeyStore.SecretKeyEntry) try {
                 final SecretKey secretKey = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
                 final byte[] encoded = secretKey.getEncoded();
-                final String matchedAlgorithm = bottomEntry.getAlgorithm();
                 assert matchedAlgorithm != null; // because it is an AlgorithmCredential
                 final DERDecoder decoder = new DERDecoder(encoded);
                 // we use algorithm-based encoding rather than a standard that encompasses all password types.
@@ -711,6 +745,7 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
             if (! modifiable) {
                 throw log.nonModifiableCredentialStore("remove");
             }
+            invalidateCredentialCache();
             // unlike retrieve or store, we want to remove *all* matches
             final TopEntry topEntry = cache.get(credentialAliasLowerCase);
             if (topEntry == null) {
@@ -781,6 +816,7 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
 
     public void flush() throws CredentialStoreException {
         try (Hold hold = lockForWrite()) {
+            invalidateCredentialCache();
             final Path dataLocation = externalPath == null ? location : externalPath;
             log.tracef("KeyStoreCredentialStore: flushing into %s", dataLocation);
             if (dataLocation != null) try {
@@ -821,6 +857,34 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
         return cache.keySet();
     }
 
+    /**
+     * Get the number of retrievals which were served from the credential cache.
+     *
+     * @return the number of cache hits, or {@code 0} if the credential cache is not enabled
+     */
+    public long getCredentialCacheHitCount() {
+        final CredentialCache credentialCache = this.credentialCache;
+        return credentialCache == null ? 0 : credentialCache.hits.sum();
+    }
+
+    /**
+     * Get the number of retrievals which had to decode the key store entry because it was not in the credential cache.
+     *
+     * @return the number of cache misses, or {@code 0} if the credential cache is not enabled
+     */
+    public long getCredentialCacheMissCount() {
+        final CredentialCache credentialCache = this.credentialCache;
+        return credentialCache == null ? 0 : credentialCache.misses.sum();
+    }
+
+    private void invalidateCredentialCache() {
+        // write lock held
+        final CredentialCache credentialCache = this.credentialCache;
+        if (credentialCache != null) {
+            credentialCache.invalidate();
+        }
+    }
+
     private Hold lockForRead() {
         readWriteLock.readLock().lock();
         return () -> readWriteLock.readLock().unlock();
@@ -1041,6 +1105,93 @@ public final class KeyStoreCredentialStore extends CredentialStoreSpi {
         return str.toLowerCase(Locale.ROOT);
     }
 
+    /**
+     * A bounded LRU cache of decoded credentials keyed by the key store alias, which encodes the credential alias, type,
+     * algorithm and parameters.  Entries decoded concurrently with an invalidation are discarded by comparing generations.
+     */
+    static final class CredentialCache {
+        private final int maxSize;
+        private final boolean destroyOnEvict;
+        private final LinkedHashMap<String, Credential> map;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private long generation;
+
+        CredentialCache(final int maxSize, final boolean destroyOnEvict) {
+            this.maxSize = maxSize;
+            this.destroyOnEvict = destroyOnEvict;
+            map = new LinkedHashMap<String, Credential>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(final Map.Entry<String, Credential> eldest) {
+                    if (size() > CredentialCache.this.maxSize) {
+                        evicted(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Credential get(final String ksAlias) {
+            final Credential credential = map.get(ksAlias);
+            if (credential == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            return credential;
+        }
+
+        synchronized long getGeneration() {
+            return generation;
+        }
+
+        synchronized void put(final String ksAlias, final long generation, final Credential credential) {
+            if (this.generation != generation) {
+                // the store changed while the entry was being decoded
+                evicted(credential);
+                return;
+            }
+            final Credential old = map.put(ksAlias, credential);
+            if (old != null && old != credential) {
+                evicted(old);
+            }
+        }
+
+        synchronized void invalidate() {
+            generation++;
+            for (Credential credential : map.values()) {
+                evicted(credential);
+            }
+            map.clear();
+        }
+
+        private void evicted(final Credential credential) {
+            if (destroyOnEvict) {
+                destroy(credential);
+            }
+        }
+
+        private static void destroy(final Credential credential) {
+            if (credential instanceof PasswordCredential) {
+                destroy(((PasswordCredential) credential).getPassword());
+            } else if (credential instanceof SecretKeyCredential) {
+                destroy(((SecretKeyCredential) credential).getSecretKey());
+            } else if (credential instanceof KeyPairCredential) {
+                destroy(((KeyPairCredential) credential).getKeyPair().getPrivate());
+            } else if (credential instanceof X509CertificateChainPrivateCredential) {
+                destroy(((X509CertificateChainPrivateCredential) credential).getPrivateKey());
+            }
+        }
+
+        private static void destroy(final Object object) {
+            if (object instanceof Destroyable) try {
+                ((Destroyable) object).destroy();
+            } catch (DestroyFailedException ignored) {
+                // not all keys can be destroyed
+            }
+        }
+    }
+
     static final class TopEntry {
         private final String alias;
         private final HashMap<Class<? extends Credential>, MidEntry> map = new HashMap<>(0);
@@ -20,6 +20,7 @@ package org.wildfly.security.credential.store.impl;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -233,4 +234,40 @@ public class KeyStoreCredentialStoreTest {
 
         assertTrue(Files.isSymbolicLink(Paths.get(symbolicLinkFile.getAbsolutePath())));
     }
+
+    @Test
+    public void credentialCache() throws Exception {
+        final KeyStoreCredentialStore store = new KeyStoreCredentialStore();
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("create", Boolean.TRUE.toString());
+        attributes.put("keyStoreType", keyStoreFormat);
+        attributes.put("credentialCacheSize", "10");
+        attributes.put("credentialCacheDestroyOnEvict", Boolean.TRUE.toString());
+
+        store.initialize(attributes, storeProtection, null);
+        store.store("key", storedPasswordCredential, null);
+
+        for (int i = 0; i < 3; i++) {
+            final PasswordCredential retrieved = store.retrieve("key", PasswordCredential.class, null, null, null);
+            final ClearPasswordSpec retrievedPassword = passwordFactory.getKeySpec(retrieved.getPassword(), ClearPasswordSpec.class);
+            assertArrayEquals(secretPassword, retrievedPassword.getEncodedPassword());
+        }
+        assertEquals(1, store.getCredentialCacheMissCount());
+        assertEquals(2, store.getCredentialCacheHitCount());
+
+        // a modification must not leave the previous credential in the cache
+        final char[] newPassword = "another password".toCharArray();
+        store.store("key", new PasswordCredential(passwordFactory.generatePassword(new ClearPasswordSpec(newPassword))), null);
+
+        final PasswordCredential retrieved = store.retrieve("key", PasswordCredential.class, null, null, null);
+        final ClearPasswordSpec retrievedPassword = passwordFactory.getKeySpec(retrieved.getPassword(), ClearPasswordSpec.class);
+        assertArrayEquals(newPassword, retrievedPassword.getEncodedPassword());
+        assertEquals(2, store.getCredentialCacheMissCount());
+
+        // destroying the cache on invalidation must not affect credentials already handed out
+        store.remove("key", PasswordCredential.class, null, null);
+        assertArrayEquals(newPassword, passwordFactory.getKeySpec(retrieved.getPassword(), ClearPasswordSpec.class).getEncodedPassword());
+        assertNull(store.retrieve("key", PasswordCredential.class, null, null, null));
+    }
 }
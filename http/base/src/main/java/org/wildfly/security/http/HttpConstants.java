@@ -70,6 +70,12 @@ public class HttpConstants {
      */
     public static final String CONFIG_GSS_MANAGER = CONFIG_BASE + ".gss-manager";
 
+    /**
+     * This allows a {@code org.wildfly.security.mechanism.http.VerifiedCredentialCache} instance to be passed into the BASIC
+     * and FORM authentication mechanisms, so that recently verified passwords are not verified again.
+     */
+    public static final String CONFIG_VERIFIED_CREDENTIAL_CACHE = CONFIG_BASE + ".verified-credential-cache";
+
     /**
      * This enables workaround for native GSS, where createName() needs to be called for correct GSSContext initialization.
      * Set to "true" to call createName() as part of GSSContext initialization.
@@ -45,6 +45,7 @@ import org.wildfly.security.http.HttpAuthenticationException;
 import org.wildfly.security.http.HttpServerRequest;
 import org.wildfly.security.http.HttpServerResponse;
 import org.wildfly.security.mechanism.http.UsernamePasswordAuthenticationMechanism;
+import org.wildfly.security.mechanism.http.VerifiedCredentialCache;
 
 /**
  * Implementation of the HTTP BASIC authentication mechanism
@@ -77,7 +78,20 @@ final class BasicAuthenticationMechanism extends UsernamePasswordAuthenticationM
      * @param includeCharset should the charset be included in the challenge.
      */
     BasicAuthenticationMechanism(final CallbackHandler callbackHandler, final String configuredRealm, final boolean silent, final boolean includeCharset) {
-        super(checkNotNullParam("callbackHandler", callbackHandler));
+        this(callbackHandler, configuredRealm, silent, includeCharset, null);
+    }
+
+    /**
+     * Construct a new instance of {@code BasicAuthenticationMechanism}.
+     *
+     * @param callbackHandler the {@link CallbackHandler} to use to verify the supplied credentials and to notify to establish the current identity.
+     * @param configuredRealm a configured realm name from the configuration.
+     * @param includeCharset should the charset be included in the challenge.
+     * @param verifiedCredentialCache the cache of recently verified passwords, or {@code null} to verify every password.
+     */
+    BasicAuthenticationMechanism(final CallbackHandler callbackHandler, final String configuredRealm, final boolean silent, final boolean includeCharset,
+            final VerifiedCredentialCache verifiedCredentialCache) {
+        super(checkNotNullParam("callbackHandler", callbackHandler), verifiedCredentialCache);
 
         this.includeCharset = includeCharset;
         this.configuredRealm = configuredRealm;
@@ -21,6 +21,7 @@ package org.wildfly.security.http.basic;
 import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.http.HttpConstants.BASIC_NAME;
 import static org.wildfly.security.http.HttpConstants.CONFIG_REALM;
+import static org.wildfly.security.http.HttpConstants.CONFIG_VERIFIED_CREDENTIAL_CACHE;
 import static org.wildfly.security.http.basic.BasicAuthenticationMechanism.SILENT;
 
 import java.security.Provider;
@@ -33,6 +34,7 @@ import org.kohsuke.MetaInfServices;
 import org.wildfly.security.http.HttpAuthenticationException;
 import org.wildfly.security.http.HttpServerAuthenticationMechanism;
 import org.wildfly.security.http.HttpServerAuthenticationMechanismFactory;
+import org.wildfly.security.mechanism.http.VerifiedCredentialCache;
 
 /**
  * A {@link HttpServerAuthenticationMechanismFactory} implementation for the Basic HTTP authentication mechanism.
@@ -68,7 +70,8 @@ public class BasicMechanismFactory implements HttpServerAuthenticationMechanismF
 
         if (BASIC_NAME.equals(mechanismName)) {
             return new BasicAuthenticationMechanism(callbackHandler, (String) properties.get(CONFIG_REALM),
-                    Boolean.parseBoolean((String) properties.get(SILENT)), false);
+                    Boolean.parseBoolean((String) properties.get(SILENT)), false,
+                    (VerifiedCredentialCache) properties.get(CONFIG_VERIFIED_CREDENTIAL_CACHE));
         }
 
         return null;
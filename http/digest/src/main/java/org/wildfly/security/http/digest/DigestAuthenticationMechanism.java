@@ -149,14 +149,6 @@ final class DigestAuthenticationMechanism implements HttpServerAuthenticationMec
                 throw httpDigest.invalidNonceCount(nonceCount);
             }
         }
-        /*
-         * We want to get the nonce checked ASAP so it is recorded as used in case some intermittent failure prevents validation.
-         *
-         * We act on the validity at the end where we can let the client know if it is stale.
-         */
-        byte[] salt = messageRealm.getBytes(UTF_8);
-        boolean nonceValid = nonceManager.useNonce(nonce, salt, nonceCount);
-
         String username;
         if (responseTokens.containsKey(USERNAME) && !responseTokens.containsKey(USERNAME_STAR)) {
             username = convertToken(USERNAME, responseTokens.get(USERNAME));
@@ -233,7 +225,14 @@ final class DigestAuthenticationMechanism implements HttpServerAuthenticationMec
             return;
         }
 
-        if (nonceValid == false) {
+        /*
+         * The nonce is only recorded as used once the response has been verified, so that clients without valid credentials
+         * cannot fill the nonces tracked by the nonce manager.
+         *
+         * We act on the validity after the response, where we can let the client know if it is stale.
+         */
+        byte[] salt = messageRealm.getBytes(UTF_8);
+        if (nonceManager.useNonce(nonce, salt, nonceCount) == false) {
             httpDigest.trace("Failed: invalid nonce");
             request.authenticationInProgress(httpResponse -> prepareResponse(selectedRealm, httpResponse, true));
             return;
@@ -24,13 +24,14 @@ import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.wildfly.common.iteration.ByteIterator;
@@ -40,16 +41,31 @@ import org.wildfly.security.mechanism.AuthenticationMechanismException;
 
 /**
  * A utility responsible for managing nonces.
+ * <p>
+ * Used nonces are tracked in a concurrent map until they expire, their expiration being handled in bulk by a hashed timer
+ * wheel advanced by a single periodic task. The number of tracked nonces is bounded, nonces which could not be tracked being
+ * rejected. The mechanisms only use a nonce once the response of the client has been verified, so that the bound can only be
+ * reached by authenticated clients.
  *
  * @author <a href="mailto:darran.lofthouse@jboss.com">Darran Lofthouse</a>
  */
 public class NonceManager {
 
     private static final int PREFIX_LENGTH = Integer.BYTES + Long.BYTES;
+    private static final int DEFAULT_MAX_TRACKED_NONCES = 500000;
+    private static final int WHEEL_SIZE = 256; // must be a power of two
+    private static final long MIN_TICK_NANO = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final NonceState REJECTED = new NonceState(null, -1, 0);
 
     private final ScheduledExecutorService executor;
     private final AtomicInteger nonceCounter = new AtomicInteger();
-    private final Map<String, NonceState> usedNonces = new HashMap<>();
+    private final ConcurrentHashMap<String, NonceState> usedNonces = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedNonces = new AtomicInteger();
+    private final int maxTrackedNonces;
+    private final Queue<NonceState>[] wheel;
+    private final long tickNano;
+    private final AtomicBoolean expiryStarted = new AtomicBoolean();
+    private volatile long processedTick;
 
     private final byte[] privateKey;
 
@@ -70,18 +86,7 @@ public class NonceManager {
 
     @Deprecated
     NonceManager(long validityPeriod, long nonceSessionTime, boolean singleUse, int keySize, String algorithm) {
-        this.validityPeriodNano = validityPeriod * 1000000;
-        this.nonceSessionTime = nonceSessionTime;
-        this.singleUse = singleUse;
-        this.algorithm = algorithm;
-        this.log = ElytronMessages.log;
-
-        this.privateKey = new byte[keySize];
-        new SecureRandom().nextBytes(privateKey);
-        ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1);
-        INSTANCE.setRemoveOnCancelPolicy(true);
-        INSTANCE.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        executor = INSTANCE;
+        this(validityPeriod, nonceSessionTime, singleUse, keySize, algorithm, ElytronMessages.log, null, DEFAULT_MAX_TRACKED_NONCES);
     }
 
     /**
@@ -93,18 +98,7 @@ public class NonceManager {
      * @param log mechanism specific logger.
      */
     NonceManager(long validityPeriod, long nonceSessionTime, boolean singleUse, int keySize, String algorithm, ElytronMessages log) {
-        this.validityPeriodNano = validityPeriod * 1000000;
-        this.nonceSessionTime = nonceSessionTime;
-        this.singleUse = singleUse;
-        this.algorithm = algorithm;
-        this.log = log;
-
-        this.privateKey = new byte[keySize];
-        new SecureRandom().nextBytes(privateKey);
-        ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1);
-        INSTANCE.setRemoveOnCancelPolicy(true);
-        INSTANCE.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        executor = INSTANCE;
+        this(validityPeriod, nonceSessionTime, singleUse, keySize, algorithm, log, null, DEFAULT_MAX_TRACKED_NONCES);
     }
 
     /**
@@ -117,11 +111,27 @@ public class NonceManager {
      * @param customExecutor a custom ScheduledExecutorService to be used
      */
     NonceManager(long validityPeriod, long nonceSessionTime, boolean singleUse, int keySize, String algorithm, ElytronMessages log, ScheduledExecutorService customExecutor) {
+        this(validityPeriod, nonceSessionTime, singleUse, keySize, algorithm, log, customExecutor, DEFAULT_MAX_TRACKED_NONCES);
+    }
+
+    /**
+     * @param validityPeriod the time in ms that nonces are valid for in ms.
+     * @param nonceSessionTime the time in ms a nonce is usable for after it's last use where nonce counts are in use.
+     * @param singleUse are nonces single use?
+     * @param keySize the number of bytes to use in the private key of this node.
+     * @param algorithm the message digest algorithm to use when creating the digest portion of the nonce.
+     * @param log mechanism specific logger.
+     * @param customExecutor a custom ScheduledExecutorService to be used, or {@code null} to use a dedicated one
+     * @param maxTrackedNonces the maximum number of used nonces tracked at the same time.
+     */
+    @SuppressWarnings("unchecked")
+    NonceManager(long validityPeriod, long nonceSessionTime, boolean singleUse, int keySize, String algorithm, ElytronMessages log, ScheduledExecutorService customExecutor, int maxTrackedNonces) {
         this.validityPeriodNano = validityPeriod * 1000000;
         this.nonceSessionTime = nonceSessionTime;
         this.singleUse = singleUse;
         this.algorithm = algorithm;
         this.log = log;
+        this.maxTrackedNonces = maxTrackedNonces;
 
         this.privateKey = new byte[keySize];
         new SecureRandom().nextBytes(privateKey);
@@ -134,6 +144,14 @@ public class NonceManager {
         else {
             executor = customExecutor;
         }
+
+        // one rotation of the wheel covers the longest time a nonce can be tracked
+        this.tickNano = Math.max(MIN_TICK_NANO, Math.max(validityPeriodNano, TimeUnit.MILLISECONDS.toNanos(nonceSessionTime)) / WHEEL_SIZE + 1);
+        this.wheel = new Queue[WHEEL_SIZE];
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.processedTick = tickOf(System.nanoTime());
     }
 
     /**
@@ -189,6 +207,7 @@ public class NonceManager {
      *     <li>It was created too far in the past.
      *     <li>Validation of the signature fails.
      *     <li>The nonce has been used previously and re-use is disabled.
+     *     <li>The maximum number of tracked nonces has been reached.
      * </ul>
      *
      * @param nonce the nonce supplied by the client.
@@ -209,6 +228,7 @@ public class NonceManager {
      *     <li>It was created too far in the past.
      *     <li>Validation of the signature fails.
      *     <li>The nonce has been used previously and re-use is disabled.
+     *     <li>The maximum number of tracked nonces has been reached.
      * </ul>
      *
      * @param nonce the nonce supplied by the client.
@@ -236,45 +256,40 @@ public class NonceManager {
                 return false;
             }
 
-            long age = System.nanoTime() - ByteBuffer.wrap(nonceBytes, Integer.BYTES, Long.BYTES).getLong();
+            long now = System.nanoTime();
+            long age = now - ByteBuffer.wrap(nonceBytes, Integer.BYTES, Long.BYTES).getLong();
             if(nonceCount > 0) {
-                synchronized (usedNonces) {
-                    NonceState nonceState = usedNonces.get(nonce);
-                    if (nonceState != null && nonceState.highestNonceCount < 0) {
-                        log.tracef("Nonce %s rejected due to previously being used without a nonce count", nonce);
+                long expiration = now + TimeUnit.MILLISECONDS.toNanos(nonceSessionTime);
+                NonceState nonceState = usedNonces.get(nonce);
+                if (nonceState == null) {
+                    if (age < 0 || age > validityPeriodNano) {
+                        log.tracef("Nonce %s rejected due to age %d (ns) being less than 0 or greater than the validity period %d (ns)",
+                                nonce, age, validityPeriodNano);
                         return false;
-                    } else if (nonceState != null) {
-                        if (nonceCount > nonceState.highestNonceCount) {
-                            if (nonceState.futureCleanup.cancel(true)) {
-                                nonceState.highestNonceCount = nonceCount;
-                            } else {
-                                log.tracef("Nonce %s rejected as unable to cancel clean up, likely at expiration time", nonce);
-                                return false;
-                            }
-                        } else {
-                            log.tracef("Nonce %s rejected due to highest seen nonce count %d being equal to or higher than the nonce count received %d",
-                                    nonce, nonceState.highestNonceCount, nonceCount);
-                            return false;
-                        }
-                    } else {
-                        if (age < 0 || age > validityPeriodNano) {
-                            log.tracef("Nonce %s rejected due to age %d (ns) being less than 0 or greater than the validity period %d (ns)",
-                                    nonce, age, validityPeriodNano);
-                            return false;
-                        }
-                        nonceState = new NonceState();
-                        nonceState.highestNonceCount = nonceCount;
-                        usedNonces.put(nonce, nonceState);
-                        if (log.isTraceEnabled()) {
-                            log.tracef("Currently %d nonces being tracked", usedNonces.size());
-                        }
                     }
+                    nonceState = track(nonce, nonceCount, expiration);
+                    if (nonceState == null) {
+                        return true;
+                    } else if (nonceState == REJECTED) {
+                        return false;
+                    }
+                }
 
-                    nonceState.futureCleanup = executor.schedule(() -> {
-                        synchronized (usedNonces) {
-                            usedNonces.remove(nonce);
-                        }
-                    }, nonceSessionTime, TimeUnit.MILLISECONDS);
+                synchronized (nonceState) {
+                    if (nonceState.removed || nonceState.expiration - now <= 0) {
+                        log.tracef("Nonce %s rejected as it expired", nonce);
+                        return false;
+                    } else if (nonceState.highestNonceCount < 0) {
+                        log.tracef("Nonce %s rejected due to previously being used without a nonce count", nonce);
+                        return false;
+                    } else if (nonceCount <= nonceState.highestNonceCount) {
+                        log.tracef("Nonce %s rejected due to highest seen nonce count %d being equal to or higher than the nonce count received %d",
+                                nonce, nonceState.highestNonceCount, nonceCount);
+                        return false;
+                    }
+                    nonceState.highestNonceCount = nonceCount;
+                    // the wheel moves the nonce to the slot of its new expiration when reaching its current slot
+                    nonceState.expiration = expiration;
                 }
             } else {
                 if (age < 0 || age > validityPeriodNano) {
@@ -283,23 +298,12 @@ public class NonceManager {
                 }
 
                 if (singleUse) {
-                    synchronized(usedNonces) {
-                        NonceState nonceState = usedNonces.get(nonce);
-                        if (nonceState != null) {
-                            log.tracef("Nonce %s rejected due to previously being used", nonce);
-                            return false;
-                        } else {
-                            nonceState = new NonceState();
-                            usedNonces.put(nonce, nonceState);
-                            if (log.isTraceEnabled()) {
-                                log.tracef("Currently %d nonces being tracked", usedNonces.size());
-                            }
-                            executor.schedule(() -> {
-                                synchronized(usedNonces) {
-                                    usedNonces.remove(nonce);
-                                }
-                            }, validityPeriodNano - age, TimeUnit.NANOSECONDS);
-                        }
+                    NonceState nonceState = track(nonce, -1, now + validityPeriodNano - age);
+                    if (nonceState == REJECTED) {
+                        return false;
+                    } else if (nonceState != null) {
+                        log.tracef("Nonce %s rejected due to previously being used", nonce);
+                        return false;
                     }
                 }
             }
@@ -311,12 +315,112 @@ public class NonceManager {
         }
     }
 
+    /**
+     * Start tracking a used nonce.
+     *
+     * @return {@code null} if the nonce is now tracked, the state of the nonce if it was already tracked or
+     * {@link #REJECTED} if the maximum number of tracked nonces has been reached
+     */
+    private NonceState track(String nonce, int nonceCount, long expiration) {
+        int tracked;
+        do {
+            tracked = trackedNonces.get();
+            if (tracked >= maxTrackedNonces) {
+                NonceState existing = usedNonces.get(nonce);
+                if (existing == null) {
+                    log.tracef("Nonce %s rejected as the maximum number of tracked nonces %d has been reached", nonce, maxTrackedNonces);
+                    return REJECTED;
+                }
+                return existing;
+            }
+        } while (! trackedNonces.compareAndSet(tracked, tracked + 1));
+
+        NonceState nonceState = new NonceState(nonce, nonceCount, expiration);
+        NonceState existing = usedNonces.putIfAbsent(nonce, nonceState);
+        if (existing != null) {
+            trackedNonces.decrementAndGet();
+            return existing;
+        }
+        if (log.isTraceEnabled()) {
+            log.tracef("Currently %d nonces being tracked", trackedNonces.get());
+        }
+        wheel[slotOf(Math.max(expirationTick(expiration), processedTick + 1))].add(nonceState);
+        if (expiryStarted.compareAndSet(false, true)) {
+            executor.scheduleWithFixedDelay(this::expireNonces, tickNano, tickNano, TimeUnit.NANOSECONDS);
+        }
+        return null;
+    }
+
+    /**
+     * Advance the wheel up to the current tick, removing the expired nonces from the slots passed and moving the nonces
+     * which expiration was extended to the slot of their new expiration.
+     */
+    private void expireNonces() {
+        long now = System.nanoTime();
+        long currentTick = tickOf(now);
+        for (long tick = Math.max(processedTick + 1, currentTick - WHEEL_SIZE + 1); tick <= currentTick; tick++) {
+            int slot = slotOf(tick);
+            Iterator<NonceState> iterator = wheel[slot].iterator();
+            while (iterator.hasNext()) {
+                NonceState nonceState = iterator.next();
+                synchronized (nonceState) {
+                    if (nonceState.expiration - now <= 0) {
+                        iterator.remove();
+                        nonceState.removed = true;
+                        if (usedNonces.remove(nonceState.nonce, nonceState)) {
+                            trackedNonces.decrementAndGet();
+                        }
+                    } else {
+                        int expirationSlot = slotOf(expirationTick(nonceState.expiration));
+                        if (expirationSlot != slot) {
+                            iterator.remove();
+                            wheel[expirationSlot].add(nonceState);
+                        }
+                    }
+                }
+            }
+            processedTick = tick;
+        }
+    }
+
+    private long tickOf(long nanoTime) {
+        return Math.floorDiv(nanoTime, tickNano);
+    }
+
+    /**
+     * Get the first tick starting after the given expiration, at which the nonce can be removed.
+     */
+    private long expirationTick(long expiration) {
+        return tickOf(expiration) + 1;
+    }
+
+    private static int slotOf(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
+    }
+
+    /**
+     * Get the number of used nonces currently tracked to detect their reuse.
+     *
+     * @return the number of tracked nonces
+     */
+    public int getTrackedNonceCount() {
+        return trackedNonces.get();
+    }
+
     public void shutdown() {
         if (executor != null) { executor.shutdown(); }
     }
 
     private static class NonceState {
-        private ScheduledFuture<?> futureCleanup;
-        private int highestNonceCount = -1;
+        private final String nonce;
+        private int highestNonceCount;
+        private long expiration;
+        private boolean removed;
+
+        NonceState(String nonce, int highestNonceCount, long expiration) {
+            this.nonce = nonce;
+            this.highestNonceCount = highestNonceCount;
+            this.expiration = expiration;
+        }
     }
 }
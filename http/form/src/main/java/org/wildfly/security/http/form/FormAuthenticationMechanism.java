@@ -23,6 +23,7 @@ import static org.wildfly.security.http.HttpConstants.CONFIG_CONTEXT_PATH;
 import static org.wildfly.security.http.HttpConstants.CONFIG_ERROR_PAGE;
 import static org.wildfly.security.http.HttpConstants.CONFIG_LOGIN_PAGE;
 import static org.wildfly.security.http.HttpConstants.CONFIG_POST_LOCATION;
+import static org.wildfly.security.http.HttpConstants.CONFIG_VERIFIED_CREDENTIAL_CACHE;
 import static org.wildfly.security.http.HttpConstants.DISABLE_SESSION_ID_CHANGE;
 import static org.wildfly.security.http.HttpConstants.FORM_NAME;
 import static org.wildfly.security.http.HttpConstants.FOUND;
@@ -53,6 +54,7 @@ import org.wildfly.security.http.HttpServerRequest;
 import org.wildfly.security.http.HttpServerResponse;
 import org.wildfly.security.http.Scope;
 import org.wildfly.security.mechanism.http.UsernamePasswordAuthenticationMechanism;
+import org.wildfly.security.mechanism.http.VerifiedCredentialCache;
 
 /**
  * A generic FORM authentication mechanism which is usable in a number of different scenarios.
@@ -80,8 +82,7 @@ final class FormAuthenticationMechanism extends UsernamePasswordAuthenticationMe
     private final boolean disableSessionIdChange;
 
     FormAuthenticationMechanism(final CallbackHandler callbackHandler, final Map<String, ?> properties) {
-        super(checkNotNullParam("callbackHandler", callbackHandler));
-        checkNotNullParam("properties", properties);
+        super(checkNotNullParam("callbackHandler", callbackHandler), (VerifiedCredentialCache) checkNotNullParam("properties", properties).get(CONFIG_VERIFIED_CREDENTIAL_CACHE));
 
         String postLocation = (String) properties.get(CONFIG_POST_LOCATION);
         this.postLocation = postLocation != null ? postLocation : DEFAULT_POST_LOCATION;
@@ -263,16 +264,7 @@ final class FormAuthenticationMechanism extends UsernamePasswordAuthenticationMe
     private boolean authorize(String username, HttpServerRequest request, IdentityCache identityCache) throws HttpAuthenticationException {
         httpForm.tracef("Authorizing username: [%s], Request URI: [%s], Context path: [%s]", username, request.getRequestURI(), this.contextPath);
 
-        if (identityCache != null) {
-            CachedIdentityAuthorizeCallback authorizeCallback = new CachedIdentityAuthorizeCallback(username, identityCache);
-            try {
-                callbackHandler.handle(new Callback[]{authorizeCallback});
-                return authorizeCallback.isAuthorized();
-            } catch (IOException | UnsupportedCallbackException e) {
-                throw new HttpAuthenticationException(e);
-            }
-        }
-        return super.authorize(username);
+        return authorize(username, identityCache);
     }
 
     private boolean attemptReAuthentication(HttpServerRequest request) throws HttpAuthenticationException {
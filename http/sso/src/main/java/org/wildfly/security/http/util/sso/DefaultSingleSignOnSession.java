@@ -22,12 +22,9 @@ import static org.wildfly.common.Assert.checkNotNullParam;
 import static org.wildfly.security.http.HttpScopeNotification.SessionNotificationType.INVALIDATED;
 import static org.wildfly.security.http.util.sso.ElytronMessages.log;
 
-import java.io.DataOutputStream;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URL;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,7 +47,7 @@ import org.wildfly.security.http.Scope;
  * @author Paul Ferraro
  */
 public class DefaultSingleSignOnSession implements SingleSignOnSession {
-    private static final String LOGOUT_REQUEST_PARAMETER = "ely_logout_message";
+    static final String LOGOUT_REQUEST_PARAMETER = "ely_logout_message";
     private static final String SESSION_INVALIDATING_ATTRIBUTE = DefaultSingleSignOnSessionFactory.class.getName() + ".INVALIDATING";
     private static final Boolean SINGLE_SIGN_ON_KEY = Boolean.TRUE;
 
@@ -121,59 +118,27 @@ public class DefaultSingleSignOnSession implements SingleSignOnSession {
                                 log.debugf("Destroying SSO [%s]. SSO is not associated with participants", target.getId());
                                 target.invalidate();
                             } else if (notification.isOfType(INVALIDATED)) {
-                                logoutTargets = participants;
+                                logoutTargets = new HashMap<>(participants);
                             }
                         }
                     }
                 }
 
                 if (!logoutTargets.isEmpty()) {
-                    logoutTargets.forEach((participantId, participant) -> {
-                        String remoteSessionId = participant.getKey();
-                        URI remoteURI = participant.getValue();
-                        try {
-                            URL participantUrl = remoteURI.toURL();
-                            HttpURLConnection connection = (HttpURLConnection) participantUrl.openConnection();
-
-                            this.context.configureLogoutConnection(connection);
-
-                            connection.setRequestMethod("POST");
-                            connection.setDoOutput(true);
-                            connection.setAllowUserInteraction(false);
-                            connection.setConnectTimeout(10000);
-                            connection.setReadTimeout(10000);
-                            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-
-                            StringBuilder parameterBuilder = new StringBuilder();
-
-                            parameterBuilder.append(LOGOUT_REQUEST_PARAMETER).append("=").append(this.context.createLogoutParameter(remoteSessionId));
-
-                            connection.setRequestProperty("Content-Length", Integer.toString(parameterBuilder.length()));
-
-                            try (
-                                OutputStream outputStream = connection.getOutputStream();
-                                DataOutputStream wr = new DataOutputStream(outputStream);
-                            ) {
-                                wr.writeBytes(parameterBuilder.toString());
+                    // logout requests are sent asynchronously, the SSO is invalidated once all of them completed
+                    this.context.getLogoutDispatcher().dispatch(this.context, logoutTargets, () -> {
+                        try (SingleSignOn target = this.context.getSingleSignOnManager().find(id)) {
+                            if (target != null) {
+                                // If all logout requests were successful, then there should be no participants, and we can invalidate the SSO
+                                if (!target.getParticipants().isEmpty()) {
+                                    log.debugf("Destroying SSO [%s]. Participant list not empty.", target.getId());
+                                } else {
+                                    log.debugf("Destroying SSO [%s]. SSO is no longer associated with any participants", target.getId());
+                                }
+                                target.invalidate();
                             }
-
-                            connection.getInputStream().close();
-                        } catch (Exception cause) {
-                            log.warnHttpMechSsoFailedLogoutParticipant(remoteURI.toString(), cause);
                         }
                     });
-
-                    try (SingleSignOn target = this.context.getSingleSignOnManager().find(id)) {
-                        if (target != null) {
-                            // If all logout requests were successful, then there should be no participants, and we can invalidate the SSO
-                            if (!target.getParticipants().isEmpty()) {
-                                log.debugf("Destroying SSO [%s]. Participant list not empty.", target.getId());
-                            } else {
-                                log.debugf("Destroying SSO [%s]. SSO is no longer associated with any participants", target.getId());
-                            }
-                            target.invalidate();
-                        }
-                    }
                 }
             });
         }
@@ -48,15 +48,21 @@ public class DefaultSingleSignOnSessionFactory implements SingleSignOnSessionFac
     private final SingleSignOnManager manager;
     private final KeyPair keyPair;
     private final Consumer<HttpsURLConnection> logoutConnectionConfigurator;
+    private final SingleSignOnLogoutDispatcher logoutDispatcher;
 
     public DefaultSingleSignOnSessionFactory(SingleSignOnManager manager, KeyPair keyPair) {
         this(manager, keyPair, connection -> {});
     }
 
     public DefaultSingleSignOnSessionFactory(SingleSignOnManager manager, KeyPair keyPair, Consumer<HttpsURLConnection> logoutConnectionConfigurator) {
+        this(manager, keyPair, logoutConnectionConfigurator, SingleSignOnLogoutDispatcher.getDefault());
+    }
+
+    public DefaultSingleSignOnSessionFactory(SingleSignOnManager manager, KeyPair keyPair, Consumer<HttpsURLConnection> logoutConnectionConfigurator, SingleSignOnLogoutDispatcher logoutDispatcher) {
         this.manager = checkNotNullParam("manager", manager);
         this.keyPair = checkNotNullParam("keyPair", keyPair);
         this.logoutConnectionConfigurator = checkNotNullParam("logoutConnectionConfigurator", logoutConnectionConfigurator);
+        this.logoutDispatcher = checkNotNullParam("logoutDispatcher", logoutDispatcher);
     }
 
     @Override
@@ -130,4 +136,9 @@ public class DefaultSingleSignOnSessionFactory implements SingleSignOnSessionFac
             this.logoutConnectionConfigurator.accept(secureConnection);
         }
     }
+
+    @Override
+    public SingleSignOnLogoutDispatcher getLogoutDispatcher() {
+        return this.logoutDispatcher;
+    }
 }
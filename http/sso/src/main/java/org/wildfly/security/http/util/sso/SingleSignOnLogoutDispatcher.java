@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.http.util.sso;
+
+import static org.wildfly.common.Assert.checkMinimumParameter;
+import static org.wildfly.common.Assert.checkNotNullParam;
+import static org.wildfly.security.http.util.sso.ElytronMessages.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the logout requests of a single sign-on session to its participants.
+ * <p>
+ * Requests are sent concurrently, by at most {@code maxParallelism} threads, so that the thread invalidating a session never
+ * waits for the participants. Connections are left to the keep-alive cache of {@link HttpURLConnection}, responses being
+ * fully read, so that the participants of an application server share a few connections. A request failing with an I/O
+ * error or a server error is retried, with an exponential backoff, as long as the deadline of its participant is not
+ * reached. Once every participant acknowledged the logout, or failed to, the completion callback of the logout is run.
+ * <p>
+ * Threads are daemon threads and are stopped when idle, a dispatcher may then be shared by all the session factories.
+ */
+public final class SingleSignOnLogoutDispatcher implements AutoCloseable {
+
+    private static final int DEFAULT_MAX_PARALLELISM = 16;
+    private static final long DEFAULT_DEADLINE = 30000; // ms
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long DEFAULT_RETRY_BACKOFF = 500; // ms
+    private static final long REQUEST_TIMEOUT = 10000; // ms
+    private static final long IDLE_TIMEOUT = 60000; // ms
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final long deadline;
+    private final int maxRetries;
+    private final long retryBackoff;
+
+    /**
+     * Construct a new instance using the default settings: up to 16 concurrent requests, 2 retries 500 ms apart and
+     * a deadline of 30 seconds per participant.
+     */
+    public SingleSignOnLogoutDispatcher() {
+        this(DEFAULT_MAX_PARALLELISM, DEFAULT_DEADLINE, DEFAULT_MAX_RETRIES, DEFAULT_RETRY_BACKOFF);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param maxParallelism the maximum number of logout requests sent at the same time
+     * @param deadline the time in milliseconds after which no more attempt is made to logout a participant
+     * @param maxRetries the maximum number of times a failed logout request is sent again
+     * @param retryBackoff the time in milliseconds before the first retry, doubled for each following retry
+     */
+    public SingleSignOnLogoutDispatcher(int maxParallelism, long deadline, int maxRetries, long retryBackoff) {
+        checkMinimumParameter("maxParallelism", 1, maxParallelism);
+        checkMinimumParameter("deadline", 1, deadline);
+        checkMinimumParameter("maxRetries", 0, maxRetries);
+        checkMinimumParameter("retryBackoff", 0, retryBackoff);
+        this.deadline = deadline;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.executor = new ScheduledThreadPoolExecutor(maxParallelism, task -> {
+            Thread thread = new Thread(task, "elytron-sso-logout-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setKeepAliveTime(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Get the dispatcher shared by the session contexts not providing their own, created with the default settings.
+     *
+     * @return the shared dispatcher
+     */
+    static SingleSignOnLogoutDispatcher getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Send the logout requests to the given participants, without waiting for them to complete.
+     *
+     * @param context the context creating the logout messages and configuring the connections
+     * @param participants the local sessions and logout URIs of the participants, keyed by application
+     * @param completion the callback run once all the logout requests completed, successfully or not
+     */
+    public void dispatch(SingleSignOnSessionContext context, Map<String, Map.Entry<String, URI>> participants, Runnable completion) {
+        checkNotNullParam("context", context);
+        checkNotNullParam("participants", participants);
+        checkNotNullParam("completion", completion);
+
+        // the participants may be a view of a map changed concurrently, the completion must count the requests actually sent
+        List<Map.Entry<String, URI>> targets = new ArrayList<>(participants.values());
+        if (targets.isEmpty()) {
+            completion.run();
+            return;
+        }
+        AtomicInteger pending = new AtomicInteger(targets.size());
+        long expiration = System.currentTimeMillis() + deadline;
+        for (Map.Entry<String, URI> participant : targets) {
+            new LogoutRequest(context, participant.getKey(), participant.getValue(), expiration, () -> {
+                if (pending.decrementAndGet() == 0) {
+                    completion.run();
+                }
+            }).schedule(0);
+        }
+    }
+
+    /**
+     * Stop the threads of this dispatcher, pending logout requests are abandoned.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private final class LogoutRequest implements Runnable {
+
+        private final SingleSignOnSessionContext context;
+        private final String sessionId;
+        private final URI uri;
+        private final long expiration;
+        private final Runnable completion;
+        private int attempt;
+
+        LogoutRequest(SingleSignOnSessionContext context, String sessionId, URI uri, long expiration, Runnable completion) {
+            this.context = context;
+            this.sessionId = sessionId;
+            this.uri = uri;
+            this.expiration = expiration;
+            this.completion = completion;
+        }
+
+        void schedule(long delay) {
+            try {
+                executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                complete(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                send(expiration - System.currentTimeMillis());
+                complete(null);
+            } catch (Exception e) {
+                long delay = retryBackoff << Math.min(attempt, 30);
+                if (attempt < maxRetries && isRetryable(e) && System.currentTimeMillis() + delay < expiration) {
+                    attempt++;
+                    log.debugf(e, "Failed to logout participant [%s], retrying in %d ms", uri, delay);
+                    schedule(delay);
+                } else {
+                    complete(e);
+                }
+            }
+        }
+
+        private void send(long remaining) throws Exception {
+            if (remaining <= 0) {
+                throw new IOException("Logout deadline reached");
+            }
+            int timeout = (int) Math.min(REQUEST_TIMEOUT, remaining);
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+
+            context.configureLogoutConnection(connection);
+
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setAllowUserInteraction(false);
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+            byte[] parameter = (DefaultSingleSignOnSession.LOGOUT_REQUEST_PARAMETER + "=" + context.createLogoutParameter(sessionId)).getBytes(StandardCharsets.US_ASCII);
+            connection.setFixedLengthStreamingMode(parameter.length);
+
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(parameter);
+            }
+
+            int status = connection.getResponseCode();
+            // reading the whole response allows the connection to be reused by the next request to this participant
+            drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            if (status >= 400) {
+                throw new StatusException(status);
+            }
+        }
+
+        private void complete(Exception cause) {
+            if (cause != null) {
+                log.warnHttpMechSsoFailedLogoutParticipant(uri.toString(), cause);
+            }
+            completion.run();
+        }
+    }
+
+    /**
+     * Connection failures, timeouts and server errors are worth retrying, client errors and failures to create the logout
+     * message are not.
+     */
+    private static boolean isRetryable(Exception e) {
+        return e instanceof StatusException ? ((StatusException) e).status >= 500 : e instanceof IOException;
+    }
+
+    private static void drain(InputStream inputStream) throws IOException {
+        if (inputStream != null) {
+            try (InputStream is = inputStream) {
+                byte[] buffer = new byte[512];
+                while (is.read(buffer) != -1) {
+                    // discard
+                }
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        static final SingleSignOnLogoutDispatcher INSTANCE = new SingleSignOnLogoutDispatcher();
+    }
+
+    private static final class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        StatusException(int status) {
+            super("Server returned HTTP response code: " + status);
+            this.status = status;
+        }
+    }
+}
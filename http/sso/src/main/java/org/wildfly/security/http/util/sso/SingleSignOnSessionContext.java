@@ -30,4 +30,13 @@ public interface SingleSignOnSessionContext {
     String verifyLogoutParameter(String logoutRequest);
 
     void configureLogoutConnection(HttpURLConnection connection);
+
+    /**
+     * Get the dispatcher sending the logout requests to the participants of invalidated single sign-on sessions.
+     *
+     * @return the logout dispatcher, by default one shared by all the contexts
+     */
+    default SingleSignOnLogoutDispatcher getLogoutDispatcher() {
+        return SingleSignOnLogoutDispatcher.getDefault();
+    }
 }
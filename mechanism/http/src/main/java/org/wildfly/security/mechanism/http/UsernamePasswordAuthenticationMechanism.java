@@ -29,8 +29,12 @@ import javax.security.sasl.AuthorizeCallback;
 import javax.security.sasl.RealmCallback;
 
 import org.wildfly.security.auth.callback.AuthenticationCompleteCallback;
+import org.wildfly.security.auth.callback.CachedIdentityAuthorizeCallback;
 import org.wildfly.security.auth.callback.EvidenceVerifyCallback;
 import org.wildfly.security.auth.callback.IdentityCredentialCallback;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.server.SecurityIdentity;
+import org.wildfly.security.cache.IdentityCache;
 import org.wildfly.security.credential.PasswordCredential;
 import org.wildfly.security.evidence.PasswordGuessEvidence;
 import org.wildfly.security.http.HttpAuthenticationException;
@@ -48,15 +52,36 @@ public abstract class UsernamePasswordAuthenticationMechanism implements HttpSer
 
     protected final CallbackHandler callbackHandler;
 
+    private final VerifiedCredentialCache verifiedCredentialCache;
+    // the state of the current authentication, set by authenticate() and consumed by authorize() for the same username
+    private String verifiedUsername;
+    private VerifiedCredentialCache.Lookup verifiedCredentialLookup;
+    private PasswordCredential verifiedCredential;
+    private SecurityIdentity cachedIdentity;
+
     /**
      * @param callbackHandler
      */
     protected UsernamePasswordAuthenticationMechanism(CallbackHandler callbackHandler) {
+        this(callbackHandler, null);
+    }
+
+    /**
+     * @param callbackHandler
+     * @param verifiedCredentialCache the cache of recently verified passwords, or {@code null} to verify every password
+     */
+    protected UsernamePasswordAuthenticationMechanism(CallbackHandler callbackHandler, VerifiedCredentialCache verifiedCredentialCache) {
         super();
         this.callbackHandler = callbackHandler;
+        this.verifiedCredentialCache = verifiedCredentialCache;
     }
 
     protected boolean authenticate(String realmName, String username, char[] password) throws HttpAuthenticationException {
+        clearVerifiedCredential();
+        if (verifiedCredentialCache != null && authenticateCached(realmName, username, password)) {
+            return true;
+        }
+
         RealmCallback realmCallback = realmName != null ? new RealmCallback("User realm", realmName) : null;
         NameCallback nameCallback = new NameCallback("Remote Authentication Name", username);
         nameCallback.setName(username);
@@ -78,8 +103,14 @@ public abstract class UsernamePasswordAuthenticationMechanism implements HttpSer
             callbackHandler.handle(callbacks);
 
             if(evidenceVerifyCallback.isVerified()) {
-                IdentityCredentialCallback credentialUpdateCallback = new IdentityCredentialCallback(new PasswordCredential(clearPwd), true);
-                callbackHandler.handle(new Callback[]{credentialUpdateCallback});
+                if (verifiedCredentialLookup != null) {
+                    // added once the authorized identity is cached, so that the cache never holds the password
+                    verifiedUsername = username;
+                    verifiedCredential = new PasswordCredential(clearPwd);
+                } else {
+                    IdentityCredentialCallback credentialUpdateCallback = new IdentityCredentialCallback(new PasswordCredential(clearPwd), true);
+                    callbackHandler.handle(new Callback[]{credentialUpdateCallback});
+                }
                 return true;
             } else {
                 clearPwd.destroy();
@@ -94,7 +125,42 @@ public abstract class UsernamePasswordAuthenticationMechanism implements HttpSer
         }
     }
 
+    private boolean authenticateCached(String realmName, String username, char[] password) throws HttpAuthenticationException {
+        final VerifiedCredentialCache.Lookup lookup = verifiedCredentialCache.lookup(verifiedCredentialCache.hash(realmName, username, password));
+        final CachedIdentityAuthorizeCallback authorizeCallback = new CachedIdentityAuthorizeCallback(lookup.cached(getMechanismName()), true);
+        try {
+            callbackHandler.handle(new Callback[] { authorizeCallback });
+            if (authorizeCallback.isAuthorized()) {
+                httpUserPass.debugf("Username authenticated by verified credential cache. Realm: [%s], Username: [%s].",
+                        realmName, username);
+                verifiedUsername = username;
+                verifiedCredential = new PasswordCredential(ClearPassword.createRaw(ClearPassword.ALGORITHM_CLEAR, password));
+                cachedIdentity = lookup.getIdentity();
+                callbackHandler.handle(new Callback[] { new IdentityCredentialCallback(verifiedCredential, true) });
+                return true;
+            }
+        } catch (UnsupportedCallbackException e) {
+            // the identity cannot be imported, verify the password without caching
+            return false;
+        } catch (IOException e) {
+            throw new HttpAuthenticationException(e);
+        }
+        verifiedCredentialLookup = lookup;
+        return false;
+    }
+
+    private void clearVerifiedCredential() {
+        verifiedUsername = null;
+        verifiedCredentialLookup = null;
+        verifiedCredential = null;
+        cachedIdentity = null;
+    }
+
     protected boolean authorize(String username) throws HttpAuthenticationException {
+        if (verifiedUsername != null) {
+            return authorize(username, null);
+        }
+
         httpUserPass.debugf("Username authorization. Username: [%s].",
                 username);
 
@@ -111,6 +177,68 @@ public abstract class UsernamePasswordAuthenticationMechanism implements HttpSer
         }
     }
 
+    /**
+     * Authorize the given username and put the authorized identity into the given identity cache.  If a verified credential
+     * cache is used, the identity is also put into that cache, unless the identity was taken from it.
+     *
+     * @param username the username to authorize
+     * @param identityCache the identity cache to put the authorized identity into, or {@code null} for none
+     * @return {@code true} if the username was authorized, {@code false} otherwise
+     * @throws HttpAuthenticationException if the callback handler fails
+     */
+    protected boolean authorize(String username, IdentityCache identityCache) throws HttpAuthenticationException {
+        final String verifiedUsername = this.verifiedUsername;
+        final VerifiedCredentialCache.Lookup verifiedCredentialLookup = this.verifiedCredentialLookup;
+        final PasswordCredential verifiedCredential = this.verifiedCredential;
+        final SecurityIdentity cachedIdentity = this.cachedIdentity;
+        // the state is used by a single authorization only
+        clearVerifiedCredential();
+        if (verifiedUsername == null || ! verifiedUsername.equals(username)) {
+            return authorize(username, identityCache, null, null);
+        }
+        if (cachedIdentity != null) {
+            // authorized when the identity was imported from the verified credential cache
+            if (identityCache != null) {
+                identityCache.put(cachedIdentity.withPrivateCredential(verifiedCredential));
+            }
+            return true;
+        }
+        return authorize(username, identityCache, verifiedCredentialLookup, verifiedCredential);
+    }
+
+    private boolean authorize(String username, IdentityCache identityCache, VerifiedCredentialCache.Lookup verifiedCredentialLookup,
+            PasswordCredential verifiedCredential) throws HttpAuthenticationException {
+        if (verifiedCredentialLookup == null) {
+            if (identityCache == null) {
+                return authorize(username);
+            }
+            CachedIdentityAuthorizeCallback authorizeCallback = new CachedIdentityAuthorizeCallback(username, identityCache);
+            try {
+                callbackHandler.handle(new Callback[] { authorizeCallback });
+                return authorizeCallback.isAuthorized();
+            } catch (IOException | UnsupportedCallbackException e) {
+                throw new HttpAuthenticationException(e);
+            }
+        }
+
+        httpUserPass.debugf("Username authorization caching verified credential. Username: [%s].", username);
+        CachedIdentityAuthorizeCallback authorizeCallback = new CachedIdentityAuthorizeCallback(new NamePrincipal(username),
+                verifiedCredentialLookup.verified(username), true);
+        try {
+            callbackHandler.handle(new Callback[] { authorizeCallback });
+            if (! authorizeCallback.isAuthorized()) {
+                return false;
+            }
+            callbackHandler.handle(new Callback[] { new IdentityCredentialCallback(verifiedCredential, true) });
+            if (identityCache != null) {
+                identityCache.put(verifiedCredentialLookup.getIdentity().withPrivateCredential(verifiedCredential));
+            }
+            return true;
+        } catch (IOException | UnsupportedCallbackException e) {
+            throw new HttpAuthenticationException(e);
+        }
+    }
+
     protected void succeed() throws IOException, UnsupportedCallbackException {
         callbackHandler.handle(new Callback[] { AuthenticationCompleteCallback.SUCCEEDED });
     }
@@ -0,0 +1,332 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.mechanism.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Principal;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.wildfly.common.Assert;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+import org.wildfly.security.cache.CachedIdentity;
+import org.wildfly.security.cache.IdentityCache;
+
+/**
+ * A cache of recently verified passwords for the mechanisms based on {@link UsernamePasswordAuthenticationMechanism}, so that
+ * clients sending the same username and password with every request are not verified against the realm every time.
+ * <p>
+ * The cache maps a keyed hash of the realm name, username and password to the identity that was authorized once the password
+ * was verified; neither the password nor the identity's credentials are stored, and the key of the hash is generated randomly
+ * for each cache.  Entries are kept per {@link SecurityDomain}, expire once the time to live has passed since the password was
+ * verified, and the least recently used entries are evicted once the cache is full.
+ * <p>
+ * A cache is passed to the BASIC and FORM mechanism factories using the
+ * {@link org.wildfly.security.http.HttpConstants#CONFIG_VERIFIED_CREDENTIAL_CACHE} property.  Changes to identities are
+ * picked up by registering the cache as identity change listener of a {@code CacheableSecurityRealm}:
+ *
+ * <pre>
+ *     realm.registerIdentityChangeListener(cache::invalidate);
+ * </pre>
+ */
+public final class VerifiedCredentialCache {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final long timeToLive;
+    private final int maxSize;
+    private final SecretKeySpec secretKey;
+    private final LinkedHashMap<Key, Entry> map;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long generation;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param timeToLive the time in milliseconds a verified password is trusted for (must be greater than 0)
+     * @param maxSize the maximum number of entries (must be greater than 0)
+     */
+    public VerifiedCredentialCache(final long timeToLive, final int maxSize) {
+        Assert.checkMinimumParameter("timeToLive", 1, timeToLive);
+        Assert.checkMinimumParameter("maxSize", 1, maxSize);
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.maxSize = maxSize;
+        final byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        secretKey = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+        Arrays.fill(keyBytes, (byte) 0);
+        map = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return size() > VerifiedCredentialCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Remove the entries of the identity with the given name, for example because its credentials or attributes changed.
+     * Entries are matched against both the name the client authenticated with and the name of the authorized identity.
+     *
+     * @param principal the principal of the identity (must not be {@code null})
+     */
+    public void invalidate(final Principal principal) {
+        Assert.checkNotNullParam("principal", principal);
+        final String name = principal.getName();
+        synchronized (this) {
+            generation++;
+            final Iterator<Entry> iterator = map.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (name.equals(entry.username) || name.equals(entry.identity.getPrincipal().getName())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear() {
+        generation++;
+        map.clear();
+    }
+
+    /**
+     * Get the number of entries, including entries which expired but were not removed yet.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Get the number of authentications which were completed using a cached entry.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of authentications for which no usable entry was cached.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    byte[] hash(final String realmName, final String username, final char[] password) {
+        final Mac mac;
+        try {
+            mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        // every value is prefixed by its length so that no two combinations of values hash the same input
+        update(mac, realmName == null ? null : CharBuffer.wrap(realmName));
+        update(mac, CharBuffer.wrap(username));
+        update(mac, CharBuffer.wrap(password));
+        return mac.doFinal();
+    }
+
+    private static void update(final Mac mac, final CharBuffer chars) {
+        if (chars == null) {
+            mac.update(new byte[] { -1, -1, -1, -1 });
+            return;
+        }
+        final ByteBuffer bytes = UTF_8.encode(chars);
+        mac.update(ByteBuffer.allocate(4).putInt(bytes.remaining()).array());
+        mac.update(bytes.duplicate());
+        if (bytes.hasArray()) {
+            Arrays.fill(bytes.array(), (byte) 0);
+        }
+    }
+
+    Lookup lookup(final byte[] hash) {
+        final long generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+        return new Lookup(hash, generation);
+    }
+
+    synchronized SecurityIdentity get(final Key key) {
+        final Entry entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiry - System.nanoTime() <= 0) {
+            map.remove(key);
+            return null;
+        }
+        return entry.identity;
+    }
+
+    synchronized void put(final Key key, final long generation, final String username, final SecurityIdentity identity) {
+        if (this.generation != generation) {
+            // an identity changed while the password was being verified
+            return;
+        }
+        map.put(key, new Entry(username, identity, System.nanoTime() + timeToLive));
+    }
+
+    /**
+     * The cache accesses of a single authentication, which first looks up the hash of the presented credential and, if no
+     * identity was cached, stores the identity authorized after verifying the credential.
+     */
+    final class Lookup {
+        private final byte[] hash;
+        private final long generation;
+        private boolean resolved;
+        private SecurityIdentity identity;
+
+        Lookup(final byte[] hash, final long generation) {
+            this.hash = hash;
+            this.generation = generation;
+        }
+
+        /**
+         * Get the identity cache to look up the cached identity with.  The cache yields an identity of the current domain
+         * only, as it has to be imported without further checks.
+         *
+         * @param mechanismName the name of the mechanism performing the authentication
+         * @return the identity cache for each security domain
+         */
+        Function<SecurityDomain, IdentityCache> cached(final String mechanismName) {
+            return securityDomain -> new IdentityCache() {
+                public void put(final SecurityIdentity identity) {
+                    // the cached identity is imported as is, there is nothing to update
+                }
+
+                public CachedIdentity get() {
+                    final SecurityIdentity identity = resolve(securityDomain);
+                    return identity == null ? null : new CachedIdentity(mechanismName, false, identity);
+                }
+
+                public CachedIdentity remove() {
+                    return null;
+                }
+            };
+        }
+
+        /**
+         * Get the identity cache which stores the identity authorized after verifying the credential, for the given
+         * username.
+         *
+         * @param username the username the client authenticated with
+         * @return the identity cache for each security domain
+         */
+        Function<SecurityDomain, IdentityCache> verified(final String username) {
+            return securityDomain -> new IdentityCache() {
+                public void put(final SecurityIdentity identity) {
+                    Lookup.this.identity = identity;
+                    if (identity.getSecurityDomain() == securityDomain) {
+                        VerifiedCredentialCache.this.put(new Key(hash, securityDomain), generation, username, identity);
+                    }
+                }
+
+                public CachedIdentity get() {
+                    // nothing to import, the identity is being authorized
+                    return null;
+                }
+
+                public CachedIdentity remove() {
+                    return null;
+                }
+            };
+        }
+
+        /**
+         * Get the identity taken from or put into the cache.
+         *
+         * @return the identity, or {@code null} if there is none
+         */
+        SecurityIdentity getIdentity() {
+            return identity;
+        }
+
+        private SecurityIdentity resolve(final SecurityDomain securityDomain) {
+            if (! resolved) {
+                resolved = true;
+                identity = securityDomain == null ? null : get(new Key(hash, securityDomain));
+                if (identity == null) {
+                    misses.increment();
+                } else {
+                    hits.increment();
+                }
+            }
+            return identity;
+        }
+    }
+
+    static final class Key {
+        private final byte[] hash;
+        private final SecurityDomain securityDomain;
+        private final int hashCode;
+
+        Key(final byte[] hash, final SecurityDomain securityDomain) {
+            this.hash = hash;
+            this.securityDomain = securityDomain;
+            hashCode = Arrays.hashCode(hash) * 31 + System.identityHashCode(securityDomain);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        private boolean equals(final Key other) {
+            return this == other || securityDomain == other.securityDomain && Arrays.equals(hash, other.hash);
+        }
+    }
+
+    static final class Entry {
+        private final String username;
+        private final SecurityIdentity identity;
+        private final long expiry;
+
+        Entry(final String username, final SecurityIdentity identity, final long expiry) {
+            this.username = username;
+            this.identity = identity;
+            this.expiry = expiry;
+        }
+    }
+}
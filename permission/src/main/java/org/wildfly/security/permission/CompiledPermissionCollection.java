@@ -0,0 +1,359 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.permission;
+
+import java.lang.reflect.Method;
+import java.security.AccessController;
+import java.security.AllPermission;
+import java.security.BasicPermission;
+import java.security.Permission;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wildfly.common.Assert;
+import org.wildfly.security.util.ArrayIterator;
+
+/**
+ * An immutable permission collection which indexes its permissions by class and by name, so that most checks are
+ * answered by a single lookup instead of a scan over every granted permission.
+ * <p>
+ * Permissions of the Elytron permission types whose name and action semantics are known (name set, name only, boolean and
+ * action bit set permissions) and of {@link BasicPermission} types which do not override {@code implies} are indexed;
+ * action bits granted under the same name are combined.  Any other permission is added to the collection returned by
+ * its {@link Permission#newPermissionCollection()} method, or to a {@link Permissions} instance if it has none, with one
+ * collection per permission class; the granted permissions of a class are thus combined as they would be by
+ * {@link Permissions}.
+ */
+public final class CompiledPermissionCollection extends PermissionCollection implements Iterable<Permission>, PermissionVerifier {
+
+    private static final long serialVersionUID = 5137096582254271624L;
+
+    private static final ClassValue<Kind> KINDS = new ClassValue<Kind>() {
+        protected Kind computeValue(final Class<?> type) {
+            return computeKind(type);
+        }
+    };
+
+    private final transient Permission[] permissions;
+    private final transient boolean all;
+    private final transient IdentityHashMap<Class<?>, ClassIndex> index;
+    private final transient PermissionCollection[] others;
+
+    private CompiledPermissionCollection(final Permission[] permissions) {
+        this.permissions = permissions;
+        final IdentityHashMap<Class<?>, ClassIndex> index = new IdentityHashMap<>();
+        final IdentityHashMap<Class<?>, PermissionCollection> others = new IdentityHashMap<>();
+        boolean all = false;
+        for (Permission permission : permissions) {
+            if (permission instanceof AllPermission) {
+                all = true;
+            }
+            final Class<? extends Permission> permissionClass = permission.getClass();
+            final Kind kind = kindOf(permissionClass);
+            if (kind == Kind.OTHER) {
+                others.computeIfAbsent(permissionClass, c -> newPermissionCollection(permission)).add(permission);
+            } else {
+                index.computeIfAbsent(permissionClass, c -> new ClassIndex(kind)).add(permission);
+            }
+        }
+        this.all = all;
+        this.index = index;
+        for (PermissionCollection collection : others.values()) {
+            collection.setReadOnly();
+        }
+        this.others = others.values().toArray(new PermissionCollection[others.size()]);
+        setReadOnly();
+    }
+
+    private static PermissionCollection newPermissionCollection(final Permission permission) {
+        final PermissionCollection collection = permission.newPermissionCollection();
+        return collection == null ? new Permissions() : collection;
+    }
+
+    /**
+     * Compile the given permissions.
+     *
+     * @param permissions the permissions to compile (must not be {@code null})
+     * @return the compiled permission collection (not {@code null})
+     */
+    public static CompiledPermissionCollection compile(Collection<? extends Permission> permissions) {
+        Assert.checkNotNullParam("permissions", permissions);
+        final List<Permission> list = new ArrayList<>();
+        for (Permission permission : permissions) {
+            list.add(Assert.checkNotNullArrayParam("permissions", list.size(), permission));
+        }
+        return new CompiledPermissionCollection(list.toArray(PermissionUtil.NO_PERMISSIONS));
+    }
+
+    /**
+     * Compile the permissions of the given permission collection.  Permissions added to the collection afterwards are not
+     * reflected by the returned collection.
+     *
+     * @param permissionCollection the permission collection to compile (must not be {@code null})
+     * @return the compiled permission collection (not {@code null})
+     */
+    public static CompiledPermissionCollection compile(PermissionCollection permissionCollection) {
+        Assert.checkNotNullParam("permissionCollection", permissionCollection);
+        if (permissionCollection instanceof CompiledPermissionCollection) {
+            return (CompiledPermissionCollection) permissionCollection;
+        }
+        final List<Permission> list = new ArrayList<>();
+        for (Permission permission : PermissionUtil.iterable(permissionCollection)) {
+            list.add(permission);
+        }
+        return new CompiledPermissionCollection(list.toArray(PermissionUtil.NO_PERMISSIONS));
+    }
+
+    /**
+     * Get the number of permissions in this collection.
+     *
+     * @return the number of permissions in this collection
+     */
+    public int size() {
+        return permissions.length;
+    }
+
+    public void add(final Permission permission) {
+        throw ElytronMessages.log.readOnlyPermissionCollection();
+    }
+
+    public boolean implies(final Permission permission) {
+        if (permission == null) {
+            return false;
+        }
+        if (all) {
+            return true;
+        }
+        final ClassIndex classIndex = index.get(permission.getClass());
+        if (classIndex != null && classIndex.implies(permission)) {
+            return true;
+        }
+        for (PermissionCollection collection : others) {
+            if (collection.implies(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Iterator<Permission> iterator() {
+        return new ArrayIterator<Permission>(permissions);
+    }
+
+    public Enumeration<Permission> elements() {
+        return new ArrayIterator<Permission>(permissions);
+    }
+
+    Object writeReplace() {
+        final Permissions replacement = new Permissions();
+        for (Permission permission : permissions) {
+            replacement.add(permission);
+        }
+        replacement.setReadOnly();
+        return replacement;
+    }
+
+    enum Kind {
+        NAME_SET,
+        NAME,
+        BOOLEAN,
+        ACTION_SET,
+        BASIC,
+        OTHER,
+    }
+
+    static Kind kindOf(Class<?> permissionClass) {
+        return KINDS.get(permissionClass);
+    }
+
+    private static Kind computeKind(Class<?> permissionClass) {
+        // only classes which keep the name and action semantics of their base type can be indexed
+        if (AbstractNameSetOnlyPermission.class.isAssignableFrom(permissionClass)) {
+            return declares(permissionClass, AbstractNameSetOnlyPermission.class, "implies") ? Kind.OTHER : Kind.NAME_SET;
+        } else if (AbstractNameOnlyPermission.class.isAssignableFrom(permissionClass)) {
+            return declares(permissionClass, AbstractNamedPermission.class, "implies", "impliesName", "nameEquals") ? Kind.OTHER : Kind.NAME;
+        } else if (AbstractBooleanPermission.class.isAssignableFrom(permissionClass)) {
+            return declares(permissionClass, AbstractBooleanPermission.class, "implies") ? Kind.OTHER : Kind.BOOLEAN;
+        } else if (AbstractActionSetPermission.class.isAssignableFrom(permissionClass)) {
+            return declares(permissionClass, AbstractNamedPermission.class, "impliesName", "nameEquals") ? Kind.OTHER : Kind.ACTION_SET;
+        } else if (BasicPermission.class.isAssignableFrom(permissionClass)) {
+            return declares(permissionClass, BasicPermission.class, "implies", "getActions") ? Kind.OTHER : Kind.BASIC;
+        } else {
+            return Kind.OTHER;
+        }
+    }
+
+    private static boolean declares(Class<?> permissionClass, Class<?> baseClass, String... names) {
+        for (Class<?> c = permissionClass; c != baseClass && c != null; c = c.getSuperclass()) {
+            final Class<?> declaringClass = c;
+            final Method[] methods = System.getSecurityManager() == null ? c.getDeclaredMethods() :
+                    AccessController.doPrivileged((PrivilegedAction<Method[]>) declaringClass::getDeclaredMethods);
+            for (Method method : methods) {
+                if (method.isBridge() || method.isSynthetic()) {
+                    continue;
+                }
+                for (String name : names) {
+                    if (name.equals(method.getName())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    static final class ClassIndex {
+        private final Kind kind;
+        private boolean all;
+        private boolean allNames;
+        private int allActionBits;
+        private long[] nameBits;
+        private Set<String> names;
+        private Set<String> prefixes;
+        private Map<String, Integer> actionBits;
+
+        ClassIndex(final Kind kind) {
+            this.kind = kind;
+        }
+
+        void add(final Permission permission) {
+            final String name = permission.getName();
+            switch (kind) {
+                case BOOLEAN: {
+                    all = true;
+                    break;
+                }
+                case NAME_SET: {
+                    if ("*".equals(name)) {
+                        all = true;
+                    } else {
+                        final int idx = ((AbstractNameSetOnlyPermission<?>) permission).nameHashCode();
+                        final int word = idx >>> 6;
+                        if (nameBits == null) {
+                            nameBits = new long[word + 1];
+                        } else if (nameBits.length <= word) {
+                            final long[] newBits = new long[word + 1];
+                            System.arraycopy(nameBits, 0, newBits, 0, nameBits.length);
+                            nameBits = newBits;
+                        }
+                        nameBits[word] |= 1L << idx;
+                    }
+                    break;
+                }
+                case NAME: {
+                    if ("*".equals(name)) {
+                        all = true;
+                    } else {
+                        if (names == null) names = new HashSet<>();
+                        names.add(name);
+                    }
+                    break;
+                }
+                case ACTION_SET: {
+                    final int bits = ((AbstractActionSetPermission<?>) permission).getActionBits();
+                    if ("*".equals(name)) {
+                        allNames = true;
+                        allActionBits |= bits;
+                    } else {
+                        if (actionBits == null) actionBits = new HashMap<>();
+                        actionBits.merge(name, Integer.valueOf(bits), (a, b) -> Integer.valueOf(a.intValue() | b.intValue()));
+                    }
+                    break;
+                }
+                case BASIC: {
+                    if ("*".equals(name)) {
+                        all = true;
+                    } else if (name.endsWith(".*")) {
+                        if (prefixes == null) prefixes = new HashSet<>();
+                        prefixes.add(name.substring(0, name.length() - 1));
+                    } else {
+                        if (names == null) names = new HashSet<>();
+                        names.add(name);
+                    }
+                    break;
+                }
+                default: {
+                    throw Assert.impossibleSwitchCase(kind);
+                }
+            }
+        }
+
+        boolean implies(final Permission permission) {
+            if (all) {
+                return true;
+            }
+            final String name = permission.getName();
+            switch (kind) {
+                case BOOLEAN: {
+                    return false;
+                }
+                case NAME_SET: {
+                    if (nameBits == null || "*".equals(name)) {
+                        return false;
+                    }
+                    final int idx = ((AbstractNameSetOnlyPermission<?>) permission).nameHashCode();
+                    final int word = idx >>> 6;
+                    return word < nameBits.length && (nameBits[word] & 1L << idx) != 0;
+                }
+                case NAME: {
+                    return names != null && names.contains(name);
+                }
+                case ACTION_SET: {
+                    final int requested = ((AbstractActionSetPermission<?>) permission).getActionBits();
+                    final Integer bits = actionBits == null || "*".equals(name) ? null : actionBits.get(name);
+                    if (bits == null) {
+                        return allNames && (allActionBits & requested) == requested;
+                    }
+                    final int granted = allActionBits | bits.intValue();
+                    return (granted & requested) == requested;
+                }
+                case BASIC: {
+                    if (names != null && names.contains(name)) {
+                        return true;
+                    }
+                    if (prefixes != null) {
+                        // a granted "a.b.*" implies "a.b.c" and "a.b.c.d"
+                        int idx = name.indexOf('.');
+                        while (idx != -1) {
+                            if (prefixes.contains(name.substring(0, idx + 1))) {
+                                return true;
+                            }
+                            idx = name.indexOf('.', idx + 1);
+                        }
+                    }
+                    return false;
+                }
+                default: {
+                    throw Assert.impossibleSwitchCase(kind);
+                }
+            }
+        }
+    }
+}
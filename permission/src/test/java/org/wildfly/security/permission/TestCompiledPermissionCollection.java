@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.permission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FilePermission;
+import java.net.SocketPermission;
+import java.security.AllPermission;
+import java.security.Permission;
+import java.security.Permissions;
+import java.util.Arrays;
+import java.util.PropertyPermission;
+
+import org.junit.Test;
+import org.wildfly.security.util.StringEnumeration;
+
+public class TestCompiledPermissionCollection {
+
+    @Test
+    public void testNameSet() {
+        final CompiledPermissionCollection collection = compile(new ElytronPermission("getIdentity"), new ElytronPermission("authenticate"));
+        assertTrue(collection.implies(new ElytronPermission("getIdentity")));
+        assertTrue(collection.implies(new ElytronPermission("authenticate")));
+        assertFalse(collection.implies(new ElytronPermission("createAdHocIdentity")));
+        assertFalse(collection.implies(new ElytronPermission("*")));
+        assertFalse(collection.implies(new TestAbstractNameSetOnlyPermission.SomePermission("name1")));
+        assertTrue(compile(new ElytronPermission("*")).implies(new ElytronPermission("*")));
+        assertTrue(compile(new ElytronPermission("*")).implies(new ElytronPermission("getSecurityDomain")));
+    }
+
+    @Test
+    public void testNameOnly() {
+        final CompiledPermissionCollection collection = compile(new TestAbstractNameOnlyPermission.SomePermission("foo"));
+        assertTrue(collection.implies(new TestAbstractNameOnlyPermission.SomePermission("foo")));
+        assertFalse(collection.implies(new TestAbstractNameOnlyPermission.SomePermission("bar")));
+        assertFalse(collection.implies(new TestAbstractNameOnlyPermission.SomePermission("*")));
+        assertFalse(collection.implies(new TestAbstractNameOnlyPermission.SomeOtherPermission("foo")));
+    }
+
+    @Test
+    public void testActionBitsAreCombined() {
+        final CompiledPermissionCollection collection = compile(new ActionPermission("foo", "read"), new ActionPermission("foo", "write"),
+                new ActionPermission("*", "execute"));
+        assertTrue(collection.implies(new ActionPermission("foo", "read,write")));
+        assertTrue(collection.implies(new ActionPermission("foo", "read,write,execute")));
+        assertTrue(collection.implies(new ActionPermission("bar", "execute")));
+        assertFalse(collection.implies(new ActionPermission("bar", "read")));
+        assertFalse(collection.implies(new ActionPermission("*", "read")));
+        assertTrue(compile(new ActionPermission("foo", "read")).implies(new ActionPermission("foo", "")));
+        assertFalse(compile(new ActionPermission("foo", "read")).implies(new ActionPermission("bar", "")));
+    }
+
+    @Test
+    public void testBasicPermissionWildcards() {
+        final CompiledPermissionCollection collection = compile(new RuntimePermission("a.b.*"), new RuntimePermission("exitVM.0"));
+        assertTrue(collection.implies(new RuntimePermission("a.b.c")));
+        assertTrue(collection.implies(new RuntimePermission("a.b.c.d")));
+        assertTrue(collection.implies(new RuntimePermission("a.b.c.*")));
+        assertTrue(collection.implies(new RuntimePermission("exitVM.0")));
+        assertFalse(collection.implies(new RuntimePermission("a.bc")));
+        assertFalse(collection.implies(new RuntimePermission("a.*")));
+        assertFalse(collection.implies(new RuntimePermission("exitVM.1")));
+        assertTrue(compile(new RuntimePermission("*")).implies(new RuntimePermission("anything")));
+    }
+
+    @Test
+    public void testOtherPermissions() {
+        final CompiledPermissionCollection collection = compile(new PropertyPermission("java.*", "read"), new FilePermission("/tmp/-", "read"));
+        assertTrue(collection.implies(new PropertyPermission("java.home", "read")));
+        assertFalse(collection.implies(new PropertyPermission("java.home", "write")));
+        assertTrue(collection.implies(new FilePermission("/tmp/foo", "read")));
+        assertFalse(collection.implies(new FilePermission("/etc/passwd", "read")));
+        assertTrue(compile(new AllPermission()).implies(new ElytronPermission("authenticate")));
+    }
+
+    @Test
+    public void testSplitActionsCombined() {
+        final CompiledPermissionCollection collection = compile(new PropertyPermission("x", "read"), new PropertyPermission("x", "write"),
+                new FilePermission("/tmp/foo", "read"), new FilePermission("/tmp/foo", "write"),
+                new SocketPermission("localhost:8080", "connect"), new SocketPermission("localhost:8080", "accept"));
+        assertTrue(collection.implies(new PropertyPermission("x", "read,write")));
+        assertTrue(collection.implies(new FilePermission("/tmp/foo", "read,write")));
+        assertTrue(collection.implies(new SocketPermission("localhost:8080", "connect,accept")));
+        assertFalse(collection.implies(new PropertyPermission("y", "read,write")));
+        assertFalse(collection.implies(new FilePermission("/tmp/foo", "read,delete")));
+    }
+
+    @Test
+    public void testMatchesPermissions() {
+        final Permission[] granted = {
+            new ElytronPermission("getIdentity"),
+            new RuntimePermission("a.b.*"),
+            new ActionPermission("foo", "read,write"),
+            new PropertyPermission("user.*", "read"),
+        };
+        final Permission[] checked = {
+            new ElytronPermission("getIdentity"),
+            new ElytronPermission("authenticate"),
+            new RuntimePermission("a.b.c"),
+            new RuntimePermission("a.c"),
+            new PropertyPermission("user.home", "read"),
+            new PropertyPermission("user.home", "write"),
+        };
+        final Permissions permissions = new Permissions();
+        for (Permission permission : granted) {
+            permissions.add(permission);
+        }
+        final CompiledPermissionCollection collection = CompiledPermissionCollection.compile(permissions);
+        assertEquals(granted.length, collection.size());
+        for (Permission permission : checked) {
+            assertEquals(permission.toString(), permissions.implies(permission), collection.implies(permission));
+        }
+    }
+
+    @Test(expected = SecurityException.class)
+    public void testReadOnly() {
+        compile(new ElytronPermission("getIdentity")).add(new ElytronPermission("authenticate"));
+    }
+
+    private static CompiledPermissionCollection compile(Permission... permissions) {
+        return CompiledPermissionCollection.compile(Arrays.asList(permissions));
+    }
+
+    public static final class ActionPermission extends AbstractActionSetPermission<ActionPermission> {
+        private static final StringEnumeration actions = StringEnumeration.of("read", "write", "execute");
+
+        public ActionPermission(final String name, final String actions) {
+            super(name, actions, ActionPermission.actions);
+        }
+
+        private ActionPermission(final String name, final int actionBits) {
+            super(name, actionBits, actions);
+        }
+
+        public ActionPermission withName(final String name) {
+            return new ActionPermission(name, getActionBits());
+        }
+
+        protected ActionPermission constructWithActionBits(final int actionBits) {
+            return new ActionPermission(getName(), actionBits);
+        }
+    }
+}
@@ -20,9 +20,14 @@ package org.wildfly.security.provider.util;
 
 import org.wildfly.common.Assert;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -38,6 +43,14 @@ public final class ProviderUtil {
      */
     public static final Supplier<Provider[]> INSTALLED_PROVIDERS = Security::getProviders;
 
+    private static final int MAX_CACHED_PROVIDER_ARRAYS = 16;
+
+    /**
+     * The services found by {@link #findProviderService(Provider[], String, String, String)}, keyed by the identities of the
+     * searched providers.  A supplier which returns different providers searches a different set of cached services.
+     */
+    private static final ConcurrentHashMap<ProvidersKey, Map<ServiceKey, Reference<Provider.Service>>> SERVICE_CACHE = new ConcurrentHashMap<>();
+
     /**
      * Find the first provider from the supplier which provides the given service type and algorithm name.  The simple
      * name of the service type class is used to identify the service.
@@ -168,11 +181,23 @@ public final class ProviderUtil {
         Assert.checkNotNullParam("providers", providers);
         Assert.checkNotNullParam("serviceType", serviceType);
         Assert.checkNotNullParam("algorithm", algorithm);
+        final ProvidersKey providersKey = new ProvidersKey(providers);
+        final ServiceKey serviceKey = new ServiceKey(providerName, serviceType, algorithm);
+        final Map<ServiceKey, Reference<Provider.Service>> services = SERVICE_CACHE.get(providersKey);
+        if (services != null) {
+            final Reference<Provider.Service> reference = services.get(serviceKey);
+            final Provider.Service cached = reference == null ? null : reference.get();
+            // the provider may have removed or replaced the service since it was cached
+            if (cached != null && cached.getProvider().getService(serviceType, algorithm) == cached) {
+                return cached;
+            }
+        }
         for (int i = 0; i < providers.length; i++) {
-            Provider provider = Assert.checkNotNullArrayParam("providers", i, providers[i]);
+            Provider provider = providers[i];
             if (providerName == null || providerName.equals(provider.getName())) {
                 Provider.Service providerService = provider.getService(serviceType, algorithm);
                 if (providerService != null) {
+                    cacheProviderService(providersKey, serviceKey, providerService);
                     return providerService;
                 }
             }
@@ -180,6 +205,19 @@ public final class ProviderUtil {
         return null;
     }
 
+    private static void cacheProviderService(ProvidersKey providersKey, ServiceKey serviceKey, Provider.Service service) {
+        Map<ServiceKey, Reference<Provider.Service>> services = SERVICE_CACHE.get(providersKey);
+        if (services == null) {
+            if (SERVICE_CACHE.size() >= MAX_CACHED_PROVIDER_ARRAYS) {
+                // the providers of the suppliers changed too often, start over
+                SERVICE_CACHE.clear();
+            }
+            services = SERVICE_CACHE.computeIfAbsent(providersKey.retain(), k -> new ConcurrentHashMap<>());
+        }
+        // the service is referenced by its provider for as long as it is registered, the cache must not keep it reachable
+        services.put(serviceKey, new WeakReference<>(service));
+    }
+
     /**
      * Find a provider service which matches the given predicate.
      *
@@ -254,4 +292,96 @@ public final class ProviderUtil {
         };
 
     }
+
+    /**
+     * The identities of an array of providers in order.  {@link Security#getProviders()} returns a new array each time, so
+     * arrays are compared by their elements.  Keys stored in the cache only weakly reference the providers.
+     */
+    static final class ProvidersKey {
+        private final Provider[] providers;
+        private final Reference<Provider>[] references;
+        private final int hashCode;
+
+        ProvidersKey(final Provider[] providers) {
+            int hashCode = providers.length;
+            for (int i = 0; i < providers.length; i++) {
+                hashCode = hashCode * 31 + System.identityHashCode(Assert.checkNotNullArrayParam("providers", i, providers[i]));
+            }
+            this.providers = providers;
+            this.references = null;
+            this.hashCode = hashCode;
+        }
+
+        @SuppressWarnings("unchecked")
+        private ProvidersKey(final ProvidersKey key) {
+            references = new Reference[key.providers.length];
+            for (int i = 0; i < references.length; i++) {
+                references[i] = new WeakReference<>(key.providers[i]);
+            }
+            providers = null;
+            hashCode = key.hashCode;
+        }
+
+        ProvidersKey retain() {
+            return new ProvidersKey(this);
+        }
+
+        private int length() {
+            return providers != null ? providers.length : references.length;
+        }
+
+        private Provider get(int index) {
+            return providers != null ? providers[index] : references[index].get();
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof ProvidersKey && equals((ProvidersKey) obj);
+        }
+
+        private boolean equals(final ProvidersKey other) {
+            if (this == other) {
+                return true;
+            }
+            if (hashCode != other.hashCode || length() != other.length()) {
+                return false;
+            }
+            for (int i = 0; i < length(); i++) {
+                final Provider provider = get(i);
+                if (provider == null || provider != other.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class ServiceKey {
+        private final String providerName;
+        private final String serviceType;
+        private final String algorithm;
+        private final int hashCode;
+
+        ServiceKey(final String providerName, final String serviceType, final String algorithm) {
+            this.providerName = providerName;
+            this.serviceType = serviceType;
+            this.algorithm = algorithm;
+            hashCode = (Objects.hashCode(providerName) * 31 + serviceType.hashCode()) * 31 + algorithm.hashCode();
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof ServiceKey && equals((ServiceKey) obj);
+        }
+
+        private boolean equals(final ServiceKey other) {
+            return this == other || Objects.equals(providerName, other.providerName) && serviceType.equals(other.serviceType) && algorithm.equals(other.algorithm);
+        }
+    }
 }
@@ -20,6 +20,8 @@ package org.wildfly.security.ssl;
 
 import static org.jboss.logging.Logger.Level.WARN;
 
+import java.io.IOException;
+import java.net.URI;
 import java.security.NoSuchAlgorithmException;
 import java.security.Principal;
 import java.security.cert.CertificateException;
@@ -27,6 +29,7 @@ import java.security.cert.CertificateException;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
 import javax.net.ssl.SSLProtocolException;
+import javax.security.auth.x500.X500Principal;
 
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
@@ -191,4 +194,23 @@ interface ElytronMessages extends BasicLogger {
     @Message(id = 15000, value = "Uknown cipher suite name '%s' in names string '%s'")
     IllegalArgumentException unknownCipherSuiteName(String name, String string);
 
+    @LogMessage(level = WARN)
+    @Message(id = 15001, value = "Failed to refresh certificate revocation lists")
+    void failedToRefreshCrls(@Cause Throwable cause);
+
+    @Message(id = 15002, value = "Failed to load certificate revocation lists")
+    IllegalStateException failedToLoadCrls(@Cause Throwable cause);
+
+    @Message(id = 15003, value = "OCSP responder [%s] returned an unsuccessful response (status %d)")
+    IOException ocspResponderFailed(URI responderUri, int status);
+
+    @Message(id = 15004, value = "Invalid OCSP response from responder [%s]")
+    IOException invalidOcspResponse(URI responderUri, @Cause Throwable cause);
+
+    @Message(id = 15005, value = "Revocation status of certificate [%s] could not be obtained")
+    CertificateException revocationStatusUnavailable(X500Principal subject, @Cause Throwable cause);
+
+    @Message(id = 15006, value = "Revocation status of certificate [%s] was not obtained within %d milliseconds")
+    CertificateException revocationStatusDeadlineExceeded(X500Principal subject, long deadline);
+
 }
@@ -0,0 +1,385 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.ssl;
+
+import static org.wildfly.security.asn1.ASN1.CONTEXT_SPECIFIC_MASK;
+import static org.wildfly.security.asn1.ASN1.OID_SHA1;
+import static org.wildfly.security.ssl.ElytronMessages.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.X509Certificate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.wildfly.security.asn1.ASN1Exception;
+import org.wildfly.security.asn1.DERDecoder;
+import org.wildfly.security.asn1.DEREncoder;
+import org.wildfly.security.x500.X500;
+
+/**
+ * A cache of OCSP responses which are fetched ahead of certificate path validation and handed to the
+ * {@link PKIXRevocationChecker} as pre-fetched responses.
+ * <p>
+ * A response is reused until its {@code nextUpdate} time.  A response without a {@code nextUpdate} time is only used for
+ * the validation it was fetched for, as the responder indicates that newer revocation information is always available.
+ * The responses are not verified here, this is done by the revocation checker when they are used; a fetched response is
+ * only stored once the path it was fetched for has been validated with it.  Responses are stored by certificate and
+ * issuer, and at most {@code maxEntries} are kept.
+ */
+final class OcspResponseCache {
+
+    private static final String OID_PKIX_OCSP_BASIC = X500.OID_AD_OCSP + ".1";
+    private static final DateTimeFormatter GENERALIZED_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmssX");
+
+    private final URI responderUri;
+    private final int timeout;
+    private final int maxEntries;
+    private final Executor executor;
+    private final ConcurrentHashMap<Key, Response> responses = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, CompletableFuture<Response>> fetches = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a new instance.
+     *
+     * @param responderUri the responder to use instead of the one named by the certificates, or {@code null}
+     * @param timeout the connect and read timeout of requests to the responder in milliseconds
+     * @param maxEntries the maximum number of responses to keep
+     * @param executor the executor to fetch responses with
+     */
+    OcspResponseCache(final URI responderUri, final int timeout, final int maxEntries, final Executor executor) {
+        this.responderUri = responderUri;
+        this.timeout = timeout;
+        this.maxEntries = maxEntries;
+        this.executor = executor;
+    }
+
+    /**
+     * Get the stored response for a certificate.
+     *
+     * @param key the certificate and its issuer
+     * @param now the current time in milliseconds
+     * @return the response, or {@code null} if there is no response which is still valid
+     */
+    Response get(Key key, long now) {
+        final Response response = responses.get(key);
+        if (response == null) {
+            return null;
+        }
+        if (response.expires <= now) {
+            responses.remove(key, response);
+            return null;
+        }
+        return response;
+    }
+
+    /**
+     * Store a response once the path it was fetched for has been validated with it.  If the cache is full, the expired
+     * responses are removed, then arbitrary ones if that is not enough.
+     *
+     * @param key the certificate and its issuer
+     * @param response the response
+     * @param now the current time in milliseconds
+     */
+    void put(Key key, Response response, long now) {
+        if (response.expires <= now) {
+            return;
+        }
+        responses.put(key, response);
+        if (responses.size() > maxEntries) {
+            removeExpired(now);
+            final Iterator<Key> iterator = responses.keySet().iterator();
+            while (responses.size() > maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove a response which failed the validation of a path.
+     *
+     * @param key the certificate and its issuer
+     * @param response the response
+     */
+    void remove(Key key, Response response) {
+        responses.remove(key, response);
+    }
+
+    /**
+     * Remove the responses which can no longer be used.
+     *
+     * @param now the current time in milliseconds
+     */
+    void removeExpired(long now) {
+        responses.values().removeIf(response -> response.expires <= now);
+    }
+
+    /**
+     * Fetch the response for a certificate in the background.  Only one request per certificate and issuer is made at a
+     * time.  The response is not stored, see {@link #put(Key, Response, long)}.
+     *
+     * @param key the certificate and its issuer
+     * @return the future response, or {@code null} if no responder is known for the certificate
+     */
+    CompletableFuture<Response> fetch(Key key) {
+        CompletableFuture<Response> future = fetches.get(key);
+        if (future != null) {
+            return future;
+        }
+        final URI uri = responderUri != null ? responderUri : getResponderUri(key.certificate);
+        if (uri == null) {
+            return null;
+        }
+        final CompletableFuture<Response> newFuture = new CompletableFuture<>();
+        future = fetches.putIfAbsent(key, newFuture);
+        if (future != null) {
+            return future;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    final Response response = request(uri, key.certificate, key.issuer);
+                    fetches.remove(key, newFuture);
+                    newFuture.complete(response);
+                } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                    fetches.remove(key, newFuture);
+                    newFuture.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fetches.remove(key, newFuture);
+            newFuture.completeExceptionally(e);
+        }
+        return newFuture;
+    }
+
+    private Response request(URI uri, X509Certificate certificate, X509Certificate issuer) throws IOException, GeneralSecurityException {
+        final byte[] request = encodeRequest(certificate, issuer);
+        final URLConnection connection = uri.toURL().openConnection();
+        if (! (connection instanceof HttpURLConnection)) {
+            throw log.ocspResponderFailed(uri, -1);
+        }
+        final HttpURLConnection httpConnection = (HttpURLConnection) connection;
+        try {
+            httpConnection.setConnectTimeout(timeout);
+            httpConnection.setReadTimeout(timeout);
+            httpConnection.setRequestMethod("POST");
+            httpConnection.setRequestProperty("Content-Type", "application/ocsp-request");
+            httpConnection.setRequestProperty("Accept", "application/ocsp-response");
+            httpConnection.setDoOutput(true);
+            httpConnection.setFixedLengthStreamingMode(request.length);
+            try (OutputStream os = httpConnection.getOutputStream()) {
+                os.write(request);
+            }
+            final int responseCode = httpConnection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw log.ocspResponderFailed(uri, responseCode);
+            }
+            final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try (InputStream is = httpConnection.getInputStream()) {
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    encoded.write(buffer, 0, read);
+                }
+            }
+            final byte[] response = encoded.toByteArray();
+            return new Response(response, getNextUpdate(uri, response, certificate.getSerialNumber()));
+        } finally {
+            httpConnection.disconnect();
+        }
+    }
+
+    /**
+     * Encode an OCSP request for a single certificate, identified by a SHA-1 {@code CertID} as the revocation checker
+     * expects.
+     */
+    static byte[] encodeRequest(X509Certificate certificate, X509Certificate issuer) throws NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        final byte[] issuerNameHash = digest.digest(issuer.getSubjectX500Principal().getEncoded());
+        final DERDecoder keyDecoder = new DERDecoder(issuer.getPublicKey().getEncoded());
+        keyDecoder.startSequence();
+        keyDecoder.skipElement();
+        final byte[] issuerKeyHash = digest.digest(keyDecoder.decodeBitString());
+
+        final DEREncoder encoder = new DEREncoder();
+        encoder.startSequence(); // OCSPRequest
+        encoder.startSequence(); // TBSRequest
+        encoder.startSequence(); // requestList
+        encoder.startSequence(); // Request
+        encoder.startSequence(); // CertID
+        encoder.startSequence();
+        encoder.encodeObjectIdentifier(OID_SHA1);
+        encoder.encodeNull();
+        encoder.endSequence();
+        encoder.encodeOctetString(issuerNameHash);
+        encoder.encodeOctetString(issuerKeyHash);
+        encoder.encodeInteger(certificate.getSerialNumber());
+        encoder.endSequence();
+        encoder.endSequence();
+        encoder.endSequence();
+        encoder.endSequence();
+        encoder.endSequence();
+        return encoder.getEncoded();
+    }
+
+    /**
+     * Get the {@code nextUpdate} time of the status of a certificate from an encoded OCSP response.
+     *
+     * @return the time in milliseconds, or {@code 0} if the response has no {@code nextUpdate} time for the certificate
+     * @throws IOException if the response is not successful or cannot be decoded
+     */
+    static long getNextUpdate(URI uri, byte[] encoded, BigInteger serialNumber) throws IOException {
+        try {
+            final DERDecoder decoder = new DERDecoder(encoded);
+            decoder.startSequence(); // OCSPResponse
+            final byte[] status = decoder.drainElementValue();
+            if (status.length != 1 || status[0] != 0) {
+                throw log.ocspResponderFailed(uri, status.length == 1 ? status[0] : -1);
+            }
+            decoder.startExplicit(0);
+            decoder.startSequence(); // ResponseBytes
+            if (! OID_PKIX_OCSP_BASIC.equals(decoder.decodeObjectIdentifier())) {
+                return 0;
+            }
+            final DERDecoder basic = new DERDecoder(decoder.decodeOctetString());
+            basic.startSequence(); // BasicOCSPResponse
+            basic.startSequence(); // ResponseData
+            if (basic.isNextType(CONTEXT_SPECIFIC_MASK, 0, true)) {
+                basic.skipElement(); // version
+            }
+            basic.skipElement(); // responderID
+            basic.skipElement(); // producedAt
+            basic.startSequence(); // responses
+            while (basic.hasNextElement()) {
+                basic.startSequence(); // SingleResponse
+                basic.startSequence(); // CertID
+                basic.skipElement();
+                basic.skipElement();
+                basic.skipElement();
+                final BigInteger responseSerialNumber = basic.decodeInteger();
+                basic.endSequence();
+                basic.skipElement(); // certStatus
+                basic.skipElement(); // thisUpdate
+                long nextUpdate = 0;
+                if (basic.isNextType(CONTEXT_SPECIFIC_MASK, 0, true)) {
+                    basic.startExplicit(0);
+                    nextUpdate = decodeGeneralizedTime(basic.drainElementValue());
+                    basic.endExplicit();
+                }
+                basic.endSequence();
+                if (serialNumber.equals(responseSerialNumber)) {
+                    return nextUpdate;
+                }
+            }
+            return 0;
+        } catch (ASN1Exception | DateTimeParseException e) {
+            throw log.invalidOcspResponse(uri, e);
+        }
+    }
+
+    private static long decodeGeneralizedTime(byte[] value) {
+        String time = new String(value, StandardCharsets.US_ASCII);
+        // fractions of seconds are not relevant for caching
+        final int fraction = time.indexOf('.');
+        if (fraction != -1) {
+            time = time.substring(0, fraction) + time.substring(time.length() - 1);
+        }
+        return OffsetDateTime.parse(time, GENERALIZED_TIME).toInstant().toEpochMilli();
+    }
+
+    private static URI getResponderUri(X509Certificate certificate) {
+        final byte[] extension = certificate.getExtensionValue(X500.OID_PE_AUTHORITY_INFO_ACCESS);
+        if (extension == null) {
+            return null;
+        }
+        try {
+            final DERDecoder decoder = new DERDecoder(new DERDecoder(extension).decodeOctetString());
+            decoder.startSequence();
+            while (decoder.hasNextElement()) {
+                decoder.startSequence(); // AccessDescription
+                final String accessMethod = decoder.decodeObjectIdentifier();
+                if (X500.OID_AD_OCSP.equals(accessMethod) && decoder.isNextType(CONTEXT_SPECIFIC_MASK, 6, false)) {
+                    decoder.decodeImplicit(6); // uniformResourceIdentifier
+                    return URI.create(decoder.decodeIA5String());
+                }
+                decoder.endSequence();
+            }
+        } catch (IllegalArgumentException e) {
+            log.tracef(e, "Unable to decode the authority information access of certificate [%s]", certificate.getSubjectX500Principal());
+        }
+        return null;
+    }
+
+    /**
+     * A certificate and the issuer its status is requested for, as identified by the {@code CertID} of a request.
+     */
+    static final class Key {
+        final X509Certificate certificate;
+        final X509Certificate issuer;
+        private final int hashCode;
+
+        Key(final X509Certificate certificate, final X509Certificate issuer) {
+            this.certificate = certificate;
+            this.issuer = issuer;
+            this.hashCode = certificate.hashCode() * 31 + issuer.hashCode();
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Key && equals((Key) obj);
+        }
+
+        boolean equals(final Key other) {
+            return this == other || other != null && hashCode == other.hashCode && certificate.equals(other.certificate) && issuer.equals(other.issuer);
+        }
+    }
+
+    static final class Response {
+        final byte[] encoded;
+        /** The time in milliseconds until which the response may be reused. */
+        final long expires;
+
+        Response(final byte[] encoded, final long expires) {
+            this.encoded = encoded;
+            this.expires = expires;
+        }
+    }
+}
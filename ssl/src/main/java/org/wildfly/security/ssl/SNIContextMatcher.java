@@ -17,54 +17,228 @@ package org.wildfly.security.ssl;
 
 import static org.wildfly.security.ssl.ElytronMessages.log;
 
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.net.ssl.SNIHostName;
 import javax.net.ssl.SNIMatcher;
 import javax.net.ssl.SNIServerName;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.StandardConstants;
 
+/**
+ * Selects the {@link SSLContext} for the server names requested by a client.
+ * <p>
+ * Names without a wildcard are checked first, then names with a wildcard; within each group the first name added which
+ * matches is used.  Plain host names are looked up in a hash map, and wildcard names of the form {@code .*\.example\.com}
+ * (any number of labels) or {@code [^.]*\.example\.com} (a single label) in a tree of the reversed labels of the domain, so
+ * that the cost of a lookup does not grow with the number of names.  Dots in these names match a dot only.  Any other
+ * name is a regular expression which is matched by an {@link SNIMatcher} in turn.
+ */
 public class SNIContextMatcher {
 
+    private static final String LITERAL = "[A-Za-z0-9_-]+(?:\\\\?\\.[A-Za-z0-9_-]+)*";
+    private static final Pattern LITERAL_PATTERN = Pattern.compile(LITERAL);
+    private static final Pattern WILDCARD_PATTERN = Pattern.compile("(\\.\\*|\\[\\^\\\\?\\.]\\*)\\\\?\\.(" + LITERAL + ")");
+
     private final SSLContext defaultContext;
-    private final Map<SNIMatcher, SSLContext> wildcards;
-    private final Map<SNIMatcher, SSLContext> exacts;
+    private final Index exacts;
+    private final Index wildcards;
+    private final LongAdder lookupCount = new LongAdder();
+    private final LongAdder lookupTime = new LongAdder();
 
-    SNIContextMatcher(SSLContext defaultContext, Map<SNIMatcher, SSLContext> wildcards, Map<SNIMatcher, SSLContext> exacts) {
+    SNIContextMatcher(SSLContext defaultContext, Index wildcards, Index exacts) {
         this.defaultContext = defaultContext;
         this.wildcards = wildcards;
         this.exacts = exacts;
     }
 
     public SSLContext getContext(List<SNIServerName> servers) {
-        for (Map.Entry<SNIMatcher, SSLContext> entry : exacts.entrySet()) {
-            for (SNIServerName server : servers) {
-                if (entry.getKey().matches(server)) {
-                    return entry.getValue();
-                }
-            }
+        final String[] hostNames = new String[servers.size()];
+        for (int i = 0; i < hostNames.length; i ++) {
+            hostNames[i] = hostName(servers.get(i));
         }
-        for (Map.Entry<SNIMatcher, SSLContext> entry : wildcards.entrySet()) {
-            for (SNIServerName server : servers) {
-                if (entry.getKey().matches(server)) {
-                    return entry.getValue();
-                }
-            }
+        Entry entry = exacts.find(servers, hostNames);
+        if (entry == null) {
+            entry = wildcards.find(servers, hostNames);
         }
-        return defaultContext;
+        return entry == null ? defaultContext : entry.context;
     }
 
     public SSLContext getDefaultContext() {
         return defaultContext;
     }
 
+    /**
+     * Get the number of context lookups made for SNI connections.
+     *
+     * @return the number of lookups
+     */
+    public long getLookupCount() {
+        return lookupCount.sum();
+    }
+
+    /**
+     * Get the total time spent in context lookups made for SNI connections.
+     *
+     * @return the total lookup time in nanoseconds
+     */
+    public long getLookupTime() {
+        return lookupTime.sum();
+    }
+
+    void recordLookup(long nanos) {
+        lookupCount.increment();
+        lookupTime.add(nanos);
+    }
+
+    private static String hostName(SNIServerName server) {
+        if (server.getType() != StandardConstants.SNI_HOST_NAME) {
+            return null;
+        }
+        final SNIHostName hostName;
+        if (server instanceof SNIHostName) {
+            hostName = (SNIHostName) server;
+        } else {
+            try {
+                hostName = new SNIHostName(server.getEncoded());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return hostName.getAsciiName().toLowerCase(Locale.ROOT);
+    }
+
+    private static String unescape(String literal) {
+        return literal.replace("\\", "").toLowerCase(Locale.ROOT);
+    }
+
+    static final class Entry {
+        final int order;
+        final SSLContext context;
+        final SNIMatcher matcher;
+
+        Entry(int order, SSLContext context, SNIMatcher matcher) {
+            this.order = order;
+            this.context = context;
+            this.matcher = matcher;
+        }
+
+        Entry first(Entry other) {
+            return other == null || order < other.order ? this : other;
+        }
+    }
+
+    /**
+     * A node of the tree of reversed domain labels.
+     */
+    static final class Label {
+        private Map<String, Label> children;
+        /** The first wildcard matching any number of labels below this domain. */
+        Entry anyLabels;
+        /** The first wildcard matching a single label below this domain. */
+        Entry oneLabel;
+
+        Label child(String label) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(label, l -> new Label());
+        }
+
+        Label get(String label) {
+            return children == null ? null : children.get(label);
+        }
+    }
+
+    static final class Index {
+        private final Map<String, Entry> hostNames = new HashMap<>();
+        private final Label root = new Label();
+        private final List<Entry> others = new ArrayList<>();
+        private int size;
+
+        void addHostName(String hostName, SSLContext context) {
+            hostNames.putIfAbsent(hostName, new Entry(size ++, context, null));
+        }
+
+        void addWildcard(String domain, boolean anyLabels, SSLContext context) {
+            Label node = root;
+            int end = domain.length();
+            while (end > 0) {
+                final int dot = domain.lastIndexOf('.', end - 1);
+                node = node.child(domain.substring(dot + 1, end));
+                end = dot;
+            }
+            final Entry entry = new Entry(size ++, context, null);
+            if (anyLabels) {
+                if (node.anyLabels == null) node.anyLabels = entry;
+            } else {
+                if (node.oneLabel == null) node.oneLabel = entry;
+            }
+        }
+
+        void addMatcher(SNIMatcher matcher, SSLContext context) {
+            others.add(new Entry(size ++, context, matcher));
+        }
+
+        Entry find(List<SNIServerName> servers, String[] names) {
+            Entry found = null;
+            for (String name : names) {
+                if (name != null) {
+                    final Entry entry = hostNames.get(name);
+                    if (entry != null) {
+                        found = entry.first(found);
+                    }
+                    found = findWildcard(name, found);
+                }
+            }
+            // only matchers added before the indexed match found so far can take precedence over it
+            for (Entry entry : others) {
+                if (found != null && entry.order > found.order) {
+                    break;
+                }
+                for (SNIServerName server : servers) {
+                    if (entry.matcher.matches(server)) {
+                        return entry;
+                    }
+                }
+            }
+            return found;
+        }
+
+        private Entry findWildcard(String name, Entry found) {
+            Label node = root;
+            int end = name.length();
+            while (end > 0) {
+                final int dot = name.lastIndexOf('.', end - 1);
+                node = node.get(name.substring(dot + 1, end));
+                if (node == null || dot < 0) {
+                    break;
+                }
+                // the labels before the dot are matched by the wildcards of this domain
+                if (node.anyLabels != null) {
+                    found = node.anyLabels.first(found);
+                }
+                if (node.oneLabel != null && name.lastIndexOf('.', dot - 1) < 0) {
+                    found = node.oneLabel.first(found);
+                }
+                end = dot;
+            }
+            return found;
+        }
+    }
+
     public static class Builder {
 
         private SSLContext defaultContext;
-        private final Map<SNIMatcher, SSLContext> wildcards = new LinkedHashMap<>();
-        private final Map<SNIMatcher, SSLContext> exacts = new LinkedHashMap<>();
+        private final Index wildcards = new Index();
+        private final Index exacts = new Index();
 
         public SNIContextMatcher build() {
             if(defaultContext == null) {
@@ -84,9 +258,18 @@ public class SNIContextMatcher {
 
         public Builder addMatch(String name, SSLContext context) {
             if (name.contains("*")) {
-                wildcards.put(SNIHostName.createSNIMatcher(name), context);
+                final Matcher matcher = WILDCARD_PATTERN.matcher(name);
+                if (matcher.matches()) {
+                    wildcards.addWildcard(unescape(matcher.group(2)), matcher.group(1).startsWith("."), context);
+                } else {
+                    wildcards.addMatcher(SNIHostName.createSNIMatcher(name), context);
+                }
             } else {
-                exacts.put(SNIHostName.createSNIMatcher(name), context);
+                if (LITERAL_PATTERN.matcher(name).matches()) {
+                    exacts.addHostName(unescape(name), context);
+                } else {
+                    exacts.addMatcher(SNIHostName.createSNIMatcher(name), context);
+                }
             }
             return this;
         }
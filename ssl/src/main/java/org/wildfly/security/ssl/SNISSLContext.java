@@ -19,7 +19,20 @@ import javax.net.ssl.SSLContext;
 
 public class SNISSLContext extends SSLContext {
 
+    private final SNIContextMatcher matcher;
+
     public SNISSLContext(SNIContextMatcher matcher) {
         super(new SNISSLContextSpi(matcher), matcher.getDefaultContext().getProvider(), matcher.getDefaultContext().getProtocol());
+        this.matcher = matcher;
+    }
+
+    /**
+     * Get the matcher which selects the context of each connection.  The matcher holds the lookup count and time of the
+     * connections of this context.
+     *
+     * @return the matcher (not {@code null})
+     */
+    public SNIContextMatcher getMatcher() {
+        return matcher;
     }
 }
@@ -324,7 +324,9 @@ class SNISSLEngine extends SSLEngine implements SelectingContext {
                     return UNDERFLOW_UNWRAP;
                 }
                 List<SNIServerName> names = SNISSLExplorer.explore(src);
+                final long start = System.nanoTime();
                 SSLContext sslContext = selector.getContext(names);
+                selector.recordLookup(System.nanoTime() - start);
                 if (sslContext == null) {
                     // no SSL context is available
                     throw log.noSNIContextForSslConnection();
@@ -18,6 +18,10 @@
 
 package org.wildfly.security.ssl;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
@@ -28,8 +32,8 @@ import org.wildfly.common.Assert;
 
 final class SSLConfiguratorImpl implements SSLConfigurator {
 
-    private final ProtocolSelector protocolSelector;
-    private final CipherSuiteSelector cipherSuiteSelector;
+    private final Selections protocolSelector;
+    private final Selections cipherSuiteSelector;
     private final boolean wantClientAuth;
     private final boolean needClientAuth;
     private final boolean useCipherSuitesOrder;
@@ -44,8 +48,8 @@ final class SSLConfiguratorImpl implements SSLConfigurator {
      * @param needClientAuth      {@code true} to require client authentication
      */
     SSLConfiguratorImpl(final ProtocolSelector protocolSelector, final CipherSuiteSelector cipherSuiteSelector, final boolean wantClientAuth, final boolean needClientAuth, final boolean useCipherSuitesOrder) {
-        this.protocolSelector = protocolSelector;
-        this.cipherSuiteSelector = cipherSuiteSelector;
+        this.protocolSelector = new Selections(protocolSelector::evaluate);
+        this.cipherSuiteSelector = new Selections(cipherSuiteSelector::evaluate);
         this.useCipherSuitesOrder = useCipherSuitesOrder;
         this.wantClientAuth = wantClientAuth;
         this.needClientAuth = needClientAuth;
@@ -59,8 +63,8 @@ final class SSLConfiguratorImpl implements SSLConfigurator {
      * @param cipherSuiteSelector the cipher suite selector (must not be {@code null})
      */
     SSLConfiguratorImpl(final ProtocolSelector protocolSelector, final CipherSuiteSelector cipherSuiteSelector, final boolean useCipherSuitesOrder) {
-        this.protocolSelector = protocolSelector;
-        this.cipherSuiteSelector = cipherSuiteSelector;
+        this.protocolSelector = new Selections(protocolSelector::evaluate);
+        this.cipherSuiteSelector = new Selections(cipherSuiteSelector::evaluate);
         this.useCipherSuitesOrder = useCipherSuitesOrder;
         this.wantClientAuth = false;
         this.needClientAuth = false;
@@ -195,4 +199,60 @@ final class SSLConfiguratorImpl implements SSLConfigurator {
         }
         // ignored
     }
+
+    /**
+     * The results of a selector for the distinct arrays of mechanisms it was evaluated against.  These are usually the
+     * few arrays of protocols and cipher suites supported by the SSL contexts in use, so that the selector is evaluated
+     * once per array instead of once per socket or engine.  The selectors only depend on the given mechanisms.
+     */
+    static final class Selections {
+        private static final int MAX_SIZE = 32;
+
+        private final UnaryOperator<String[]> selector;
+        private final ConcurrentHashMap<Mechanisms, String[]> selections = new ConcurrentHashMap<>();
+
+        Selections(final UnaryOperator<String[]> selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * Evaluate the selector against the given mechanisms.
+         *
+         * @param mechanisms the mechanisms
+         * @return the selected mechanisms, which must not be modified
+         */
+        String[] evaluate(String[] mechanisms) {
+            String[] selected = selections.get(new Mechanisms(mechanisms));
+            if (selected == null) {
+                selected = selector.apply(mechanisms);
+                if (selections.size() >= MAX_SIZE) {
+                    selections.clear();
+                }
+                // copy the key, the caller may modify its array
+                final String[] existing = selections.putIfAbsent(new Mechanisms(mechanisms.clone()), selected);
+                if (existing != null) {
+                    selected = existing;
+                }
+            }
+            return selected;
+        }
+    }
+
+    static final class Mechanisms {
+        private final String[] names;
+        private final int hashCode;
+
+        Mechanisms(final String[] names) {
+            this.names = names;
+            this.hashCode = Arrays.hashCode(names);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object obj) {
+            return obj instanceof Mechanisms && hashCode == ((Mechanisms) obj).hashCode && Arrays.equals(names, ((Mechanisms) obj).names);
+        }
+    }
 }
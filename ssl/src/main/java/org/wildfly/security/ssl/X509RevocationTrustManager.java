@@ -26,13 +26,18 @@ import javax.net.ssl.X509ExtendedTrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.security.auth.x500.X500Principal;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.Socket;
 import java.net.URI;
+import java.net.URLConnection;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.cert.CRL;
+import java.security.cert.CertPath;
 import java.security.cert.CertPathBuilder;
+import java.security.cert.CertPathValidator;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.CertStore;
 import java.security.cert.CertStoreParameters;
@@ -42,48 +47,102 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.CollectionCertStoreParameters;
 import java.security.cert.PKIXBuilderParameters;
 import java.security.cert.PKIXCertPathChecker;
+import java.security.cert.PKIXParameters;
 import java.security.cert.PKIXReason;
 import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CRL;
 import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Stream;
 
+import static org.wildfly.common.Assert.checkMinimumParameter;
 import static org.wildfly.common.Assert.checkNotNullParam;
 
 /**
  * Extension to the {@link X509TrustManager} interface to support OCSP and CRL verification.
+ * <p>
+ * Certificate revocation lists can be given as streams, which are read once, or as URIs, which can be reloaded
+ * periodically; reloaded lists replace the previous ones atomically.  OCSP responses can be fetched by the trust manager
+ * itself and cached until their {@code nextUpdate} time, so that a handshake with a known peer does not wait for the
+ * responder.  A deadline limits how long a handshake waits for a response which is not cached.
  *
  * @author <a href="mailto:mmazanek@redhat.com">Martin Mazanek</a>
  */
 public class X509RevocationTrustManager extends X509ExtendedTrustManager {
 
     private static final int DEFAULT_MAX_CERT_PATH_LENGTH = 5;
+    private static final int CONNECTION_TIMEOUT = 15000;
+    private static final long MIN_CRL_REFRESH_INTERVAL = 1000;
+    private static final int MAX_CACHED_OCSP_RESPONSES = 1024;
+    private static final long OCSP_CACHE_SWEEP_INTERVAL = 60000;
 
     private X509Certificate[] acceptedIssuers;
-    private final X509TrustManager trustManager;
+    private final TrustManagerFactory trustManagerFactory;
+    private final PKIXBuilderParameters parameters;
+    private final PKIXRevocationChecker revocationChecker;
+    private final int maxCertPath;
+    private final Collection<? extends CRL> crls;
+    private final List<URI> crlUris;
+    private final long crlRefreshInterval;
+    private final OcspResponseCache ocspCache;
+    private final long ocspDeadline;
+    private final boolean onlyEndEntity;
+    private final boolean softFail;
+    private final boolean noFallback;
+    private final Map<X500Principal, X509Certificate> trustAnchors = new HashMap<>();
+    private volatile State state;
 
     private X509RevocationTrustManager(Builder builder) {
+        this.trustManagerFactory = builder.trustManagerFactory;
+        this.maxCertPath = builder.maxCertPath;
+        this.crlUris = builder.crlUris == null ? Collections.emptyList() : new ArrayList<>(builder.crlUris);
+        this.crlRefreshInterval = builder.crlRefreshInterval;
+        this.ocspDeadline = builder.ocspDeadline;
+        this.onlyEndEntity = builder.onlyEndEntity;
+        this.softFail = builder.softFail;
+        this.noFallback = builder.noFallback;
+        // OCSP is not used at all if only CRLs are to be checked
+        this.ocspCache = builder.cacheOcspResponses && ! (builder.preferCrls && builder.noFallback) ? new OcspResponseCache(builder.responderUri, CONNECTION_TIMEOUT, MAX_CACHED_OCSP_RESPONSES, Scheduler.INSTANCE) : null;
 
         try {
-            PKIXBuilderParameters params = new PKIXBuilderParameters(builder.trustStore, new X509CertSelector());
+            parameters = new PKIXBuilderParameters(builder.trustStore, new X509CertSelector());
+            parameters.setRevocationEnabled(true);
+            parameters.setMaxPathLength(builder.maxCertPath);
+            for (TrustAnchor trustAnchor : parameters.getTrustAnchors()) {
+                final X509Certificate certificate = trustAnchor.getTrustedCert();
+                if (certificate != null) {
+                    trustAnchors.put(certificate.getSubjectX500Principal(), certificate);
+                }
+            }
 
             if (builder.crlStreams != null && ! builder.crlStreams.isEmpty()) {
-                CertStoreParameters csp = new CollectionCertStoreParameters(getCRLs(builder.crlStreams));
-                CertStore store = CertStore.getInstance("Collection", csp);
-                params.addCertStore(store);
+                crls = getCRLs(builder.crlStreams);
+            } else {
+                crls = Collections.emptyList();
             }
 
             CertPathBuilder cpb = CertPathBuilder.getInstance("PKIX");
-            PKIXRevocationChecker rc = (PKIXRevocationChecker) cpb.getRevocationChecker();
+            revocationChecker = (PKIXRevocationChecker) cpb.getRevocationChecker();
 
             if (builder.ocspResponderCert != null) {
-                rc.setOcspResponderCert(builder.ocspResponderCert);
+                revocationChecker.setOcspResponderCert(builder.ocspResponderCert);
             }
 
             EnumSet<PKIXRevocationChecker.Option> options = EnumSet.noneOf(PKIXRevocationChecker.Option.class);
@@ -100,24 +159,18 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
                 options.add(PKIXRevocationChecker.Option.NO_FALLBACK);
             }
 
-            rc.setOptions(options);
-            rc.setOcspResponder(builder.responderUri);
-            params.setRevocationEnabled(true);
-            params.addCertPathChecker(rc);
-
-            PKIXCertPathChecker maxPathLengthChecker = new MaxPathLengthChecker(builder.maxCertPath);
-            params.addCertPathChecker(maxPathLengthChecker);
-            params.setMaxPathLength(builder.maxCertPath);
+            revocationChecker.setOptions(options);
+            revocationChecker.setOcspResponder(builder.responderUri);
 
-            builder.trustManagerFactory.init(new CertPathTrustManagerParameters(params));
-
-            X509TrustManager[] trustManagers = Stream.of(builder.trustManagerFactory.getTrustManagers()).map(trustManager -> trustManager instanceof X509TrustManager ? (X509TrustManager) trustManager : null).filter(Objects::nonNull).toArray(X509TrustManager[]::new);
-
-            if (trustManagers.length == 0) {
-                throw ElytronMessages.log.noDefaultTrustManager();
+            Collection<? extends CRL> loadedCrls = Collections.emptyList();
+            if (! crlUris.isEmpty()) {
+                try {
+                    loadedCrls = loadCRLs(crlUris);
+                } catch (IOException e) {
+                    throw ElytronMessages.log.failedToLoadCrls(e);
+                }
             }
-
-            this.trustManager = trustManagers[0];
+            state = createState(loadedCrls);
         } catch(GeneralSecurityException e) {
             throw ElytronMessages.log.sslErrorCreatingRevocationTrustManager(builder.trustManagerFactory.getAlgorithm(), e);
         }
@@ -125,36 +178,42 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
         if (builder.acceptedIssuers != null) {
             this.acceptedIssuers = builder.acceptedIssuers;
         }
+
+        if (! crlUris.isEmpty() && crlRefreshInterval > 0) {
+            CrlRefresh.schedule(this, state.crls);
+        } else if (ocspCache != null) {
+            OcspCacheSweep.schedule(this);
+        }
     }
 
     @Override
     public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-        trustManager.checkClientTrusted(chain, authType);
+        getTrustManager(chain).checkClientTrusted(chain, authType);
     }
 
     @Override
     public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
-        trustManager.checkServerTrusted(chain, authType);
+        getTrustManager(chain).checkServerTrusted(chain, authType);
     }
 
     @Override
     public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
-        trustManager.checkClientTrusted(chain, authType);
+        getTrustManager(chain).checkClientTrusted(chain, authType);
     }
 
     @Override
     public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
-        trustManager.checkServerTrusted(chain, authType);
+        getTrustManager(chain).checkServerTrusted(chain, authType);
     }
 
     @Override
     public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine sslEngine) throws CertificateException {
-        trustManager.checkClientTrusted(chain, authType);
+        getTrustManager(chain).checkClientTrusted(chain, authType);
     }
 
     @Override
     public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine sslEngine) throws CertificateException {
-        trustManager.checkServerTrusted(chain, authType);
+        getTrustManager(chain).checkServerTrusted(chain, authType);
     }
 
     @Override
@@ -162,8 +221,220 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
         if (acceptedIssuers != null) {
             return acceptedIssuers;
         } else {
-            return this.trustManager.getAcceptedIssuers();
+            return state.trustManager.getAcceptedIssuers();
+        }
+    }
+
+    /**
+     * Get the trust manager to validate the given chain with.  If OCSP responses are cached, the responses for the chain
+     * are fetched first and the revocation of the chain is checked with them, the returned trust manager then validates
+     * the chain without checking revocation.  Fetched responses are only cached once the chain has been validated with
+     * them, and cached responses are dropped if it is not.
+     */
+    private X509TrustManager getTrustManager(X509Certificate[] chain) throws CertificateException {
+        final State state = this.state;
+        if (ocspCache == null || chain == null || chain.length == 0) {
+            return state.trustManager;
+        }
+        final long now = System.currentTimeMillis();
+        final Map<OcspResponseCache.Key, OcspResponseCache.Response> cached = new HashMap<>();
+        Map<OcspResponseCache.Key, CompletableFuture<OcspResponseCache.Response>> fetches = null;
+        for (int i = 0; i < chain.length; i++) {
+            final X509Certificate certificate = chain[i];
+            if (certificate.equals(trustAnchors.get(certificate.getSubjectX500Principal()))) {
+                break;
+            }
+            final X509Certificate issuer = i + 1 < chain.length ? chain[i + 1] : trustAnchors.get(certificate.getIssuerX500Principal());
+            if (issuer != null) {
+                final OcspResponseCache.Key key = new OcspResponseCache.Key(certificate, issuer);
+                final OcspResponseCache.Response response = ocspCache.get(key, now);
+                if (response != null) {
+                    cached.put(key, response);
+                } else {
+                    final CompletableFuture<OcspResponseCache.Response> fetch = ocspCache.fetch(key);
+                    if (fetch != null) {
+                        if (fetches == null) {
+                            fetches = new LinkedHashMap<>();
+                        }
+                        fetches.put(key, fetch);
+                    }
+                }
+            }
+            // the certificates after the first one issued by a trust anchor are not part of the validated path
+            if (onlyEndEntity || trustAnchors.containsKey(certificate.getIssuerX500Principal())) {
+                break;
+            }
+        }
+        final Map<OcspResponseCache.Key, OcspResponseCache.Response> fetched = new HashMap<>();
+        if (fetches != null) {
+            final X509Certificate first = fetches.keySet().iterator().next().certificate;
+            try {
+                final CompletableFuture<Void> all = CompletableFuture.allOf(fetches.values().toArray(new CompletableFuture<?>[fetches.size()]));
+                if (ocspDeadline > 0) {
+                    all.get(ocspDeadline, TimeUnit.MILLISECONDS);
+                } else {
+                    all.get();
+                }
+            } catch (TimeoutException e) {
+                return getFallbackTrustManager(state, first, e);
+            } catch (ExecutionException e) {
+                return getFallbackTrustManager(state, first, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return getFallbackTrustManager(state, first, e);
+            }
+            for (Map.Entry<OcspResponseCache.Key, CompletableFuture<OcspResponseCache.Response>> entry : fetches.entrySet()) {
+                fetched.put(entry.getKey(), entry.getValue().join());
+            }
+        }
+        final Map<X509Certificate, byte[]> required = new HashMap<>();
+        for (Map.Entry<OcspResponseCache.Key, OcspResponseCache.Response> entry : cached.entrySet()) {
+            required.put(entry.getKey().certificate, entry.getValue().encoded);
+        }
+        for (Map.Entry<OcspResponseCache.Key, OcspResponseCache.Response> entry : fetched.entrySet()) {
+            required.put(entry.getKey().certificate, entry.getValue().encoded);
+        }
+        try {
+            checkRevocation(state, chain, required);
+        } catch (CertificateException e) {
+            for (Map.Entry<OcspResponseCache.Key, OcspResponseCache.Response> entry : cached.entrySet()) {
+                ocspCache.remove(entry.getKey(), entry.getValue());
+            }
+            throw e;
+        }
+        final long validated = System.currentTimeMillis();
+        for (Map.Entry<OcspResponseCache.Key, OcspResponseCache.Response> entry : fetched.entrySet()) {
+            ocspCache.put(entry.getKey(), entry.getValue(), validated);
+        }
+        return state.trustManager;
+    }
+
+    /**
+     * Check the revocation of the path of the given chain with the OCSP responses for its certificates, using a clone of
+     * the revocation checker so that concurrent validations do not share the responses.
+     */
+    private void checkRevocation(State state, X509Certificate[] chain, Map<X509Certificate, byte[]> ocspResponses) throws CertificateException {
+        final List<X509Certificate> path = new ArrayList<>(chain.length);
+        for (X509Certificate certificate : chain) {
+            if (certificate.equals(trustAnchors.get(certificate.getSubjectX500Principal()))) {
+                break;
+            }
+            path.add(certificate);
+            if (trustAnchors.containsKey(certificate.getIssuerX500Principal())) {
+                break;
+            }
+        }
+        if (path.isEmpty()) {
+            return;
+        }
+        final PKIXParameters params = (PKIXParameters) state.revocationParameters.clone();
+        final PKIXRevocationChecker rc = revocationChecker.clone();
+        rc.setOcspResponses(ocspResponses);
+        params.addCertPathChecker(rc);
+        try {
+            final CertPath certPath = CertificateFactory.getInstance("X.509").generateCertPath(path);
+            CertPathValidator.getInstance("PKIX").validate(certPath, params);
+        } catch (GeneralSecurityException e) {
+            throw new CertificateException(e);
+        }
+    }
+
+    /**
+     * Get the trust manager to use if the OCSP response for a certificate could not be obtained in time.  Unless soft
+     * failure is enabled or fallback is disabled, the certificates are checked against the CRLs only, as the revocation
+     * checker would do if it could not reach the responder.
+     */
+    private X509TrustManager getFallbackTrustManager(State state, X509Certificate certificate, Throwable cause) throws CertificateException {
+        if (noFallback && ! softFail) {
+            if (cause instanceof TimeoutException) {
+                throw ElytronMessages.log.revocationStatusDeadlineExceeded(certificate.getSubjectX500Principal(), ocspDeadline);
+            }
+            throw ElytronMessages.log.revocationStatusUnavailable(certificate.getSubjectX500Principal(), cause);
+        }
+        ElytronMessages.tls.tracef(cause, "OCSP response for certificate [%s] not available, checking CRLs only", certificate.getSubjectX500Principal());
+        X509TrustManager fallback = state.fallback;
+        if (fallback == null) {
+            final EnumSet<PKIXRevocationChecker.Option> options = EnumSet.of(PKIXRevocationChecker.Option.PREFER_CRLS, PKIXRevocationChecker.Option.NO_FALLBACK);
+            if (onlyEndEntity) {
+                options.add(PKIXRevocationChecker.Option.ONLY_END_ENTITY);
+            }
+            if (softFail) {
+                options.add(PKIXRevocationChecker.Option.SOFT_FAIL);
+            }
+            try {
+                final PKIXRevocationChecker rc = revocationChecker.clone();
+                rc.setOptions(options);
+                fallback = createTrustManager((PKIXBuilderParameters) state.revocationParameters.clone(), rc);
+            } catch (GeneralSecurityException e) {
+                throw new CertificateException(e);
+            }
+            state.fallback = fallback;
+        }
+        return fallback;
+    }
+
+    /**
+     * Reload the certificate revocation lists from their URIs and replace the trust manager.
+     *
+     * @return the reloaded lists, or {@code null} if they could not be reloaded
+     */
+    Collection<? extends CRL> refreshCRLs() {
+        try {
+            final Collection<? extends CRL> loadedCrls = loadCRLs(crlUris);
+            state = createState(loadedCrls);
+            return loadedCrls;
+        } catch (IOException | GeneralSecurityException e) {
+            ElytronMessages.log.failedToRefreshCrls(e);
+            return null;
+        }
+    }
+
+    /**
+     * Create the state for the given loaded CRLs.  If OCSP responses are cached, revocation is checked for each validation
+     * with the responses for the chain, so the trust manager of the state does not check it.
+     */
+    private State createState(Collection<? extends CRL> loadedCrls) throws GeneralSecurityException {
+        final PKIXBuilderParameters params = createParameters(loadedCrls);
+        if (ocspCache == null) {
+            return new State(loadedCrls, params, createTrustManager((PKIXBuilderParameters) params.clone(), revocationChecker.clone()));
+        }
+        final PKIXBuilderParameters trustManagerParams = (PKIXBuilderParameters) params.clone();
+        trustManagerParams.setRevocationEnabled(false);
+        return new State(loadedCrls, params, createTrustManager(trustManagerParams, null));
+    }
+
+    private PKIXBuilderParameters createParameters(Collection<? extends CRL> loadedCrls) throws GeneralSecurityException {
+        PKIXBuilderParameters params = (PKIXBuilderParameters) parameters.clone();
+
+        if (! crls.isEmpty() || ! loadedCrls.isEmpty()) {
+            Collection<CRL> allCrls = new ArrayList<>(crls);
+            allCrls.addAll(loadedCrls);
+            CertStoreParameters csp = new CollectionCertStoreParameters(allCrls);
+            CertStore store = CertStore.getInstance("Collection", csp);
+            params.addCertStore(store);
+        }
+        return params;
+    }
+
+    private X509TrustManager createTrustManager(PKIXBuilderParameters params, PKIXRevocationChecker rc) throws GeneralSecurityException {
+        if (rc != null) {
+            params.addCertPathChecker(rc);
         }
+
+        PKIXCertPathChecker maxPathLengthChecker = new MaxPathLengthChecker(maxCertPath);
+        params.addCertPathChecker(maxPathLengthChecker);
+
+        X509TrustManager[] trustManagers;
+        synchronized (trustManagerFactory) {
+            trustManagerFactory.init(new CertPathTrustManagerParameters(params));
+            trustManagers = Stream.of(trustManagerFactory.getTrustManagers()).map(trustManager -> trustManager instanceof X509TrustManager ? (X509TrustManager) trustManager : null).filter(Objects::nonNull).toArray(X509TrustManager[]::new);
+        }
+
+        if (trustManagers.length == 0) {
+            throw ElytronMessages.log.noDefaultTrustManager();
+        }
+
+        return trustManagers[0];
     }
 
     private Collection<? extends CRL> getCRLs(List<InputStream> crlStreams) throws GeneralSecurityException {
@@ -183,6 +454,116 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
         }
     }
 
+    private static Collection<? extends CRL> loadCRLs(List<URI> crlUris) throws IOException, GeneralSecurityException {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        Collection<CRL> crls = new ArrayList<>();
+        for (URI uri : crlUris) {
+            URLConnection connection = uri.toURL().openConnection();
+            connection.setConnectTimeout(CONNECTION_TIMEOUT);
+            connection.setReadTimeout(CONNECTION_TIMEOUT);
+            try (InputStream stream = connection.getInputStream()) {
+                crls.addAll(cf.generateCRLs(stream));
+            }
+        }
+        return crls;
+    }
+
+    /**
+     * The revocation information the current trust manager was created with.
+     */
+    private static final class State {
+        final Collection<? extends CRL> crls;
+        /** The parameters with the CRLs, which the revocation checks with OCSP responses start from. */
+        final PKIXBuilderParameters revocationParameters;
+        final X509TrustManager trustManager;
+        /** The trust manager checking CRLs only, created on first use. */
+        volatile X509TrustManager fallback;
+
+        State(final Collection<? extends CRL> crls, final PKIXBuilderParameters revocationParameters, final X509TrustManager trustManager) {
+            this.crls = crls;
+            this.revocationParameters = revocationParameters;
+            this.trustManager = trustManager;
+        }
+    }
+
+    /**
+     * The periodic reload of the certificate revocation lists of a trust manager.  The lists are reloaded after the
+     * refresh interval, or when the earliest of them is due to be updated if that is sooner.  The task only holds a weak
+     * reference to the trust manager and ends when it is no longer used.
+     */
+    private static final class CrlRefresh implements Runnable {
+        private final WeakReference<X509RevocationTrustManager> trustManagerRef;
+
+        private CrlRefresh(final X509RevocationTrustManager trustManager) {
+            this.trustManagerRef = new WeakReference<>(trustManager);
+        }
+
+        static void schedule(X509RevocationTrustManager trustManager, Collection<? extends CRL> crls) {
+            long delay = trustManager.crlRefreshInterval;
+            final long now = System.currentTimeMillis();
+            for (CRL crl : crls) {
+                final Date nextUpdate = crl instanceof X509CRL ? ((X509CRL) crl).getNextUpdate() : null;
+                if (nextUpdate != null) {
+                    delay = Math.min(delay, nextUpdate.getTime() - now);
+                }
+            }
+            Scheduler.INSTANCE.schedule(new CrlRefresh(trustManager), Math.max(delay, MIN_CRL_REFRESH_INTERVAL), TimeUnit.MILLISECONDS);
+        }
+
+        public void run() {
+            final X509RevocationTrustManager trustManager = trustManagerRef.get();
+            if (trustManager == null) {
+                return;
+            }
+            final Collection<? extends CRL> crls = trustManager.refreshCRLs();
+            if (trustManager.ocspCache != null) {
+                trustManager.ocspCache.removeExpired(System.currentTimeMillis());
+            }
+            schedule(trustManager, crls == null ? Collections.emptyList() : crls);
+        }
+    }
+
+    /**
+     * The periodic removal of the expired OCSP responses of a trust manager which does not reload its certificate
+     * revocation lists, which otherwise removes them.  Like {@link CrlRefresh}, the task ends when the trust manager is no
+     * longer used.
+     */
+    private static final class OcspCacheSweep implements Runnable {
+        private final WeakReference<X509RevocationTrustManager> trustManagerRef;
+
+        private OcspCacheSweep(final X509RevocationTrustManager trustManager) {
+            this.trustManagerRef = new WeakReference<>(trustManager);
+        }
+
+        static void schedule(X509RevocationTrustManager trustManager) {
+            Scheduler.INSTANCE.schedule(new OcspCacheSweep(trustManager), OCSP_CACHE_SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+
+        public void run() {
+            final X509RevocationTrustManager trustManager = trustManagerRef.get();
+            if (trustManager == null) {
+                return;
+            }
+            trustManager.ocspCache.removeExpired(System.currentTimeMillis());
+            schedule(trustManager);
+        }
+    }
+
+    private static final class Scheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE;
+
+        static {
+            INSTANCE = new ScheduledThreadPoolExecutor(4, runnable -> {
+                Thread thread = new Thread(runnable, "X509RevocationTrustManager");
+                thread.setDaemon(true);
+                return thread;
+            });
+            INSTANCE.setKeepAliveTime(60, TimeUnit.SECONDS);
+            INSTANCE.allowCoreThreadTimeOut(true);
+            INSTANCE.setRemoveOnCancelPolicy(true);
+        }
+    }
+
     public static class Builder {
         private X509Certificate[] acceptedIssuers = null;
         private KeyStore trustStore = null;
@@ -195,6 +576,10 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
         private boolean onlyEndEntity = false;
         private boolean softFail = false;
         private boolean noFallback = false;
+        private List<URI> crlUris = null;
+        private long crlRefreshInterval = 0;
+        private boolean cacheOcspResponses = false;
+        private long ocspDeadline = 0;
 
 
         private Builder() {}
@@ -336,6 +721,58 @@ public class X509RevocationTrustManager extends X509ExtendedTrustManager {
             return this;
         }
 
+        /**
+         * Set the URIs of certificate revocation lists to load (may be {@code null}). Unlike streams, the lists can be reloaded,
+         * see {@link #setCrlRefreshInterval(long)}
+         *
+         * @param crlUris the URIs of the certificate revocation lists
+         * @return this Builder for subsequent changes
+         */
+        public Builder setCrlURIs(List<URI> crlUris) {
+            this.crlUris = crlUris;
+            return this;
+        }
+
+        /**
+         * Set the interval at which the certificate revocation lists set by URI are reloaded in the background. A list which
+         * is due to be updated sooner is reloaded at its next update time. The previous lists are used until the reloaded
+         * ones are available. Default 0, the lists are not reloaded
+         *
+         * @param crlRefreshInterval the interval in milliseconds
+         * @return this Builder for subsequent changes
+         */
+        public Builder setCrlRefreshInterval(long crlRefreshInterval) {
+            checkMinimumParameter("crlRefreshInterval", 0, crlRefreshInterval);
+            this.crlRefreshInterval = crlRefreshInterval;
+            return this;
+        }
+
+        /**
+         * Set if OCSP responses should be fetched by the trust manager and cached until their next update time, instead of
+         * being requested for every validation. Default false
+         *
+         * @param cacheOcspResponses true if OCSP responses should be cached
+         * @return this Builder for subsequent changes
+         */
+        public Builder setCacheOcspResponses(boolean cacheOcspResponses) {
+            this.cacheOcspResponses = cacheOcspResponses;
+            return this;
+        }
+
+        /**
+         * Set the longest time a validation waits for an OCSP response which is not cached. If the response is not available
+         * in time, the certificate is checked as if the responder could not be reached, the response is still fetched and
+         * cached for later validations. Only used if OCSP responses are cached. Default 0, no deadline
+         *
+         * @param ocspDeadline the deadline in milliseconds
+         * @return this Builder for subsequent changes
+         */
+        public Builder setOcspDeadline(long ocspDeadline) {
+            checkMinimumParameter("ocspDeadline", 0, ocspDeadline);
+            this.ocspDeadline = ocspDeadline;
+            return this;
+        }
+
         public X509RevocationTrustManager build() {
             checkNotNullParam("trustStore", trustStore);
             checkNotNullParam("trustManagerFactory", trustManagerFactory);
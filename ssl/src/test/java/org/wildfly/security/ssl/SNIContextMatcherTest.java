@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.ssl;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.SSLContext;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SNIContextMatcherTest {
+
+    private static SSLContext defaultContext;
+    private static SSLContext exampleContext;
+    private static SSLContext wildcardContext;
+    private static SSLContext singleLabelContext;
+    private static SSLContext regexContext;
+
+    @BeforeClass
+    public static void createContexts() throws Exception {
+        defaultContext = SSLContext.getInstance("TLS");
+        exampleContext = SSLContext.getInstance("TLS");
+        wildcardContext = SSLContext.getInstance("TLS");
+        singleLabelContext = SSLContext.getInstance("TLS");
+        regexContext = SSLContext.getInstance("TLS");
+    }
+
+    private static List<SNIServerName> names(String... names) {
+        final SNIServerName[] serverNames = new SNIServerName[names.length];
+        for (int i = 0; i < names.length; i ++) {
+            serverNames[i] = new SNIHostName(names[i]);
+        }
+        return Arrays.asList(serverNames);
+    }
+
+    @Test
+    public void testExactMatch() {
+        final SNIContextMatcher matcher = new SNIContextMatcher.Builder()
+                .setDefaultContext(defaultContext)
+                .addMatch("www\\.example\\.com", exampleContext)
+                .addMatch(".*\\.example\\.com", wildcardContext)
+                .build();
+        assertSame(exampleContext, matcher.getContext(names("www.example.com")));
+        assertSame(exampleContext, matcher.getContext(names("WWW.Example.COM")));
+        assertSame(wildcardContext, matcher.getContext(names("mail.example.com")));
+        assertSame(defaultContext, matcher.getContext(names("www.example.org")));
+        assertSame(defaultContext, matcher.getContext(Collections.emptyList()));
+    }
+
+    @Test
+    public void testWildcardMatch() {
+        final SNIContextMatcher matcher = new SNIContextMatcher.Builder()
+                .setDefaultContext(defaultContext)
+                .addMatch("[^.]*\\.one\\.example\\.com", singleLabelContext)
+                .addMatch(".*\\.example\\.com", wildcardContext)
+                .build();
+        assertSame(singleLabelContext, matcher.getContext(names("a.one.example.com")));
+        assertSame(wildcardContext, matcher.getContext(names("a.b.one.example.com")));
+        assertSame(wildcardContext, matcher.getContext(names("one.example.com")));
+        assertSame(defaultContext, matcher.getContext(names("example.com")));
+        assertSame(defaultContext, matcher.getContext(names("anexample.com")));
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        final SNIContextMatcher matcher = new SNIContextMatcher.Builder()
+                .setDefaultContext(defaultContext)
+                .addMatch(".*\\.example\\.com", wildcardContext)
+                .addMatch("[^.]*\\.example\\.com", singleLabelContext)
+                .build();
+        assertSame(wildcardContext, matcher.getContext(names("www.example.com")));
+
+        // the first name added which matches any of the requested names is used
+        final SNIContextMatcher exacts = new SNIContextMatcher.Builder()
+                .setDefaultContext(defaultContext)
+                .addMatch("a\\.example\\.com", exampleContext)
+                .addMatch("b\\.example\\.com", regexContext)
+                .build();
+        assertSame(exampleContext, exacts.getContext(names("b.example.com", "a.example.com")));
+    }
+
+    @Test
+    public void testRegexFallback() {
+        final SNIContextMatcher matcher = new SNIContextMatcher.Builder()
+                .setDefaultContext(defaultContext)
+                .addMatch("(www|mail)\\.example\\.com", regexContext)
+                .addMatch("www\\.example\\.com", exampleContext)
+                .addMatch("host[0-9]+\\.example\\.com", exampleContext)
+                .addMatch("api-.*\\.example\\.com", wildcardContext)
+                .build();
+        // the regular expression was added first
+        assertSame(regexContext, matcher.getContext(names("www.example.com")));
+        assertSame(exampleContext, matcher.getContext(names("host42.example.com")));
+        assertSame(wildcardContext, matcher.getContext(names("api-eu.example.com")));
+        assertSame(defaultContext, matcher.getContext(names("ftp.example.com")));
+    }
+}
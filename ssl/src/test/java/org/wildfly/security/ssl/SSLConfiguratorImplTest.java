@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.ssl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import javax.net.ssl.SSLParameters;
+
+import org.junit.Test;
+
+/**
+ * Tests the selections cached by {@link SSLConfiguratorImpl}.
+ */
+public class SSLConfiguratorImplTest {
+
+    private static final String[] SUPPORTED_SUITES = new String[] {
+        "TLS_RSA_WITH_AES_128_CBC_SHA256",
+        "TLS_RSA_WITH_NULL_SHA256",
+        "TLS_DH_anon_WITH_AES_128_CBC_SHA256",
+        "TLS_ECDH_anon_WITH_NULL_SHA"};
+
+    private static final String[] SUPPORTED_PROTOCOLS = new String[] { "SSLv3", "TLSv1", "TLSv1.1", "TLSv1.2" };
+
+    @Test
+    public void testSelectionsAreCached() {
+        final CipherSuiteSelector selector = CipherSuiteSelector.fromString("DEFAULT");
+        final SSLConfiguratorImpl.Selections selections = new SSLConfiguratorImpl.Selections(selector::evaluate);
+
+        final String[] selected = selections.evaluate(SUPPORTED_SUITES.clone());
+        assertArrayEquals(selector.evaluate(SUPPORTED_SUITES), selected);
+        assertSame(selected, selections.evaluate(SUPPORTED_SUITES.clone()));
+
+        // a different array of mechanisms is evaluated again
+        final String[] fewerSuites = new String[] { "TLS_RSA_WITH_NULL_SHA256" };
+        assertArrayEquals(selector.evaluate(fewerSuites), selections.evaluate(fewerSuites));
+    }
+
+    @Test
+    public void testModifiedInputIsNotCached() {
+        final CipherSuiteSelector selector = CipherSuiteSelector.fromString("ALL");
+        final SSLConfiguratorImpl.Selections selections = new SSLConfiguratorImpl.Selections(selector::evaluate);
+
+        final String[] suites = SUPPORTED_SUITES.clone();
+        final String[] selected = selections.evaluate(suites);
+        suites[0] = "TLS_ECDH_anon_WITH_NULL_SHA";
+        assertSame(selected, selections.evaluate(SUPPORTED_SUITES.clone()));
+    }
+
+    @Test
+    public void testConfigure() {
+        final ProtocolSelector protocolSelector = ProtocolSelector.defaultProtocols();
+        final CipherSuiteSelector cipherSuiteSelector = CipherSuiteSelector.fromString("DEFAULT");
+        final SSLConfiguratorImpl configurator = new SSLConfiguratorImpl(protocolSelector, cipherSuiteSelector, false, true, true);
+
+        for (int i = 0; i < 2; i ++) {
+            final SSLParameters parameters = new SSLParameters();
+            configurator.configure(parameters, SUPPORTED_PROTOCOLS.clone(), SUPPORTED_SUITES.clone());
+            assertArrayEquals(protocolSelector.evaluate(SUPPORTED_PROTOCOLS), parameters.getProtocols());
+            assertArrayEquals(cipherSuiteSelector.evaluate(SUPPORTED_SUITES), parameters.getCipherSuites());
+        }
+    }
+}
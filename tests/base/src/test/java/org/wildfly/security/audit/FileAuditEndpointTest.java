@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2021 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test case to test {@link FileAuditEndpoint}, mainly in asynchronous mode.
+ */
+public class FileAuditEndpointTest {
+    static File logDirFile;
+    static Path logFile;
+
+    @BeforeClass
+    public static void init() throws Exception {
+        logDirFile = new File(FileAuditEndpointTest.class.getResource(".").getFile(), "file-audit");
+        logFile = logDirFile.toPath().resolve("audit");
+    }
+
+    @Before
+    public void initDir() {
+        logDirFile.mkdirs();
+        assertTrue(logDirFile.isDirectory());
+        for (File file : logDirFile.listFiles()) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSynchronous() throws Exception {
+        AuditEndpoint endpoint = FileAuditEndpoint.builder()
+                .setLocation(logFile)
+                .build();
+        endpoint.accept(EventPriority.CRITICAL, "testing log message 1");
+        endpoint.accept(EventPriority.WARNING, "testing log message 2");
+        endpoint.close();
+
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).endsWith(",CRITICAL,testing log message 1"));
+        assertTrue(lines.get(1).endsWith(",WARNING,testing log message 2"));
+    }
+
+    @Test
+    public void testAsynchronousPreservesOrderPerThread() throws Exception {
+        final int threads = 4;
+        final int events = 2500;
+        AuditEndpoint endpoint = FileAuditEndpoint.builder()
+                .setAsynchronous(true)
+                .setQueueSize(64)
+                .setBufferSize(512)
+                .setLocation(logFile)
+                .build();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < events; i++) {
+                        endpoint.accept(EventPriority.INFORMATIONAL, thread + ":" + i);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        endpoint.close();
+
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        assertEquals(threads * events, lines.size());
+        Map<String, Integer> lastSeen = new HashMap<>();
+        for (String line : lines) {
+            String[] event = line.substring(line.lastIndexOf(',') + 1).split(":");
+            int previous = lastSeen.getOrDefault(event[0], -1);
+            assertEquals("Events of one thread written out of order", previous + 1, Integer.parseInt(event[1]));
+            lastSeen.put(event[0], previous + 1);
+        }
+        assertEquals(0, ((FileAuditEndpoint) endpoint).getDiscardedEventCount());
+    }
+
+    @Test
+    public void testAsynchronousDiscardCountsDroppedEvents() throws Exception {
+        final int events = 10000;
+        FileAuditEndpoint endpoint = (FileAuditEndpoint) FileAuditEndpoint.builder()
+                .setAsynchronous(true)
+                .setQueueSize(1)
+                .setOverflowPolicy(FileAuditEndpoint.OverflowPolicy.DISCARD)
+                .setLocation(logFile)
+                .build();
+        for (int i = 0; i < events; i++) {
+            endpoint.accept(EventPriority.INFORMATIONAL, "testing log message " + i);
+        }
+        endpoint.close();
+
+        List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+        assertTrue(lines.size() > 0);
+        assertEquals(events, lines.size() + endpoint.getDiscardedEventCount());
+    }
+
+    @Test
+    public void testAsynchronousSyncInterval() throws Exception {
+        AuditEndpoint endpoint = FileAuditEndpoint.builder()
+                .setAsynchronous(true)
+                .setSyncInterval(100, TimeUnit.MILLISECONDS)
+                .setLocation(logFile)
+                .build();
+        for (int i = 0; i < 100; i++) {
+            endpoint.accept(EventPriority.INFORMATIONAL, "testing log message " + i);
+        }
+        endpoint.close();
+
+        assertEquals(100, Files.readAllLines(logFile, StandardCharsets.UTF_8).size());
+    }
+
+    @Test
+    public void testAcceptAfterClose() throws Exception {
+        AuditEndpoint endpoint = FileAuditEndpoint.builder()
+                .setAsynchronous(true)
+                .setLocation(logFile)
+                .build();
+        endpoint.accept(EventPriority.INFORMATIONAL, "testing log message 1");
+        endpoint.close();
+        endpoint.accept(EventPriority.INFORMATIONAL, "testing log message 2");
+
+        assertEquals(1, Files.readAllLines(logFile, StandardCharsets.UTF_8).size());
+    }
+}
@@ -148,6 +148,24 @@ public class PeriodicRotatingFileAuditEndpointTest {
         assertFiles("audit", "audit.1970-01-01-01","audit.1970-01-01-02");
     }
 
+    @Test
+    public void testTimeBasedRolloverDayAsynchronous() throws Exception {
+        AuditEndpoint endpoint = PeriodicRotatingFileAuditEndpoint.builder()
+                .setTimeZone(UTC)
+                .setSuffix(".yyyy-MM-ww-dd")
+                .setAsynchronous(true)
+                .setLocation(logFile)
+                .setClock(clock)
+                .build();
+        endpoint.accept(EventPriority.CRITICAL, "testing log message 1");
+        clock.plus(1,ChronoUnit.DAYS);
+        endpoint.accept(EventPriority.CRITICAL, "testing log message 2");
+        clock.plus(1,ChronoUnit.DAYS);
+        endpoint.accept(EventPriority.CRITICAL, "testing log message 3");
+        endpoint.close();
+        assertFiles("audit", "audit.1970-01-01-01","audit.1970-01-01-02");
+    }
+
     @Test
     public void testTimeBasedRolloverHalfDay() throws Exception {
         AuditEndpoint endpoint = PeriodicRotatingFileAuditEndpoint.builder()
@@ -90,6 +90,30 @@ public class SizeRotatingFileAuditEndpointTest {
                 "audit.1970-01-02.1", "audit.1970-01-02.2", "audit.1970-01-02.3", "audit.1970-01-02.4");
     }
 
+    @Test
+    public void testRotateOnSizeOverflowAsynchronous() throws Exception {
+        AuditEndpoint endpoint = SizeRotatingFileAuditEndpoint.builder()
+                .setTimeZone(UTC)
+                .setMaxBackupIndex(4)
+                .setRotateSize(60)
+                .setSuffix(".yyyy-MM-dd")
+                .setAsynchronous(true)
+                .setLocation(logFile)
+                .setClock(clock)
+                .build();
+        int i = 0;
+        for (;i < 15; i++) {
+            endpoint.accept(EventPriority.CRITICAL, "testing log message "+i);
+        }
+        clock.plus(1, ChronoUnit.DAYS);
+        for (;i < 30; i++) {
+            endpoint.accept(EventPriority.CRITICAL, "testing log message "+i);
+        }
+        endpoint.close();
+        assertFiles("audit", "audit.1970-01-01.1", "audit.1970-01-01.2", "audit.1970-01-01.3", "audit.1970-01-01.4",
+                "audit.1970-01-02.1", "audit.1970-01-02.2", "audit.1970-01-02.3", "audit.1970-01-02.4");
+    }
+
     @Test
     public void testRotateOnBoot() throws Exception {
         AuditEndpoint endpoint = SizeRotatingFileAuditEndpoint.builder()
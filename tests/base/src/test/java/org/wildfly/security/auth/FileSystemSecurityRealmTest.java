@@ -60,6 +60,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.Principal;
 import java.security.Provider;
 import java.security.Security;
 import java.util.ArrayList;
@@ -67,13 +68,21 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
 import static org.wildfly.security.password.interfaces.BCryptPassword.BCRYPT_SALT_SIZE;
 
 /**
@@ -501,6 +510,164 @@ public class FileSystemSecurityRealmTest {
         return securityRealm;
     }
 
+    @Test
+    public void testIndexedRealm() throws Exception {
+        FileSystemSecurityRealm indexedRealm = FileSystemSecurityRealm.builder().setRoot(getRootPath()).setLevels(1).setIndexed(true).build();
+        LinkedBlockingQueue<Principal> changed = new LinkedBlockingQueue<>();
+        indexedRealm.registerIdentityChangeListener(changed::add);
+        try {
+            ModifiableRealmIdentity newIdentity = indexedRealm.getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+            newIdentity.create();
+            newIdentity.setCredentials(Collections.singleton(new PasswordCredential(
+                    PasswordFactory.getInstance(ClearPassword.ALGORITHM_CLEAR).generatePassword(new ClearPasswordSpec("secretPassword".toCharArray())))));
+            MapAttributes newAttributes = new MapAttributes();
+            newAttributes.addAll("roles", Arrays.asList("Employee", "Manager"));
+            newIdentity.setAttributes(newAttributes);
+            assertTrue(newIdentity.exists());
+            assertTrue(newIdentity.verifyEvidence(new PasswordGuessEvidence("secretPassword".toCharArray())));
+            newIdentity.dispose();
+            indexedRealm.flush();
+
+            // the changes are on disk for realms without an index
+            FileSystemSecurityRealm securityRealm = new FileSystemSecurityRealm(getRootPath(false), 1);
+            ModifiableRealmIdentity existingIdentity = securityRealm.getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+            assertTrue(existingIdentity.verifyEvidence(new PasswordGuessEvidence("secretPassword".toCharArray())));
+            assertEquals(2, existingIdentity.getAttributes().get("roles").size());
+
+            // and changes made by others are seen by the indexed realm
+            existingIdentity.delete();
+            existingIdentity.dispose();
+            assertEquals("plainUser", changed.poll(30, TimeUnit.SECONDS).getName());
+            ModifiableRealmIdentity deletedIdentity = indexedRealm.getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+            assertFalse(deletedIdentity.exists());
+            deletedIdentity.dispose();
+        } finally {
+            indexedRealm.close();
+        }
+    }
+
+    @Test
+    public void testIndexedRealmReplaysJournal() throws Exception {
+        Path root = getRootPath();
+        Path journal = root.resolve("identities.journal");
+        FileSystemSecurityRealm indexedRealm = FileSystemSecurityRealm.builder().setRoot(root).setLevels(1).setIndexed(true)
+                .setFlushDelay(TimeUnit.HOURS.toMillis(1)).build();
+        byte[] journalContent;
+        try {
+            ModifiableRealmIdentity newIdentity = indexedRealm.getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+            newIdentity.create();
+            MapAttributes newAttributes = new MapAttributes();
+            newAttributes.addFirst("name", "plainUser");
+            newIdentity.setAttributes(newAttributes);
+            newIdentity.dispose();
+
+            // nothing but the journal has been written yet
+            assertFalse(new FileSystemSecurityRealm(root, 1).getRealmIdentity(new NamePrincipal("plainUser")).exists());
+            journalContent = Files.readAllBytes(journal);
+
+            // the journal is owned by the open realm
+            try {
+                FileSystemSecurityRealm.builder().setRoot(root).setLevels(1).setIndexed(true).build();
+                fail("Expected IllegalStateException");
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            indexedRealm.close();
+        }
+        assertFalse(Files.exists(journal));
+
+        // simulate a crash before the identity file was written, which leaves the journal without an owner
+        ModifiableRealmIdentity writtenIdentity = new FileSystemSecurityRealm(root, 1).getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+        writtenIdentity.delete();
+        writtenIdentity.dispose();
+        Files.write(journal, journalContent);
+
+        FileSystemSecurityRealm recoveredRealm = FileSystemSecurityRealm.builder().setRoot(root).setLevels(1).setIndexed(true).build();
+        try {
+            ModifiableRealmIdentity recoveredIdentity = recoveredRealm.getRealmIdentityForUpdate(new NamePrincipal("plainUser"));
+            assertTrue(recoveredIdentity.exists());
+            assertEquals("plainUser", recoveredIdentity.getAttributes().getFirst("name"));
+            recoveredIdentity.dispose();
+        } finally {
+            recoveredRealm.close();
+        }
+        assertTrue(new FileSystemSecurityRealm(root, 1).getRealmIdentity(new NamePrincipal("plainUser")).exists());
+    }
+
+    @Test
+    public void testBulkCreateAndParallelIteration() throws Exception {
+        FileSystemSecurityRealm securityRealm = new FileSystemSecurityRealm(getRootPath(), 2);
+        ModifiableRealmIdentity existingIdentity = securityRealm.getRealmIdentityForUpdate(new NamePrincipal("user0"));
+        existingIdentity.create();
+        existingIdentity.dispose();
+
+        PasswordFactory factory = PasswordFactory.getInstance(ClearPassword.ALGORITHM_CLEAR);
+        List<FileSystemSecurityRealm.IdentityDefinition> identities = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            MapAttributes attributes = new MapAttributes();
+            attributes.addFirst("index", Integer.toString(i));
+            Password password = factory.generatePassword(new ClearPasswordSpec(("password" + i).toCharArray()));
+            identities.add(new FileSystemSecurityRealm.IdentityDefinition("user" + i, Collections.singleton(new PasswordCredential(password)), attributes));
+        }
+        AtomicLong progress = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Map<String, Exception> failures = securityRealm.createIdentities(identities, pool, progress::addAndGet);
+            assertEquals(Collections.singleton("user0"), failures.keySet());
+            assertEquals(1000, progress.get());
+
+            ModifiableRealmIdentity identity = securityRealm.getRealmIdentityForUpdate(new NamePrincipal("user123"));
+            assertTrue(identity.verifyEvidence(new PasswordGuessEvidence("password123".toCharArray())));
+            assertEquals("123", identity.getAttributes().getFirst("index"));
+            identity.dispose();
+
+            Set<String> names = ConcurrentHashMap.newKeySet();
+            securityRealm.forEachIdentity(pool, realmIdentity -> {
+                assertTrue(realmIdentity.exists());
+                names.add(realmIdentity.getRealmIdentityPrincipal().getName());
+            });
+            assertEquals(1000, names.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testIndexedBulkCreate() throws Exception {
+        Path root = getRootPath();
+        FileSystemSecurityRealm indexedRealm = FileSystemSecurityRealm.builder().setRoot(root).setLevels(2).setIndexed(true)
+                .setFlushDelay(TimeUnit.HOURS.toMillis(1)).build();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // only pending in the index, its file has not been written yet
+            ModifiableRealmIdentity pendingIdentity = indexedRealm.getRealmIdentityForUpdate(new NamePrincipal("user0"));
+            pendingIdentity.create();
+            pendingIdentity.dispose();
+
+            List<FileSystemSecurityRealm.IdentityDefinition> identities = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                MapAttributes attributes = new MapAttributes();
+                attributes.addFirst("index", Integer.toString(i));
+                identities.add(new FileSystemSecurityRealm.IdentityDefinition("user" + i, Collections.emptySet(), attributes));
+            }
+            Map<String, Exception> failures = indexedRealm.createIdentities(identities, pool, count -> {});
+            assertEquals(Collections.singleton("user0"), failures.keySet());
+
+            ModifiableRealmIdentity identity = indexedRealm.getRealmIdentityForUpdate(new NamePrincipal("user123"));
+            assertTrue(identity.exists());
+            assertEquals("123", identity.getAttributes().getFirst("index"));
+            identity.dispose();
+            // journaled and written behind
+            assertFalse(new FileSystemSecurityRealm(root, 2).getRealmIdentity(new NamePrincipal("user123")).exists());
+        } finally {
+            pool.shutdown();
+            indexedRealm.close();
+        }
+        FileSystemSecurityRealm securityRealm = new FileSystemSecurityRealm(root, 2);
+        assertTrue(securityRealm.getRealmIdentity(new NamePrincipal("user599")).exists());
+        assertEquals(0, securityRealm.getRealmIdentity(new NamePrincipal("user0")).getAttributes().size());
+    }
+
     @Test
     public void testIterating() throws Exception {
         FileSystemSecurityRealm securityRealm = createRealmWithTwoIdentities();
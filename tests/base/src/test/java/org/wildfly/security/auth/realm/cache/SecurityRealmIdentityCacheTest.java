@@ -51,6 +51,7 @@ import org.wildfly.security.authz.MapAttributes;
 import org.wildfly.security.authz.RoleDecoder;
 import org.wildfly.security.cache.LRURealmIdentityCache;
 import org.wildfly.security.cache.RealmIdentityCache;
+import org.wildfly.security.cache.SegmentedRealmIdentityCache;
 import org.wildfly.security.credential.Credential;
 import org.wildfly.security.credential.PasswordCredential;
 import org.wildfly.security.evidence.Evidence;
@@ -89,6 +90,23 @@ public class SecurityRealmIdentityCacheTest {
         }
     }
 
+    @Test
+    public void testRealmIdentitySegmentedCache() throws Exception {
+        SecurityDomain securityDomain = SecurityDomain.builder().setDefaultRealmName("default").addRealm("default", createSecurityRealm(new SegmentedRealmIdentityCache(16))).build()
+                .setPermissionMapper((permissionMappable, roles) -> LoginPermission.getInstance())
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            assertAuthenticationAndAuthorization("joe", securityDomain);
+            assertEquals(1, realmHitCount.get());
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertAuthenticationAndAuthorization("bob", securityDomain);
+            assertEquals(2, realmHitCount.get());
+        }
+    }
+
     @Test
     public void testRealmIdentityNoCache() throws Exception {
         SecurityDomain securityDomain = SecurityDomain.builder().setDefaultRealmName("default").addRealm("default", createSecurityRealm(null)).build()
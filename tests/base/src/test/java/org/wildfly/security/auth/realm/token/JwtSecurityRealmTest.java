@@ -26,6 +26,7 @@ import com.nimbusds.jose.JWSSigner;
 import com.nimbusds.jose.Payload;
 import com.nimbusds.jose.PlainHeader;
 import com.nimbusds.jose.PlainObject;
+import com.nimbusds.jose.crypto.ECDSASigner;
 import com.nimbusds.jose.crypto.RSASSASigner;
 
 import java.io.File;
@@ -34,18 +35,35 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.Signature;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 import javax.json.Json;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
@@ -69,6 +87,7 @@ import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.QueueDispatcher;
 import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -88,6 +107,8 @@ import org.wildfly.security.x500.cert.SelfSignedX509CertificateAndSigningKey;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -653,6 +674,454 @@ public class JwtSecurityRealmTest {
         assertEquals("elytron@jboss.org", realmIdentity.getRealmIdentityPrincipal().getName());
     }
 
+    @Test
+    public void testTokenCache() throws Exception {
+        BearerTokenEvidence evidence = new BearerTokenEvidence(createJwt(keyPair1));
+        JwtValidator validator = JwtValidator.builder()
+                .issuer("elytron-oauth2-realm")
+                .audience("my-app-valid")
+                .publicKey(keyPair1.getPublic())
+                .tokenCacheSize(10)
+                .build();
+
+        Attributes attributes = validator.validate(evidence);
+
+        assertNotNull(attributes);
+        assertEquals("elytron@jboss.org", attributes.getFirst("sub"));
+        assertSame(attributes, validator.validate(evidence));
+
+        TokenSecurityRealm securityRealm = TokenSecurityRealm.builder()
+                .principalClaimName("sub")
+                .validator(validator)
+                .build();
+
+        assertIdentityExist(securityRealm, evidence);
+    }
+
+    @Test
+    public void testTokenCacheHonorsExpiration() throws Exception {
+        BearerTokenEvidence evidence = new BearerTokenEvidence(createJwt(keyPair1, 1));
+        JwtValidator validator = JwtValidator.builder()
+                .issuer("elytron-oauth2-realm")
+                .audience("my-app-valid")
+                .publicKey(keyPair1.getPublic())
+                .tokenCacheSize(10)
+                .build();
+
+        assertNotNull(validator.validate(evidence));
+
+        Thread.sleep(2100);
+
+        assertNull(validator.validate(evidence));
+    }
+
+    @Test
+    public void testTokenCacheDoesNotAcceptModifiedToken() throws Exception {
+        String jwt = createJwt(keyPair1);
+        JwtValidator validator = JwtValidator.builder()
+                .issuer("elytron-oauth2-realm")
+                .audience("my-app-valid")
+                .publicKey(keyPair1.getPublic())
+                .tokenCacheSize(10)
+                .build();
+
+        assertNotNull(validator.validate(new BearerTokenEvidence(jwt)));
+
+        String[] parts = jwt.split("\\.");
+        String claims = Base64.getUrlEncoder().withoutPadding().encodeToString(createClaims(120, 0).build().toString().getBytes(StandardCharsets.UTF_8));
+
+        assertNull(validator.validate(new BearerTokenEvidence(parts[0] + "." + claims + "." + parts[2])));
+        assertNotNull(validator.validate(new BearerTokenEvidence(jwt)));
+    }
+
+    @Test
+    public void testTokenCacheWithDifferentKeys() throws Exception {
+        Map<String, PublicKey> namedKeys = new LinkedHashMap<>();
+        namedKeys.put("1", keyPair1.getPublic());
+        namedKeys.put("2", keyPair2.getPublic());
+        JwtValidator validator = JwtValidator.builder()
+                .issuer("elytron-oauth2-realm")
+                .audience("my-app-valid")
+                .publicKeys(namedKeys)
+                .tokenCacheSize(1)
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(validator.validate(new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", null))));
+            assertNotNull(validator.validate(new BearerTokenEvidence(createJwt(keyPair2, 60, -1, "2", null))));
+            assertNull(validator.validate(new BearerTokenEvidence(createJwt(keyPair2, 60, -1, "1", null))));
+        }
+    }
+
+    @Test
+    public void testEcdsaSignedJwt() throws Exception {
+        assertEcdsaSignedJwt(JWSAlgorithm.ES256, "secp256r1");
+        assertEcdsaSignedJwt(JWSAlgorithm.ES384, "secp384r1");
+        assertEcdsaSignedJwt(JWSAlgorithm.ES512, "secp521r1");
+    }
+
+    private void assertEcdsaSignedJwt(JWSAlgorithm algorithm, String curve) throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec(curve));
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        KeyPair anotherKeyPair = keyPairGenerator.generateKeyPair();
+        String jwt = createJwt(new ECDSASigner((ECPrivateKey) keyPair.getPrivate()), algorithm, 60, -1, null, null);
+
+        TokenSecurityRealm securityRealm = TokenSecurityRealm.builder()
+                .principalClaimName("sub")
+                .validator(JwtValidator.builder()
+                        .issuer("elytron-oauth2-realm")
+                        .audience("my-app-valid")
+                        .publicKey(keyPair.getPublic()).build())
+                .build();
+
+        assertIdentityExist(securityRealm, new BearerTokenEvidence(jwt));
+        assertIdentityNotExist(securityRealm, new BearerTokenEvidence(createJwt(new ECDSASigner((ECPrivateKey) anotherKeyPair.getPrivate()), algorithm, 60, -1, null, null)));
+
+        // signatures must use the JWS encoding, not the DER encoding of JCA providers
+        String[] parts = jwt.split("\\.");
+        Signature signature = Signature.getInstance("SHA" + algorithm.getName().substring(2) + "withECDSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.UTF_8));
+        String derSignature = Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+
+        assertIdentityNotExist(securityRealm, new BearerTokenEvidence(parts[0] + "." + parts[1] + "." + derSignature));
+    }
+
+    @Test
+    public void testRsaPssSignedJwt() throws Exception {
+        assertRsaPssSignedJwt("PS256", new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+        assertRsaPssSignedJwt("PS384", new PSSParameterSpec("SHA-384", "MGF1", MGF1ParameterSpec.SHA384, 48, 1));
+        assertRsaPssSignedJwt("PS512", new PSSParameterSpec("SHA-512", "MGF1", MGF1ParameterSpec.SHA512, 64, 1));
+    }
+
+    private void assertRsaPssSignedJwt(String algorithm, PSSParameterSpec parameterSpec) throws Exception {
+        Signature signature;
+        try {
+            signature = Signature.getInstance("RSASSA-PSS");
+        } catch (NoSuchAlgorithmException e) {
+            Assume.assumeNoException("RSASSA-PSS is not supported by this JVM", e);
+            return;
+        }
+        signature.setParameter(parameterSpec);
+
+        TokenSecurityRealm securityRealm = TokenSecurityRealm.builder()
+                .principalClaimName("sub")
+                .validator(JwtValidator.builder()
+                        .issuer("elytron-oauth2-realm")
+                        .audience("my-app-valid")
+                        .publicKey(keyPair1.getPublic()).build())
+                .build();
+
+        signature.initSign(keyPair1.getPrivate());
+        assertIdentityExist(securityRealm, new BearerTokenEvidence(createJwt(signature, algorithm, null, null)));
+        signature.initSign(keyPair2.getPrivate());
+        assertIdentityNotExist(securityRealm, new BearerTokenEvidence(createJwt(signature, algorithm, null, null)));
+    }
+
+    @Test
+    public void testEdDsaSignedJwt() throws Exception {
+        KeyPairGenerator keyPairGenerator;
+        try {
+            keyPairGenerator = KeyPairGenerator.getInstance("Ed25519");
+        } catch (NoSuchAlgorithmException e) {
+            Assume.assumeNoException("EdDSA is not supported by this JVM", e);
+            return;
+        }
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        byte[] encodedKey = keyPair.getPublic().getEncoded();
+        Map<String, PublicKey> namedKeys = new LinkedHashMap<>();
+        namedKeys.put("ed", keyPair.getPublic());
+
+        TokenSecurityRealm securityRealm = TokenSecurityRealm.builder()
+                .principalClaimName("sub")
+                .validator(JwtValidator.builder()
+                        .issuer("elytron-oauth2-realm")
+                        .audience("my-app-valid")
+                        .publicKeys(namedKeys).build())
+                .build();
+
+        assertIdentityExist(securityRealm, new BearerTokenEvidence(createEdDsaJwt(keyPair, "ed")));
+        assertIdentityNotExist(securityRealm, new BearerTokenEvidence(createEdDsaJwt(keyPairGenerator.generateKeyPair(), "ed")));
+
+        // the same key served as an OKP JWK
+        String x = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOfRange(encodedKey, encodedKey.length - 32, encodedKey.length));
+        JsonObject jwks = Json.createObjectBuilder().add("keys", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                .add("kty", "OKP")
+                .add("crv", "Ed25519")
+                .add("kid", "ed")
+                .add("x", x))).build();
+
+        try {
+            assertIdentityExist(createJkuRealm(jwks), new BearerTokenEvidence(createEdDsaJwt(keyPair, "ed", new URI("https://localhost:50831"))));
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testEcJwks() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+
+        JsonObject jwks = Json.createObjectBuilder().add("keys", Json.createArrayBuilder().add(Json.createObjectBuilder()
+                .add("kty", "EC")
+                .add("crv", "P-256")
+                .add("kid", "ec")
+                .add("x", Base64.getUrlEncoder().withoutPadding().encodeToString(toBase64urlUInt(publicKey.getW().getAffineX())))
+                .add("y", Base64.getUrlEncoder().withoutPadding().encodeToString(toBase64urlUInt(publicKey.getW().getAffineY()))))).build();
+
+        JWSSigner signer = new ECDSASigner((ECPrivateKey) keyPair.getPrivate());
+
+        try {
+            TokenSecurityRealm securityRealm = createJkuRealm(jwks);
+
+            assertIdentityExist(securityRealm, new BearerTokenEvidence(createJwt(signer, JWSAlgorithm.ES256, 60, -1, "ec", new URI("https://localhost:50831"))));
+            assertIdentityNotExist(securityRealm, new BearerTokenEvidence(createJwt(signer, JWSAlgorithm.ES256, 60, -1, "1", new URI("https://localhost:50831"))));
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testConcurrentUnknownKidsCoalesced() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(createCountingDispatcher(requests, i -> new MockResponse().setBody(jwksResponse).setBodyDelay(200, TimeUnit.MILLISECONDS)));
+
+        try {
+            JwtValidator validator = createJkuValidator().build();
+            int threads = 8;
+            List<List<BearerTokenEvidence>> evidences = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<BearerTokenEvidence> threadEvidences = new ArrayList<>();
+                threadEvidences.add(new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", new URI("https://localhost:50831"))));
+                for (int i = 0; i < 10; i++) {
+                    threadEvidences.add(new BearerTokenEvidence(createJwt(keyPair3, 60, -1, "forged-" + t + "-" + i, new URI("https://localhost:50831"))));
+                }
+                evidences.add(threadEvidences);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (List<BearerTokenEvidence> threadEvidences : evidences) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        int valid = 0;
+                        for (BearerTokenEvidence evidence : threadEvidences) {
+                            if (validator.validate(evidence) != null) {
+                                valid++;
+                            }
+                        }
+                        return valid;
+                    }));
+                }
+                start.countDown();
+                for (Future<Integer> future : futures) {
+                    assertEquals(1, (int) future.get(30, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(1, requests.get());
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testUnknownKidRefreshesKeys() throws Exception {
+        BearerTokenEvidence evidence1 = new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", new URI("https://localhost:50831")));
+        BearerTokenEvidence evidence2 = new BearerTokenEvidence(createJwt(keyPair2, 60, -1, "2", new URI("https://localhost:50831")));
+        String[] responses = { jwksToJson(jwk1).toString(), jwksResponse };
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(createCountingDispatcher(requests, i -> new MockResponse().setBody(responses[Math.min(i, 1)])));
+
+        try {
+            JwtValidator validator = createJkuValidator().setJkuMinTimeBetweenRequests(0).build();
+
+            assertNotNull(validator.validate(evidence1));
+            assertNotNull(validator.validate(evidence2));
+            assertEquals(2, requests.get());
+
+            requests.set(0);
+            validator = createJkuValidator().build();
+
+            assertNotNull(validator.validate(evidence1));
+            assertNull(validator.validate(evidence2));
+            assertEquals(1, requests.get());
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testKeysRefreshedInBackground() throws Exception {
+        BearerTokenEvidence evidence1 = new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", new URI("https://localhost:50831")));
+        BearerTokenEvidence evidence2 = new BearerTokenEvidence(createJwt(keyPair2, 60, -1, "2", new URI("https://localhost:50831")));
+        String[] responses = { jwksToJson(jwk1).toString(), jwksResponse };
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(createCountingDispatcher(requests, i -> new MockResponse().setBody(responses[Math.min(i, 1)])));
+
+        try {
+            JwtValidator validator = createJkuValidator()
+                    .setJkuTimeout(1000)
+                    .setJkuMinTimeBetweenRequests(500)
+                    .build();
+
+            assertNotNull(validator.validate(evidence1));
+            assertEquals(1, requests.get());
+
+            Thread.sleep(800);
+
+            assertNotNull(validator.validate(evidence1));
+            for (int i = 0; i < 50 && requests.get() < 2; i++) {
+                Thread.sleep(100);
+            }
+            assertEquals(2, requests.get());
+            Thread.sleep(100);
+
+            // the key was obtained by the background refresh, an unknown kid would not cause a request this soon
+            assertNotNull(validator.validate(evidence2));
+            assertEquals(2, requests.get());
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testExpiredKeysUsedDuringRefresh() throws Exception {
+        BearerTokenEvidence evidence = new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", new URI("https://localhost:50831")));
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(createCountingDispatcher(requests, i -> i == 0 ? new MockResponse().setBody(jwksResponse)
+                : new MockResponse().setBody(jwksResponse).setBodyDelay(1500, TimeUnit.MILLISECONDS)));
+
+        try {
+            JwtValidator validator = createJkuValidator()
+                    .setJkuTimeout(200)
+                    .setJkuMinTimeBetweenRequests(0)
+                    .readTimeout(5000)
+                    .build();
+
+            assertNotNull(validator.validate(evidence));
+
+            Thread.sleep(300);
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Attributes> refreshing = executor.submit(() -> validator.validate(evidence));
+                for (int i = 0; i < 50 && requests.get() < 2; i++) {
+                    Thread.sleep(100);
+                }
+                assertEquals(2, requests.get());
+
+                long start = System.currentTimeMillis();
+                assertNotNull(validator.validate(evidence));
+                assertTrue(System.currentTimeMillis() - start < 1000);
+                assertFalse(refreshing.isDone());
+
+                assertNotNull(refreshing.get(10, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    @Test
+    public void testStaleKeysUsedWhileEndpointFails() throws Exception {
+        BearerTokenEvidence evidence = new BearerTokenEvidence(createJwt(keyPair1, 60, -1, "1", new URI("https://localhost:50831")));
+        AtomicInteger requests = new AtomicInteger();
+        server.setDispatcher(createCountingDispatcher(requests, i -> i == 0 ? new MockResponse().setBody(jwksResponse)
+                : new MockResponse().setResponseCode(HttpsURLConnection.HTTP_INTERNAL_ERROR)));
+
+        try {
+            JwtValidator validator = createJkuValidator()
+                    .setJkuTimeout(1000)
+                    .setJkuMinTimeBetweenRequests(500)
+                    .build();
+
+            assertNotNull(validator.validate(evidence));
+
+            Thread.sleep(1200);
+
+            // the keys expired and the refresh fails
+            assertNotNull(validator.validate(evidence));
+            assertEquals(2, requests.get());
+            // no request is sent this soon after the failure
+            assertNotNull(validator.validate(evidence));
+            assertEquals(2, requests.get());
+
+            Thread.sleep(1000);
+
+            // the keys expired for longer than the timeout
+            assertNull(validator.validate(evidence));
+            assertEquals(3, requests.get());
+        } finally {
+            server.setDispatcher(createTokenDispatcher(jwksResponse));
+        }
+    }
+
+    private JwtValidator.Builder createJkuValidator() throws Exception {
+        X509TrustManager tm = getTrustManager();
+        SSLContext sslContext = new SSLContextBuilder().setTrustManager(tm).setClientMode(true).setSessionTimeout(10).build().create();
+
+        return JwtValidator.builder()
+                .issuer("elytron-oauth2-realm")
+                .audience("my-app-valid")
+                .useSslContext(sslContext)
+                .useSslHostnameVerifier((a,b) -> true);
+    }
+
+    private TokenSecurityRealm createJkuRealm(JsonObject jwks) throws Exception {
+        server.setDispatcher(createTokenDispatcher(jwks.toString()));
+
+        X509TrustManager tm = getTrustManager();
+        SSLContext sslContext = new SSLContextBuilder().setTrustManager(tm).setClientMode(true).setSessionTimeout(10).build().create();
+
+        return TokenSecurityRealm.builder()
+                .principalClaimName("sub")
+                .validator(JwtValidator.builder()
+                        .issuer("elytron-oauth2-realm")
+                        .audience("my-app-valid")
+                        .useSslContext(sslContext)
+                        .useSslHostnameVerifier((a,b) -> true).build())
+                .build();
+    }
+
+    private String createEdDsaJwt(KeyPair keyPair, String kid) throws Exception {
+        return createEdDsaJwt(keyPair, kid, null);
+    }
+
+    private String createEdDsaJwt(KeyPair keyPair, String kid, URI jku) throws Exception {
+        Signature signature = Signature.getInstance("Ed25519");
+        signature.initSign(keyPair.getPrivate());
+        return createJwt(signature, "EdDSA", kid, jku);
+    }
+
+    /**
+     * Create a JWT signed using a JCA {@link Signature} initialized for signing, for algorithms not supported by the JWT library.
+     */
+    private String createJwt(Signature signature, String algorithm, String kid, URI jku) throws Exception {
+        JsonObjectBuilder header = Json.createObjectBuilder().add("alg", algorithm);
+        if (kid != null) {
+            header.add("kid", kid);
+        }
+        if (jku != null) {
+            header.add("jku", jku.toString());
+        }
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String signingInput = encoder.encodeToString(header.build().toString().getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(createClaims(60, -1).build().toString().getBytes(StandardCharsets.UTF_8));
+        signature.update(signingInput.getBytes(StandardCharsets.UTF_8));
+        return signingInput + "." + encoder.encodeToString(signature.sign());
+    }
+
     private void assertIdentityNotExist(SecurityRealm realm, Evidence evidence) throws RealmUnavailableException {
         RealmIdentity identity = realm.getRealmIdentity(evidence);
         assertNotNull(identity);
@@ -675,10 +1144,13 @@ public class JwtSecurityRealmTest {
 
     private String createJwt(KeyPair keyPair, int expirationOffset, int notBeforeOffset, String kid, URI jku) throws Exception {
         PrivateKey privateKey = keyPair.getPrivate();
-        JWSSigner signer = new RSASSASigner(privateKey);
+        return createJwt(new RSASSASigner(privateKey), JWSAlgorithm.RS256, expirationOffset, notBeforeOffset, kid, jku);
+    }
+
+    private String createJwt(JWSSigner signer, JWSAlgorithm algorithm, int expirationOffset, int notBeforeOffset, String kid, URI jku) throws Exception {
         JsonObjectBuilder claimsBuilder = createClaims(expirationOffset, notBeforeOffset);
 
-        JWSHeader.Builder headerBuilder = new JWSHeader.Builder(JWSAlgorithm.RS256)
+        JWSHeader.Builder headerBuilder = new JWSHeader.Builder(algorithm)
                 .type(new JOSEObjectType("jwt"));
 
         if (jku != null) {
@@ -768,6 +1240,15 @@ public class JwtSecurityRealmTest {
         };
     }
 
+    private static Dispatcher createCountingDispatcher(AtomicInteger requests, IntFunction<MockResponse> responses) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest recordedRequest) {
+                return responses.apply(requests.getAndIncrement());
+            }
+        };
+    }
+
     private static Dispatcher createTokenDispatcher(String response) {
         return new Dispatcher() {
             @Override
@@ -0,0 +1,287 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.http.basic;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.wildfly.security.http.HttpConstants.BASIC_NAME;
+import static org.wildfly.security.http.HttpConstants.CONFIG_REALM;
+import static org.wildfly.security.http.HttpConstants.CONFIG_VERIFIED_CREDENTIAL_CACHE;
+
+import java.security.Principal;
+import java.security.Provider;
+import java.security.Security;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import javax.security.auth.callback.Callback;
+import javax.security.auth.callback.CallbackHandler;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wildfly.security.auth.SupportLevel;
+import org.wildfly.security.auth.callback.SecurityIdentityCallback;
+import org.wildfly.security.auth.permission.LoginPermission;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.CacheableSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleMapBackedSecurityRealm;
+import org.wildfly.security.auth.realm.SimpleRealmEntry;
+import org.wildfly.security.auth.server.MechanismConfiguration;
+import org.wildfly.security.auth.server.MechanismConfigurationSelector;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.RealmUnavailableException;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.http.HttpAuthenticationFactory;
+import org.wildfly.security.credential.Credential;
+import org.wildfly.security.credential.PasswordCredential;
+import org.wildfly.security.evidence.Evidence;
+import org.wildfly.security.http.HttpAuthenticationException;
+import org.wildfly.security.http.HttpServerAuthenticationMechanism;
+import org.wildfly.security.http.HttpServerAuthenticationMechanismFactory;
+import org.wildfly.security.http.impl.AbstractBaseHttpTest;
+import org.wildfly.security.http.util.PropertiesServerMechanismFactory;
+import org.wildfly.security.mechanism.http.VerifiedCredentialCache;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.WildFlyElytronPasswordProvider;
+import org.wildfly.security.password.interfaces.ClearPassword;
+import org.wildfly.security.password.spec.ClearPasswordSpec;
+
+/**
+ * Tests of the BASIC mechanism using a {@link VerifiedCredentialCache}.
+ */
+public class VerifiedCredentialCacheTest extends AbstractBaseHttpTest {
+
+    private static final Provider provider = WildFlyElytronPasswordProvider.getInstance();
+
+    private final AtomicInteger realmHitCount = new AtomicInteger();
+    private final SimpleMapBackedSecurityRealm realm = new SimpleMapBackedSecurityRealm();
+    private final Map<String, SimpleRealmEntry> users = new HashMap<>();
+    private Consumer<Principal> identityChangeListener;
+    private VerifiedCredentialCache cache;
+    private HttpAuthenticationFactory authenticationFactory;
+
+    @BeforeClass
+    public static void registerPasswordProvider() {
+        Security.insertProviderAt(provider, 1);
+    }
+
+    @AfterClass
+    public static void removePasswordProvider() {
+        Security.removeProvider(provider.getName());
+    }
+
+    @Before
+    public void createUsers() throws Exception {
+        setPassword("alice", "alice-password");
+        setPassword("bob", "bob-password");
+        cache = new VerifiedCredentialCache(60000, 10);
+        authenticationFactory = createFactory(cache);
+    }
+
+    @Test
+    public void testCachedAuthentication() throws Exception {
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(1, realmHitCount.get());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        }
+        assertEquals("Password verified once", 1, realmHitCount.get());
+        assertEquals(5, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertEquals(Status.COMPLETE, authenticate("bob", "bob-password"));
+        assertEquals(2, realmHitCount.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testFailedAuthenticationNotCached() throws Exception {
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(Status.FAILED, authenticate("alice", "wrong-password"));
+        assertEquals(Status.FAILED, authenticate("alice", "wrong-password"));
+        assertEquals(3, realmHitCount.get());
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testIdentityChangeInvalidates() throws Exception {
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(Status.COMPLETE, authenticate("bob", "bob-password"));
+
+        setPassword("alice", "new-password");
+        identityChangeListener.accept(new NamePrincipal("alice"));
+        assertEquals(1, cache.size());
+
+        assertEquals(Status.FAILED, authenticate("alice", "alice-password"));
+        assertEquals(Status.COMPLETE, authenticate("alice", "new-password"));
+        assertEquals(Status.COMPLETE, authenticate("bob", "bob-password"));
+        assertEquals(4, realmHitCount.get());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        cache = new VerifiedCredentialCache(100, 10);
+        authenticationFactory = createFactory(cache);
+
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(1, realmHitCount.get());
+
+        Thread.sleep(200);
+
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(2, realmHitCount.get());
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        cache = new VerifiedCredentialCache(60000, 1);
+        authenticationFactory = createFactory(cache);
+
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(Status.COMPLETE, authenticate("bob", "bob-password"));
+        assertEquals(1, cache.size());
+
+        assertEquals(Status.COMPLETE, authenticate("alice", "alice-password"));
+        assertEquals(3, realmHitCount.get());
+    }
+
+    @Test
+    public void testMechanismReusedForDifferentUsers() throws Exception {
+        AtomicReference<CallbackHandler> requestCallbackHandler = new AtomicReference<>();
+        HttpServerAuthenticationMechanism mechanism = basicFactory.createAuthenticationMechanism(BASIC_NAME, createProperties(cache),
+                callbacks -> requestCallbackHandler.get().handle(callbacks));
+
+        assertEquals("alice", authenticate(mechanism, requestCallbackHandler, "alice", "alice-password"));
+        assertEquals("bob", authenticate(mechanism, requestCallbackHandler, "bob", "bob-password"));
+        assertEquals("alice", authenticate(mechanism, requestCallbackHandler, "alice", "alice-password"));
+        assertNull(authenticate(mechanism, requestCallbackHandler, "bob", "wrong-password"));
+        assertEquals("bob", authenticate(mechanism, requestCallbackHandler, "bob", "bob-password"));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, realmHitCount.get());
+    }
+
+    private String authenticate(HttpServerAuthenticationMechanism mechanism, AtomicReference<CallbackHandler> requestCallbackHandler,
+            String username, String password) throws Exception {
+        requestCallbackHandler.set(createCallbackHandler());
+        String authorization = "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(UTF_8));
+        TestingHttpServerRequest request = new TestingHttpServerRequest(new String[] { authorization });
+        mechanism.evaluateRequest(request);
+        if (request.getResult() != Status.COMPLETE) {
+            return null;
+        }
+        SecurityIdentityCallback identityCallback = new SecurityIdentityCallback();
+        requestCallbackHandler.get().handle(new Callback[] { identityCallback });
+        return identityCallback.getSecurityIdentity().getPrincipal().getName();
+    }
+
+    /**
+     * Create the callback handler of a new authentication context, as the mechanisms of the factory use for each request.
+     */
+    private CallbackHandler createCallbackHandler() throws HttpAuthenticationException {
+        AtomicReference<CallbackHandler> callbackHandler = new AtomicReference<>();
+        authenticationFactory.createMechanism(BASIC_NAME, factory -> new HttpServerAuthenticationMechanismFactory() {
+            @Override
+            public String[] getMechanismNames(Map<String, ?> properties) {
+                return factory.getMechanismNames(properties);
+            }
+
+            @Override
+            public HttpServerAuthenticationMechanism createAuthenticationMechanism(String mechanismName, Map<String, ?> properties,
+                    CallbackHandler handler) throws HttpAuthenticationException {
+                callbackHandler.set(handler);
+                return factory.createAuthenticationMechanism(mechanismName, properties, handler);
+            }
+        });
+        return callbackHandler.get();
+    }
+
+    private Status authenticate(String username, String password) throws Exception {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(UTF_8));
+        TestingHttpServerRequest request = new TestingHttpServerRequest(new String[] { authorization });
+        HttpServerAuthenticationMechanism mechanism = authenticationFactory.createMechanism(BASIC_NAME);
+        mechanism.evaluateRequest(request);
+        return request.getResult();
+    }
+
+    private HttpAuthenticationFactory createFactory(VerifiedCredentialCache cache) {
+        CacheableSecurityRealm securityRealm = createSecurityRealm();
+        securityRealm.registerIdentityChangeListener(cache::invalidate);
+        SecurityDomain securityDomain = SecurityDomain.builder().setDefaultRealmName("default").addRealm("default", securityRealm).build()
+                .setPermissionMapper((permissionMappable, roles) -> LoginPermission.getInstance())
+                .build();
+
+        return HttpAuthenticationFactory.builder()
+                .setSecurityDomain(securityDomain)
+                .setMechanismConfigurationSelector(MechanismConfigurationSelector.constantSelector(MechanismConfiguration.EMPTY))
+                .setFactory(new PropertiesServerMechanismFactory(basicFactory, createProperties(cache)))
+                .build();
+    }
+
+    private static Map<String, Object> createProperties(VerifiedCredentialCache cache) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CONFIG_REALM, "test-realm");
+        properties.put(CONFIG_VERIFIED_CREDENTIAL_CACHE, cache);
+        return properties;
+    }
+
+    private CacheableSecurityRealm createSecurityRealm() {
+        return new CacheableSecurityRealm() {
+            @Override
+            public void registerIdentityChangeListener(Consumer<Principal> listener) {
+                identityChangeListener = listener;
+            }
+
+            @Override
+            public RealmIdentity getRealmIdentity(Principal principal) throws RealmUnavailableException {
+                realmHitCount.incrementAndGet();
+                return realm.getRealmIdentity(principal);
+            }
+
+            @Override
+            public SupportLevel getCredentialAcquireSupport(Class<? extends Credential> credentialType, String algorithmName, AlgorithmParameterSpec parameterSpec) throws RealmUnavailableException {
+                return realm.getCredentialAcquireSupport(credentialType, algorithmName, parameterSpec);
+            }
+
+            @Override
+            public SupportLevel getEvidenceVerifySupport(Class<? extends Evidence> evidenceType, String algorithmName) throws RealmUnavailableException {
+                return realm.getEvidenceVerifySupport(evidenceType, algorithmName);
+            }
+        };
+    }
+
+    private void setPassword(String username, String password) throws Exception {
+        PasswordFactory passwordFactory = PasswordFactory.getInstance(ClearPassword.ALGORITHM_CLEAR);
+        Credential credential = new PasswordCredential(passwordFactory.generatePassword(new ClearPasswordSpec(password.toCharArray())));
+        users.put(username, new SimpleRealmEntry(Collections.singletonList(credential)));
+        realm.setIdentityMap(new HashMap<>(users));
+    }
+}
@@ -25,9 +25,13 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.wildfly.common.iteration.ByteIterator;
 import org.wildfly.security.http.HttpServerAuthenticationMechanism;
 import org.wildfly.security.http.impl.AbstractBaseHttpTest;
+import org.wildfly.security.mechanism._private.ElytronMessages;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.Provider;
 import java.security.Security;
 import java.util.HashMap;
@@ -35,6 +39,7 @@ import java.util.Map;
 
 import static org.wildfly.security.http.HttpConstants.CONFIG_REALM;
 import static org.wildfly.security.http.HttpConstants.DIGEST_NAME;
+import static org.wildfly.security.http.HttpConstants.MD5;
 import static org.wildfly.security.http.HttpConstants.SHA256;
 import static org.wildfly.security.http.HttpConstants.SHA512_256;
 import static org.wildfly.security.http.HttpConstants.UNAUTHORIZED;
@@ -48,6 +53,7 @@ import static org.wildfly.security.http.HttpConstants.UNAUTHORIZED;
 public class DigestAuthenticationMechanismTest extends AbstractBaseHttpTest {
 
     private static final Provider provider = WildFlyElytronHttpDigestProvider.getInstance();
+    private static final byte[] REALM_BYTES = "testrealm@host.com".getBytes(StandardCharsets.UTF_8);
 
     @BeforeClass
     public static void registerPasswordProvider() {
@@ -152,4 +158,50 @@ public class DigestAuthenticationMechanismTest extends AbstractBaseHttpTest {
         mechanism.evaluateRequest(request2);
         Assert.assertEquals(Status.COMPLETE, request2.getResult());
     }
+
+    @Test
+    public void testNonceUsedOnlyAfterVerifiedResponse() throws Exception {
+        NonceManager nonceManager = new NonceManager(300000, 900000, true, 20, SHA256, ElytronMessages.httpDigest, null, 1);
+        try {
+            HttpServerAuthenticationMechanism mechanism = new DigestAuthenticationMechanism(getCallbackHandler("Mufasa", "testrealm@host.com", "Circle Of Life"),
+                    nonceManager, "testrealm@host.com", null, DIGEST_NAME, MD5, () -> new Provider[] { provider }, "false");
+
+            // responses of clients without valid credentials do not use the nonces
+            for (int i = 0; i < 2; i++) {
+                TestingHttpServerRequest request = new TestingHttpServerRequest(new String[] {
+                        digestAuthorization(nonceManager.generateNonce(REALM_BYTES), "00000000000000000000000000000000")
+                });
+                mechanism.evaluateRequest(request);
+                Assert.assertEquals(Status.FAILED, request.getResult());
+            }
+            Assert.assertEquals(0, nonceManager.getTrackedNonceCount());
+
+            String nonce = nonceManager.generateNonce(REALM_BYTES);
+            TestingHttpServerRequest request = new TestingHttpServerRequest(new String[] { digestAuthorization(nonce, response(nonce)) });
+            mechanism.evaluateRequest(request);
+            Assert.assertEquals(Status.COMPLETE, request.getResult());
+            Assert.assertEquals(1, nonceManager.getTrackedNonceCount());
+
+            // the used nonce is stale
+            request = new TestingHttpServerRequest(new String[] { digestAuthorization(nonce, response(nonce)) });
+            mechanism.evaluateRequest(request);
+            Assert.assertEquals(Status.IN_PROGRESS, request.getResult());
+        } finally {
+            nonceManager.shutdown();
+        }
+    }
+
+    private static String digestAuthorization(String nonce, String response) {
+        return "Digest username=\"Mufasa\", realm=\"testrealm@host.com\", nonce=\"" + nonce + "\", uri=\"/dir/index.html\", response=\"" + response + "\"";
+    }
+
+    private static String response(String nonce) throws Exception {
+        String hA1 = md5("Mufasa:testrealm@host.com:Circle Of Life");
+        String hA2 = md5("GET:/dir/index.html");
+        return md5(hA1 + ":" + nonce + ":" + hA2);
+    }
+
+    private static String md5(String value) throws Exception {
+        return ByteIterator.ofBytes(MessageDigest.getInstance(MD5).digest(value.getBytes(StandardCharsets.UTF_8))).hexEncode().drainToString();
+    }
 }
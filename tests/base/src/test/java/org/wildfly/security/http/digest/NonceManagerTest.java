@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.http.digest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.wildfly.security.http.HttpConstants.SHA256;
+
+import org.junit.After;
+import org.junit.Test;
+import org.wildfly.security.mechanism._private.ElytronMessages;
+
+/**
+ * Tests of the tracking of used nonces by the {@link NonceManager}.
+ */
+public class NonceManagerTest {
+
+    private NonceManager nonceManager;
+
+    @After
+    public void shutdown() {
+        if (nonceManager != null) {
+            nonceManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleUse() throws Exception {
+        nonceManager = new NonceManager(300000, 900000, true, 20, SHA256, ElytronMessages.httpDigest);
+        String nonce = nonceManager.generateNonce();
+
+        assertTrue(nonceManager.useNonce(nonce, -1));
+        assertFalse(nonceManager.useNonce(nonce, -1));
+        assertFalse(nonceManager.useNonce(nonce, 1));
+        assertEquals(1, nonceManager.getTrackedNonceCount());
+    }
+
+    @Test
+    public void testNonceCount() throws Exception {
+        nonceManager = new NonceManager(300000, 900000, true, 20, SHA256, ElytronMessages.httpDigest);
+        String nonce = nonceManager.generateNonce();
+
+        assertTrue(nonceManager.useNonce(nonce, 1));
+        assertTrue(nonceManager.useNonce(nonce, 2));
+        assertFalse(nonceManager.useNonce(nonce, 2));
+        assertTrue(nonceManager.useNonce(nonce, 5));
+        assertFalse(nonceManager.useNonce(nonce, 3));
+        assertEquals(1, nonceManager.getTrackedNonceCount());
+    }
+
+    @Test
+    public void testMaxTrackedNonces() throws Exception {
+        nonceManager = new NonceManager(300000, 900000, true, 20, SHA256, ElytronMessages.httpDigest, null, 2);
+
+        assertTrue(nonceManager.useNonce(nonceManager.generateNonce(), -1));
+        assertTrue(nonceManager.useNonce(nonceManager.generateNonce(), 1));
+        assertFalse(nonceManager.useNonce(nonceManager.generateNonce(), -1));
+        assertFalse(nonceManager.useNonce(nonceManager.generateNonce(), 1));
+        assertEquals(2, nonceManager.getTrackedNonceCount());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        nonceManager = new NonceManager(200, 200, true, 20, SHA256, ElytronMessages.httpDigest);
+        String singleUseNonce = nonceManager.generateNonce();
+        String countedNonce = nonceManager.generateNonce();
+
+        assertTrue(nonceManager.useNonce(singleUseNonce, -1));
+        assertTrue(nonceManager.useNonce(countedNonce, 1));
+        assertEquals(2, nonceManager.getTrackedNonceCount());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (nonceManager.getTrackedNonceCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, nonceManager.getTrackedNonceCount());
+        assertFalse(nonceManager.useNonce(singleUseNonce, -1));
+        assertFalse(nonceManager.useNonce(countedNonce, 2));
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.http.util.sso;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.security.auth.permission.LoginPermission;
+import org.wildfly.security.auth.server.SecurityDomain;
+import org.wildfly.security.auth.server.SecurityIdentity;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.http.HttpScope;
+import org.wildfly.security.http.HttpScopeNotification;
+import org.wildfly.security.http.HttpServerRequest;
+import org.wildfly.security.http.Scope;
+
+/**
+ * Tests of the sending of logout requests to the participants of a single sign-on session.
+ */
+public class SingleSignOnLogoutDispatcherTest {
+
+    private static final String LOGOUT_PATH = "/logout";
+
+    private final MockWebServer server = new MockWebServer();
+    private final RecordingDispatcher recorder = new RecordingDispatcher();
+    private final SingleSignOnManager manager = new DefaultSingleSignOnManager(new ConcurrentHashMap<>(), () -> "sso");
+    private SingleSignOnLogoutDispatcher dispatcher;
+
+    @Before
+    public void startServer() throws Exception {
+        server.setDispatcher(recorder);
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void testRetryOnServerError() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        recorder.enqueue(new MockResponse().setResponseCode(503));
+
+        assertCompletedOnce(dispatch("session1"));
+        assertEquals(2, recorder.count());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals(DefaultSingleSignOnSession.LOGOUT_REQUEST_PARAMETER + "=logout-session1", request.getBody().readUtf8());
+    }
+
+    @Test
+    public void testRetryOnIOException() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        recorder.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        assertCompletedOnce(dispatch("session1"));
+        assertEquals(2, recorder.count());
+    }
+
+    @Test
+    public void testNoRetryOnClientError() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        recorder.enqueue(new MockResponse().setResponseCode(404));
+
+        assertCompletedOnce(dispatch("session1"));
+        assertEquals(1, recorder.count());
+    }
+
+    @Test
+    public void testExponentialBackoff() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 10000, 3, 100);
+        for (int i = 0; i < 4; i++) {
+            recorder.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        assertCompletedOnce(dispatch("session1"));
+        List<Long> times = recorder.times();
+        assertEquals("Initial attempt and 3 retries", 4, times.size());
+        for (int i = 1; i < times.size(); i++) {
+            long delay = TimeUnit.NANOSECONDS.toMillis(times.get(i) - times.get(i - 1));
+            long expected = 100L << (i - 1);
+            assertTrue("Retry " + i + " after " + delay + " ms, expected " + expected + " ms", delay >= expected - 10);
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        // the second retry would be sent 300 ms after the first attempt, beyond the deadline
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 250, 5, 100);
+        for (int i = 0; i < 6; i++) {
+            recorder.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        long start = System.nanoTime();
+        assertCompletedOnce(dispatch("session1"));
+        assertEquals(2, recorder.count());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    }
+
+    @Test
+    public void testCompletionRunOnceForAllParticipants() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(2, 5000, 1, 10);
+        recorder.enqueue(new MockResponse().setResponseCode(503));
+        recorder.enqueue(new MockResponse().setResponseCode(404));
+
+        assertCompletedOnce(dispatch("session1", "session2", "session3", "session4"));
+        assertEquals(5, recorder.count());
+    }
+
+    @Test
+    public void testDispatchAfterClose() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        dispatcher.close();
+
+        // the rejected requests complete immediately
+        AtomicInteger completions = dispatch("session1", "session2");
+        assertEquals(1, completions.get());
+        assertEquals(0, recorder.count());
+    }
+
+    @Test
+    public void testParticipantsChangedDuringDispatch() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        Map<String, Map.Entry<String, URI>> live = new ConcurrentHashMap<>();
+        live.put("app-session1", new SimpleImmutableEntry<>("session1", logoutUri()));
+        live.put("app-session2", new SimpleImmutableEntry<>("session2", logoutUri()));
+        // a participant is removed concurrently once the participants are being iterated
+        Map<String, Map.Entry<String, URI>> participants = new AbstractMap<String, Map.Entry<String, URI>>() {
+            @Override
+            public Set<Map.Entry<String, Map.Entry<String, URI>>> entrySet() {
+                return new AbstractSet<Map.Entry<String, Map.Entry<String, URI>>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, Map.Entry<String, URI>>> iterator() {
+                        live.remove("app-session2");
+                        return live.entrySet().iterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return live.size();
+                    }
+                };
+            }
+        };
+
+        AtomicInteger completions = new AtomicInteger();
+        dispatcher.dispatch(createContext(dispatcher), participants, completions::incrementAndGet);
+        assertCompletedOnce(completions);
+        assertEquals(1, recorder.count());
+    }
+
+    @Test
+    public void testSingleSignOnInvalidatedOnceParticipantsLoggedOut() throws Exception {
+        dispatcher = new SingleSignOnLogoutDispatcher(4, 5000, 2, 10);
+        SecurityIdentity identity = SecurityDomain.builder().setDefaultRealmName("default").addRealm("default", SecurityRealm.EMPTY_REALM).build()
+                .setPermissionMapper((permissionMappable, roles) -> LoginPermission.getInstance())
+                .build()
+                .createAdHocIdentity("alice");
+
+        SingleSignOn sso = manager.create("FORM", false, identity);
+        sso.addParticipant("app2", "session2", logoutUri());
+        TestingScope sessionScope = new TestingScope("session1");
+        DefaultSingleSignOnSession session = new DefaultSingleSignOnSession(createContext(null), createRequest(sessionScope), sso);
+        session.put(identity);
+        assertNotNull(sessionScope.notificationConsumer.get());
+
+        // invalidating the local session sends the logout request to the other participant
+        sessionScope.notificationConsumer.get().accept(new HttpScopeNotification() {
+            @Override
+            public HttpScope getScope(Scope scope) {
+                return sessionScope;
+            }
+
+            @Override
+            public HttpScope getScope(Scope scope, String id) {
+                return null;
+            }
+
+            @Override
+            public boolean isOfType(Enum... types) {
+                for (Enum type : types) {
+                    if (type == SessionNotificationType.INVALIDATED) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals(DefaultSingleSignOnSession.LOGOUT_REQUEST_PARAMETER + "=logout-session2", request.getBody().readUtf8());
+        long timeout = System.currentTimeMillis() + 5000;
+        while (manager.find("sso") != null && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertNull("SSO invalidated once the logout requests completed", manager.find("sso"));
+    }
+
+    private AtomicInteger dispatch(String... sessionIds) {
+        Map<String, Map.Entry<String, URI>> participants = new HashMap<>();
+        for (String sessionId : sessionIds) {
+            participants.put("app-" + sessionId, new SimpleImmutableEntry<>(sessionId, logoutUri()));
+        }
+        AtomicInteger completions = new AtomicInteger();
+        dispatcher.dispatch(createContext(dispatcher), participants, completions::incrementAndGet);
+        return completions;
+    }
+
+    private void assertCompletedOnce(AtomicInteger completions) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (completions.get() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        // give a second completion a chance to happen
+        Thread.sleep(100);
+        assertEquals("Completion callback runs exactly once", 1, completions.get());
+    }
+
+    private URI logoutUri() {
+        return server.url(LOGOUT_PATH).uri();
+    }
+
+    private SingleSignOnSessionContext createContext(SingleSignOnLogoutDispatcher logoutDispatcher) {
+        return new SingleSignOnSessionContext() {
+            @Override
+            public SingleSignOnManager getSingleSignOnManager() {
+                return manager;
+            }
+
+            @Override
+            public String createLogoutParameter(String sessionId) {
+                return "logout-" + sessionId;
+            }
+
+            @Override
+            public String verifyLogoutParameter(String logoutRequest) {
+                return logoutRequest.substring("logout-".length());
+            }
+
+            @Override
+            public void configureLogoutConnection(HttpURLConnection connection) {
+            }
+
+            @Override
+            public SingleSignOnLogoutDispatcher getLogoutDispatcher() {
+                return logoutDispatcher != null ? logoutDispatcher : dispatcher;
+            }
+        };
+    }
+
+    private HttpServerRequest createRequest(HttpScope sessionScope) {
+        HttpScope applicationScope = new TestingScope("app1");
+        return (HttpServerRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { HttpServerRequest.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getScope":
+                            return args[0] == Scope.SESSION ? sessionScope : applicationScope;
+                        case "getRequestURI":
+                            return URI.create("http://localhost/app1");
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static final class TestingScope implements HttpScope {
+
+        private final String id;
+        final AtomicReference<Consumer<HttpScopeNotification>> notificationConsumer = new AtomicReference<>();
+
+        TestingScope(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getID() {
+            return id;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public boolean supportsNotifications() {
+            return true;
+        }
+
+        @Override
+        public void registerForNotification(Consumer<HttpScopeNotification> notificationConsumer) {
+            this.notificationConsumer.set(notificationConsumer);
+        }
+    }
+
+    /**
+     * Answers the queued responses in order, then {@code 200 OK}, recording the time each request arrived.
+     */
+    static final class RecordingDispatcher extends Dispatcher {
+
+        private final Queue<MockResponse> responses = new ConcurrentLinkedQueue<>();
+        private final List<Long> times = Collections.synchronizedList(new ArrayList<>());
+
+        void enqueue(MockResponse response) {
+            responses.add(response);
+        }
+
+        int count() {
+            return times.size();
+        }
+
+        List<Long> times() {
+            synchronized (times) {
+                return new ArrayList<>(times);
+            }
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            times.add(System.nanoTime());
+            MockResponse response = responses.poll();
+            return response != null ? response : new MockResponse().setResponseCode(200);
+        }
+    }
+}
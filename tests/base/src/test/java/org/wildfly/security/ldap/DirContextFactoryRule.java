@@ -230,6 +230,11 @@ public class DirContextFactoryRule implements TestRule {
     }
 
     public ExceptionSupplier<DirContext, NamingException> create() {
+        DirContextFactory dirContextFactory = createDirContextFactory();
+        return () -> dirContextFactory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+    }
+
+    public DirContextFactory createDirContextFactory() {
         SocketFactory socketFactory;
         try {
             File workingDirCA = new File(CA_JKS_LOCATION);
@@ -250,12 +255,12 @@ public class DirContextFactoryRule implements TestRule {
             throw new IllegalStateException(e);
         }
 
-        return () -> SimpleDirContextFactoryBuilder.builder()
+        return SimpleDirContextFactoryBuilder.builder()
                         .setProviderUrl(String.format("ldap://localhost:%d/", LDAP_PORT))
                         .setSecurityPrincipal(SERVER_DN)
                         .setSecurityCredential(SERVER_CREDENTIAL)
                         .setSocketFactory(socketFactory)
-                        .build().obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+                        .build();
     }
 
     private LdapService startEmbeddedServer() {
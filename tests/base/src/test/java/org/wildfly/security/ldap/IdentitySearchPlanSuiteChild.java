@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.ldap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Test;
+import org.wildfly.common.function.ExceptionSupplier;
+import org.wildfly.security.auth.SupportLevel;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.ldap.AttributeMapping;
+import org.wildfly.security.auth.realm.ldap.LdapSecurityRealmBuilder;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.authz.Attributes;
+import org.wildfly.security.credential.PasswordCredential;
+import org.wildfly.security.evidence.PasswordGuessEvidence;
+import org.wildfly.security.password.interfaces.ClearPassword;
+
+/**
+ * Tests of the single search locating an identity of the LDAP realm, which is reused by the operations of the identity.
+ */
+public class IdentitySearchPlanSuiteChild {
+
+    private final AtomicInteger searchCount = new AtomicInteger();
+
+    @Test
+    public void testPlannedIdentityReused() throws Exception {
+        SecurityRealm securityRealm = createRealmBuilder(AttributeMapping.fromIdentity().from("sn").to("lastName").build())
+                .userPasswordCredentialLoader().build()
+                .build();
+
+        RealmIdentity realmIdentity = securityRealm.getRealmIdentity(new NamePrincipal("userWithAttributes"));
+        try {
+            assertTrue(realmIdentity.exists());
+            assertEquals(SupportLevel.SUPPORTED, realmIdentity.getCredentialAcquireSupport(PasswordCredential.class, ClearPassword.ALGORITHM_CLEAR, null));
+            PasswordCredential credential = realmIdentity.getCredential(PasswordCredential.class);
+            assertEquals("plainPassword", new String(credential.getPassword().castAs(ClearPassword.class).getPassword()));
+            assertTrue(realmIdentity.verifyEvidence(new PasswordGuessEvidence("plainPassword".toCharArray())));
+            Attributes attributes = realmIdentity.getAttributes();
+            assertEquals("My Last Name", attributes.get("lastName").get(0));
+        } finally {
+            realmIdentity.dispose();
+        }
+        assertEquals("The identity is located by a single search", 1, searchCount.get());
+    }
+
+    @Test
+    public void testPlannedIdentityMiss() throws Exception {
+        SecurityRealm securityRealm = createRealmBuilder()
+                .userPasswordCredentialLoader().build()
+                .build();
+
+        RealmIdentity realmIdentity = securityRealm.getRealmIdentity(new NamePrincipal("nonExistingUser"));
+        try {
+            assertFalse(realmIdentity.exists());
+            assertEquals(SupportLevel.UNSUPPORTED, realmIdentity.getCredentialAcquireSupport(PasswordCredential.class, ClearPassword.ALGORITHM_CLEAR, null));
+            assertNull(realmIdentity.getCredential(PasswordCredential.class));
+            assertFalse(realmIdentity.verifyEvidence(new PasswordGuessEvidence("plainPassword".toCharArray())));
+        } finally {
+            realmIdentity.dispose();
+        }
+        assertEquals("A missing identity is searched once", 1, searchCount.get());
+    }
+
+    @Test
+    public void testAttributeMappingOutsidePlan() throws Exception {
+        // the mapped attribute is needed in binary form by the evidence verifier, so it is searched for separately
+        SecurityRealm securityRealm = createRealmBuilder(AttributeMapping.fromIdentity().from("sn").to("lastName").build())
+                .x509EvidenceVerifier()
+                    .addEncodedCertificateVerifier("sn")
+                    .build()
+                .build();
+
+        RealmIdentity realmIdentity = securityRealm.getRealmIdentity(new NamePrincipal("userWithAttributes"));
+        try {
+            assertTrue(realmIdentity.exists());
+            Attributes attributes = realmIdentity.getAttributes();
+            assertEquals("My Last Name", attributes.get("lastName").get(0));
+        } finally {
+            realmIdentity.dispose();
+        }
+        assertEquals(2, searchCount.get());
+    }
+
+    private LdapSecurityRealmBuilder createRealmBuilder(AttributeMapping... attributeMappings) {
+        ExceptionSupplier<DirContext, NamingException> dirContextSupplier = LdapTestSuite.dirContextFactory.create();
+        return LdapSecurityRealmBuilder.builder()
+                .setDirContextSupplier(() -> countSearches(dirContextSupplier.get()))
+                .identityMapping()
+                    .setSearchDn("dc=elytron,dc=wildfly,dc=org")
+                    .searchRecursive()
+                    .setRdnIdentifier("uid")
+                    .map(attributeMappings)
+                    .build();
+    }
+
+    private DirContext countSearches(DirContext dirContext) {
+        return (DirContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { dirContext instanceof LdapContext ? LdapContext.class : DirContext.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("search")) {
+                        searchCount.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(dirContext, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
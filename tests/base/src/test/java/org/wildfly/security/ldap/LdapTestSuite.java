@@ -36,7 +36,9 @@ import org.junit.runners.Suite;
         PrincipalMappingSuiteChild.class,
         RoleMappingSuiteChild.class,
         KeyStoreSuiteChild.class,
-        LdapSecurityRealmIdentityCacheSuiteChild.class
+        LdapSecurityRealmIdentityCacheSuiteChild.class,
+        PooledDirContextFactorySuiteChild.class,
+        IdentitySearchPlanSuiteChild.class
 })
 public class LdapTestSuite {
     @ClassRule
@@ -0,0 +1,201 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2021 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.security.ldap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+
+import org.junit.Test;
+import org.wildfly.security.auth.principal.NamePrincipal;
+import org.wildfly.security.auth.realm.ldap.DirContextFactory;
+import org.wildfly.security.auth.realm.ldap.LdapSecurityRealmBuilder;
+import org.wildfly.security.auth.realm.ldap.PooledDirContextFactory;
+import org.wildfly.security.auth.realm.ldap.PooledDirContextFactoryBuilder;
+import org.wildfly.security.auth.server.RealmIdentity;
+import org.wildfly.security.auth.server.SecurityRealm;
+import org.wildfly.security.evidence.PasswordGuessEvidence;
+
+/**
+ * Test case testing {@link PooledDirContextFactory} against the embedded LDAP server.
+ */
+public class PooledDirContextFactorySuiteChild {
+
+    @Test
+    public void testContextsReused() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .build();
+        try {
+            SecurityRealm securityRealm = LdapSecurityRealmBuilder.builder()
+                    .setDirContextSupplier(() -> factory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE))
+                    .identityMapping()
+                        .setSearchDn("dc=elytron,dc=wildfly,dc=org")
+                        .setRdnIdentifier("uid")
+                        .build()
+                    .addDirectEvidenceVerification()
+                    .build();
+
+            for (int i = 0; i < 5; i++) {
+                RealmIdentity realmIdentity = securityRealm.getRealmIdentity(new NamePrincipal("plainUser"));
+                assertTrue(realmIdentity.exists());
+                assertTrue(realmIdentity.verifyEvidence(new PasswordGuessEvidence("plainPassword".toCharArray())));
+                assertFalse(realmIdentity.verifyEvidence(new PasswordGuessEvidence("wrongPassword".toCharArray())));
+            }
+
+            PooledDirContextFactory.Statistics search = factory.getSearchPoolStatistics();
+            assertEquals(1, search.getCreatedCount());
+            assertTrue(search.getBorrowedCount() >= 5);
+            assertEquals(0, search.getActiveCount());
+            assertEquals(1, search.getIdleCount());
+
+            PooledDirContextFactory.Statistics bind = factory.getBindPoolStatistics();
+            assertEquals(1, bind.getCreatedCount());
+            assertEquals(10, bind.getBorrowedCount());
+            assertEquals(0, bind.getActiveCount());
+        } finally {
+            factory.close();
+        }
+        assertEquals(factory.getSearchPoolStatistics().getCreatedCount(), factory.getSearchPoolStatistics().getDestroyedCount());
+        assertEquals(0, factory.getSearchPoolStatistics().getIdleCount());
+    }
+
+    @Test
+    public void testValidationAndMaxLifetime() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .setValidationInterval(0)
+                .setMaxLifetime(200)
+                .build();
+        try {
+            obtainAndClose(factory);
+            obtainAndClose(factory);
+            assertEquals(1, factory.getSearchPoolStatistics().getCreatedCount());
+            assertEquals(0, factory.getSearchPoolStatistics().getValidationFailureCount());
+
+            Thread.sleep(300);
+            obtainAndClose(factory);
+            assertEquals(2, factory.getSearchPoolStatistics().getCreatedCount());
+            assertEquals(1, factory.getSearchPoolStatistics().getDestroyedCount());
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .setMaxIdleTime(100)
+                .build();
+        try {
+            obtainAndClose(factory);
+            Thread.sleep(200);
+            obtainAndClose(factory);
+            assertEquals(2, factory.getSearchPoolStatistics().getCreatedCount());
+            assertEquals(1, factory.getSearchPoolStatistics().getEvictedCount());
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testPoolExhausted() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .setMaxSize(1)
+                .setMaxWait(100)
+                .build();
+        try {
+            DirContext context = factory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+            try {
+                factory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+                fail("Expected exception not thrown.");
+            } catch (NamingException expected) {
+            }
+            assertEquals(1, factory.getSearchPoolStatistics().getTimeoutCount());
+
+            factory.discardContext(context);
+            assertEquals(1, factory.getSearchPoolStatistics().getDestroyedCount());
+
+            obtainAndClose(factory);
+            assertEquals(2, factory.getSearchPoolStatistics().getCreatedCount());
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testMaxSizeSharedByReferralModes() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .setMaxSize(1)
+                .setMaxWait(100)
+                .build();
+        try {
+            obtainAndClose(factory, DirContextFactory.ReferralMode.IGNORE);
+            // the idle context of the other mode is closed to make room
+            obtainAndClose(factory, DirContextFactory.ReferralMode.FOLLOW);
+            assertEquals(2, factory.getSearchPoolStatistics().getCreatedCount());
+            assertEquals(1, factory.getSearchPoolStatistics().getEvictedCount());
+            assertEquals(1, factory.getSearchPoolStatistics().getIdleCount());
+
+            DirContext context = factory.obtainDirContext(DirContextFactory.ReferralMode.FOLLOW);
+            try {
+                factory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+                fail("Expected exception not thrown.");
+            } catch (NamingException expected) {
+            } finally {
+                context.close();
+            }
+            assertEquals(1, factory.getSearchPoolStatistics().getTimeoutCount());
+        } finally {
+            factory.close();
+        }
+    }
+
+    @Test
+    public void testObtainAfterClose() throws Exception {
+        PooledDirContextFactory factory = PooledDirContextFactoryBuilder.builder()
+                .setDirContextFactory(LdapTestSuite.dirContextFactory.createDirContextFactory())
+                .build();
+        obtainAndClose(factory);
+        factory.close();
+        try {
+            factory.obtainDirContext(DirContextFactory.ReferralMode.IGNORE);
+            fail("Expected exception not thrown.");
+        } catch (NamingException expected) {
+        }
+        assertEquals(1, factory.getSearchPoolStatistics().getCreatedCount());
+        assertEquals(1, factory.getSearchPoolStatistics().getDestroyedCount());
+    }
+
+    private static void obtainAndClose(PooledDirContextFactory factory) throws NamingException {
+        obtainAndClose(factory, DirContextFactory.ReferralMode.IGNORE);
+    }
+
+    private static void obtainAndClose(PooledDirContextFactory factory, DirContextFactory.ReferralMode mode) throws NamingException {
+        DirContext context = factory.obtainDirContext(mode);
+        context.getAttributes("dc=elytron,dc=wildfly,dc=org");
+        context.close();
+    }
+}
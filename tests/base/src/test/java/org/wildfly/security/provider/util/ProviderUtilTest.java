@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026 Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.security.provider.util;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.security.Provider;
+
+import org.junit.Test;
+import org.wildfly.security.password.PasswordFactory;
+import org.wildfly.security.password.WildFlyElytronPasswordProvider;
+import org.wildfly.security.password.interfaces.ClearPassword;
+
+public class ProviderUtilTest {
+
+    private static final String TYPE = "PasswordFactory";
+
+    @Test
+    public void testCachedServiceFollowsProviders() {
+        TestProvider first = new TestProvider("first");
+        TestProvider second = new TestProvider("second");
+        second.add("clear");
+
+        Provider.Service service = ProviderUtil.findProviderService(new Provider[] { first, second }, null, TYPE, "clear");
+        assertSame(second, service.getProvider());
+        assertSame(service, ProviderUtil.findProviderService(new Provider[] { first, second }, null, TYPE, "clear"));
+        assertNull(ProviderUtil.findProviderService(new Provider[] { first, second }, "first", TYPE, "clear"));
+
+        first.add("clear");
+        assertSame(first, ProviderUtil.findProviderService(new Provider[] { first }, null, TYPE, "clear").getProvider());
+        assertSame(second, ProviderUtil.findProviderService(new Provider[] { second, first }, null, TYPE, "clear").getProvider());
+
+        second.remove("clear");
+        assertSame(first, ProviderUtil.findProviderService(new Provider[] { second, first }, null, TYPE, "clear").getProvider());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullProvider() {
+        ProviderUtil.findProviderService(new Provider[] { new TestProvider("first"), null }, null, TYPE, "clear");
+    }
+
+    @Test
+    public void testPasswordFactorySpiReused() throws Exception {
+        Provider provider = WildFlyElytronPasswordProvider.getInstance();
+        Provider.Service service = provider.getService(TYPE, ClearPassword.ALGORITHM_CLEAR);
+        assertSame(service.newInstance(null), service.newInstance(null));
+        assertSame(provider, PasswordFactory.getInstance(ClearPassword.ALGORITHM_CLEAR, () -> new Provider[] { provider }).getProvider());
+    }
+
+    static final class TestProvider extends Provider {
+
+        private static final long serialVersionUID = 1L;
+
+        TestProvider(String name) {
+            super(name, "1.0", name);
+        }
+
+        void add(String algorithm) {
+            putService(new Service(this, TYPE, algorithm, "org.wildfly.security.password.impl.PasswordFactorySpiImpl", null, null));
+        }
+
+        void remove(String algorithm) {
+            removeService(getService(TYPE, algorithm));
+        }
+    }
+}
@@ -33,10 +33,13 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.SocketException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.security.Principal;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -774,6 +777,123 @@ public class SSLAuthenticationTest {
         }
     }
 
+    @Test
+    public void testClientSideOcspCached() throws Throwable {
+        SSLContext serverContextGood = new SSLContextBuilder()
+                .setKeyManager(getKeyManager("/jks/ocsp-checked-good.keystore"))
+                .build().create();
+
+        SSLContext serverContextRevoked = new SSLContextBuilder()
+                .setKeyManager(getKeyManager("/jks/ocsp-checked-revoked.keystore"))
+                .build().create();
+
+        SSLContext clientContext = new SSLContextBuilder()
+                .setTrustManager(X509RevocationTrustManager.builder()
+                        .setTrustManagerFactory(getTrustManagerFactory())
+                        .setTrustStore(createKeyStore("/jks/ca.truststore"))
+                        .setOcspResponderCert(ocspResponderCertificate)
+                        .setCacheOcspResponses(true)
+                        .build())
+                .setClientMode(true)
+                .build().create();
+
+        // the second handshake uses the cached response, or fetches it again if the responder sent no next update time
+        testCommunication(serverContextGood, clientContext, "OU=Elytron,O=Elytron,C=UK,ST=Elytron,CN=ocspCheckedGood", null, true);
+        testCommunication(serverContextGood, clientContext, "OU=Elytron,O=Elytron,C=UK,ST=Elytron,CN=ocspCheckedGood", null, true);
+        try {
+            testCommunication(serverContextRevoked, clientContext, null, null, true);
+            fail("Expected SSLHandshakeException not thrown");
+        } catch (SSLHandshakeException expected) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testClientSideOcspDeadline() throws Throwable {
+        SSLContext serverContext = new SSLContextBuilder()
+                .setKeyManager(getKeyManager("/jks/ocsp-checked-good.keystore"))
+                .build().create();
+
+        // a responder which accepts connections but never answers
+        try (ServerSocket silentResponder = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            URI responderUri = URI.create("http://127.0.0.1:" + silentResponder.getLocalPort() + "/ocsp");
+
+            SSLContext softFailContext = new SSLContextBuilder()
+                    .setTrustManager(X509RevocationTrustManager.builder()
+                            .setTrustManagerFactory(getTrustManagerFactory())
+                            .setTrustStore(createKeyStore("/jks/ca.truststore"))
+                            .setResponderURI(responderUri)
+                            .setCacheOcspResponses(true)
+                            .setOcspDeadline(500)
+                            .setSoftFail(true)
+                            .build())
+                    .setClientMode(true)
+                    .build().create();
+
+            testCommunication(serverContext, softFailContext, "OU=Elytron,O=Elytron,C=UK,ST=Elytron,CN=ocspCheckedGood", null, true);
+
+            SSLContext hardFailContext = new SSLContextBuilder()
+                    .setTrustManager(X509RevocationTrustManager.builder()
+                            .setTrustManagerFactory(getTrustManagerFactory())
+                            .setTrustStore(createKeyStore("/jks/ca.truststore"))
+                            .setResponderURI(responderUri)
+                            .setCacheOcspResponses(true)
+                            .setOcspDeadline(500)
+                            .setNoFallback(true)
+                            .build())
+                    .setClientMode(true)
+                    .build().create();
+
+            try {
+                testCommunication(serverContext, hardFailContext, null, null, true);
+                fail("Expected SSLHandshakeException not thrown");
+            } catch (SSLHandshakeException expected) {
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void testClientSideCrlRefresh() throws Throwable {
+        File crlFile = new File(WORKING_DIR_CACRL, "refreshed.pem");
+        Files.copy(BLANK_BLANK_PEM_CRL.toPath(), crlFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try {
+            SSLContext serverContext = new SSLContextBuilder()
+                    .setKeyManager(getKeyManager("/jks/firefly.keystore"))
+                    .build().create();
+
+            SSLContext clientContext = new SSLContextBuilder()
+                    .setTrustManager(X509RevocationTrustManager.builder()
+                            .setTrustManagerFactory(getTrustManagerFactory())
+                            .setTrustStore(createKeyStore("/jks/ca.truststore"))
+                            .setCrlURIs(Collections.singletonList(crlFile.toURI()))
+                            .setCrlRefreshInterval(1000)
+                            .setPreferCrls(true)
+                            .setNoFallback(true)
+                            .build())
+                    .setClientMode(true)
+                    .build().create();
+
+            testCommunication(serverContext, clientContext, "OU=Elytron,O=Elytron,C=UK,ST=Elytron,CN=Firefly", null, true);
+
+            Files.copy(FIREFLY_REVOKED_PEM_CRL.toPath(), crlFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (true) {
+                try {
+                    testCommunication(serverContext, clientContext, "OU=Elytron,O=Elytron,C=UK,ST=Elytron,CN=Firefly", null, true);
+                } catch (SSLHandshakeException expected) {
+                    break;
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Refreshed certificate revocation list not used");
+                }
+                Thread.sleep(200);
+            }
+        } finally {
+            crlFile.delete();
+        }
+    }
+
     private void performConnectionTest(SSLContext serverContext, String clientUri, boolean expectValid, String expectedServerPrincipal, String expectedClientPrincipal, boolean oneWay) throws Throwable {
         System.setProperty("wildfly.config.url", SSLAuthenticationTest.class.getResource("wildfly-ssl-test-config-v1_7.xml").toExternalForm());
         AccessController.doPrivileged((PrivilegedAction<Integer>) () -> Security.insertProviderAt(WildFlyElytronPasswordProvider.getInstance(), 1));
@@ -428,6 +428,9 @@ public interface ElytronToolMessages extends BasicLogger {
     @Message(id = NONE, value = "Provides a detailed summary of all operations performed, once the command finishes.")
     String cmdFileSystemRealmSummaryDesc();
 
+    @Message(id = NONE, value = "The number of identities created in parallel. Defaults to the number of available processors.")
+    String cmdFileSystemRealmParallelismDesc();
+
     @Message(id = NONE, value = "No users file specified. Please use either --bulk-convert <file> or specify a users file using --users-file <file>")
     MissingOptionException missingUsersFile();
 
@@ -440,6 +443,9 @@ public interface ElytronToolMessages extends BasicLogger {
     @Message(id = NONE, value = "Both --bulk-convert and one or more of --users-file, --roles-file, and/or --output-location were specified. Please only use --bulk-convert or all of --users-file, --roles-file, and --output-location.")
     MissingOptionException mutuallyExclusiveOptionsSpecified();
 
+    @Message(id = NONE, value = "Invalid parallelism %s, it must be a number greater than 0.")
+    IllegalArgumentException invalidParallelism(String parallelism);
+
     @Message(id = NONE, value = "No value found for %s.")
     String noValueFound(String param);
 
@@ -30,7 +30,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import org.apache.commons.cli.CommandLine;
@@ -42,9 +45,8 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.lang3.ArrayUtils;
 import org.wildfly.common.iteration.ByteIterator;
 import org.wildfly.security.WildFlyElytronProvider;
-import org.wildfly.security.auth.principal.NamePrincipal;
 import org.wildfly.security.auth.realm.FileSystemSecurityRealm;
-import org.wildfly.security.auth.server.ModifiableRealmIdentity;
+import org.wildfly.security.auth.realm.FileSystemSecurityRealm.IdentityDefinition;
 import org.wildfly.security.authz.MapAttributes;
 import org.wildfly.security.credential.PasswordCredential;
 import org.wildfly.security.password.PasswordFactory;
@@ -74,9 +76,11 @@ class FileSystemRealmCommand extends Command {
     private static final String FILESYSTEM_REALM_NAME_PARAM = "filesystem-realm-name";
     private static final String SECURITY_DOMAIN_NAME_PARAM = "security-domain-name";
     private static final String BULK_CONVERT_PARAM = "bulk-convert";
+    private static final String PARALLELISM_PARAM = "parallelism";
     private static final String FILE_ARG = "file";
     private static final String DIRECTORY_ARG = "directory";
     private static final String NAME_ARG = "name";
+    private static final String NUMBER_ARG = "number";
     private static final String DEFAULT_FILESYSTEM_REALM_NAME = "converted-properties-filesystem-realm";
     private static final String DEFAULT_SECURITY_DOMAIN_NAME = "converted-properties-security-domain";
 
@@ -90,6 +94,7 @@ class FileSystemRealmCommand extends Command {
     private boolean summaryMode = false;
     private StringBuilder summaryString = null;
     private boolean warningOccurred = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
 
     FileSystemRealmCommand() {
         options = new Options();
@@ -119,6 +124,9 @@ class FileSystemRealmCommand extends Command {
         option.setArgName(NAME_ARG);
         options.addOption(option);
 
+        option = Option.builder().longOpt(PARALLELISM_PARAM).hasArg().argName(NUMBER_ARG).desc(ElytronToolMessages.msg.cmdFileSystemRealmParallelismDesc()).build();
+        options.addOption(option);
+
         option = Option.builder().longOpt(HELP_PARAM).desc(ElytronToolMessages.msg.cmdLineHelp()).build();
         options.addOption(option);
 
@@ -235,6 +243,18 @@ class FileSystemRealmCommand extends Command {
         }
         printDuplicatesWarning(cmdLine);
 
+        String parallelismOption = cmdLine.getOptionValue(PARALLELISM_PARAM);
+        if (parallelismOption != null) {
+            try {
+                parallelism = Integer.parseInt(parallelismOption);
+            } catch (NumberFormatException e) {
+                parallelism = 0;
+            }
+            if (parallelism < 1) {
+                errorHandler(ElytronToolMessages.msg.invalidParallelism(parallelismOption));
+            }
+        }
+
         String bulkConvert = cmdLine.getOptionValue("b");
         String usersFileOption = cmdLine.getOptionValue("u");
         String rolesFileOption = cmdLine.getOptionValue("r");
@@ -586,29 +606,71 @@ class FileSystemRealmCommand extends Command {
                     summaryString.append(System.getProperty("line.separator"));
                 }
             }
+            List<IdentityDefinition> identities = new ArrayList<>(usersMap.size());
+            PasswordFactory factory = PasswordFactory.getInstance(DigestPassword.ALGORITHM_DIGEST_MD5);
             usersMap.forEach((key,value) -> {
-                ModifiableRealmIdentity identity = newFileSystemRealm.getRealmIdentityForUpdate(new NamePrincipal(key));
+                MapAttributes attributes = new MapAttributes();
+                attributes.addAll("roles", value.subList(1, value.size()));
+                List<PasswordCredential> credentials = Collections.emptyList();
                 try {
-                    identity.create();
-                    MapAttributes attributes = new MapAttributes();
-                    attributes.addAll("roles", value.subList(1, value.size()));
-                    identity.setAttributes(attributes);
                     String password = value.get(0);
                     if (password != null) {
                         byte[] hashed = ByteIterator.ofBytes(password.getBytes(StandardCharsets.UTF_8)).asUtf8String().hexDecode().drain();
                         PasswordSpec passwordSpec = new DigestPasswordSpec(key, descriptor.getRealmName(), hashed);
-                        PasswordFactory factory = PasswordFactory.getInstance(DigestPassword.ALGORITHM_DIGEST_MD5);
                         DigestPassword digestPassword = (DigestPassword) factory.generatePassword(passwordSpec);
-                        identity.setCredentials(Collections.singleton(new PasswordCredential(digestPassword)));
+                        credentials = Collections.singletonList(new PasswordCredential(digestPassword));
                     }
-                    identity.dispose();
                 } catch (NullPointerException e) {
                     warningHandler(String.format("Could not read realm name from the users file"));
                 } catch (Exception e) {
                     warningHandler(String.format("Could not create realm for user %s due to error: ", key) + e.getMessage());
                 }
+                identities.add(new IdentityDefinition(key, credentials, attributes));
+            });
+            createIdentities(newFileSystemRealm, identities);
+        }
+    }
+
+    /**
+     * Creates the identities in the filesystem-realm in parallel, reporting the progress once per second unless silent
+     *
+     * @param realm the filesystem-realm
+     * @param identities the identities to create
+     */
+    private void createIdentities(FileSystemSecurityRealm realm, List<IdentityDefinition> identities) throws Exception {
+        final int total = identities.size();
+        final long start = System.nanoTime();
+        final AtomicLong created = new AtomicLong();
+        final AtomicLong lastReport = new AtomicLong(start);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final Map<String, Exception> failures;
+        try {
+            failures = realm.createIdentities(identities, pool, count -> {
+                long done = created.addAndGet(count);
+                long now = System.nanoTime();
+                long last = lastReport.get();
+                if (!silentMode && now - last >= TimeUnit.SECONDS.toNanos(1) && lastReport.compareAndSet(last, now)) {
+                    System.out.println(String.format("Processed %d of %d identities (%.0f identities/s)", done, total, throughput(done, now - start)));
+                }
             });
+        } finally {
+            pool.shutdown();
+        }
+        failures.forEach((key, e) -> warningHandler(String.format("Could not create realm for user %s due to error: ", key) + e.getMessage()));
+        final long elapsed = System.nanoTime() - start;
+        final String report = String.format("Created %d identities in %d ms (%.0f identities/s)", total - failures.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed), throughput(total, elapsed));
+        if (!silentMode) {
+            System.out.println(report);
         }
+        if (summaryMode) {
+            summaryString.append(report);
+            summaryString.append(System.getProperty("line.separator"));
+        }
+    }
+
+    private static double throughput(long count, long nanos) {
+        return nanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
     }
 
     /**
@@ -449,6 +449,20 @@ public class FileSystemRealmCommandTest extends AbstractCommandTest {
         executeCommandAndCheckStatus(requiredArgs, EXPECTED_ERROR);
     }
 
+    @Test
+    public void testInvalidParallelism() throws Exception {
+        exception.expect(RuntimeException.class);
+        exception.expectMessage(ElytronToolMessages.msg.invalidParallelism("0").getMessage());
+
+        String usersFile = ABSOLUTE_BASE_DIR_USERS + "users-1.properties";
+        String rolesFile = ABSOLUTE_BASE_DIR_ROLES + "roles-1.properties";
+        String outputLocation = ABSOLUTE_BASE_DIR + "output-9";
+
+        String[] requiredArgs;
+        requiredArgs = new String[]{"--users-file", usersFile, "--roles-file", rolesFile, "--output-location", outputLocation, "--parallelism", "0"};
+        executeCommandAndCheckStatus(requiredArgs, EXPECTED_ERROR);
+    }
+
     @Test
     public void testNoOutputLocation() throws Exception {
         exception.expect(RuntimeException.class);